@@ -8,6 +8,8 @@
 plugins {
     // Apply the application plugin to add support for building a CLI application in Java.
     application
+    // JMH benchmarks in src/jmh/java, run with ./gradlew jmh
+    alias(libs.plugins.jmh)
 }
 
 repositories {
@@ -35,12 +37,59 @@ java {
     }
 }
 
+// RateSensitivitySweep uses the incubating Vector API.
+val vectorModuleArgs = listOf("--add-modules", "jdk.incubator.vector")
+
+tasks.withType<JavaCompile>().configureEach {
+    options.compilerArgs.addAll(vectorModuleArgs)
+}
+
 application {
     // Define the main class for the application.
     mainClass = "creditpay.SwingApp"
+    applicationDefaultJvmArgs = vectorModuleArgs
+}
+
+// Headless batch mode: ./gradlew runBatch --args="<input-dir> <output-dir> --format=csv"
+tasks.register<JavaExec>("runBatch") {
+    group = "application"
+    description = "Recalculates every loan book in a directory without the UI."
+    classpath = sourceSets["main"].runtimeClasspath
+    mainClass = "creditpay.App"
+    jvmArgs(vectorModuleArgs)
+    // ./gradlew runBatch -Pjfr=batch.jfr records the creditpay.* pipeline events
+    providers.gradleProperty("jfr").orNull?.let { jvmArgs("-XX:StartFlightRecording=filename=$it,settings=profile") }
+}
+
+// JSON schedule service: ./gradlew runServer --args="--port=8080"
+tasks.register<JavaExec>("runServer") {
+    group = "application"
+    description = "Serves payment schedules over HTTP on virtual threads."
+    classpath = sourceSets["main"].runtimeClasspath
+    mainClass = "creditpay.server.ScheduleServer"
+    jvmArgs(vectorModuleArgs)
+}
+
+// Load test against a running server: ./gradlew loadTest --args="--concurrency=64 --duration=10"
+tasks.register<JavaExec>("loadTest") {
+    group = "application"
+    description = "Measures p50/p99 latency and requests per second of the schedule service."
+    classpath = sourceSets["main"].runtimeClasspath
+    mainClass = "creditpay.server.LoadTestClient"
 }
 
 tasks.named<Test>("test") {
     // Use JUnit Platform for unit tests.
     useJUnitPlatform()
+    jvmArgs(vectorModuleArgs)
+}
+
+jmh {
+    jmhVersion = libs.versions.jmh
+    // allocation rate per benchmark: gc.alloc.rate and gc.alloc.rate.norm
+    profilers.add("gc")
+    jvmArgsAppend.addAll(vectorModuleArgs)
+    resultFormat = "JSON"
+    // ./gradlew jmh -PjmhIncludes=CalculatorBenchmark runs a subset
+    providers.gradleProperty("jmhIncludes").orNull?.let { includes.add(it) }
 }
@@ -0,0 +1,81 @@
+package creditpay.calculator;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import creditpay.model.CreditTerms;
+import creditpay.model.InterestPeriod;
+import creditpay.model.Payment;
+import creditpay.model.PaymentSchedule;
+
+/**
+ * Time per schedule for every calculator and term, in each calculation mode.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CalculatorBenchmark {
+    @Param({"Annuity", "Differentiated", "AtTheLastMoment"})
+    public String method;
+
+    @Param({"12", "60", "120", "240", "360", "600"})
+    public int termMonths;
+
+    private MortgageScheduleCalculator calculator;
+    private CreditTerms terms;
+
+    @Setup
+    public void setUp() {
+        calculator = switch (method) {
+            case "Annuity" -> new AnnuityCalculator();
+            case "Differentiated" -> new DifferentiatedCalculator();
+            case "AtTheLastMoment" -> new AtTheLastMomentCalculator();
+            default -> throw new IllegalArgumentException("Unknown method " + method);
+        };
+        terms = new CreditTerms(new BigDecimal("9200000.00"), termMonths, new BigDecimal("7.45"),
+                new InterestPeriod(26), LocalDate.of(2022, 9, 22));
+    }
+
+    @Benchmark
+    public List<Payment> calculateSchedule() {
+        return calculator.calculateSchedule(terms);
+    }
+
+    @Benchmark
+    public void iterateSchedule(Blackhole blackhole) {
+        Iterator<Payment> payments = calculator.iterateSchedule(terms);
+        while (payments.hasNext()) {
+            blackhole.consume(payments.next());
+        }
+    }
+
+    @Benchmark
+    public PaymentSchedule calculatePaymentSchedule() {
+        return calculator.calculatePaymentSchedule(terms);
+    }
+
+    @Benchmark
+    public void calculateFixedPointSchedule(Blackhole blackhole) {
+        calculator.calculateFixedPointSchedule(terms,
+                (index, days, epochDay, total, interest, principal, remaining) -> blackhole.consume(remaining));
+    }
+}
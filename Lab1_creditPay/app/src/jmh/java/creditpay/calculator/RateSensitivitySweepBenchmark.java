@@ -0,0 +1,66 @@
+package creditpay.calculator;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Vector against scalar evaluation of a rate x term grid.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RateSensitivitySweepBenchmark {
+    private static final double _principal = 9_200_000.0;
+
+    @Param({"64", "512"})
+    public int rateCount;
+
+    private double[] annualRatesPercent;
+    private int[] termMonths;
+
+    @Setup
+    public void setUp() {
+        annualRatesPercent = new double[rateCount];
+        for (int i = 0; i < rateCount; i++) {
+            annualRatesPercent[i] = 1.0 + i * 0.05;
+        }
+        termMonths = new int[AnnuityFactorTable.DEFAULT_MAX_TERM];
+        for (int i = 0; i < termMonths.length; i++) {
+            termMonths[i] = i + 1;
+        }
+    }
+
+    @Benchmark
+    public RateSensitivitySweep.Result annuityVector() {
+        return RateSensitivitySweep.annuity(_principal, annualRatesPercent, termMonths);
+    }
+
+    @Benchmark
+    public RateSensitivitySweep.Result annuityScalar() {
+        return RateSensitivitySweep.annuityScalar(_principal, annualRatesPercent, termMonths);
+    }
+
+    @Benchmark
+    public RateSensitivitySweep.Result differentiatedVector() {
+        return RateSensitivitySweep.differentiated(_principal, annualRatesPercent, termMonths);
+    }
+
+    @Benchmark
+    public RateSensitivitySweep.Result differentiatedScalar() {
+        return RateSensitivitySweep.differentiatedScalar(_principal, annualRatesPercent, termMonths);
+    }
+}
@@ -0,0 +1,74 @@
+package creditpay.io;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import creditpay.calculator.AnnuityCalculator;
+import creditpay.calculator.MortgageScheduleCalculator;
+import creditpay.model.CreditTerms;
+import creditpay.model.Payment;
+import creditpay.model.PaymentSchedule;
+
+/**
+ * Reading the bundled sample workbooks and writing the annuity schedule of each.
+ * The files are read into memory once, so the numbers exclude disk access.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExcelIoBenchmark {
+    @Param({"small", "medium", "large"})
+    public String file;
+
+    private byte[] workbook;
+    private List<Payment> payments;
+    private PaymentSchedule schedule;
+
+    @Setup
+    public void setUp() throws Exception {
+        String resource = "/excel/" + file + ".xlsx";
+        try (InputStream in = ExcelIoBenchmark.class.getResourceAsStream(resource)) {
+            if (in == null) {
+                throw new IllegalStateException("Resource " + resource + " not found");
+            }
+            workbook = in.readAllBytes();
+        }
+        CreditTerms terms = ExcelCreditTermsReader.read(new ByteArrayInputStream(workbook));
+        MortgageScheduleCalculator calculator = new AnnuityCalculator();
+        payments = calculator.calculateSchedule(terms);
+        schedule = calculator.calculatePaymentSchedule(terms);
+    }
+
+    @Benchmark
+    public CreditTerms read() throws Exception {
+        return ExcelCreditTermsReader.read(new ByteArrayInputStream(workbook));
+    }
+
+    @Benchmark
+    public void writePayments() throws Exception {
+        ExcelPaymentWriter.write(payments, OutputStream.nullOutputStream());
+    }
+
+    @Benchmark
+    public void writePaymentSchedule() throws Exception {
+        ExcelPaymentWriter.write(schedule, OutputStream.nullOutputStream());
+    }
+}
@@ -0,0 +1,103 @@
+package creditpay.io;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import creditpay.calculator.AnnuityCalculator;
+import creditpay.calculator.MortgageScheduleCalculator;
+import creditpay.model.CreditTerms;
+import creditpay.model.PaymentSchedule;
+
+/**
+ * CSV and binary export of a bundled sample loan, scaled up by writing its schedule
+ * {@code copies} times into one file. Divide the file size printed at tear-down by the
+ * time per operation for the write throughput.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PaymentExportBenchmark {
+    @Param({"small", "large"})
+    public String file;
+
+    @Param({"1000", "10000"})
+    public int copies;
+
+    private MortgageScheduleCalculator calculator;
+    private CreditTerms terms;
+    private PaymentSchedule schedule;
+    private Path directory;
+
+    @Setup
+    public void setUp() throws Exception {
+        try (InputStream in = PaymentExportBenchmark.class.getResourceAsStream("/excel/" + file + ".xlsx")) {
+            terms = ExcelCreditTermsReader.read(in);
+        }
+        calculator = new AnnuityCalculator();
+        schedule = calculator.calculatePaymentSchedule(terms);
+        directory = Files.createTempDirectory("payment-export");
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        for (String name : new String[] {"schedule.csv", "schedule.bin"}) {
+            Path path = directory.resolve(name);
+            if (Files.exists(path)) {
+                System.out.printf("%n%s: %d bytes%n", name, Files.size(path));
+                Files.delete(path);
+            }
+        }
+        Files.delete(directory);
+    }
+
+    @Benchmark
+    public long csv() throws Exception {
+        try (CsvPaymentWriter writer = CsvPaymentWriter.open(directory.resolve("schedule.csv"))) {
+            for (int i = 0; i < copies; i++) {
+                writer.write(schedule);
+            }
+            return writer.bytesWritten();
+        }
+    }
+
+    /**
+     * Calculation and export in one pass: the writer is the fixed-point sink.
+     */
+    @Benchmark
+    public long csvWhileCalculating() throws Exception {
+        try (CsvPaymentWriter writer = CsvPaymentWriter.open(directory.resolve("schedule.csv"))) {
+            for (int i = 0; i < copies; i++) {
+                calculator.calculateFixedPointSchedule(terms, writer);
+            }
+            return writer.bytesWritten();
+        }
+    }
+
+    @Benchmark
+    public long binary() throws Exception {
+        try (BinaryPaymentWriter writer = BinaryPaymentWriter.open(directory.resolve("schedule.bin"))) {
+            for (int i = 0; i < copies; i++) {
+                writer.write(schedule);
+            }
+            return writer.bytesWritten();
+        }
+    }
+}
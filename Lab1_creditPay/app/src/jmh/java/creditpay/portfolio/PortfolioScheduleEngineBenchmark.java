@@ -0,0 +1,72 @@
+package creditpay.portfolio;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import creditpay.calculator.AnnuityCalculator;
+import creditpay.model.CreditTerms;
+import creditpay.model.InterestPeriod;
+
+/**
+ * Throughput of a portfolio run as the pool grows.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PortfolioScheduleEngineBenchmark {
+    private static final int _loanCount = 10_000;
+
+    @Param({"1", "2", "4", "8"})
+    public int poolSize;
+
+    private final AnnuityCalculator calculator = new AnnuityCalculator();
+    private List<CreditTerms> loans;
+    private ForkJoinPool pool;
+    private PortfolioScheduleEngine engine;
+
+    @Setup
+    public void setUp() {
+        loans = new ArrayList<>(_loanCount);
+        for (int i = 0; i < _loanCount; i++) {
+            loans.add(new CreditTerms(BigDecimal.valueOf(500_000 + 1_000L * (i % 500)), 12 + i % 348,
+                new BigDecimal("9.5"), new InterestPeriod(1 + i % 28), LocalDate.of(2024, 1 + i % 12, 1 + i % 28)));
+        }
+        pool = new ForkJoinPool(poolSize);
+        engine = new PortfolioScheduleEngine(pool);
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public PortfolioRunStats collection() {
+        return engine.run(loans, calculator);
+    }
+
+    @Benchmark
+    public PortfolioRunStats stream() {
+        return engine.run(loans.stream(), calculator, (terms, schedule) -> { });
+    }
+}
@@ -3,12 +3,40 @@
  */
 package creditpay;
 
+import java.util.List;
+
+import creditpay.batch.BatchOptions;
+import creditpay.batch.BatchPipeline;
+import creditpay.batch.BatchReport;
+import creditpay.calculator.CalculatorRegistry;
+import creditpay.calculator.MortgageScheduleCalculator;
+import creditpay.metrics.PipelineMetrics;
+
 public class App {
-    public String getGreeting() {
-        return "Hello World!";
+    public String getUsage() {
+        return "usage: App <input-dir> <output-dir> [--method=<name>|all] [--format=xlsx|csv|bin]"
+            + " [--readers=N] [--calculators=N] [--writers=N] [--queue=N]";
     }
 
-    public static void main(String[] args) {
-        System.out.println(new App().getGreeting());
+    public static void main(String[] args) throws Exception {
+        App app = new App();
+        BatchOptions options;
+        List<MortgageScheduleCalculator> calculators;
+        try {
+            options = BatchOptions.parse(args);
+            calculators = BatchPipeline.selectCalculators(CalculatorRegistry.load(), options.method);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(app.getUsage());
+            System.exit(2);
+            return;
+        }
+
+        PipelineMetrics.registerMBean();
+        BatchReport report = new BatchPipeline(options, calculators).run();
+        System.out.print(report);
+        if (!report.getErrors().isEmpty()) {
+            System.exit(1);
+        }
     }
 }
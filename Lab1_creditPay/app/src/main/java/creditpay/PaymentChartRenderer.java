@@ -0,0 +1,150 @@
+package creditpay;
+
+import creditpay.model.PaymentSchedule;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+
+/**
+ * Draws the stacked interest/principal chart of a schedule.
+ *
+ * <p>The chart is rendered once into an image, which is kept until the schedule or the
+ * size changes, so ordinary repaints only copy pixels. The scale is taken from the
+ * schedule once. When there are more payments than pixel columns, each column shows
+ * the largest payment of its bin. Peaks such as a balloon payment stay visible, and the
+ * cost of rendering depends on the width rather than the length of the schedule.
+ */
+class PaymentChartRenderer {
+    private static final int PADDING = 40;
+    /** Gap between bars that are wide enough to afford one. */
+    private static final int BAR_GAP = 2;
+    private static final Color INTEREST_COLOR = new Color(255, 0, 0, 150);
+    private static final Color PRINCIPAL_COLOR = new Color(0, 0, 255, 150);
+    private static final Font LEGEND_FONT = new Font("Arial", Font.PLAIN, 12);
+
+    private PaymentSchedule schedule;
+    private long maxPayment;
+    private BufferedImage image;
+    private int width;
+    private int height;
+
+    /**
+     * Paints the chart of {@code schedule} into a {@code width} x {@code height} area at the origin.
+     */
+    public void paint(Graphics2D g, PaymentSchedule schedule, int width, int height) {
+        if (schedule == null || schedule.isEmpty() || width <= 2 * PADDING || height <= 2 * PADDING) {
+            return;
+        }
+        // render at device resolution so the cached image stays sharp on HiDPI screens
+        AffineTransform transform = g.getTransform();
+        double scale = Math.max(transform.getScaleX(), 1);
+        g.drawImage(image(schedule, width, height, scale), 0, 0, width, height, null);
+    }
+
+    BufferedImage image(PaymentSchedule schedule, int width, int height, double scale) {
+        if (schedule != this.schedule) {
+            this.schedule = schedule;
+            maxPayment = maxPayment(schedule);
+            image = null;
+        }
+        int pixelWidth = (int) Math.ceil(width * scale);
+        int pixelHeight = (int) Math.ceil(height * scale);
+        if (image == null || width != this.width || height != this.height
+                || image.getWidth() != pixelWidth || image.getHeight() != pixelHeight) {
+            image = render(pixelWidth, pixelHeight, scale, width, height);
+            this.width = width;
+            this.height = height;
+        }
+        return image;
+    }
+
+    private static long maxPayment(PaymentSchedule schedule) {
+        long max = 1;
+        for (int i = 0; i < schedule.size(); i++) {
+            max = Math.max(max, schedule.totalPayment(i));
+        }
+        return max;
+    }
+
+    private BufferedImage render(int pixelWidth, int pixelHeight, double scale, int width, int height) {
+        BufferedImage rendered = new BufferedImage(pixelWidth, pixelHeight, BufferedImage.TYPE_INT_ARGB_PRE);
+        Graphics2D g2d = rendered.createGraphics();
+        try {
+            g2d.scale(scale, scale);
+            g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            drawAxes(g2d, width, height);
+            drawBars(g2d, width, height);
+            drawLegend(g2d, width);
+        } finally {
+            g2d.dispose();
+        }
+        return rendered;
+    }
+
+    private static void drawAxes(Graphics2D g2d, int width, int height) {
+        g2d.setColor(Color.BLACK);
+        g2d.drawLine(PADDING, height - PADDING, width - PADDING, height - PADDING); // X-axis
+        g2d.drawLine(PADDING, PADDING, PADDING, height - PADDING); // Y-axis
+    }
+
+    private void drawBars(Graphics2D g2d, int width, int height) {
+        int chartWidth = width - 2 * PADDING;
+        int chartHeight = height - 2 * PADDING;
+        int numPayments = schedule.size();
+        double pixelsPerKopeck = (double) chartHeight / maxPayment;
+
+        if (numPayments <= chartWidth) {
+            double barWidth = (double) chartWidth / numPayments;
+            int barPixels = barWidth >= 2 * BAR_GAP ? (int) barWidth - BAR_GAP : Math.max(1, (int) barWidth);
+            for (int i = 0; i < numPayments; i++) {
+                drawBar(g2d, i, PADDING + (int) (i * barWidth), barPixels, height, pixelsPerKopeck);
+            }
+            return;
+        }
+
+        // one pixel column per bin of payments, showing the largest payment of the bin
+        for (int column = 0; column < chartWidth; column++) {
+            int from = (int) ((long) column * numPayments / chartWidth);
+            int to = (int) ((long) (column + 1) * numPayments / chartWidth);
+            int peak = from;
+            for (int i = from + 1; i < to; i++) {
+                if (schedule.totalPayment(i) > schedule.totalPayment(peak)) {
+                    peak = i;
+                }
+            }
+            drawBar(g2d, peak, PADDING + column, 1, height, pixelsPerKopeck);
+        }
+    }
+
+    private void drawBar(Graphics2D g2d, int index, int x, int barPixels, int height, double pixelsPerKopeck) {
+        int totalHeight = (int) (schedule.totalPayment(index) * pixelsPerKopeck);
+        int interestHeight = (int) (schedule.interest(index) * pixelsPerKopeck);
+        // the rest of the bar, so that rounding leaves no gap above the axis
+        int principalHeight = totalHeight - interestHeight;
+        int top = height - PADDING - totalHeight;
+
+        g2d.setColor(INTEREST_COLOR);
+        g2d.fillRect(x, top, barPixels, interestHeight);
+        g2d.setColor(PRINCIPAL_COLOR);
+        g2d.fillRect(x, top + interestHeight, barPixels, principalHeight);
+    }
+
+    private static void drawLegend(Graphics2D g2d, int width) {
+        g2d.setColor(Color.BLACK);
+        g2d.setFont(LEGEND_FONT);
+        g2d.drawString("Principal", width - 150, 20);
+        g2d.fillRect(width - 160, 8, 10, 10);
+        g2d.setColor(PRINCIPAL_COLOR);
+        g2d.fillRect(width - 159, 9, 8, 8);
+
+        g2d.setColor(Color.BLACK);
+        g2d.drawString("Interest", width - 150, 40);
+        g2d.fillRect(width - 160, 28, 10, 10);
+        g2d.setColor(INTEREST_COLOR);
+        g2d.fillRect(width - 159, 29, 8, 8);
+    }
+}
@@ -0,0 +1,136 @@
+package creditpay;
+
+import creditpay.io.ExcelPaymentWriter;
+import creditpay.model.PaymentSchedule;
+
+import javax.swing.table.AbstractTableModel;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.math.BigDecimal;
+import java.text.NumberFormat;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Table model that reads the rows straight from a {@link PaymentSchedule}.
+ *
+ * <p>Nothing is copied or formatted up front: {@link javax.swing.JTable} asks only for
+ * the visible cells, and amounts are formatted on request with one cached formatter.
+ * Setting a schedule of any length is O(1) and costs no memory beyond the schedule itself.
+ *
+ * <p>While a schedule is being calculated its rows can be appended in parts; the
+ * finished schedule then replaces them. Like every Swing model, it is used on the EDT only.
+ */
+class PaymentTableModel extends AbstractTableModel {
+    private static final long serialVersionUID = 1L;
+    private static final String[] COLUMN_NAMES = {
+        ExcelPaymentWriter.HEADER_NUMBER,
+        ExcelPaymentWriter.HEADER_DAYS,
+        ExcelPaymentWriter.HEADER_DATE,
+        ExcelPaymentWriter.HEADER_TOTAL,
+        ExcelPaymentWriter.HEADER_INTEREST,
+        ExcelPaymentWriter.HEADER_PRINCIPAL,
+        ExcelPaymentWriter.HEADER_REMAINING
+    };
+    private static final Class<?>[] COLUMN_CLASSES = {
+        Integer.class, Integer.class, LocalDate.class,
+        String.class, String.class, String.class, String.class
+    };
+
+    private final NumberFormat amountFormat = createAmountFormat();
+    /** Parts of equal size in row order, only the last may be shorter. Schedules are not serialized. */
+    private transient List<PaymentSchedule> parts = new ArrayList<>();
+    private transient int rowCount;
+
+    /**
+     * A deserialized model is empty: the schedules it showed are not part of the stream.
+     */
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        parts = new ArrayList<>();
+    }
+
+    static NumberFormat createAmountFormat() {
+        NumberFormat format = NumberFormat.getInstance(Locale.US);
+        format.setMaximumFractionDigits(2);
+        format.setMinimumFractionDigits(2);
+        return format;
+    }
+
+    /**
+     * Shows {@code schedule}, or an empty table for {@code null}.
+     */
+    public void setSchedule(PaymentSchedule schedule) {
+        parts.clear();
+        rowCount = 0;
+        if (schedule != null && !schedule.isEmpty()) {
+            parts.add(schedule);
+            rowCount = schedule.size();
+        }
+        fireTableDataChanged();
+    }
+
+    /**
+     * Appends the next rows of a schedule being calculated. Every part but the last
+     * must have the size of the first one.
+     */
+    public void appendRows(PaymentSchedule part) {
+        if (part.isEmpty()) {
+            return;
+        }
+        if (!parts.isEmpty() && parts.get(parts.size() - 1).size() != parts.get(0).size()) {
+            throw new IllegalStateException("rows were appended after a shorter part");
+        }
+        int firstRow = rowCount;
+        parts.add(part);
+        rowCount += part.size();
+        fireTableRowsInserted(firstRow, rowCount - 1);
+    }
+
+    public void clear() {
+        setSchedule(null);
+    }
+
+    @Override
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMN_NAMES.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMN_NAMES[column];
+    }
+
+    @Override
+    public Class<?> getColumnClass(int column) {
+        return COLUMN_CLASSES[column];
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        int partSize = parts.get(0).size();
+        PaymentSchedule part = parts.get(row / partSize);
+        int index = row % partSize;
+        return switch (column) {
+            case 0 -> row + 1;
+            case 1 -> part.daysOfBorrowing(index);
+            case 2 -> part.paymentDate(index);
+            case 3 -> formatKopecks(part.totalPayment(index));
+            case 4 -> formatKopecks(part.interest(index));
+            case 5 -> formatKopecks(part.principalRepaid(index));
+            case 6 -> formatKopecks(part.remainingDebt(index));
+            default -> throw new IndexOutOfBoundsException("column " + column);
+        };
+    }
+
+    private String formatKopecks(long kopecks) {
+        return amountFormat.format(BigDecimal.valueOf(kopecks, 2));
+    }
+}
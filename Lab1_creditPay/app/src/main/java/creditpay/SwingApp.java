@@ -1,15 +1,18 @@
 package creditpay;
 
 import creditpay.calculator.MortgageScheduleCalculator;
+import creditpay.calculator.CalculatorComparison;
 import creditpay.calculator.CalculatorRegistry;
+import creditpay.calculator.ScheduleCache;
 import creditpay.io.ExcelCreditTermsReader;
 import creditpay.io.ExcelPaymentWriter;
+import creditpay.metrics.PipelineMetrics;
 import creditpay.model.CreditTerms;
-import creditpay.model.Payment;
+import creditpay.model.FixedPointPaymentSink;
+import creditpay.model.PaymentSchedule;
 
 import javax.swing.*;
 import javax.swing.filechooser.FileNameExtensionFilter;
-import javax.swing.table.DefaultTableModel;
 import javax.swing.table.JTableHeader;
 import javax.swing.table.TableCellRenderer;
 import java.awt.*;
@@ -20,59 +23,90 @@ import java.io.FileOutputStream;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.text.NumberFormat;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.HashMap;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 
 public class SwingApp {
     private static final Color SUCCESSFUL_TEXT_COLOR = new Color(0, 120, 0);
     private static final File DEFAULT_INPUT_DIR = new File("build/resources/main/excel");
     private static final File DEFAULT_OUTPUT_DIR = new File("build/output");
+    private static final long SCHEDULE_CACHE_ROWS = 100_000;
+    /** Rows handed to the table at once while a schedule is being calculated. */
+    private static final int PUBLISH_CHUNK_ROWS = 256;
+    private static final int ELAPSED_REFRESH_MILLIS = 100;
 
     private JFrame frame;
     private JLabel fileLabel;
     private JLabel statusLabel;
+    private JProgressBar progressBar;
+    private JButton cancelButton;
+    private JButton browseButton;
+    private Timer elapsedTimer;
+    private BackgroundTask<?, ?> currentTask;
     private JScrollPane scrollPane;
-    private DefaultTableModel tableModel;
+    private PaymentTableModel tableModel;
+    private final NumberFormat currencyFormat = PaymentTableModel.createAmountFormat();
+    private final PaymentChartRenderer chartRenderer = new PaymentChartRenderer();
     private JButton calculateButton;
     private JButton saveButton;
+    private JButton compareButton;
     private JPanel chartPanel;
     private CreditTerms creditTerms;
-    private List<Payment> currentPayments;
+    private PaymentSchedule currentSchedule;
     private ButtonGroup methodButtonsGroup;
     private Map<JRadioButton, MortgageScheduleCalculator> methodsMap;
+    private List<MortgageScheduleCalculator> calculators;
+    private final ScheduleCache<PaymentSchedule> scheduleCache = ScheduleCache.forPaymentSchedules(SCHEDULE_CACHE_ROWS);
 
     public static void main(String[] args) {
+        PipelineMetrics.registerMBean();
         SwingUtilities.invokeLater(() -> new SwingApp().createAndShowGUI());
     }
 
     private void createAndShowGUI() {
         frame = new JFrame("Mortgage Calculator");
         frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
-        frame.setLayout(new BorderLayout(10, 10));
+        frame.setContentPane(createContent());
+
+        frame.setSize(1200, 800);
+        frame.setLocationRelativeTo(null);
+        frame.setVisible(true);
+    }
+
+    /**
+     * Builds the window content. Kept apart from the frame so tests can drive the panels headless.
+     */
+    JPanel createContent() {
+        JPanel content = new JPanel(new BorderLayout(10, 10));
 
         // File selection
         JPanel topPanel = createTopPanel();
-        frame.add(topPanel, BorderLayout.NORTH);
+        content.add(topPanel, BorderLayout.NORTH);
 
         // payment method + table + chart
         JPanel centerPanel = createCenterPanel();
-        frame.add(centerPanel, BorderLayout.CENTER);
+        content.add(centerPanel, BorderLayout.CENTER);
 
         // Status and buttons
         JPanel bottomPanel = createBottomPanel();
-        frame.add(bottomPanel, BorderLayout.SOUTH);
+        content.add(bottomPanel, BorderLayout.SOUTH);
 
-        frame.setSize(1200, 800);
-        frame.setLocationRelativeTo(null);
-        frame.setVisible(true);
+        return content;
     }
 
     private void initializeMethods(){
         methodsMap = new HashMap<JRadioButton, MortgageScheduleCalculator>();
         var result = CalculatorRegistry.discoverCalculators();
+        calculators = result;
 
         methodButtonsGroup = new ButtonGroup();
         for (var method : result) {
@@ -89,7 +123,7 @@ public class SwingApp {
         JPanel panel = new JPanel(new FlowLayout(FlowLayout.LEFT, 10, 10));
         panel.setBorder(BorderFactory.createTitledBorder("Step 1: Load Credit Terms"));
 
-        JButton browseButton = new JButton("Select Excel File");
+        browseButton = new JButton("Select Excel File");
         browseButton.addActionListener(this::browseFile);
         panel.add(browseButton);
 
@@ -118,9 +152,7 @@ public class SwingApp {
             @Override
             protected void paintComponent(Graphics g) {
                 super.paintComponent(g);
-                if (currentPayments != null && !currentPayments.isEmpty()) {
-                    drawChart(g);
-                }
+                chartRenderer.paint((Graphics2D) g, currentSchedule, getWidth(), getHeight());
             }
         };
         chartPanel.setBackground(Color.WHITE);
@@ -163,6 +195,15 @@ public class SwingApp {
         saveButton.setMaximumSize(new Dimension(Integer.MAX_VALUE, 40));
         panel.add(saveButton);
 
+        panel.add(Box.createVerticalStrut(5));
+
+        compareButton = new JButton("Compare All Methods");
+        compareButton.setEnabled(false);
+        compareButton.addActionListener(this::compareMethods);
+        compareButton.setAlignmentX(Component.LEFT_ALIGNMENT);
+        compareButton.setMaximumSize(new Dimension(Integer.MAX_VALUE, 40));
+        panel.add(compareButton);
+
         panel.add(Box.createVerticalGlue());
 
         panel.setPreferredSize(new Dimension(200, 0));
@@ -174,23 +215,7 @@ public class SwingApp {
         JPanel panel = new JPanel(new BorderLayout());
         panel.setBorder(BorderFactory.createTitledBorder("Step 3: Payment Schedule Table"));
 
-        tableModel = new DefaultTableModel(
-            new String[]{
-                ExcelPaymentWriter.HEADER_NUMBER,
-                ExcelPaymentWriter.HEADER_DAYS,
-                ExcelPaymentWriter.HEADER_DATE,
-                ExcelPaymentWriter.HEADER_TOTAL,
-                ExcelPaymentWriter.HEADER_INTEREST,
-                ExcelPaymentWriter.HEADER_PRINCIPAL,
-                ExcelPaymentWriter.HEADER_REMAINING
-            },
-            0
-        ) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
+        tableModel = new PaymentTableModel();
 
         JTable paymentTable = new JTable(tableModel);
         paymentTable.setFont(new Font("Monospaced", Font.PLAIN, 11));
@@ -226,6 +251,22 @@ public class SwingApp {
         statusLabel.setForeground(Color.BLUE);
         panel.add(statusLabel);
 
+        progressBar = new JProgressBar(0, 100);
+        progressBar.setStringPainted(true);
+        progressBar.setVisible(false);
+        panel.add(progressBar);
+
+        cancelButton = new JButton("Cancel");
+        cancelButton.setVisible(false);
+        cancelButton.addActionListener(e -> {
+            if (currentTask != null) {
+                currentTask.cancel(true);
+            }
+        });
+        panel.add(cancelButton);
+
+        elapsedTimer = new Timer(ELAPSED_REFRESH_MILLIS, e -> updateProgress());
+
         return panel;
     }
 
@@ -240,102 +281,167 @@ public class SwingApp {
         }
     }
 
-    private void loadCreditTerms(File file) {
-        try {
-            statusLabel.setText("Status: Loading file...");
-            statusLabel.setForeground(Color.BLUE);
-            frame.repaint();
+    void loadCreditTerms(File file) {
+        startTask(new BackgroundTask<CreditTerms, Void>("Loading file", "Load Error") {
+            @Override
+            protected CreditTerms doInBackground() throws Exception {
+                try (InputStream in = new FileInputStream(file)) {
+                    return ExcelCreditTermsReader.read(in);
+                }
+            }
 
-            try (InputStream in = new FileInputStream(file)) {
-                creditTerms = ExcelCreditTermsReader.read(in);
+            @Override
+            protected void succeeded(CreditTerms terms) {
+                creditTerms = terms;
+                fileLabel.setText(file.getName() + " ✓");
+                fileLabel.setForeground(SUCCESSFUL_TEXT_COLOR);
+                saveButton.setEnabled(false);
+
+                statusLabel.setText("Status: File loaded successfully. Principal: " +
+                        formatCurrency(creditTerms.getPrincipal()) +
+                        ", Term: " + creditTerms.getTermMonths() + " months, Rate: " +
+                        creditTerms.getAnnualRatePercent() + "%" + elapsedSuffix());
+                statusLabel.setForeground(SUCCESSFUL_TEXT_COLOR);
             }
 
-            fileLabel.setText(file.getName() + " ✓");
-            fileLabel.setForeground(SUCCESSFUL_TEXT_COLOR);
-            calculateButton.setEnabled(true);
-            saveButton.setEnabled(false);
+            @Override
+            protected void failed(Exception ex) {
+                creditTerms = null;
+                currentSchedule = null;
+                tableModel.clear();
+                hideTable();
+                chartPanel.repaint();
+
+                fileLabel.setText("Error reading file!");
+                fileLabel.setForeground(Color.RED);
+                saveButton.setEnabled(false);
+                super.failed(ex);
+            }
+        });
+    }
 
-            statusLabel.setText("Status: File loaded successfully. Principal: " +
-                    formatCurrency(creditTerms.getPrincipal()) +
-                    ", Term: " + creditTerms.getTermMonths() + " months, Rate: " +
-                    creditTerms.getAnnualRatePercent() + "%");
-            statusLabel.setForeground(SUCCESSFUL_TEXT_COLOR);
-        } catch (Exception ex) {
-            creditTerms = null;
-            currentPayments = null;
-            tableModel.setRowCount(0);
-            hideTable();
-            chartPanel.repaint();
-            
-            fileLabel.setText("Error reading file!");
-            fileLabel.setForeground(Color.RED);
-            calculateButton.setEnabled(false);
-            saveButton.setEnabled(false);
-            
-            statusLabel.setText("Status: Error - " + ex.getMessage());
+    private void calculateSchedule(ActionEvent e) {
+        if (creditTerms == null) {
+            JOptionPane.showMessageDialog(frame, "Please select a file first", "Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+
+        MortgageScheduleCalculator calculator = null;
+        for (Map.Entry<JRadioButton, MortgageScheduleCalculator> entry : methodsMap.entrySet()) {
+            if (entry.getKey().isSelected()) {
+                calculator = entry.getValue();
+                break;
+            }
+        }
+
+        if (calculator == null) {
+            statusLabel.setText("Status: Error - Payment method is not implemented");
             statusLabel.setForeground(Color.RED);
-            JOptionPane.showMessageDialog(frame, "Error: " + ex.getMessage(), "Load Error", JOptionPane.ERROR_MESSAGE);
+            JOptionPane.showMessageDialog(frame, "Error: Payment method is not implemented", "Calculation Error", JOptionPane.ERROR_MESSAGE);
+            return;
         }
+
+        currentSchedule = null;
+        saveButton.setEnabled(false);
+        tableModel.clear();
+        showTable();
+        chartPanel.repaint();
+        startTask(new CalculationTask(calculator, creditTerms));
     }
 
-    private void calculateSchedule(ActionEvent e) {
-        try {
-            if (creditTerms == null) {
-                JOptionPane.showMessageDialog(frame, "Please select a file first", "Error", JOptionPane.ERROR_MESSAGE);
-                return;
+    /**
+     * Calculates the schedule row by row off the EDT and hands the rows to the table in parts,
+     * so the first payments appear while the rest are still being computed. A cached schedule
+     * is shown at once.
+     */
+    private class CalculationTask extends BackgroundTask<PaymentSchedule, PaymentSchedule>
+            implements FixedPointPaymentSink {
+        private final MortgageScheduleCalculator calculator;
+        private final CreditTerms terms;
+        private int expectedRows;
+        private PaymentSchedule.Builder builder;
+        private PaymentSchedule.Builder part = PaymentSchedule.builder(PUBLISH_CHUNK_ROWS);
+
+        CalculationTask(MortgageScheduleCalculator calculator, CreditTerms terms) {
+            super("Calculating", "Calculation Error");
+            this.calculator = calculator;
+            this.terms = terms;
+        }
+
+        @Override
+        protected PaymentSchedule doInBackground() {
+            PaymentSchedule cached = scheduleCache.getIfPresent(calculator, terms);
+            if (cached != null) {
+                return cached;
             }
 
-            statusLabel.setText("Status: Calculating...");
-            statusLabel.setForeground(Color.BLUE);
-            frame.repaint();
+            expectedRows = terms.getTermMonths();
+            builder = PaymentSchedule.builder(expectedRows);
+            calculator.calculateFixedPointSchedule(terms, this);
+            publishPart();
+            return scheduleCache.put(calculator, terms, builder.build());
+        }
 
-            MortgageScheduleCalculator calculator = null;
-            for (Map.Entry<JRadioButton, MortgageScheduleCalculator> entry : methodsMap.entrySet()) {
-                if (entry.getKey().isSelected()) {
-                    calculator = entry.getValue();
-                    break;
-                }
+        /**
+         * Collects one row; throws {@link CancellationException} to stop the calculation.
+         */
+        @Override
+        public void accept(int index, int daysOfBorrowing, long paymentEpochDay,
+                           long totalPayment, long interest, long principalRepaid, long remainingDebt) {
+            if (isCancelled()) {
+                throw new CancellationException();
             }
+            builder.accept(index, daysOfBorrowing, paymentEpochDay,
+                    totalPayment, interest, principalRepaid, remainingDebt);
+            part.accept(index, daysOfBorrowing, paymentEpochDay,
+                    totalPayment, interest, principalRepaid, remainingDebt);
+            if (part.size() == PUBLISH_CHUNK_ROWS) {
+                publishPart();
+            }
+        }
 
-            if (calculator == null) {
-                throw new Exception("Payment method is not implemented");
+        private void publishPart() {
+            if (part.size() > 0) {
+                publish(part.build());
+                part = PaymentSchedule.builder(PUBLISH_CHUNK_ROWS);
             }
+            setProgress(expectedRows == 0 ? 100 : Math.min(100, 100 * builder.size() / expectedRows));
+        }
 
-            currentPayments = calculator.calculateSchedule(creditTerms);
-            statusLabel.setText("Status: Payment schedule calculated (" + currentPayments.size() + " payments)");
-            statusLabel.setForeground(SUCCESSFUL_TEXT_COLOR);
+        /**
+         * Parts still queued when the task is done are dropped: {@link #succeeded} shows the whole schedule.
+         */
+        @Override
+        protected void process(List<PaymentSchedule> parts) {
+            if (isDone()) {
+                return;
+            }
+            for (PaymentSchedule part : parts) {
+                tableModel.appendRows(part);
+            }
+        }
 
-            updateTable();
+        @Override
+        protected void succeeded(PaymentSchedule schedule) {
+            currentSchedule = schedule;
+            tableModel.setSchedule(schedule);
+            statusLabel.setText("Status: Payment schedule calculated (" + currentSchedule.size() + " payments)"
+                    + elapsedSuffix());
+            statusLabel.setForeground(SUCCESSFUL_TEXT_COLOR);
             saveButton.setEnabled(true);
             chartPanel.repaint();
-        } catch (Exception ex) {
-            statusLabel.setText("Status: Error - " + ex.getMessage());
-            statusLabel.setForeground(Color.RED);
-            JOptionPane.showMessageDialog(frame, "Error: " + ex.getMessage(), "Calculation Error", JOptionPane.ERROR_MESSAGE);
         }
-    }
-
-    private void updateTable() {
-        tableModel.setRowCount(0);
-        
-        showTable();
 
-        int rowNum = 1;
-        for (Payment payment : currentPayments) {
-            tableModel.addRow(new Object[]{
-                    rowNum++,
-                    payment.daysOfBorrowing,
-                    payment.paymentDate,
-                    formatCurrency(payment.totalPayment),
-                    formatCurrency(payment.interest),
-                    formatCurrency(payment.principalRepaid),
-                    formatCurrency(payment.remainingDebt)
-            });
+        @Override
+        protected void cancelled() {
+            tableModel.clear();
+            hideTable();
+            super.cancelled();
         }
     }
 
     private void saveToExcel(ActionEvent e) {
-        if (currentPayments == null || currentPayments.isEmpty()) {
+        if (currentSchedule == null || currentSchedule.isEmpty()) {
             JOptionPane.showMessageDialog(frame, "No schedule to save", "Error", JOptionPane.ERROR_MESSAGE);
             return;
         }
@@ -345,90 +451,211 @@ public class SwingApp {
         fileChooser.setSelectedFile(new File("payment_schedule.xlsx"));
 
         int result = fileChooser.showSaveDialog(frame);
-        if (result == JFileChooser.APPROVE_OPTION) {
-            File selectedFile = fileChooser.getSelectedFile();
-            try {
-                statusLabel.setText("Status: Saving...");
-                statusLabel.setForeground(Color.BLUE);
-                frame.repaint();
-
-                try (OutputStream out = new FileOutputStream(selectedFile)) {
-                    ExcelPaymentWriter.write(currentPayments, out);
+        if (result != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        File selectedFile = fileChooser.getSelectedFile();
+        PaymentSchedule schedule = currentSchedule;
+        startTask(new BackgroundTask<File, Void>("Saving", "Save Error") {
+            /**
+             * Writes next to the target and moves the file into place only when done,
+             * so a cancelled or failed save never leaves a truncated workbook behind.
+             */
+            @Override
+            protected File doInBackground() throws Exception {
+                Path target = selectedFile.toPath().toAbsolutePath();
+                Path partial = Files.createTempFile(target.getParent(), selectedFile.getName(), ".part");
+                try {
+                    try (OutputStream out = new FileOutputStream(partial.toFile())) {
+                        ExcelPaymentWriter.write(schedule, out);
+                    }
+                    if (isCancelled()) {
+                        throw new CancellationException();
+                    }
+                    Files.move(partial, target, StandardCopyOption.REPLACE_EXISTING);
+                } finally {
+                    Files.deleteIfExists(partial);
                 }
+                return selectedFile;
+            }
 
-                statusLabel.setText("Status: File saved successfully to " + selectedFile.getName());
+            @Override
+            protected void succeeded(File file) {
+                statusLabel.setText("Status: File saved successfully to " + file.getName() + elapsedSuffix());
                 statusLabel.setForeground(SUCCESSFUL_TEXT_COLOR);
-                JOptionPane.showMessageDialog(frame, "Schedule saved to " + selectedFile.getAbsolutePath(), "Success", JOptionPane.INFORMATION_MESSAGE);
-            } catch (Exception ex) {
-                statusLabel.setText("Status: Error - " + ex.getMessage());
-                statusLabel.setForeground(Color.RED);
-                JOptionPane.showMessageDialog(frame, "Error: " + ex.getMessage(), "Save Error", JOptionPane.ERROR_MESSAGE);
+                JOptionPane.showMessageDialog(frame, "Schedule saved to " + file.getAbsolutePath(), "Success", JOptionPane.INFORMATION_MESSAGE);
             }
+        });
+    }
+
+    private void compareMethods(ActionEvent e) {
+        if (creditTerms == null) {
+            JOptionPane.showMessageDialog(frame, "Please select a file first", "Error", JOptionPane.ERROR_MESSAGE);
+            return;
         }
+        CreditTerms terms = creditTerms;
+        startTask(new BackgroundTask<String, Void>("Comparing methods", "Comparison Error") {
+            @Override
+            protected String doInBackground() {
+                CalculatorComparison.Result comparison = CalculatorComparison.compare(terms, calculators);
+                return comparison.formatSummary() + System.lineSeparator() + comparison.formatDifferences();
+            }
+
+            @Override
+            protected void succeeded(String report) {
+                statusLabel.setText("Status: Compared " + calculators.size() + " methods" + elapsedSuffix());
+                statusLabel.setForeground(SUCCESSFUL_TEXT_COLOR);
+                showComparison(report);
+            }
+        });
     }
 
-    private void drawChart(Graphics g) {
-        if (currentPayments == null || currentPayments.isEmpty()) {
+    private void showComparison(String report) {
+        JTextArea text = new JTextArea(report);
+        text.setEditable(false);
+        text.setFont(new Font("Monospaced", Font.PLAIN, 12));
+        text.setCaretPosition(0);
+
+        JDialog dialog = new JDialog(frame, "Method Comparison", false);
+        dialog.add(new JScrollPane(text));
+        dialog.setSize(1000, 600);
+        dialog.setLocationRelativeTo(frame);
+        dialog.setVisible(true);
+    }
+
+    /**
+     * Runs {@code task} in the background. One task at a time: the action buttons are
+     * disabled and the status bar shows its progress, elapsed time and a cancel button.
+     */
+    private void startTask(BackgroundTask<?, ?> task) {
+        currentTask = task;
+        browseButton.setEnabled(false);
+        calculateButton.setEnabled(false);
+        saveButton.setEnabled(false);
+        compareButton.setEnabled(false);
+
+        statusLabel.setText("Status: " + task.action + "...");
+        statusLabel.setForeground(Color.BLUE);
+        progressBar.setValue(0);
+        progressBar.setIndeterminate(true);
+        progressBar.setVisible(true);
+        cancelButton.setVisible(true);
+        task.addPropertyChangeListener(event -> {
+            if ("progress".equals(event.getPropertyName())) {
+                progressBar.setIndeterminate(false);
+                updateProgress();
+            }
+        });
+        elapsedTimer.start();
+        updateProgress();
+        task.execute();
+    }
+
+    private void finishTask(BackgroundTask<?, ?> task) {
+        if (currentTask != task) {
             return;
         }
+        elapsedTimer.stop();
+        progressBar.setVisible(false);
+        cancelButton.setVisible(false);
+        browseButton.setEnabled(true);
+        calculateButton.setEnabled(creditTerms != null);
+        compareButton.setEnabled(creditTerms != null);
+        saveButton.setEnabled(currentSchedule != null && !currentSchedule.isEmpty());
+    }
 
-        Graphics2D g2d = (Graphics2D) g;
-        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+    boolean isBusy() {
+        return progressBar.isVisible();
+    }
 
-        int width = chartPanel.getWidth();
-        int height = chartPanel.getHeight();
-        int padding = 40;
-        int chartWidth = width - 2 * padding;
-        int chartHeight = height - 2 * padding;
+    boolean isCalculateEnabled() {
+        return calculateButton.isEnabled();
+    }
+
+    boolean isCompareEnabled() {
+        return compareButton.isEnabled();
+    }
+
+    private void updateProgress() {
+        if (currentTask == null) {
+            return;
+        }
+        String elapsed = formatElapsed(currentTask.elapsedNanos());
+        progressBar.setString(progressBar.isIndeterminate() ? elapsed : currentTask.getProgress() + "%  " + elapsed);
+    }
 
-        BigDecimal maxPayment = currentPayments.stream()
-                .map(p -> p.totalPayment)
-                .max(BigDecimal::compareTo)
-                .orElse(BigDecimal.ONE);
-        double maxValue = maxPayment.doubleValue();
+    private String elapsedSuffix() {
+        return currentTask == null ? "" : " in " + formatElapsed(currentTask.elapsedNanos());
+    }
 
-        g2d.setColor(Color.BLACK);
-        g2d.drawLine(padding, height - padding, width - padding, height - padding); // X-axis
-        g2d.drawLine(padding, padding, padding, height - padding); // Y-axis
+    private static String formatElapsed(long nanos) {
+        return String.format(Locale.US, "%.1f s", nanos / (double) TimeUnit.SECONDS.toNanos(1));
+    }
 
-        int numPayments = currentPayments.size();
-        double barWidth = (double) chartWidth / numPayments;
+    /**
+     * Background work with the common EDT bookkeeping: the status bar is reset when the
+     * task ends, and the outcome goes to {@link #succeeded}, {@link #failed} or {@link #cancelled}.
+     * A cancelled task is finished immediately; its thread is interrupted and its result ignored.
+     */
+    private abstract class BackgroundTask<T, V> extends SwingWorker<T, V> {
+        final String action;
+        private final String errorTitle;
+        private final long startNanos = System.nanoTime();
+        private long endNanos;
+
+        BackgroundTask(String action, String errorTitle) {
+            this.action = action;
+            this.errorTitle = errorTitle;
+        }
 
-        for (int i = 0; i < numPayments; i++) {
-            Payment payment = currentPayments.get(i);
-            double totalHeight = (payment.totalPayment.doubleValue() / maxValue) * chartHeight;
-            double principalHeight = (payment.principalRepaid.doubleValue() / maxValue) * chartHeight;
+        long elapsedNanos() {
+            return (endNanos == 0 ? System.nanoTime() : endNanos) - startNanos;
+        }
 
-            int x = padding + (int) (i * barWidth);
-            int barHeightTotal = (int) totalHeight;
+        /**
+         * The outcome handlers run first: they set the state the buttons are enabled from.
+         * The error dialog is modal, so it comes last, after the status bar is reset.
+         */
+        @Override
+        protected final void done() {
+            endNanos = System.nanoTime();
+            if (currentTask != this) {
+                return;
+            }
+            Exception failure = null;
+            try {
+                succeeded(get());
+            } catch (CancellationException ex) {
+                cancelled();
+            } catch (ExecutionException ex) {
+                Throwable cause = ex.getCause();
+                failure = cause instanceof Exception ? (Exception) cause : ex;
+                failed(failure);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            } finally {
+                finishTask(this);
+            }
+            if (failure != null) {
+                JOptionPane.showMessageDialog(frame, "Error: " + failure.getMessage(), errorTitle, JOptionPane.ERROR_MESSAGE);
+            }
+        }
 
-            int interestHeight = (int) ((payment.interest.doubleValue() / maxValue) * chartHeight);
-            g2d.setColor(new Color(255, 0, 0, 150));
-            g2d.fillRect(x, height - padding - barHeightTotal, (int) barWidth - 2, interestHeight);
+        protected abstract void succeeded(T result);
 
-            g2d.setColor(new Color(0, 0, 255, 150));
-            g2d.fillRect(x, height - padding - barHeightTotal + interestHeight, (int) barWidth - 2, (int) principalHeight);
+        protected void failed(Exception ex) {
+            statusLabel.setText("Status: Error - " + ex.getMessage());
+            statusLabel.setForeground(Color.RED);
         }
 
-        g2d.setColor(Color.BLACK);
-        g2d.setFont(new Font("Arial", Font.PLAIN, 12));
-        g2d.drawString("Principal", width - 150, 20);
-        g2d.fillRect(width - 160, 8, 10, 10);
-        g2d.setColor(new Color(0, 0, 255, 150));
-        g2d.fillRect(width - 159, 9, 8, 8);
-
-        g2d.setColor(Color.BLACK);
-        g2d.drawString("Interest", width - 150, 40);
-        g2d.fillRect(width - 160, 28, 10, 10);
-        g2d.setColor(new Color(255, 0, 0, 150));
-        g2d.fillRect(width - 159, 29, 8, 8);
+        protected void cancelled() {
+            statusLabel.setText("Status: " + action + " cancelled after " + formatElapsed(elapsedNanos()));
+            statusLabel.setForeground(Color.BLUE);
+        }
     }
 
     private String formatCurrency(BigDecimal value) {
-        NumberFormat format = NumberFormat.getInstance(Locale.US);
-        format.setMaximumFractionDigits(2);
-        format.setMinimumFractionDigits(2);
-        return format.format(value);
+        return currencyFormat.format(value);
     }
 
     private static class WrappingHeaderRenderer extends JLabel implements TableCellRenderer {
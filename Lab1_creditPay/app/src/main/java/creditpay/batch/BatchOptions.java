@@ -0,0 +1,101 @@
+package creditpay.batch;
+
+import java.nio.file.Path;
+
+/**
+ * Параметры пакетного запуска: откуда читать, куда писать, какими методами
+ * считать и сколько потоков отдать каждой стадии.
+ */
+public final class BatchOptions {
+    /** Значение {@link #method}, при котором график считается всеми найденными методами. */
+    public static final String ALL_METHODS = "all";
+
+    public final Path inputDirectory;
+    public final Path outputDirectory;
+    public final String method;
+    public final OutputFormat format;
+    public final int readers;
+    public final int calculators;
+    public final int writers;
+    /** Емкость очередей между стадиями; заполненная очередь останавливает предыдущую стадию. */
+    public final int queueCapacity;
+
+    public BatchOptions(Path inputDirectory, Path outputDirectory, String method, OutputFormat format,
+                        int readers, int calculators, int writers, int queueCapacity) {
+        if (inputDirectory == null || outputDirectory == null) {
+            throw new IllegalArgumentException("input and output directories are required");
+        }
+        if (readers < 1 || calculators < 1 || writers < 1) {
+            throw new IllegalArgumentException("every stage needs at least one thread");
+        }
+        if (queueCapacity < 1) {
+            throw new IllegalArgumentException("queue capacity must be positive");
+        }
+        this.inputDirectory = inputDirectory;
+        this.outputDirectory = outputDirectory;
+        this.method = method == null ? ALL_METHODS : method;
+        this.format = format == null ? OutputFormat.XLSX : format;
+        this.readers = readers;
+        this.calculators = calculators;
+        this.writers = writers;
+        this.queueCapacity = queueCapacity;
+    }
+
+    /**
+     * Разбирает аргументы командной строки:
+     * {@code <input-dir> <output-dir> [--method=<name>|all] [--format=xlsx|csv|bin]
+     * [--readers=N] [--calculators=N] [--writers=N] [--queue=N]}.
+     *
+     * @throws IllegalArgumentException если аргументы некорректны
+     */
+    public static BatchOptions parse(String[] args) {
+        Path input = null;
+        Path output = null;
+        String method = ALL_METHODS;
+        OutputFormat format = OutputFormat.XLSX;
+        int readers = 2;
+        int calculators = Runtime.getRuntime().availableProcessors();
+        int writers = 2;
+        int queueCapacity = 256;
+
+        for (String arg : args) {
+            if (!arg.startsWith("--")) {
+                if (input == null) {
+                    input = Path.of(arg);
+                } else if (output == null) {
+                    output = Path.of(arg);
+                } else {
+                    throw new IllegalArgumentException("Unexpected argument: " + arg);
+                }
+                continue;
+            }
+            int separator = arg.indexOf('=');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Option needs a value: " + arg);
+            }
+            String name = arg.substring(2, separator);
+            String value = arg.substring(separator + 1);
+            switch (name) {
+                case "method" -> method = value;
+                case "format" -> format = OutputFormat.fromExtension(value);
+                case "readers" -> readers = parseCount(name, value);
+                case "calculators" -> calculators = parseCount(name, value);
+                case "writers" -> writers = parseCount(name, value);
+                case "queue" -> queueCapacity = parseCount(name, value);
+                default -> throw new IllegalArgumentException("Unknown option: --" + name);
+            }
+        }
+        if (input == null || output == null) {
+            throw new IllegalArgumentException("Input and output directories are required");
+        }
+        return new BatchOptions(input, output, method, format, readers, calculators, writers, queueCapacity);
+    }
+
+    private static int parseCount(String name, String value) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("--" + name + " must be a number: " + value);
+        }
+    }
+}
@@ -0,0 +1,423 @@
+package creditpay.batch;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+import creditpay.calculator.CalculatorRegistry;
+import creditpay.calculator.MortgageScheduleCalculator;
+import creditpay.io.ExcelLoanBookReader;
+import creditpay.metrics.LatencyHistogram;
+import creditpay.model.CreditTerms;
+import creditpay.model.PaymentSchedule;
+
+/**
+ * Пакетный расчет без интерфейса: все книги кредитов {@code *.xlsx} из входного
+ * каталога пересчитываются и записываются в выходной каталог.
+ *
+ * <p>Работа разбита на три стадии со своими потоками: чтение (ввод-вывод и разбор
+ * xlsx), расчет (процессор) и запись (ввод-вывод). Стадии связаны ограниченными
+ * очередями, так что медленная стадия притормаживает предыдущие, а не копит
+ * графики в памяти, и число потоков каждой стадии подбирается отдельно.
+ * Последний поток стадии, закончив работу, кладет в очередь по маркеру конца
+ * для каждого потока следующей стадии.
+ *
+ * <p>Ошибка в файле, кредите или записи не останавливает запуск: она попадает
+ * в {@link BatchReport#getErrors()}, а остальные кредиты обрабатываются дальше.
+ * Если же поток стадии падает сам, запуск прерывается: остальные потоки всех стадий
+ * получают interrupt, иначе соседние стадии навсегда ждали бы места или данных в очереди.
+ *
+ * <p>Результаты пишутся в один файл на книгу и метод, {@code <книга>-<метод>.<расширение>}:
+ * графики дописываются в порядке готовности и помечены номером кредита в книге
+ * (см. {@link OutputFormat}). Файл создается при первом графике и закрывается, как только
+ * записан последний кредит книги, так что открытыми остаются только файлы книг в работе.
+ */
+public class BatchPipeline {
+    public static final String READ_STAGE = "read";
+    public static final String CALCULATE_STAGE = "calculate";
+    public static final String WRITE_STAGE = "write";
+
+    private static final String _inputGlob = "*.xlsx";
+    private static final LoanJob _endOfLoans = new LoanJob(null, 0, null);
+    private static final ScheduleJob _endOfSchedules = new ScheduleJob(null, 0, null, null);
+
+    private final BatchOptions options;
+    private final List<MortgageScheduleCalculator> calculators;
+    private final ConcurrentLinkedQueue<String> errors = new ConcurrentLinkedQueue<>();
+    private final Set<BookOutputs> openedBooks = ConcurrentHashMap.newKeySet();
+    /** Потоки всех стадий; под блокировкой {@code this} вместе с {@link #aborted}. */
+    private final List<Thread> workers = new ArrayList<>();
+    private boolean aborted;
+
+    public BatchPipeline(BatchOptions options, List<MortgageScheduleCalculator> calculators) {
+        if (options == null) {
+            throw new IllegalArgumentException("options must not be null");
+        }
+        if (calculators == null || calculators.isEmpty()) {
+            throw new IllegalArgumentException("at least one calculator is required");
+        }
+        this.options = options;
+        this.calculators = List.copyOf(calculators);
+    }
+
+    /**
+     * Калькуляторы, выбранные параметром {@code --method}: все при
+     * {@value BatchOptions#ALL_METHODS}, иначе один по названию без учета регистра.
+     *
+     * @throws IllegalArgumentException если метода с таким названием нет
+     */
+    public static List<MortgageScheduleCalculator> selectCalculators(List<MortgageScheduleCalculator> available,
+                                                                     String method) {
+        if (BatchOptions.ALL_METHODS.equalsIgnoreCase(method)) {
+            return available;
+        }
+        for (MortgageScheduleCalculator calculator : available) {
+            if (calculator.getDisplayName().equalsIgnoreCase(method)) {
+                return List.of(calculator);
+            }
+        }
+        throw new IllegalArgumentException("Unknown method: " + method);
+    }
+
+    /**
+     * То же по реестру: создаются только нужные калькуляторы.
+     *
+     * @throws IllegalArgumentException если метода с таким названием нет
+     */
+    public static List<MortgageScheduleCalculator> selectCalculators(CalculatorRegistry registry, String method) {
+        if (BatchOptions.ALL_METHODS.equalsIgnoreCase(method)) {
+            return registry.calculators();
+        }
+        return List.of(registry.find(method)
+            .orElseThrow(() -> new IllegalArgumentException("Unknown method: " + method)));
+    }
+
+    public BatchReport run() throws IOException {
+        List<Path> books = listLoanBooks();
+        Files.createDirectories(options.outputDirectory);
+
+        BlockingQueue<LoanJob> loans = new ArrayBlockingQueue<>(options.queueCapacity);
+        BlockingQueue<ScheduleJob> schedules = new ArrayBlockingQueue<>(options.queueCapacity);
+        ConcurrentLinkedQueue<Path> pendingBooks = new ConcurrentLinkedQueue<>(books);
+
+        Stage read = new Stage(READ_STAGE, options.readers);
+        Stage calculate = new Stage(CALCULATE_STAGE, options.calculators);
+        Stage write = new Stage(WRITE_STAGE, options.writers);
+
+        long start = System.nanoTime();
+        write.start(() -> writeSchedules(write, schedules), () -> {});
+        calculate.start(() -> calculateLoans(calculate, loans, schedules),
+            () -> signalEnd(schedules, _endOfSchedules, options.writers));
+        read.start(() -> readBooks(read, write, pendingBooks, loans),
+            () -> signalEnd(loans, _endOfLoans, options.calculators));
+
+        read.await();
+        calculate.await();
+        write.await();
+        // после прерывания у книг остаются незакрытые файлы
+        for (BookOutputs book : openedBooks) {
+            book.close();
+        }
+        long elapsed = System.nanoTime() - start;
+
+        return new BatchReport(books.size(), elapsed,
+            List.of(read.stats(), calculate.stats(), write.stats()), new ArrayList<>(errors));
+    }
+
+    private List<Path> listLoanBooks() throws IOException {
+        if (!Files.isDirectory(options.inputDirectory)) {
+            throw new IOException("Input directory not found: " + options.inputDirectory);
+        }
+        List<Path> books = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(options.inputDirectory, _inputGlob)) {
+            files.forEach(books::add);
+        }
+        books.sort(null);
+        return books;
+    }
+
+    /**
+     * Задержка чтения — время разбора одного кредита без ожидания места в очереди.
+     */
+    private void readBooks(Stage stage, Stage writeStage, ConcurrentLinkedQueue<Path> pendingBooks,
+                           BlockingQueue<LoanJob> loans) throws InterruptedException {
+        for (Path book; (book = pendingBooks.poll()) != null; ) {
+            BookOutputs outputs = new BookOutputs(baseName(book), writeStage);
+            openedBooks.add(outputs);
+            try (Stream<CreditTerms> terms = ExcelLoanBookReader.stream(book)) {
+                Iterator<CreditTerms> iterator = terms.iterator();
+                int loanNumber = 0;
+                long started = System.nanoTime();
+                while (iterator.hasNext()) {
+                    CreditTerms loan = iterator.next();
+                    stage.completed(started);
+                    outputs.expect(calculators.size());
+                    loans.put(new LoanJob(outputs, ++loanNumber, loan));
+                    started = System.nanoTime();
+                }
+            } catch (InterruptedException e) {
+                throw e;
+            } catch (Exception e) {
+                stage.failed(book.getFileName() + ": " + e.getMessage());
+            } finally {
+                outputs.done();
+            }
+        }
+    }
+
+    private void calculateLoans(Stage stage, BlockingQueue<LoanJob> loans, BlockingQueue<ScheduleJob> schedules)
+            throws InterruptedException {
+        for (LoanJob job; (job = loans.take()) != _endOfLoans; ) {
+            for (MortgageScheduleCalculator calculator : calculators) {
+                long started = System.nanoTime();
+                PaymentSchedule schedule;
+                try {
+                    schedule = calculator.calculatePaymentSchedule(job.terms());
+                } catch (RuntimeException e) {
+                    stage.failed(job.book().baseName + " #" + job.loanNumber() + " " + calculator.getDisplayName()
+                        + ": " + e.getMessage());
+                    job.book().done();
+                    continue;
+                }
+                stage.completed(started);
+                schedules.put(new ScheduleJob(job.book(), job.loanNumber(), calculator, schedule));
+            }
+        }
+    }
+
+    private void writeSchedules(Stage stage, BlockingQueue<ScheduleJob> schedules) throws InterruptedException {
+        for (ScheduleJob job; (job = schedules.take()) != _endOfSchedules; ) {
+            long started = System.nanoTime();
+            try {
+                job.book().write(job.calculator(), job.loanNumber(), job.schedule());
+                stage.completed(started);
+            } catch (Exception e) {
+                stage.failed(job.book().baseName + " #" + job.loanNumber() + " "
+                    + job.calculator().getDisplayName() + ": " + e.getMessage());
+            } finally {
+                job.book().done();
+            }
+        }
+    }
+
+    private static <T> void signalEnd(BlockingQueue<T> queue, T marker, int consumers) {
+        try {
+            for (int i = 0; i < consumers; i++) {
+                queue.put(marker);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Регистрирует поток стадии; {@code false} — запуск уже прерван и работать не нужно.
+     */
+    private synchronized boolean register(Thread worker) {
+        if (aborted) {
+            return false;
+        }
+        workers.add(worker);
+        return true;
+    }
+
+    /**
+     * Прерывает запуск после падения потока: остальные потоки выходят из ожидания очередей.
+     */
+    private synchronized void abort() {
+        if (aborted) {
+            return;
+        }
+        aborted = true;
+        for (Thread worker : workers) {
+            if (worker != Thread.currentThread()) {
+                worker.interrupt();
+            }
+        }
+    }
+
+    private synchronized boolean isAborted() {
+        return aborted;
+    }
+
+    private static String baseName(Path book) {
+        String name = book.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return dot > 0 ? name.substring(0, dot) : name;
+    }
+
+    /**
+     * Название метода в виде, пригодном для имени файла: {@code "Annuity Payment"} → {@code annuity-payment}.
+     */
+    static String slug(String displayName) {
+        String slug = displayName.toLowerCase(Locale.ROOT).replaceAll("[^\\p{L}\\p{N}]+", "-");
+        slug = slug.replaceAll("^-+|-+$", "");
+        return slug.isEmpty() ? "schedule" : slug;
+    }
+
+    /**
+     * Файлы результатов одной книги, по одному на метод. Счетчик {@link #pending} —
+     * графики книги, которые еще предстоит записать, плюс один, пока книга читается;
+     * на нуле файлы закрываются.
+     */
+    private final class BookOutputs {
+        final String baseName;
+        private final Stage writeStage;
+        private final AtomicInteger pending = new AtomicInteger(1);
+        /** Под блокировкой {@code this}. */
+        private final Map<MortgageScheduleCalculator, OutputFormat.ScheduleOutput> outputs = new HashMap<>();
+        private boolean closed;
+
+        BookOutputs(String baseName, Stage writeStage) {
+            this.baseName = baseName;
+            this.writeStage = writeStage;
+        }
+
+        void expect(int schedules) {
+            pending.addAndGet(schedules);
+        }
+
+        void done() {
+            if (pending.decrementAndGet() == 0) {
+                close();
+            }
+        }
+
+        void write(MortgageScheduleCalculator calculator, int loanNumber, PaymentSchedule schedule) throws IOException {
+            OutputFormat.ScheduleOutput output;
+            synchronized (this) {
+                if (closed) {
+                    throw new IOException("output is already closed");
+                }
+                output = outputs.get(calculator);
+                if (output == null) {
+                    output = options.format.open(options.outputDirectory.resolve(
+                        baseName + "-" + slug(calculator.getDisplayName()) + "." + options.format.getExtension()));
+                    outputs.put(calculator, output);
+                }
+            }
+            synchronized (output) {
+                output.write(loanNumber, schedule);
+            }
+        }
+
+        synchronized void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            openedBooks.remove(this);
+            for (Map.Entry<MortgageScheduleCalculator, OutputFormat.ScheduleOutput> entry : outputs.entrySet()) {
+                try {
+                    synchronized (entry.getValue()) {
+                        entry.getValue().close();
+                    }
+                } catch (Exception e) {
+                    writeStage.failed(baseName + " " + entry.getKey().getDisplayName() + ": " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private interface Worker {
+        void run() throws InterruptedException;
+    }
+
+    /**
+     * Потоки одной стадии и их общая статистика. Время стадии — от старта первого
+     * потока до завершения последнего.
+     */
+    private final class Stage {
+        private final String name;
+        private final int threads;
+        private final LongAdder items = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final AtomicInteger running;
+        private final CountDownLatch done;
+        private volatile long startNanos;
+        private volatile long endNanos;
+
+        Stage(String name, int threads) {
+            this.name = name;
+            this.threads = threads;
+            this.running = new AtomicInteger(threads);
+            this.done = new CountDownLatch(threads);
+        }
+
+        void start(Worker worker, Runnable onLastFinished) {
+            startNanos = System.nanoTime();
+            for (int i = 1; i <= threads; i++) {
+                Thread thread = new Thread(() -> {
+                    try {
+                        if (register(Thread.currentThread())) {
+                            worker.run();
+                        }
+                    } catch (InterruptedException e) {
+                        failed("interrupted");
+                    } catch (Throwable e) {
+                        failed(e.toString());
+                        abort();
+                    } finally {
+                        if (running.decrementAndGet() == 0) {
+                            endNanos = System.nanoTime();
+                            // после прерывания маркеры конца некому забирать
+                            if (!isAborted()) {
+                                onLastFinished.run();
+                            }
+                        }
+                        done.countDown();
+                    }
+                }, "batch-" + name + "-" + i);
+                thread.setDaemon(true);
+                thread.start();
+            }
+        }
+
+        void completed(long startedNanos) {
+            latency.recordSince(startedNanos);
+            items.increment();
+        }
+
+        void failed(String message) {
+            failures.increment();
+            errors.add(name + ": " + message);
+        }
+
+        void await() {
+            try {
+                done.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while waiting for the " + name + " stage", e);
+            }
+        }
+
+        StageStats stats() {
+            return new StageStats(name, threads, items.sum(), failures.sum(), endNanos - startNanos, latency);
+        }
+    }
+
+    private record LoanJob(BookOutputs book, int loanNumber, CreditTerms terms) {
+    }
+
+    private record ScheduleJob(BookOutputs book, int loanNumber, MortgageScheduleCalculator calculator,
+                               PaymentSchedule schedule) {
+    }
+}
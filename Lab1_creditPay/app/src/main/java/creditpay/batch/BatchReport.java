@@ -0,0 +1,59 @@
+package creditpay.batch;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Итоги пакетного запуска: статистика по стадиям и список ошибок.
+ */
+public final class BatchReport {
+    private final int files;
+    private final long elapsedNanos;
+    private final List<StageStats> stages;
+    private final List<String> errors;
+
+    public BatchReport(int files, long elapsedNanos, List<StageStats> stages, List<String> errors) {
+        this.files = files;
+        this.elapsedNanos = elapsedNanos;
+        this.stages = List.copyOf(stages);
+        this.errors = List.copyOf(errors);
+    }
+
+    public int getFiles() {
+        return files;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public List<StageStats> getStages() {
+        return stages;
+    }
+
+    public List<String> getErrors() {
+        return errors;
+    }
+
+    public StageStats getStage(String name) {
+        for (StageStats stage : stages) {
+            if (stage.getName().equals(name)) {
+                return stage;
+            }
+        }
+        throw new IllegalArgumentException("No stage " + name);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%d files in %d ms%n", files, TimeUnit.NANOSECONDS.toMillis(elapsedNanos)));
+        for (StageStats stage : stages) {
+            sb.append(stage).append(System.lineSeparator());
+        }
+        for (String error : errors) {
+            sb.append("error: ").append(error).append(System.lineSeparator());
+        }
+        return sb.toString();
+    }
+}
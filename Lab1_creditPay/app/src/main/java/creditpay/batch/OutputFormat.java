@@ -0,0 +1,110 @@
+package creditpay.batch;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import creditpay.io.BinaryPaymentWriter;
+import creditpay.io.CsvPaymentWriter;
+import creditpay.io.ExcelPaymentWriter;
+import creditpay.model.PaymentSchedule;
+
+/**
+ * Формат файлов, в которые пакетный режим записывает графики: один файл на книгу
+ * и метод, графики кредитов в нем помечены номерами кредитов в книге.
+ */
+public enum OutputFormat {
+    /** Лист на кредит, см. {@link ExcelPaymentWriter.LoanBook}. */
+    XLSX("xlsx") {
+        @Override
+        ScheduleOutput open(Path file) throws IOException {
+            OutputStream out = Files.newOutputStream(file);
+            ExcelPaymentWriter.LoanBook book = new ExcelPaymentWriter.LoanBook(out);
+            return new ScheduleOutput() {
+                @Override
+                public void write(int loanNumber, PaymentSchedule schedule) throws IOException {
+                    book.write(loanNumber, schedule);
+                }
+
+                @Override
+                public void close() throws IOException {
+                    try (out) {
+                        book.close();
+                    }
+                }
+            };
+        }
+    },
+    /** Первый столбец — номер кредита, см. {@link CsvPaymentWriter#LOAN_HEADER}. */
+    CSV("csv") {
+        @Override
+        ScheduleOutput open(Path file) throws IOException {
+            CsvPaymentWriter writer = CsvPaymentWriter.open(file, true);
+            return new ScheduleOutput() {
+                @Override
+                public void write(int loanNumber, PaymentSchedule schedule) {
+                    writer.write(loanNumber, schedule);
+                }
+
+                @Override
+                public void close() throws IOException {
+                    writer.close();
+                }
+            };
+        }
+    },
+    /** Блок на кредит с его номером, см. {@link BinaryPaymentWriter}. */
+    BINARY("bin") {
+        @Override
+        ScheduleOutput open(Path file) throws IOException {
+            BinaryPaymentWriter writer = BinaryPaymentWriter.open(file);
+            return new ScheduleOutput() {
+                @Override
+                public void write(int loanNumber, PaymentSchedule schedule) throws IOException {
+                    writer.write(loanNumber, schedule);
+                }
+
+                @Override
+                public void close() throws IOException {
+                    writer.close();
+                }
+            };
+        }
+    };
+
+    private final String extension;
+
+    OutputFormat(String extension) {
+        this.extension = extension;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * Создает файл результатов, в который графики дописываются по мере готовности.
+     */
+    abstract ScheduleOutput open(Path file) throws IOException;
+
+    /**
+     * Формат по расширению ({@code xlsx}, {@code csv}, {@code bin}).
+     */
+    public static OutputFormat fromExtension(String extension) {
+        for (OutputFormat format : values()) {
+            if (format.extension.equalsIgnoreCase(extension)) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("Unknown output format: " + extension);
+    }
+
+    /**
+     * Открытый файл результатов. Не потокобезопасен.
+     */
+    interface ScheduleOutput extends Closeable {
+        void write(int loanNumber, PaymentSchedule schedule) throws IOException;
+    }
+}
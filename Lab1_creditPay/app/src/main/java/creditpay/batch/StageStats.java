@@ -0,0 +1,65 @@
+package creditpay.batch;
+
+import java.util.concurrent.TimeUnit;
+
+import creditpay.metrics.LatencyHistogram;
+
+/**
+ * Итоги одной стадии конвейера: сколько элементов обработано, за какое время
+ * и распределение времени обработки одного элемента.
+ */
+public final class StageStats {
+    private final String name;
+    private final int threads;
+    private final long items;
+    private final long failures;
+    private final long elapsedNanos;
+    private final LatencyHistogram latency;
+
+    public StageStats(String name, int threads, long items, long failures, long elapsedNanos, LatencyHistogram latency) {
+        this.name = name;
+        this.threads = threads;
+        this.items = items;
+        this.failures = failures;
+        this.elapsedNanos = elapsedNanos;
+        this.latency = latency;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public long getItems() {
+        return items;
+    }
+
+    public long getFailures() {
+        return failures;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    public double getItemsPerSecond() {
+        if (elapsedNanos <= 0) {
+            return 0;
+        }
+        return items * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%-10s %2d threads  %8d items  %6d failed  %8d ms  %10.1f items/sec  %s",
+                name, threads, items, failures, TimeUnit.NANOSECONDS.toMillis(elapsedNanos),
+                getItemsPerSecond(), latency);
+    }
+}
@@ -3,39 +3,168 @@ package creditpay.calculator;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDate;
-import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Objects;
 
+import creditpay.model.AccrualCalendar;
 import creditpay.model.CreditTerms;
+import creditpay.model.FixedPointPaymentSink;
 import creditpay.model.Payment;
 
 public class AnnuityCalculator extends MortgageScheduleCalculator {
     private static final String _displayName = "Annuity";
 
+    private final AnnuityFactorTable factorTable;
+
+    public AnnuityCalculator() {
+        this(null);
+    }
+
+    /**
+     * @param factorTable precomputed coefficients to use for rates and terms on its grid;
+     *                    {@code null} to always compute them exactly
+     */
+    public AnnuityCalculator(AnnuityFactorTable factorTable) {
+        this.factorTable = factorTable;
+    }
+
     @Override
-    public List<Payment> calculateSchedule(CreditTerms terms) {
-        List<Payment> schedule = new ArrayList<>();
+    protected List<Payment> computeSchedule(CreditTerms terms) {
+        return collectSchedule(terms);
+    }
+
+    @Override
+    public Iterator<Payment> iterateSchedule(CreditTerms terms) {
         CalculationParams params = initializeCalculation(terms);
-        
-        LocalDate previousAccrualDate = params.startDate;
-        
-        BigDecimal annuityCoeff = params.monthlyRate.add(BigDecimal.ONE).pow(params.months).subtract(BigDecimal.ONE);
-        annuityCoeff = params.monthlyRate.multiply((params.monthlyRate.add(BigDecimal.ONE)).pow(params.months)).divide(annuityCoeff, _calculationScale, RoundingMode.HALF_UP);
-        BigDecimal monthlyPayment = params.principal.multiply(annuityCoeff);
-        BigDecimal remaining = params.principal;
-        int daysOfBorrowing = 0;
-        
+        return new AnnuityIterator(params, monthlyPayment(terms, params));
+    }
+
+    /**
+     * Keeps the remaining term and re-annuitizes the outstanding debt at the new rate,
+     * so a prepayment lowers the monthly payment.
+     */
+    @Override
+    public Iterator<Payment> resumeSchedule(CreditTerms terms, ScheduleState state) {
+        CalculationParams params = resumeCalculation(terms, state);
+        int remainingMonths = params.months - state.index;
+        BigDecimal annuityCoeff = tableCoefficient(state.annualRatePercent, remainingMonths);
+        if (annuityCoeff == null) {
+            annuityCoeff = annuityCoefficient(params.monthlyRate, remainingMonths);
+        }
+        return new AnnuityIterator(params, state, params.principal.multiply(annuityCoeff));
+    }
+
+    @Override
+    protected void computeFixedPointSchedule(CreditTerms terms, FixedPointPaymentSink sink) {
+        CalculationParams params = initializeCalculation(terms);
+
+        long monthlyRate = FixedPoint.toRate(params.monthlyRate);
+        long monthlyPayment = FixedPoint.toUnits(monthlyPayment(terms, params));
+        long remaining = FixedPoint.toUnits(params.principal);
+        AccrualCalendar calendar = params.calendar;
+
         for (int m = 0; m < params.months; m++) {
-            LocalDate currentAccrualDate = params.interestPeriod.nextAccrualDate(previousAccrualDate);
-            daysOfBorrowing += (int) ChronoUnit.DAYS.between(previousAccrualDate, currentAccrualDate);
-            
+            long currentEpochDay = calendar.paymentEpochDay(m);
+            int daysOfBorrowing = calendar.daysOfBorrowing(m);
+
+            long interest = FixedPoint.multiplyRate(remaining, monthlyRate);
+
+            long currentPayment;
+            long principalPart;
+            long newRemaining;
+            if (m == params.months - 1) {
+                newRemaining = 0;
+                currentPayment = remaining + interest;
+                principalPart = remaining;
+            } else {
+                currentPayment = monthlyPayment;
+                principalPart = monthlyPayment - interest;
+                newRemaining = remaining - principalPart;
+            }
+
+            sink.accept(m, daysOfBorrowing, currentEpochDay,
+                    FixedPoint.toKopecks(currentPayment), FixedPoint.toKopecks(interest),
+                    FixedPoint.toKopecks(principalPart), FixedPoint.toKopecks(newRemaining));
+
+            remaining = newRemaining;
+        }
+    }
+
+    @Override
+    public Payment calculatePayment(CreditTerms terms, int index) {
+        Objects.checkIndex(index, terms.getTermMonths());
+        CalculationParams params = initializeCalculation(terms);
+        return payment(params, monthlyPayment(terms, params), index);
+    }
+
+    @Override
+    public List<Payment> calculatePayments(CreditTerms terms, int fromIndex, int toIndex) {
+        Objects.checkFromToIndex(fromIndex, toIndex, terms.getTermMonths());
+        CalculationParams params = initializeCalculation(terms);
+        BigDecimal monthlyPayment = monthlyPayment(terms, params);
+        List<Payment> payments = new ArrayList<>(toIndex - fromIndex);
+        for (int m = fromIndex; m < toIndex; m++) {
+            payments.add(payment(params, monthlyPayment, m));
+        }
+        return payments;
+    }
+
+    /**
+     * Closed form: the debt before payment {@code m} is {@code P*q^m - A*(q^m - 1)/r}, q = 1 + r.
+     */
+    private static Payment payment(CalculationParams params, BigDecimal monthlyPayment, int m) {
+        BigDecimal remaining;
+        if (params.monthlyRate.signum() == 0) {
+            remaining = params.principal.subtract(monthlyPayment.multiply(BigDecimal.valueOf(m)));
+        } else {
+            BigDecimal growth = params.monthlyRate.add(BigDecimal.ONE).pow(m, _closedFormContext);
+            BigDecimal paidOff = monthlyPayment.multiply(growth.subtract(BigDecimal.ONE))
+                .divide(params.monthlyRate, _closedFormContext);
+            remaining = params.principal.multiply(growth).subtract(paidOff, _closedFormContext);
+        }
+        BigDecimal interest = remaining.multiply(params.monthlyRate, _closedFormContext);
+
+        BigDecimal currentPayment;
+        BigDecimal principalPart;
+        BigDecimal newRemaining;
+        if (m == params.months - 1) {
+            newRemaining = BigDecimal.ZERO;
+            currentPayment = remaining.add(interest);
+            principalPart = remaining;
+        } else {
+            currentPayment = monthlyPayment;
+            principalPart = monthlyPayment.subtract(interest);
+            newRemaining = remaining.subtract(principalPart);
+        }
+        return new Payment(daysOfBorrowing(params, m), paymentDate(params, m), currentPayment, interest, principalPart, newRemaining);
+    }
+
+    private static class AnnuityIterator extends PaymentIterator {
+        private final BigDecimal monthlyPayment;
+        private BigDecimal remaining;
+
+        AnnuityIterator(CalculationParams params, BigDecimal monthlyPayment) {
+            super(params);
+            this.monthlyPayment = monthlyPayment;
+            this.remaining = params.principal;
+        }
+
+        AnnuityIterator(CalculationParams params, ScheduleState state, BigDecimal monthlyPayment) {
+            super(params, state);
+            this.monthlyPayment = monthlyPayment;
+            this.remaining = state.remainingDebt;
+        }
+
+        @Override
+        protected Payment nextPayment(LocalDate currentAccrualDate) {
             BigDecimal interest = remaining.multiply(params.monthlyRate);
             
             BigDecimal currentPayment;
             BigDecimal principalPart;
             BigDecimal newRemaining;
-            if (m == params.months - 1) {
+            if (index == params.months - 1) {
                 newRemaining = BigDecimal.ZERO;
                 currentPayment = remaining.add(interest);
                 principalPart = remaining;
@@ -45,12 +174,51 @@ public class AnnuityCalculator extends MortgageScheduleCalculator {
                 newRemaining = remaining.subtract(principalPart);
             }
             
-            schedule.add(new Payment(daysOfBorrowing, currentAccrualDate, currentPayment, interest, principalPart, newRemaining));
-            
             remaining = newRemaining;
-            previousAccrualDate = currentAccrualDate;
+            return new Payment(daysOfBorrowing, currentAccrualDate, currentPayment, interest, principalPart, newRemaining);
+        }
+    }
+
+    /**
+     * Quotes the monthly payment, rounded to kopecks, without building a schedule.
+     */
+    public BigDecimal quoteMonthlyPayment(CreditTerms terms) {
+        return quoteMonthlyPayment(terms.getPrincipal(), terms.getAnnualRatePercent(), terms.getTermMonths());
+    }
+
+    /**
+     * Quotes the monthly payment, rounded to kopecks, without building a schedule.
+     * On the factor table grid this is a single lookup and multiplication.
+     */
+    public BigDecimal quoteMonthlyPayment(BigDecimal principal, BigDecimal annualRatePercent, int termMonths) {
+        BigDecimal annuityCoeff = tableCoefficient(annualRatePercent, termMonths);
+        if (annuityCoeff == null) {
+            annuityCoeff = annuityCoefficient(monthlyRate(annualRatePercent), termMonths);
+        }
+        return principal.multiply(annuityCoeff).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    private BigDecimal monthlyPayment(CreditTerms terms, CalculationParams params) {
+        BigDecimal annuityCoeff = tableCoefficient(terms.getAnnualRatePercent(), params.months);
+        if (annuityCoeff == null) {
+            annuityCoeff = annuityCoefficient(params.monthlyRate, params.months);
+        }
+        return params.principal.multiply(annuityCoeff);
+    }
+
+    private BigDecimal tableCoefficient(BigDecimal annualRatePercent, int months) {
+        return factorTable == null ? null : factorTable.coefficient(annualRatePercent, months);
+    }
+
+    /**
+     * {@code r*(1+r)^n / ((1+r)^n - 1)}; an interest-free loan is repaid in equal parts, {@code 1/n}.
+     */
+    private static BigDecimal annuityCoefficient(BigDecimal monthlyRate, int months) {
+        if (monthlyRate.signum() == 0) {
+            return BigDecimal.ONE.divide(BigDecimal.valueOf(months), _calculationScale, RoundingMode.HALF_UP);
         }
-        return schedule;
+        BigDecimal growth = monthlyRate.add(BigDecimal.ONE).pow(months);
+        return monthlyRate.multiply(growth).divide(growth.subtract(BigDecimal.ONE), _calculationScale, RoundingMode.HALF_UP);
     }
     
     @Override
@@ -0,0 +1,162 @@
+package creditpay.calculator;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+
+/**
+ * Precomputed annuity coefficients {@code r*(1+r)^n / ((1+r)^n - 1)} for a grid of
+ * annual rates and terms, so a monthly payment costs one multiplication.
+ *
+ * <p>Coefficients are stored as they come out of {@link AnnuityCalculator}: rounded
+ * half-up to {@code _calculationScale} digits, with the monthly rate derived from the
+ * annual one the same way. Powers are accumulated with 40 significant digits, which
+ * reproduces the exact coefficient unless it lies within 1e-30 of a rounding boundary.
+ *
+ * <p>The table can be saved to a stream and loaded back, so the grid is built once.
+ */
+public final class AnnuityFactorTable {
+    public static final int DEFAULT_MAX_TERM = 600;
+
+    private static final int _magic = 0x414E4654; // "ANFT"
+    private static final int _version = 1;
+    private static final MathContext _powerContext = new MathContext(40, RoundingMode.HALF_EVEN);
+
+    private final BigDecimal minRatePercent;
+    private final BigDecimal rateStepPercent;
+    private final int rateCount;
+    private final int maxTerm;
+    /** Unscaled coefficients, row-major by rate: {@code [rateIndex * maxTerm + term - 1]}. */
+    private final long[] coefficients;
+
+    private AnnuityFactorTable(BigDecimal minRatePercent, BigDecimal rateStepPercent, int rateCount,
+                               int maxTerm, long[] coefficients) {
+        this.minRatePercent = minRatePercent;
+        this.rateStepPercent = rateStepPercent;
+        this.rateCount = rateCount;
+        this.maxTerm = maxTerm;
+        this.coefficients = coefficients;
+    }
+
+    /**
+     * Builds the table for annual rates {@code minRatePercent, minRatePercent + step, ... <= maxRatePercent}
+     * and terms from 1 to {@code maxTerm} months.
+     */
+    public static AnnuityFactorTable build(BigDecimal minRatePercent, BigDecimal maxRatePercent,
+                                           BigDecimal rateStepPercent, int maxTerm) {
+        if (minRatePercent.signum() <= 0 || maxRatePercent.compareTo(minRatePercent) < 0) {
+            throw new IllegalArgumentException("rates must be positive and minRate <= maxRate");
+        }
+        if (rateStepPercent.signum() <= 0) {
+            throw new IllegalArgumentException("rateStep must be positive");
+        }
+        if (maxTerm < 1) {
+            throw new IllegalArgumentException("maxTerm must be positive");
+        }
+        int rateCount = maxRatePercent.subtract(minRatePercent)
+                .divide(rateStepPercent, 0, RoundingMode.FLOOR).intValueExact() + 1;
+
+        long[] coefficients = new long[Math.multiplyExact(rateCount, maxTerm)];
+        for (int i = 0; i < rateCount; i++) {
+            BigDecimal annualRate = minRatePercent.add(rateStepPercent.multiply(BigDecimal.valueOf(i)));
+            BigDecimal monthlyRate = MortgageScheduleCalculator.monthlyRate(annualRate);
+            BigDecimal growthStep = monthlyRate.add(BigDecimal.ONE);
+            BigDecimal growth = BigDecimal.ONE;
+            for (int term = 1; term <= maxTerm; term++) {
+                growth = growth.multiply(growthStep, _powerContext);
+                coefficients[i * maxTerm + term - 1] = coefficient(monthlyRate, growth);
+            }
+        }
+        return new AnnuityFactorTable(minRatePercent, rateStepPercent, rateCount, maxTerm, coefficients);
+    }
+
+    /**
+     * Coefficient for the given annual rate and term, or {@code null} when they are off the grid.
+     */
+    public BigDecimal coefficient(BigDecimal annualRatePercent, int termMonths) {
+        if (termMonths < 1 || termMonths > maxTerm) {
+            return null;
+        }
+        BigDecimal[] steps = annualRatePercent.subtract(minRatePercent).divideAndRemainder(rateStepPercent);
+        if (steps[1].signum() != 0 || steps[0].signum() < 0 || steps[0].compareTo(BigDecimal.valueOf(rateCount)) >= 0) {
+            return null;
+        }
+        int rateIndex = steps[0].intValue();
+        return BigDecimal.valueOf(coefficients[rateIndex * maxTerm + termMonths - 1],
+                MortgageScheduleCalculator._calculationScale);
+    }
+
+    public BigDecimal getMinRatePercent() {
+        return minRatePercent;
+    }
+
+    public BigDecimal getRateStepPercent() {
+        return rateStepPercent;
+    }
+
+    public int getRateCount() {
+        return rateCount;
+    }
+
+    public int getMaxTerm() {
+        return maxTerm;
+    }
+
+    public void save(OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(_magic);
+        data.writeInt(_version);
+        writeDecimal(data, minRatePercent);
+        writeDecimal(data, rateStepPercent);
+        data.writeInt(rateCount);
+        data.writeInt(maxTerm);
+        for (long coefficient : coefficients) {
+            data.writeLong(coefficient);
+        }
+        data.flush();
+    }
+
+    public static AnnuityFactorTable load(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        if (data.readInt() != _magic) {
+            throw new IOException("Not an annuity factor table");
+        }
+        int version = data.readInt();
+        if (version != _version) {
+            throw new IOException("Unsupported annuity factor table version " + version);
+        }
+        BigDecimal minRatePercent = readDecimal(data);
+        BigDecimal rateStepPercent = readDecimal(data);
+        int rateCount = data.readInt();
+        int maxTerm = data.readInt();
+        if (rateCount < 1 || maxTerm < 1) {
+            throw new IOException("Corrupted annuity factor table header");
+        }
+        long[] coefficients = new long[Math.multiplyExact(rateCount, maxTerm)];
+        for (int i = 0; i < coefficients.length; i++) {
+            coefficients[i] = data.readLong();
+        }
+        return new AnnuityFactorTable(minRatePercent, rateStepPercent, rateCount, maxTerm, coefficients);
+    }
+
+    private static long coefficient(BigDecimal monthlyRate, BigDecimal growth) {
+        return monthlyRate.multiply(growth)
+                .divide(growth.subtract(BigDecimal.ONE), MortgageScheduleCalculator._calculationScale, RoundingMode.HALF_UP)
+                .unscaledValue().longValueExact();
+    }
+
+    private static void writeDecimal(DataOutputStream data, BigDecimal value) throws IOException {
+        data.writeLong(value.unscaledValue().longValueExact());
+        data.writeInt(value.scale());
+    }
+
+    private static BigDecimal readDecimal(DataInputStream data) throws IOException {
+        long unscaled = data.readLong();
+        return BigDecimal.valueOf(unscaled, data.readInt());
+    }
+}
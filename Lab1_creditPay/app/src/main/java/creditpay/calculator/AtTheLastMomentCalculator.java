@@ -2,49 +2,140 @@ package creditpay.calculator;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
-import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Objects;
 
+import creditpay.model.AccrualCalendar;
+import creditpay.model.FixedPointPaymentSink;
 import creditpay.model.Payment;
 
 public class AtTheLastMomentCalculator extends MortgageScheduleCalculator {
     private static final String _displayName = "At the last moment";
 
     @Override
-    public List<creditpay.model.Payment> calculateSchedule(creditpay.model.CreditTerms terms) {
-        
-        List<Payment> schedule = new ArrayList<>();
+    protected List<creditpay.model.Payment> computeSchedule(creditpay.model.CreditTerms terms) {
+        return collectSchedule(terms);
+    }
+
+    @Override
+    public Iterator<Payment> iterateSchedule(creditpay.model.CreditTerms terms) {
+        return new AtTheLastMomentIterator(initializeCalculation(terms));
+    }
+
+    /**
+     * Keeps compounding the debt carried into {@code state} and repays it all with the last
+     * payment. Capitalized interest is not kept apart from the debt, so the last payment counts
+     * the original principal, capped by that debt, as principal and the rest as interest:
+     * a prepayment goes to the accrued interest first.
+     */
+    @Override
+    public Iterator<Payment> resumeSchedule(creditpay.model.CreditTerms terms, ScheduleState state) {
+        CalculationParams params = resumeCalculation(terms, state);
+        return new AtTheLastMomentIterator(params, state, terms.getPrincipal().min(state.remainingDebt));
+    }
+
+    @Override
+    protected void computeFixedPointSchedule(creditpay.model.CreditTerms terms, FixedPointPaymentSink sink) {
         CalculationParams params = initializeCalculation(terms);
-        
-        LocalDate previousAccrualDate = params.startDate;
-        BigDecimal remaining = params.principal;
-        int daysOfBorrowing = 0;
-        
+
+        long monthlyRate = FixedPoint.toRate(params.monthlyRate);
+        long principal = FixedPoint.toUnits(params.principal);
+        long remaining = principal;
+        AccrualCalendar calendar = params.calendar;
+
         for (int m = 0; m < params.months - 1; m++) {
-            LocalDate currentAccrualDate = params.interestPeriod.nextAccrualDate(previousAccrualDate);
-            daysOfBorrowing += (int) ChronoUnit.DAYS.between(previousAccrualDate, currentAccrualDate);
-            
-            BigDecimal interest = remaining.multiply(params.monthlyRate);
-            remaining = remaining.add(interest);
-            
-            schedule.add(new Payment(daysOfBorrowing, currentAccrualDate, BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO, remaining));
-            
-            previousAccrualDate = currentAccrualDate;
+            long currentEpochDay = calendar.paymentEpochDay(m);
+            int daysOfBorrowing = calendar.daysOfBorrowing(m);
+
+            remaining += FixedPoint.multiplyRate(remaining, monthlyRate);
+
+            sink.accept(m, daysOfBorrowing, currentEpochDay, 0, 0, 0, FixedPoint.toKopecks(remaining));
+        }
+
+        remaining += FixedPoint.multiplyRate(remaining, monthlyRate);
+        int last = params.months - 1;
+        sink.accept(last,
+            calendar.periodDays(last),
+            calendar.paymentEpochDay(last),
+            FixedPoint.toKopecks(remaining),
+            FixedPoint.toKopecks(remaining - principal),
+            FixedPoint.toKopecks(principal),
+            0
+        );
+    }
+
+    @Override
+    public Payment calculatePayment(creditpay.model.CreditTerms terms, int index) {
+        Objects.checkIndex(index, terms.getTermMonths());
+        return payment(initializeCalculation(terms), index);
+    }
+
+    @Override
+    public List<Payment> calculatePayments(creditpay.model.CreditTerms terms, int fromIndex, int toIndex) {
+        Objects.checkFromToIndex(fromIndex, toIndex, terms.getTermMonths());
+        CalculationParams params = initializeCalculation(terms);
+        List<Payment> payments = new ArrayList<>(toIndex - fromIndex);
+        for (int m = fromIndex; m < toIndex; m++) {
+            payments.add(payment(params, m));
         }
+        return payments;
+    }
 
-        BigDecimal interest = remaining.multiply(params.monthlyRate);
-        remaining = remaining.add(interest);
-        schedule.add(new Payment(
-            (int) ChronoUnit.DAYS.between(previousAccrualDate, params.interestPeriod.nextAccrualDate(previousAccrualDate)),
-            params.interestPeriod.nextAccrualDate(previousAccrualDate),
+    /**
+     * Closed form: after payment {@code m} the debt is {@code P*q^(m+1)}, q = 1 + r.
+     */
+    private static Payment payment(CalculationParams params, int m) {
+        BigDecimal remaining = params.principal.multiply(
+            params.monthlyRate.add(BigDecimal.ONE).pow(m + 1, _closedFormContext), _closedFormContext);
+        if (m < params.months - 1) {
+            return new Payment(daysOfBorrowing(params, m), paymentDate(params, m), BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO, remaining);
+        }
+        return new Payment(
+            params.calendar.periodDays(m),
+            paymentDate(params, m),
             remaining,
             remaining.subtract(params.principal),
             params.principal,
             BigDecimal.ZERO
-        ));
+        );
+    }
 
-        return schedule;
+    private static class AtTheLastMomentIterator extends PaymentIterator {
+        /** Part of the last payment that repays principal. */
+        private final BigDecimal principal;
+        private BigDecimal remaining;
+
+        AtTheLastMomentIterator(CalculationParams params) {
+            super(params);
+            this.principal = params.principal;
+            this.remaining = params.principal;
+        }
+
+        AtTheLastMomentIterator(CalculationParams params, ScheduleState state, BigDecimal principal) {
+            super(params, state);
+            this.principal = principal;
+            this.remaining = state.remainingDebt;
+        }
+
+        @Override
+        protected Payment nextPayment(LocalDate currentAccrualDate) {
+            BigDecimal interest = remaining.multiply(params.monthlyRate);
+            remaining = remaining.add(interest);
+
+            if (index < params.months - 1) {
+                return new Payment(daysOfBorrowing, currentAccrualDate, BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO, remaining);
+            }
+            return new Payment(
+                params.calendar.periodDays(index),
+                currentAccrualDate,
+                remaining,
+                remaining.subtract(principal),
+                principal,
+                BigDecimal.ZERO
+            );
+        }
     }
 
     @Override
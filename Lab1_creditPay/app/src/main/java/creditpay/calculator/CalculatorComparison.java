@@ -0,0 +1,242 @@
+package creditpay.calculator;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+import creditpay.model.CreditTerms;
+import creditpay.model.PaymentSchedule;
+
+/**
+ * Runs several calculators on the same terms concurrently and lines their schedules up
+ * for a side-by-side comparison.
+ *
+ * <p>Each calculator computes its fixed-point schedule on the executor. The summaries
+ * (total paid, overpayment, peak payment, payoff date) and the period-by-period table
+ * are then filled in one pass over the rows. Periods are aligned by index, which also
+ * aligns the dates: every method pays on the same accrual calendar. All amounts are
+ * in kopecks.
+ */
+public final class CalculatorComparison {
+    /** Marks a period past the end of a shorter schedule in {@link Result#payment}. */
+    public static final long NO_PAYMENT = Long.MIN_VALUE;
+
+    private CalculatorComparison() {}
+
+    public static final class Summary {
+        public final MortgageScheduleCalculator calculator;
+        public final int payments;
+        public final long totalPaid;
+        public final long overpayment;
+        public final long peakPayment;
+        /** 0-based index of the first payment equal to {@link #peakPayment}. */
+        public final int peakIndex;
+        public final LocalDate payoffDate;
+
+        Summary(MortgageScheduleCalculator calculator, int payments, long totalPaid, long overpayment,
+                long peakPayment, int peakIndex, LocalDate payoffDate) {
+            this.calculator = calculator;
+            this.payments = payments;
+            this.totalPaid = totalPaid;
+            this.overpayment = overpayment;
+            this.peakPayment = peakPayment;
+            this.peakIndex = peakIndex;
+            this.payoffDate = payoffDate;
+        }
+    }
+
+    /**
+     * Summaries in calculator order and the aligned payments, laid out period-major: the
+     * payment of method {@code m} in period {@code p} is at {@code p * methods + m}. The
+     * first calculator is the baseline of the differences.
+     */
+    public static final class Result {
+        public final CreditTerms terms;
+        public final List<Summary> summaries;
+        public final int periods;
+        private final int methods;
+        private final long[] payments;
+        private final long[] paymentEpochDays;
+
+        Result(CreditTerms terms, List<Summary> summaries, int periods, long[] payments, long[] paymentEpochDays) {
+            this.terms = terms;
+            this.summaries = List.copyOf(summaries);
+            this.periods = periods;
+            this.methods = summaries.size();
+            this.payments = payments;
+            this.paymentEpochDays = paymentEpochDays;
+        }
+
+        public int methods() {
+            return methods;
+        }
+
+        /**
+         * Total payment of method {@code method} in period {@code period}, or {@link #NO_PAYMENT}.
+         */
+        public long payment(int period, int method) {
+            return payments[period * methods + method];
+        }
+
+        /**
+         * Payment of {@code method} minus the baseline payment in the same period;
+         * a missing payment counts as zero.
+         */
+        public long difference(int period, int method) {
+            return orZero(payment(period, method)) - orZero(payment(period, 0));
+        }
+
+        public LocalDate paymentDate(int period) {
+            return LocalDate.ofEpochDay(paymentEpochDays[period]);
+        }
+
+        /**
+         * One line per method: payments, total paid, overpayment, peak payment and payoff date.
+         */
+        public String formatSummary() {
+            StringBuilder sb = new StringBuilder();
+            sb.append(String.format(Locale.US, "%-20s %8s %18s %16s %16s %10s%n",
+                    "Method", "Payments", "Total paid", "Overpayment", "Peak payment", "Payoff"));
+            for (Summary summary : summaries) {
+                sb.append(String.format(Locale.US, "%-20s %8d %18s %16s %16s %10s%n",
+                        summary.calculator.getDisplayName(), summary.payments, formatKopecks(summary.totalPaid),
+                        formatKopecks(summary.overpayment), formatKopecks(summary.peakPayment), summary.payoffDate));
+            }
+            return sb.toString();
+        }
+
+        /**
+         * Period-by-period payments of every method, followed by each method's difference
+         * from the baseline.
+         */
+        public String formatDifferences() {
+            StringBuilder sb = new StringBuilder();
+            sb.append(String.format(Locale.US, "%6s %10s", "Period", "Date"));
+            for (Summary summary : summaries) {
+                sb.append(String.format(Locale.US, " %16s", abbreviate(summary.calculator.getDisplayName(), 16)));
+            }
+            for (int m = 1; m < methods; m++) {
+                sb.append(String.format(Locale.US, " %16s", "diff " + abbreviate(summaries.get(m).calculator.getDisplayName(), 11)));
+            }
+            sb.append(System.lineSeparator());
+
+            for (int p = 0; p < periods; p++) {
+                sb.append(String.format(Locale.US, "%6d %10s", p + 1, paymentDate(p)));
+                for (int m = 0; m < methods; m++) {
+                    long payment = payment(p, m);
+                    sb.append(String.format(Locale.US, " %16s", payment == NO_PAYMENT ? "-" : formatKopecks(payment)));
+                }
+                for (int m = 1; m < methods; m++) {
+                    sb.append(String.format(Locale.US, " %16s", formatKopecks(difference(p, m))));
+                }
+                sb.append(System.lineSeparator());
+            }
+            return sb.toString();
+        }
+
+        private static long orZero(long payment) {
+            return payment == NO_PAYMENT ? 0 : payment;
+        }
+
+        private static String abbreviate(String name, int width) {
+            return name.length() <= width ? name : name.substring(0, width);
+        }
+
+        private static String formatKopecks(long kopecks) {
+            return String.format(Locale.US, "%,.2f", BigDecimal.valueOf(kopecks, 2));
+        }
+    }
+
+    /**
+     * Compares every calculator found by {@link CalculatorRegistry#discoverCalculators()}.
+     */
+    public static Result compare(CreditTerms terms) {
+        return compare(terms, CalculatorRegistry.discoverCalculators());
+    }
+
+    /**
+     * Runs the calculators on the common pool, or one after another when it has no parallelism
+     * (a single CPU), where the pool would otherwise start a thread per calculator.
+     */
+    public static Result compare(CreditTerms terms, List<MortgageScheduleCalculator> calculators) {
+        Executor executor = ForkJoinPool.getCommonPoolParallelism() > 1 ? ForkJoinPool.commonPool() : Runnable::run;
+        return compare(terms, calculators, executor);
+    }
+
+    /**
+     * The first calculator runs in the calling thread while the others run on {@code executor}.
+     */
+    public static Result compare(CreditTerms terms, List<MortgageScheduleCalculator> calculators, Executor executor) {
+        if (calculators.isEmpty()) {
+            throw new IllegalArgumentException("at least one calculator is required");
+        }
+        List<CompletableFuture<PaymentSchedule>> futures = new ArrayList<>(calculators.size());
+        for (MortgageScheduleCalculator calculator : calculators.subList(1, calculators.size())) {
+            futures.add(CompletableFuture.supplyAsync(() -> calculator.calculatePaymentSchedule(terms), executor));
+        }
+
+        PaymentSchedule[] schedules = new PaymentSchedule[calculators.size()];
+        schedules[0] = calculators.get(0).calculatePaymentSchedule(terms);
+        for (int m = 1; m < schedules.length; m++) {
+            try {
+                schedules[m] = futures.get(m - 1).join();
+            } catch (CompletionException e) {
+                throw new RuntimeException(calculators.get(m).getDisplayName() + " failed: "
+                        + e.getCause().getMessage(), e.getCause());
+            }
+        }
+        return summarize(terms, calculators, schedules);
+    }
+
+    private static Result summarize(CreditTerms terms, List<MortgageScheduleCalculator> calculators,
+                                    PaymentSchedule[] schedules) {
+        int methods = schedules.length;
+        int periods = 0;
+        PaymentSchedule longest = schedules[0];
+        for (PaymentSchedule schedule : schedules) {
+            if (schedule.size() > periods) {
+                periods = schedule.size();
+                longest = schedule;
+            }
+        }
+
+        long[] payments = new long[periods * methods];
+        long[] paymentEpochDays = new long[periods];
+        long[] totals = new long[methods];
+        long[] peaks = new long[methods];
+        int[] peakIndexes = new int[methods];
+        for (int p = 0; p < periods; p++) {
+            paymentEpochDays[p] = longest.paymentEpochDay(p);
+            for (int m = 0; m < methods; m++) {
+                PaymentSchedule schedule = schedules[m];
+                if (p >= schedule.size()) {
+                    payments[p * methods + m] = NO_PAYMENT;
+                    continue;
+                }
+                long payment = schedule.totalPayment(p);
+                payments[p * methods + m] = payment;
+                totals[m] += payment;
+                if (payment > peaks[m]) {
+                    peaks[m] = payment;
+                    peakIndexes[m] = p;
+                }
+            }
+        }
+
+        long principal = FixedPoint.toKopecks(terms.getPrincipal());
+        List<Summary> summaries = new ArrayList<>(methods);
+        for (int m = 0; m < methods; m++) {
+            PaymentSchedule schedule = schedules[m];
+            LocalDate payoffDate = schedule.isEmpty() ? terms.getStartDate() : schedule.paymentDate(schedule.size() - 1);
+            summaries.add(new Summary(calculators.get(m), schedule.size(), totals[m], totals[m] - principal,
+                    peaks[m], peakIndexes[m], payoffDate));
+        }
+        return new Result(terms, summaries, periods, payments, paymentEpochDays);
+    }
+}
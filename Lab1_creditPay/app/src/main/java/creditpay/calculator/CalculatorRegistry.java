@@ -1,83 +1,189 @@
 package creditpay.calculator;
 
 import java.io.IOException;
-import java.lang.reflect.Modifier;
-import java.net.URI;
-import java.net.URISyntaxException;
+import java.net.MalformedURLException;
 import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
-import java.util.stream.Stream;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
 
+/**
+ * Finds the available calculators through {@link ServiceLoader}.
+ *
+ * <p>Built-in calculators are listed in
+ * {@code META-INF/services/creditpay.calculator.MortgageScheduleCalculator}, so discovery
+ * works the same from a class directory and from a jar and loads no other classes.
+ * External calculators are picked up from plugin jars carrying the same service file;
+ * the plugin directory is given explicitly or by the {@value #PLUGIN_DIRECTORY_PROPERTY}
+ * system property.
+ *
+ * <p>A registry only finds providers; each calculator is created on first use and then
+ * reused. {@link #find(String)} creates providers in order until the name matches,
+ * {@link #calculators()} creates all of them: plugin calculators in parallel, since their
+ * constructors may load data, the built-in ones in place, which is cheaper than starting
+ * the common pool. Either way the order of the service files is kept. A broken service
+ * file entry or a failing constructor costs only that calculator, with a warning.
+ */
 public class CalculatorRegistry {
-    private static final String PACKAGE_NAME = "creditpay.calculator";
-    private static final String CLASS_EXTENSION = ".class";
+    public static final String PLUGIN_DIRECTORY_PROPERTY = "creditpay.pluginDirectory";
+    private static final String _pluginExtension = ".jar";
+    /** Guard against a service lookup that keeps failing without moving on. */
+    private static final int _maxServiceErrors = 64;
+
+    private final List<LazyCalculator> entries;
+    private final boolean parallel;
+
+    private CalculatorRegistry(List<LazyCalculator> entries, boolean parallel) {
+        this.entries = entries;
+        this.parallel = parallel;
+    }
+
+    /**
+     * Registry of the built-in calculators, plus plugins when {@value #PLUGIN_DIRECTORY_PROPERTY} is set.
+     */
+    public static CalculatorRegistry load() {
+        String pluginDirectory = System.getProperty(PLUGIN_DIRECTORY_PROPERTY);
+        return pluginDirectory == null
+            ? load(CalculatorRegistry.class.getClassLoader(), false)
+            : load(Paths.get(pluginDirectory));
+    }
+
+    /**
+     * Built-in calculators plus those from the {@code .jar} files in {@code pluginDirectory}.
+     * A missing directory means no plugins.
+     */
+    public static CalculatorRegistry load(Path pluginDirectory) {
+        Objects.requireNonNull(pluginDirectory);
+        List<URL> pluginJars = listPluginJars(pluginDirectory);
+        ClassLoader parent = CalculatorRegistry.class.getClassLoader();
+        if (pluginJars.isEmpty()) {
+            return load(parent, false);
+        }
+        // the loader stays open: plugin calculators keep loading their classes through it
+        URLClassLoader pluginLoader = new URLClassLoader(pluginJars.toArray(new URL[0]), parent);
+        return load(pluginLoader, true);
+    }
+
+    public static CalculatorRegistry load(ClassLoader classLoader) {
+        return load(classLoader, classLoader != CalculatorRegistry.class.getClassLoader());
+    }
 
     public static List<MortgageScheduleCalculator> discoverCalculators() {
-        List<MortgageScheduleCalculator> calculators = new ArrayList<>();
-        
-        try {
-            ClassLoader classLoader = CalculatorRegistry.class.getClassLoader();
-            URL resource = classLoader.getResource(PACKAGE_NAME.replace(".", "/"));
-            
-            if (resource == null) {
-                throw new RuntimeException("Package " + PACKAGE_NAME + " not found on classpath");
-            }
-            
-            URI uri = resource.toURI();
-            Path path = Paths.get(uri);
-            
-            try (Stream<Path> paths = Files.list(path)) {
-                paths.filter(Files::isRegularFile)
-                    .filter(p -> p.toString().endsWith(CLASS_EXTENSION))
-                    .forEach(classFile -> {
-                        try {
-                            String className = extractClassName(classFile);
-                            Class<?> clazz = classLoader.loadClass(className);
-                            
-                            if (isConcreteMortgageCalculator(clazz)) {
-                                MortgageScheduleCalculator instance =
-                                    getCalculatorInstance((Class<? extends MortgageScheduleCalculator>) clazz);
-                                calculators.add(instance);
-                            }
-                        } catch (Exception e) {
-                            System.err.println("Warning: Could not load calculator from " + classFile + ": " + e.getMessage());
-                        }
-                    });
+        return load().calculators();
+    }
+
+    public static List<MortgageScheduleCalculator> discoverCalculators(Path pluginDirectory) {
+        return load(pluginDirectory).calculators();
+    }
+
+    public static List<MortgageScheduleCalculator> discoverCalculators(ClassLoader classLoader) {
+        return load(classLoader).calculators();
+    }
+
+    private static CalculatorRegistry load(ClassLoader classLoader, boolean parallel) {
+        List<LazyCalculator> entries = new ArrayList<>();
+        Iterator<ServiceLoader.Provider<MortgageScheduleCalculator>> providers =
+            ServiceLoader.load(MortgageScheduleCalculator.class, classLoader).stream().iterator();
+        int errors = 0;
+        while (true) {
+            try {
+                if (!providers.hasNext()) {
+                    break;
+                }
+                entries.add(new LazyCalculator(providers.next()));
+            } catch (ServiceConfigurationError e) {
+                // the lookup moves past the bad entry, the next call continues with the rest
+                System.err.println("Warning: Could not find calculator: " + e.getMessage());
+                if (++errors >= _maxServiceErrors) {
+                    break;
+                }
             }
-        } catch (IOException | URISyntaxException e) {
-            throw new RuntimeException("Failed to discover calculators in package " + PACKAGE_NAME, e);
         }
-        
-        return calculators;
+        return new CalculatorRegistry(List.copyOf(entries), parallel);
+    }
+
+    /**
+     * Number of providers found, including those whose calculator fails to be created.
+     */
+    public int providerCount() {
+        return entries.size();
     }
 
-    private static MortgageScheduleCalculator getCalculatorInstance(Class<? extends MortgageScheduleCalculator> clazz) {
-        try {
-            return clazz.getDeclaredConstructor().newInstance();
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to instantiate calculator: " + clazz.getName(), e);
+    /**
+     * The first calculator whose display name equals {@code displayName}, ignoring case;
+     * providers after it are not created.
+     */
+    public Optional<MortgageScheduleCalculator> find(String displayName) {
+        for (LazyCalculator entry : entries) {
+            MortgageScheduleCalculator calculator = entry.get();
+            if (calculator != null && calculator.getDisplayName().equalsIgnoreCase(displayName)) {
+                return Optional.of(calculator);
+            }
         }
+        return Optional.empty();
     }
 
     /**
-     * Checks if a class is a concrete (non-abstract) implementation of MortgageScheduleCalculator.
+     * Every calculator that could be created, in service file order.
      */
-    private static boolean isConcreteMortgageCalculator(Class<?> clazz) {
-        return MortgageScheduleCalculator.class.isAssignableFrom(clazz)
-                && !Modifier.isAbstract(clazz.getModifiers())
-                && !clazz.equals(MortgageScheduleCalculator.class);
+    public List<MortgageScheduleCalculator> calculators() {
+        return (parallel ? entries.parallelStream() : entries.stream())
+            .map(LazyCalculator::get)
+            .filter(Objects::nonNull)
+            .toList();
     }
 
     /**
-     * Extracts the fully qualified class name from a .class file path.
+     * A provider and the calculator it created; a failure is reported once and remembered.
      */
-    private static String extractClassName(Path classFile) {
-        String fileName = classFile.getFileName().toString();
-        String className = fileName.substring(0, fileName.length() - CLASS_EXTENSION.length());
-        return PACKAGE_NAME + "." + className;
+    private static final class LazyCalculator {
+        private final ServiceLoader.Provider<MortgageScheduleCalculator> provider;
+        private MortgageScheduleCalculator calculator;
+        private boolean created;
+
+        LazyCalculator(ServiceLoader.Provider<MortgageScheduleCalculator> provider) {
+            this.provider = provider;
+        }
+
+        synchronized MortgageScheduleCalculator get() {
+            if (!created) {
+                created = true;
+                try {
+                    calculator = provider.get();
+                } catch (Exception | ServiceConfigurationError e) {
+                    System.err.println("Warning: Could not load calculator " + provider.type().getName() + ": " + e.getMessage());
+                }
+            }
+            return calculator;
+        }
+    }
+
+    private static List<URL> listPluginJars(Path pluginDirectory) {
+        List<URL> jars = new ArrayList<>();
+        if (!Files.isDirectory(pluginDirectory)) {
+            return jars;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(pluginDirectory, "*" + _pluginExtension)) {
+            List<Path> sorted = new ArrayList<>();
+            files.forEach(sorted::add);
+            sorted.sort(null);
+            for (Path jar : sorted) {
+                jars.add(jar.toUri().toURL());
+            }
+        } catch (MalformedURLException e) {
+            throw new RuntimeException("Invalid plugin path in " + pluginDirectory, e);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to list calculator plugins in " + pluginDirectory, e);
+        }
+        return jars;
     }
-}
\ No newline at end of file
+}
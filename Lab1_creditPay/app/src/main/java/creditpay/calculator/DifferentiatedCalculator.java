@@ -3,40 +3,125 @@ package creditpay.calculator;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDate;
-import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Objects;
 
+import creditpay.model.AccrualCalendar;
 import creditpay.model.CreditTerms;
+import creditpay.model.FixedPointPaymentSink;
 import creditpay.model.Payment;
 
 public class DifferentiatedCalculator extends MortgageScheduleCalculator {
     private static final String _displayName = "Differentiated";
 
     @Override
-    public List<Payment> calculateSchedule(CreditTerms terms) {
-        List<Payment> schedule = new ArrayList<>();
+    protected List<Payment> computeSchedule(CreditTerms terms) {
+        return collectSchedule(terms);
+    }
+
+    @Override
+    public Iterator<Payment> iterateSchedule(CreditTerms terms) {
+        return new DifferentiatedIterator(initializeCalculation(terms));
+    }
+
+    /**
+     * Spreads the outstanding debt evenly over the remaining term.
+     */
+    @Override
+    public Iterator<Payment> resumeSchedule(CreditTerms terms, ScheduleState state) {
+        CalculationParams params = resumeCalculation(terms, state);
+        BigDecimal monthlyPrincipal = state.remainingDebt.divide(
+            BigDecimal.valueOf(params.months - state.index), _calculationScale, RoundingMode.HALF_UP);
+        return new DifferentiatedIterator(params, state, monthlyPrincipal);
+    }
+
+    @Override
+    protected void computeFixedPointSchedule(CreditTerms terms, FixedPointPaymentSink sink) {
         CalculationParams params = initializeCalculation(terms);
-        
-        BigDecimal monthlyPrincipal = params.principal.divide(BigDecimal.valueOf(params.months), _calculationScale, RoundingMode.HALF_UP);
-        LocalDate previousAccrualDate = params.startDate;
-        BigDecimal remaining = params.principal;
-        int daysOfBorrowing = 0;
-        
+
+        long monthlyRate = FixedPoint.toRate(params.monthlyRate);
+        long monthlyPrincipal = FixedPoint.toUnits(monthlyPrincipal(params));
+        long monthlyPrincipalKopecks = FixedPoint.toKopecks(monthlyPrincipal);
+        long remaining = FixedPoint.toUnits(params.principal);
+        AccrualCalendar calendar = params.calendar;
+
         for (int m = 0; m < params.months; m++) {
-            LocalDate currentAccrualDate = params.interestPeriod.nextAccrualDate(previousAccrualDate);
-            daysOfBorrowing += (int) ChronoUnit.DAYS.between(previousAccrualDate, currentAccrualDate);
-            
+            long currentEpochDay = calendar.paymentEpochDay(m);
+            int daysOfBorrowing = calendar.daysOfBorrowing(m);
+
+            long interest = FixedPoint.multiplyRate(remaining, monthlyRate);
+            long totalPayment = monthlyPrincipal + interest;
+            long newRemaining = remaining - monthlyPrincipal;
+
+            sink.accept(m, daysOfBorrowing, currentEpochDay,
+                    FixedPoint.toKopecks(totalPayment), FixedPoint.toKopecks(interest),
+                    monthlyPrincipalKopecks, FixedPoint.toKopecks(newRemaining));
+
+            remaining = newRemaining;
+        }
+    }
+
+    @Override
+    public Payment calculatePayment(CreditTerms terms, int index) {
+        Objects.checkIndex(index, terms.getTermMonths());
+        CalculationParams params = initializeCalculation(terms);
+        return payment(params, monthlyPrincipal(params), index);
+    }
+
+    @Override
+    public List<Payment> calculatePayments(CreditTerms terms, int fromIndex, int toIndex) {
+        Objects.checkFromToIndex(fromIndex, toIndex, terms.getTermMonths());
+        CalculationParams params = initializeCalculation(terms);
+        BigDecimal monthlyPrincipal = monthlyPrincipal(params);
+        List<Payment> payments = new ArrayList<>(toIndex - fromIndex);
+        for (int m = fromIndex; m < toIndex; m++) {
+            payments.add(payment(params, monthlyPrincipal, m));
+        }
+        return payments;
+    }
+
+    /**
+     * Closed form: the debt before payment {@code m} is {@code P - m*principal/n}.
+     */
+    private static Payment payment(CalculationParams params, BigDecimal monthlyPrincipal, int m) {
+        BigDecimal remaining = params.principal.subtract(monthlyPrincipal.multiply(BigDecimal.valueOf(m)));
+        BigDecimal interest = remaining.multiply(params.monthlyRate);
+        BigDecimal totalPayment = monthlyPrincipal.add(interest);
+        BigDecimal newRemaining = remaining.subtract(monthlyPrincipal);
+        return new Payment(daysOfBorrowing(params, m), paymentDate(params, m), totalPayment, interest, monthlyPrincipal, newRemaining);
+    }
+
+    private static class DifferentiatedIterator extends PaymentIterator {
+        private final BigDecimal monthlyPrincipal;
+        private BigDecimal remaining;
+
+        DifferentiatedIterator(CalculationParams params) {
+            super(params);
+            this.monthlyPrincipal = monthlyPrincipal(params);
+            this.remaining = params.principal;
+        }
+
+        DifferentiatedIterator(CalculationParams params, ScheduleState state, BigDecimal monthlyPrincipal) {
+            super(params, state);
+            this.monthlyPrincipal = monthlyPrincipal;
+            this.remaining = state.remainingDebt;
+        }
+
+        @Override
+        protected Payment nextPayment(LocalDate currentAccrualDate) {
             BigDecimal interest = remaining.multiply(params.monthlyRate);
             BigDecimal totalPayment = monthlyPrincipal.add(interest);
             BigDecimal newRemaining = remaining.subtract(monthlyPrincipal);
             
-            schedule.add(new Payment(daysOfBorrowing, currentAccrualDate, totalPayment, interest, monthlyPrincipal, newRemaining));
-            
             remaining = newRemaining;
-            previousAccrualDate = currentAccrualDate;
+            return new Payment(daysOfBorrowing, currentAccrualDate, totalPayment, interest, monthlyPrincipal, newRemaining);
         }
-        return schedule;
+    }
+
+    private static BigDecimal monthlyPrincipal(CalculationParams params) {
+        return params.principal.divide(BigDecimal.valueOf(params.months), _calculationScale, RoundingMode.HALF_UP);
     }
 
     @Override
@@ -0,0 +1,79 @@
+package creditpay.calculator;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+import creditpay.model.Kopecks;
+
+/**
+ * Fixed-point arithmetic used by the {@code long} calculation mode.
+ *
+ * <p>Amounts are kept in micro-units (1e-6 of a ruble) while a schedule is being
+ * built and are rounded half-up to kopecks only when a row is emitted, so rounding
+ * does not accumulate from row to row. Rates are binary fixed-point numbers with
+ * {@link #RATE_SHIFT} fractional bits; products are taken with a 128-bit
+ * intermediate, so nothing overflows for principals up to 9.2 trillion rubles.
+ *
+ * <p>Tolerance: every kopeck value produced this way differs from the matching
+ * {@code BigDecimal} value rounded half-up to 2 decimals by at most 1 kopeck.
+ */
+public final class FixedPoint {
+    /** Number of decimal digits kept in an amount. */
+    public static final int AMOUNT_SCALE = 6;
+    /** Number of fractional bits in a rate. */
+    public static final int RATE_SHIFT = 52;
+
+    private static final long UNITS_PER_KOPECK = 10_000;
+    private static final long HALF_RATE_ULP = 1L << (RATE_SHIFT - 1);
+    private static final BigDecimal RATE_ONE = new BigDecimal(1L << RATE_SHIFT);
+
+    private FixedPoint() {}
+
+    /**
+     * Converts an amount in rubles to micro-units.
+     */
+    public static long toUnits(BigDecimal amount) {
+        return amount.setScale(AMOUNT_SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    /**
+     * Converts a rate (a fraction, not percent) to binary fixed-point.
+     */
+    public static long toRate(BigDecimal rate) {
+        return rate.multiply(RATE_ONE).setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+
+    /**
+     * Multiplies an amount by a fixed-point rate, rounding half-up to a micro-unit.
+     */
+    public static long multiplyRate(long amount, long rate) {
+        long high = Math.multiplyHigh(amount, rate);
+        long low = amount * rate;
+        long roundedLow = low + HALF_RATE_ULP;
+        if (Long.compareUnsigned(roundedLow, low) < 0) {
+            high++;
+        }
+        return (high << (Long.SIZE - RATE_SHIFT)) | (roundedLow >>> RATE_SHIFT);
+    }
+
+    /**
+     * Rounds micro-units half-up to kopecks.
+     */
+    public static long toKopecks(long units) {
+        return Math.floorDiv(units + UNITS_PER_KOPECK / 2, UNITS_PER_KOPECK);
+    }
+
+    /**
+     * Rounds an amount in rubles half-up to kopecks.
+     */
+    public static long toKopecks(BigDecimal amount) {
+        return Kopecks.of(amount);
+    }
+
+    /**
+     * Converts kopecks back to rubles.
+     */
+    public static BigDecimal fromKopecks(long kopecks) {
+        return Kopecks.toRubles(kopecks);
+    }
+}
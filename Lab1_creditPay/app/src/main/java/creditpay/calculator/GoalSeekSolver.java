@@ -0,0 +1,371 @@
+package creditpay.calculator;
+
+import java.util.Locale;
+
+/**
+ * Goal seek: the rate, term or principal at which a loan reaches a target monthly
+ * payment or total overpayment, found from the closed-form formulas without building
+ * schedules.
+ *
+ * <p>Works in the same {@code double} model as {@link RateSensitivitySweep}: the annuity
+ * payment is {@code P*a(r, n)} with {@code a = r*q^n/(q^n - 1)}, the differentiated
+ * payment is the first (largest) one, {@code P/n + P*r}, and the overpayments are
+ * {@code P*(n*a - 1)} and {@code P*r*(n + 1)/2}. Most of these invert directly; the annuity
+ * rate and the annuity term for a target overpayment have no closed form and are found
+ * by Newton's method, falling back to bisection whenever a step leaves the bracket.
+ *
+ * <p>The single-loan methods throw {@link IllegalArgumentException} when no answer reaches
+ * the goal; the grid methods leave {@link Double#NaN} in such cells instead.
+ */
+public final class GoalSeekSolver {
+    /** Longest term the solver returns, 100 years. */
+    public static final int MAX_TERM_MONTHS = 1200;
+
+    private static final int _maxIterations = 100;
+    private static final double _tolerance = 1e-14;
+    /** Slack when rounding a computed term, so an exact whole term is not pushed to the next one. */
+    private static final double _termSlack = 1e-9;
+
+    private GoalSeekSolver() {}
+
+    public enum Method {
+        ANNUITY,
+        /** The monthly payment is the first, largest one. */
+        DIFFERENTIATED
+    }
+
+    public enum Target {
+        MONTHLY_PAYMENT,
+        /** Total interest paid over the term. */
+        TOTAL_OVERPAYMENT
+    }
+
+    /**
+     * Solutions over a grid, row-major: the value for {@code (row, column)} is at
+     * {@code row * columns + column}; {@link Double#NaN} where the goal is out of reach.
+     */
+    public static final class Grid {
+        public final int rows;
+        public final int columns;
+        public final double[] values;
+
+        Grid(int rows, int columns) {
+            this.rows = rows;
+            this.columns = columns;
+            this.values = new double[rows * columns];
+        }
+
+        public double value(int row, int column) {
+            return values[row * columns + column];
+        }
+
+        public boolean isSolved(int row, int column) {
+            return !Double.isNaN(value(row, column));
+        }
+    }
+
+    /**
+     * @return the annual rate in percent
+     * @throws IllegalArgumentException if no non-negative rate reaches the goal
+     */
+    public static double solveRate(Method method, Target target, double goal, double principal, int termMonths) {
+        checkGoal(goal);
+        checkPrincipal(principal);
+        checkTerm(termMonths);
+        return require(rate(method, target, goal, principal, termMonths), "rate", target, goal);
+    }
+
+    /**
+     * For a target payment, the shortest whole term whose payment does not exceed the goal;
+     * for a target overpayment, the longest term whose overpayment does not exceed it,
+     * capped at {@link #MAX_TERM_MONTHS}.
+     *
+     * @throws IllegalArgumentException if no term from 1 to {@link #MAX_TERM_MONTHS} reaches the goal
+     */
+    public static int solveTerm(Method method, Target target, double goal, double principal, double annualRatePercent) {
+        checkGoal(goal);
+        checkPrincipal(principal);
+        double monthlyRate = monthlyRate(annualRatePercent);
+        return (int) require(term(method, target, goal, principal, monthlyRate), "term", target, goal);
+    }
+
+    /**
+     * @throws IllegalArgumentException if the goal does not depend on the principal
+     *                                  (an overpayment at a zero rate)
+     */
+    public static double solvePrincipal(Method method, Target target, double goal, double annualRatePercent, int termMonths) {
+        checkGoal(goal);
+        checkTerm(termMonths);
+        double monthlyRate = monthlyRate(annualRatePercent);
+        return require(principal(method, target, goal, monthlyRate, termMonths), "principal", target, goal);
+    }
+
+    /**
+     * Annual rates in percent; rows are {@code termMonths}, columns are {@code principals}.
+     */
+    public static Grid rateGrid(Method method, Target target, double goal, double[] principals, int[] termMonths) {
+        checkGoal(goal);
+        Grid grid = new Grid(termMonths.length, principals.length);
+        for (double principal : principals) {
+            checkPrincipal(principal);
+        }
+        for (int t = 0; t < termMonths.length; t++) {
+            int months = checkTerm(termMonths[t]);
+            for (int p = 0; p < principals.length; p++) {
+                grid.values[t * principals.length + p] = rate(method, target, goal, principals[p], months);
+            }
+        }
+        return grid;
+    }
+
+    /**
+     * Whole terms in months, rounded as in {@link #solveTerm}; rows are
+     * {@code annualRatesPercent}, columns are {@code principals}.
+     */
+    public static Grid termGrid(Method method, Target target, double goal, double[] principals, double[] annualRatesPercent) {
+        checkGoal(goal);
+        Grid grid = new Grid(annualRatesPercent.length, principals.length);
+        for (double principal : principals) {
+            checkPrincipal(principal);
+        }
+        for (int r = 0; r < annualRatesPercent.length; r++) {
+            double monthlyRate = monthlyRate(annualRatesPercent[r]);
+            for (int p = 0; p < principals.length; p++) {
+                grid.values[r * principals.length + p] = term(method, target, goal, principals[p], monthlyRate);
+            }
+        }
+        return grid;
+    }
+
+    /**
+     * Principals; rows are {@code termMonths}, columns are {@code annualRatesPercent},
+     * the layout of {@link RateSensitivitySweep.Result}.
+     */
+    public static Grid principalGrid(Method method, Target target, double goal, double[] annualRatesPercent, int[] termMonths) {
+        checkGoal(goal);
+        Grid grid = new Grid(termMonths.length, annualRatesPercent.length);
+        double[] monthlyRates = new double[annualRatesPercent.length];
+        for (int r = 0; r < monthlyRates.length; r++) {
+            monthlyRates[r] = monthlyRate(annualRatesPercent[r]);
+        }
+        for (int t = 0; t < termMonths.length; t++) {
+            int months = checkTerm(termMonths[t]);
+            for (int r = 0; r < monthlyRates.length; r++) {
+                grid.values[t * monthlyRates.length + r] = principal(method, target, goal, monthlyRates[r], months);
+            }
+        }
+        return grid;
+    }
+
+    private static double rate(Method method, Target target, double goal, double principal, int months) {
+        double ratio = goal / principal;
+        if (method == Method.DIFFERENTIATED) {
+            double monthlyRate = target == Target.MONTHLY_PAYMENT ? ratio - 1.0 / months : 2.0 * ratio / (months + 1);
+            return monthlyRate < 0 ? Double.NaN : monthlyRate * 1200.0;
+        }
+        // both goals come down to a(r) = level; a(0) = 1/n and a(r) > r bracket the root in [0, level]
+        double level = target == Target.MONTHLY_PAYMENT ? ratio : (ratio + 1.0) / months;
+        double lowest = 1.0 / months;
+        if (level < lowest) {
+            return Double.NaN;
+        }
+        if (level == lowest) {
+            return 0.0;
+        }
+        return solve(new AnnuityFactorByRate(months), level, 0.0, level) * 1200.0;
+    }
+
+    private static double term(Method method, Target target, double goal, double principal, double monthlyRate) {
+        double months;
+        if (target == Target.MONTHLY_PAYMENT) {
+            // the payment falls towards P*r as the term grows
+            double interestOnly = principal * monthlyRate;
+            if (goal <= interestOnly) {
+                return Double.NaN;
+            }
+            if (method == Method.DIFFERENTIATED) {
+                months = principal / (goal - interestOnly);
+            } else if (monthlyRate == 0.0) {
+                months = principal / goal;
+            } else {
+                months = -Math.log1p(-interestOnly / goal) / Math.log1p(monthlyRate);
+            }
+            months = Math.max(1.0, Math.ceil(months - _termSlack));
+            return months > MAX_TERM_MONTHS ? Double.NaN : months;
+        }
+
+        if (monthlyRate == 0.0) {
+            // nothing is overpaid at any term
+            return MAX_TERM_MONTHS;
+        }
+        if (method == Method.DIFFERENTIATED) {
+            months = 2.0 * goal / (principal * monthlyRate) - 1.0;
+        } else {
+            // the overpayment grows with the term: solve n*a(n) = goal/P + 1
+            AnnuityTotalByTerm total = new AnnuityTotalByTerm(monthlyRate);
+            double level = goal / principal + 1.0;
+            double oneMonth = total.value(1.0);
+            if (level < oneMonth) {
+                // below one month: a Newton estimate is enough for the rounding below
+                months = 1.0 - (oneMonth - level) / total.slope(1.0);
+            } else if (level >= total.value(MAX_TERM_MONTHS)) {
+                return MAX_TERM_MONTHS;
+            } else {
+                months = solve(total, level, 1.0, MAX_TERM_MONTHS);
+            }
+        }
+        months = Math.min(MAX_TERM_MONTHS, Math.floor(months + _termSlack));
+        return months < 1 ? Double.NaN : months;
+    }
+
+    private static double principal(Method method, Target target, double goal, double monthlyRate, int months) {
+        if (target == Target.TOTAL_OVERPAYMENT && monthlyRate == 0.0) {
+            // nothing is overpaid, whatever the principal
+            return Double.NaN;
+        }
+        double perUnit;
+        if (method == Method.DIFFERENTIATED) {
+            perUnit = target == Target.MONTHLY_PAYMENT ? 1.0 / months + monthlyRate : monthlyRate * (months + 1) / 2.0;
+        } else {
+            double factor = annuityFactor(monthlyRate, months);
+            perUnit = target == Target.MONTHLY_PAYMENT ? factor : months * factor - 1.0;
+        }
+        return goal / perUnit;
+    }
+
+    /**
+     * Root of {@code curve(x) = level} for an increasing curve with
+     * {@code curve(low) <= level <= curve(high)}.
+     *
+     * @throws ArithmeticException if the curve overflows, which would say nothing about the root's side
+     */
+    private static double solve(Curve curve, double level, double low, double high) {
+        double x = 0.5 * (low + high);
+        for (int i = 0; i < _maxIterations; i++) {
+            double residual = curve.value(x) - level;
+            if (!Double.isFinite(residual)) {
+                throw new ArithmeticException("Goal seek overflowed at " + x);
+            }
+            if (residual == 0.0) {
+                return x;
+            }
+            if (residual < 0.0) {
+                low = x;
+            } else {
+                high = x;
+            }
+            double next = x - residual / curve.slope(x);
+            if (!(next > low && next < high)) {
+                next = 0.5 * (low + high);
+            }
+            if (Math.abs(next - x) <= _tolerance * Math.max(Math.abs(next), 1e-300) || high - low <= _tolerance * high) {
+                return next;
+            }
+            x = next;
+        }
+        return x;
+    }
+
+    /**
+     * {@code a = r / (1 - q^-n)}: the same as {@code r*q^n/(q^n - 1)}, but {@code q^-n} underflows
+     * to zero where {@code q^n} would overflow to infinity.
+     */
+    private static double annuityFactor(double monthlyRate, double months) {
+        if (monthlyRate == 0.0) {
+            return 1.0 / months;
+        }
+        return monthlyRate / discountedShare(monthlyRate, months);
+    }
+
+    /** {@code 1 - q^-n}, the part of the principal a unit payment stream does not cover, in (0, 1]. */
+    private static double discountedShare(double monthlyRate, double months) {
+        return -Math.expm1(-months * Math.log1p(monthlyRate));
+    }
+
+    private interface Curve {
+        double value(double x);
+
+        double slope(double x);
+    }
+
+    /** {@code a(r)} for a fixed term. */
+    private static final class AnnuityFactorByRate implements Curve {
+        private final int months;
+
+        AnnuityFactorByRate(int months) {
+            this.months = months;
+        }
+
+        @Override
+        public double value(double monthlyRate) {
+            return annuityFactor(monthlyRate, months);
+        }
+
+        /** {@code da/dr = (d - r*n*(1 - d)/(1 + r)) / d^2} with {@code d = 1 - q^-n}, {@code (n + 1)/2n} at zero. */
+        @Override
+        public double slope(double monthlyRate) {
+            if (monthlyRate == 0.0) {
+                return (months + 1) / (2.0 * months);
+            }
+            double share = discountedShare(monthlyRate, months);
+            return (share - monthlyRate * months * (1.0 - share) / (1.0 + monthlyRate)) / (share * share);
+        }
+    }
+
+    /** {@code n*a(n)}, the total paid per unit of principal, for a fixed positive rate. */
+    private static final class AnnuityTotalByTerm implements Curve {
+        private final double monthlyRate;
+        private final double logGrowth;
+
+        AnnuityTotalByTerm(double monthlyRate) {
+            this.monthlyRate = monthlyRate;
+            this.logGrowth = Math.log1p(monthlyRate);
+        }
+
+        @Override
+        public double value(double months) {
+            return months * annuityFactor(monthlyRate, months);
+        }
+
+        /** {@code d(n*a)/dn = a - n*r*(1 - d)*log(1 + r) / d^2} with {@code d = 1 - q^-n}. */
+        @Override
+        public double slope(double months) {
+            double share = -Math.expm1(-months * logGrowth);
+            return monthlyRate / share - months * monthlyRate * (1.0 - share) * logGrowth / (share * share);
+        }
+    }
+
+    private static double require(double solution, String what, Target target, double goal) {
+        if (Double.isNaN(solution)) {
+            throw new IllegalArgumentException("No " + what + " gives a " + target.name().toLowerCase(Locale.ROOT).replace('_', ' ')
+                + " of " + goal);
+        }
+        return solution;
+    }
+
+    private static void checkGoal(double goal) {
+        if (!(goal >= 0) || Double.isInfinite(goal)) {
+            throw new IllegalArgumentException("goal must be a non-negative number");
+        }
+    }
+
+    private static void checkPrincipal(double principal) {
+        if (!(principal > 0) || Double.isInfinite(principal)) {
+            throw new IllegalArgumentException("principal must be positive");
+        }
+    }
+
+    private static int checkTerm(int months) {
+        if (months < 1) {
+            throw new IllegalArgumentException("terms must be positive");
+        }
+        return months;
+    }
+
+    private static double monthlyRate(double annualRatePercent) {
+        if (!(annualRatePercent >= 0) || Double.isInfinite(annualRatePercent)) {
+            throw new IllegalArgumentException("rates must not be negative");
+        }
+        return annualRatePercent / 1200.0;
+    }
+}
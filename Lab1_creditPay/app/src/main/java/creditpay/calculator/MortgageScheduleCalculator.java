@@ -1,35 +1,259 @@
 package creditpay.calculator;
 
 import java.math.BigDecimal;
+import java.math.MathContext;
 import java.math.RoundingMode;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
+import creditpay.metrics.PipelineMetrics;
+import creditpay.metrics.ScheduleCalculatedEvent;
+import creditpay.model.AccrualCalendar;
 import creditpay.model.InterestPeriod;
 import creditpay.model.CreditTerms;
+import creditpay.model.FixedPointPaymentSink;
 import creditpay.model.Payment;
+import creditpay.model.PaymentSchedule;
 
 public abstract class MortgageScheduleCalculator {    
     protected static final int _calculationScale = 10;
+    /** Precision of closed-form results; they agree with the iterative schedule to this many digits. */
+    protected static final MathContext _closedFormContext = MathContext.DECIMAL128;
 
     protected static CalculationParams initializeCalculation(CreditTerms terms) {
         BigDecimal principal = terms.getPrincipal();
         int months = terms.getTermMonths();
-        BigDecimal rate = terms.getAnnualRatePercent().divide(BigDecimal.valueOf(100), _calculationScale, RoundingMode.HALF_UP);
-        BigDecimal monthlyRate = rate.divide(BigDecimal.valueOf(12), _calculationScale, RoundingMode.HALF_UP);
+        BigDecimal monthlyRate = monthlyRate(terms.getAnnualRatePercent());
         return new CalculationParams(principal, months, monthlyRate, terms.getStartDate(), terms.getInterestPeriod());
     }
+
+    /**
+     * Parameters for continuing a schedule from {@code state}: its debt and rate replace the original ones.
+     */
+    protected static CalculationParams resumeCalculation(CreditTerms terms, ScheduleState state) {
+        Objects.checkIndex(state.index, terms.getTermMonths());
+        return new CalculationParams(state.remainingDebt, terms.getTermMonths(), monthlyRate(state.annualRatePercent),
+                terms.getStartDate(), terms.getInterestPeriod());
+    }
+
+    /**
+     * Monthly rate as a fraction, rounded the same way for every calculator.
+     */
+    protected static BigDecimal monthlyRate(BigDecimal annualRatePercent) {
+        BigDecimal rate = annualRatePercent.divide(BigDecimal.valueOf(100), _calculationScale, RoundingMode.HALF_UP);
+        return rate.divide(BigDecimal.valueOf(12), _calculationScale, RoundingMode.HALF_UP);
+    }
     
     public abstract String getDisplayName();
 
-    public abstract List<Payment> calculateSchedule(CreditTerms terms);
+    /**
+     * Calculates the whole schedule with {@code BigDecimal} arithmetic.
+     *
+     * <p>This is the one place where {@code BigDecimal} calculations are reported to
+     * {@link PipelineMetrics}; calculators supply the rows through {@link #computeSchedule(CreditTerms)}.
+     */
+    public final List<Payment> calculateSchedule(CreditTerms terms) {
+        ScheduleCalculatedEvent event = PipelineMetrics.beginCalculation();
+        List<Payment> schedule = null;
+        try {
+            schedule = computeSchedule(terms);
+            return schedule;
+        } finally {
+            PipelineMetrics.endCalculation(event, getDisplayName(), PipelineMetrics.BIG_DECIMAL_MODE,
+                schedule == null ? 0 : schedule.size(), schedule != null);
+        }
+    }
+
+    /**
+     * Rows for {@link #calculateSchedule(CreditTerms)}. Calculators with a lazy form
+     * usually return {@link #collectSchedule(CreditTerms)}.
+     */
+    protected abstract List<Payment> computeSchedule(CreditTerms terms);
+
+    /**
+     * Lazily generates the schedule one row at a time. The iterator keeps O(1) state,
+     * so rows can be written out without holding the whole schedule in memory.
+     *
+     * <p>Calculators without a lazy form iterate over the built schedule.
+     */
+    public Iterator<Payment> iterateSchedule(CreditTerms terms) {
+        return computeSchedule(terms).iterator();
+    }
+
+    /**
+     * Lazily calculates the rows from {@code state.index} on, as if the loan had reached
+     * {@code state} through the rows before it. Used for what-if recalculation after a
+     * prepayment or a rate change, see {@link ScheduleScenario}.
+     *
+     * @throws UnsupportedOperationException if the calculator cannot resume a schedule
+     */
+    public Iterator<Payment> resumeSchedule(CreditTerms terms, ScheduleState state) {
+        throw new UnsupportedOperationException(getDisplayName() + " does not support schedule recalculation");
+    }
+
+    /**
+     * Lazy sequential stream over {@link #iterateSchedule(CreditTerms)}.
+     */
+    public Stream<Payment> streamSchedule(CreditTerms terms) {
+        Spliterator<Payment> spliterator = Spliterators.spliterator(iterateSchedule(terms), terms.getTermMonths(),
+            Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.IMMUTABLE);
+        return StreamSupport.stream(spliterator, false);
+    }
+
+    /**
+     * Calculates the schedule on scaled {@code long} values and passes every row to {@code sink}
+     * without allocating {@code Payment} objects. See {@link FixedPoint} for the tolerance
+     * against {@link #calculateSchedule(CreditTerms)}.
+     *
+     * <p>This is the one place where fixed-point calculations are reported to {@link PipelineMetrics},
+     * whichever caller or subclass path they take.
+     */
+    public final void calculateFixedPointSchedule(CreditTerms terms, FixedPointPaymentSink sink) {
+        ScheduleCalculatedEvent event = PipelineMetrics.beginCalculation();
+        RowCountingSink rows = new RowCountingSink(sink);
+        boolean succeeded = false;
+        try {
+            computeFixedPointSchedule(terms, rows);
+            succeeded = true;
+        } finally {
+            PipelineMetrics.endCalculation(event, getDisplayName(), PipelineMetrics.FIXED_POINT_MODE,
+                rows.count, succeeded);
+        }
+    }
+
+    /**
+     * Fixed-point rows for {@link #calculateFixedPointSchedule(CreditTerms, FixedPointPaymentSink)}.
+     *
+     * <p>Calculators without their own fixed-point path fall back to converting the
+     * {@code BigDecimal} rows of {@link #iterateSchedule(CreditTerms)}.
+     */
+    protected void computeFixedPointSchedule(CreditTerms terms, FixedPointPaymentSink sink) {
+        int index = 0;
+        for (Iterator<Payment> payments = iterateSchedule(terms); payments.hasNext(); ) {
+            Payment payment = payments.next();
+            sink.accept(index++, payment.daysOfBorrowing, payment.paymentDate.toEpochDay(),
+                    FixedPoint.toKopecks(payment.totalPayment),
+                    FixedPoint.toKopecks(payment.interest),
+                    FixedPoint.toKopecks(payment.principalRepaid),
+                    FixedPoint.toKopecks(payment.remainingDebt));
+        }
+    }
     
+    /**
+     * Calculates the schedule in fixed-point mode straight into a columnar {@link PaymentSchedule}.
+     */
+    public PaymentSchedule calculatePaymentSchedule(CreditTerms terms) {
+        PaymentSchedule.Builder builder = PaymentSchedule.builder(terms.getTermMonths());
+        calculateFixedPointSchedule(terms, builder);
+        return builder.build();
+    }
+
+    /**
+     * Returns the payment with the given 0-based index without building the schedule prefix.
+     *
+     * <p>Calculators without a closed form build the whole schedule and pick the row.
+     */
+    public Payment calculatePayment(CreditTerms terms, int index) {
+        Objects.checkIndex(index, terms.getTermMonths());
+        return calculateSchedule(terms).get(index);
+    }
+
+    /**
+     * Returns payments {@code fromIndex} (inclusive) to {@code toIndex} (exclusive)
+     * without building the schedule prefix.
+     */
+    public List<Payment> calculatePayments(CreditTerms terms, int fromIndex, int toIndex) {
+        Objects.checkFromToIndex(fromIndex, toIndex, terms.getTermMonths());
+        return new ArrayList<>(calculateSchedule(terms).subList(fromIndex, toIndex));
+    }
+
+    /**
+     * Builds the schedule from {@link #iterateSchedule(CreditTerms)}.
+     */
+    protected final List<Payment> collectSchedule(CreditTerms terms) {
+        return collectSchedule(iterateSchedule(terms), terms.getTermMonths());
+    }
+
+    protected static List<Payment> collectSchedule(Iterator<Payment> payments, int months) {
+        List<Payment> schedule = new ArrayList<>(months);
+        while (payments.hasNext()) {
+            schedule.add(payments.next());
+        }
+        return schedule;
+    }
+
+    /**
+     * Days of borrowing accumulated up to the payment with the given 0-based index.
+     */
+    protected static int daysOfBorrowing(CalculationParams params, int index) {
+        return params.calendar.daysOfBorrowing(index);
+    }
+
+    /**
+     * Date of the payment with the given 0-based index.
+     */
+    protected static LocalDate paymentDate(CalculationParams params, int index) {
+        return params.calendar.paymentDate(index);
+    }
+
+    /**
+     * Walks the accrual calendar and leaves the amounts of each row to the calculator.
+     */
+    protected abstract static class PaymentIterator implements Iterator<Payment> {
+        protected final CalculationParams params;
+        protected int index;
+        protected int daysOfBorrowing;
+
+        protected PaymentIterator(CalculationParams params) {
+            this.params = params;
+        }
+
+        protected PaymentIterator(CalculationParams params, ScheduleState state) {
+            this.params = params;
+            this.index = state.index;
+            this.daysOfBorrowing = state.daysOfBorrowing;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return index < params.months;
+        }
+
+        @Override
+        public Payment next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            LocalDate currentAccrualDate = params.calendar.paymentDate(index);
+            daysOfBorrowing = params.calendar.daysOfBorrowing(index);
+
+            Payment payment = nextPayment(currentAccrualDate);
+            index++;
+            return payment;
+        }
+
+        /**
+         * Calculates row {@link #index}; {@link #daysOfBorrowing} already counts up to it.
+         */
+        protected abstract Payment nextPayment(LocalDate currentAccrualDate);
+    }
+
     protected static class CalculationParams {
         public final BigDecimal principal;
         public final int months;
         public final BigDecimal monthlyRate;
         public final LocalDate startDate;
         public final InterestPeriod interestPeriod;
+        /** Shared payment dates and period lengths for {@link #months} rows. */
+        public final AccrualCalendar calendar;
         
         CalculationParams(BigDecimal principal, int months, BigDecimal monthlyRate, LocalDate startDate, creditpay.model.InterestPeriod interestPeriod) {
             this.principal = principal;
@@ -37,6 +261,26 @@ public abstract class MortgageScheduleCalculator {
             this.monthlyRate = monthlyRate;
             this.startDate = startDate;
             this.interestPeriod = interestPeriod;
+            this.calendar = AccrualCalendar.of(startDate, interestPeriod, months);
+        }
+    }
+
+    /**
+     * Passes rows on and counts them for the metrics.
+     */
+    private static final class RowCountingSink implements FixedPointPaymentSink {
+        private final FixedPointPaymentSink sink;
+        private int count;
+
+        RowCountingSink(FixedPointPaymentSink sink) {
+            this.sink = sink;
+        }
+
+        @Override
+        public void accept(int index, int daysOfBorrowing, long paymentEpochDay,
+                           long totalPayment, long interest, long principalRepaid, long remainingDebt) {
+            sink.accept(index, daysOfBorrowing, paymentEpochDay, totalPayment, interest, principalRepaid, remainingDebt);
+            count++;
         }
     }
-}
\ No newline at end of file
+}
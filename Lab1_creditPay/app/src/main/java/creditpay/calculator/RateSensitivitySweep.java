@@ -0,0 +1,159 @@
+package creditpay.calculator;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Monthly payment and total overpayment over a grid of rates and terms, evaluated
+ * with the closed-form formulas on whole rate vectors at once (JDK Vector API).
+ *
+ * <p>This is a {@code double} estimate for risk sweeps, not a schedule: the annuity
+ * payment is {@code P*r/(1 - q^-n)} with {@code 1 - q^-n = -expm1(-n*log1p(r))}, which
+ * stays finite at any rate and term where {@code q^n} itself would overflow; for the
+ * differentiated method the payment is the first (largest) one, {@code P/n + P*r},
+ * and the overpayment is {@code P*r*(n + 1)/2}. The {@code *Scalar} methods run the
+ * same formulas one rate at a time and serve as the reference implementation.
+ */
+public final class RateSensitivitySweep {
+    private static final VectorSpecies<Double> _species = DoubleVector.SPECIES_PREFERRED;
+
+    private RateSensitivitySweep() {}
+
+    /**
+     * Results laid out term-major: the value for {@code termMonths[t]} and
+     * {@code annualRatesPercent[r]} is at {@code t * annualRatesPercent.length + r}.
+     */
+    public static final class Result {
+        public final double[] annualRatesPercent;
+        public final int[] termMonths;
+        public final double[] monthlyPayment;
+        public final double[] totalOverpayment;
+
+        Result(double[] annualRatesPercent, int[] termMonths) {
+            this.annualRatesPercent = annualRatesPercent;
+            this.termMonths = termMonths;
+            this.monthlyPayment = new double[annualRatesPercent.length * termMonths.length];
+            this.totalOverpayment = new double[monthlyPayment.length];
+        }
+
+        public double monthlyPayment(int termIndex, int rateIndex) {
+            return monthlyPayment[termIndex * annualRatesPercent.length + rateIndex];
+        }
+
+        public double totalOverpayment(int termIndex, int rateIndex) {
+            return totalOverpayment[termIndex * annualRatesPercent.length + rateIndex];
+        }
+    }
+
+    public static Result annuity(double principal, double[] annualRatesPercent, int[] termMonths) {
+        Result result = new Result(annualRatesPercent, termMonths);
+        double[] monthlyRates = monthlyRates(annualRatesPercent);
+        int rates = monthlyRates.length;
+        int bound = _species.loopBound(rates);
+
+        for (int t = 0; t < termMonths.length; t++) {
+            int months = checkTerm(termMonths[t]);
+            int offset = t * rates;
+            int i = 0;
+            for (; i < bound; i += _species.length()) {
+                DoubleVector rate = DoubleVector.fromArray(_species, monthlyRates, i);
+                DoubleVector share = rate.lanewise(VectorOperators.LOG1P).mul(-months)
+                    .lanewise(VectorOperators.EXPM1).neg();
+                DoubleVector payment = rate.div(share).mul(principal);
+                VectorMask<Double> interestFree = rate.eq(0.0);
+                payment = payment.blend(principal / months, interestFree);
+                payment.intoArray(result.monthlyPayment, offset + i);
+                payment.mul(months).sub(principal).intoArray(result.totalOverpayment, offset + i);
+            }
+            for (; i < rates; i++) {
+                annuityScalar(principal, monthlyRates[i], months, result, offset + i);
+            }
+        }
+        return result;
+    }
+
+    public static Result annuityScalar(double principal, double[] annualRatesPercent, int[] termMonths) {
+        Result result = new Result(annualRatesPercent, termMonths);
+        double[] monthlyRates = monthlyRates(annualRatesPercent);
+        for (int t = 0; t < termMonths.length; t++) {
+            int months = checkTerm(termMonths[t]);
+            for (int i = 0; i < monthlyRates.length; i++) {
+                annuityScalar(principal, monthlyRates[i], months, result, t * monthlyRates.length + i);
+            }
+        }
+        return result;
+    }
+
+    public static Result differentiated(double principal, double[] annualRatesPercent, int[] termMonths) {
+        Result result = new Result(annualRatesPercent, termMonths);
+        double[] monthlyRates = monthlyRates(annualRatesPercent);
+        int rates = monthlyRates.length;
+        int bound = _species.loopBound(rates);
+
+        for (int t = 0; t < termMonths.length; t++) {
+            int months = checkTerm(termMonths[t]);
+            double monthlyPrincipal = principal / months;
+            double overpaymentFactor = principal * (months + 1) / 2.0;
+            int offset = t * rates;
+            int i = 0;
+            for (; i < bound; i += _species.length()) {
+                DoubleVector rate = DoubleVector.fromArray(_species, monthlyRates, i);
+                rate.mul(principal).add(monthlyPrincipal).intoArray(result.monthlyPayment, offset + i);
+                rate.mul(overpaymentFactor).intoArray(result.totalOverpayment, offset + i);
+            }
+            for (; i < rates; i++) {
+                differentiatedScalar(principal, monthlyRates[i], months, result, offset + i);
+            }
+        }
+        return result;
+    }
+
+    public static Result differentiatedScalar(double principal, double[] annualRatesPercent, int[] termMonths) {
+        Result result = new Result(annualRatesPercent, termMonths);
+        double[] monthlyRates = monthlyRates(annualRatesPercent);
+        for (int t = 0; t < termMonths.length; t++) {
+            int months = checkTerm(termMonths[t]);
+            for (int i = 0; i < monthlyRates.length; i++) {
+                differentiatedScalar(principal, monthlyRates[i], months, result, t * monthlyRates.length + i);
+            }
+        }
+        return result;
+    }
+
+    private static void annuityScalar(double principal, double monthlyRate, int months, Result result, int index) {
+        double payment;
+        if (monthlyRate == 0.0) {
+            payment = principal / months;
+        } else {
+            double share = -Math.expm1(-months * Math.log1p(monthlyRate));
+            payment = principal * (monthlyRate / share);
+        }
+        result.monthlyPayment[index] = payment;
+        result.totalOverpayment[index] = payment * months - principal;
+    }
+
+    private static void differentiatedScalar(double principal, double monthlyRate, int months, Result result, int index) {
+        result.monthlyPayment[index] = principal / months + monthlyRate * principal;
+        result.totalOverpayment[index] = monthlyRate * (principal * (months + 1) / 2.0);
+    }
+
+    private static double[] monthlyRates(double[] annualRatesPercent) {
+        double[] monthlyRates = new double[annualRatesPercent.length];
+        for (int i = 0; i < monthlyRates.length; i++) {
+            if (annualRatesPercent[i] < 0) {
+                throw new IllegalArgumentException("rates must not be negative");
+            }
+            monthlyRates[i] = annualRatesPercent[i] / 1200.0;
+        }
+        return monthlyRates;
+    }
+
+    private static int checkTerm(int months) {
+        if (months < 1) {
+            throw new IllegalArgumentException("terms must be positive");
+        }
+        return months;
+    }
+}
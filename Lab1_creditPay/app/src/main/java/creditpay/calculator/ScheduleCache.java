@@ -0,0 +1,161 @@
+package creditpay.calculator;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+import java.util.function.ToIntFunction;
+
+import creditpay.model.CreditTerms;
+import creditpay.model.Payment;
+import creditpay.model.PaymentSchedule;
+
+/**
+ * Bounded, thread-safe memo of (calculator, terms) → schedule.
+ *
+ * <p>Entries are weighed by the number of schedule rows and the least recently used
+ * ones are evicted once the total weight exceeds the limit. Entries are keyed on the
+ * calculator instance, not its class: two instances of one class may be configured
+ * differently (an {@link AnnuityCalculator} with or without an {@link AnnuityFactorTable})
+ * and must not share schedules, so callers should reuse one instance per method.
+ * Schedules are computed outside the lock;
+ * two threads missing on the same key at once may both compute it, and the first
+ * result stored wins.
+ */
+public class ScheduleCache<S> {
+    private final long maxWeight;
+    private final ToIntFunction<S> weigher;
+    private final BiFunction<MortgageScheduleCalculator, CreditTerms, S> loader;
+    private final LinkedHashMap<Key, S> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long weight;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public ScheduleCache(long maxWeight, ToIntFunction<S> weigher,
+                         BiFunction<MortgageScheduleCalculator, CreditTerms, S> loader) {
+        if (maxWeight < 1) {
+            throw new IllegalArgumentException("maxWeight must be positive");
+        }
+        this.maxWeight = maxWeight;
+        this.weigher = Objects.requireNonNull(weigher);
+        this.loader = Objects.requireNonNull(loader);
+    }
+
+    /**
+     * Cache of {@link MortgageScheduleCalculator#calculateSchedule(CreditTerms)} results
+     * holding at most {@code maxRows} payments in total. Cached lists are unmodifiable.
+     */
+    public static ScheduleCache<List<Payment>> forPayments(long maxRows) {
+        return new ScheduleCache<>(maxRows, List::size,
+                (calculator, terms) -> List.copyOf(calculator.calculateSchedule(terms)));
+    }
+
+    /**
+     * Cache of {@link MortgageScheduleCalculator#calculatePaymentSchedule(CreditTerms)} results
+     * holding at most {@code maxRows} rows in total.
+     */
+    public static ScheduleCache<PaymentSchedule> forPaymentSchedules(long maxRows) {
+        return new ScheduleCache<>(maxRows, PaymentSchedule::size,
+                MortgageScheduleCalculator::calculatePaymentSchedule);
+    }
+
+    public S get(MortgageScheduleCalculator calculator, CreditTerms terms) {
+        S cached = getIfPresent(calculator, terms);
+        if (cached != null) {
+            return cached;
+        }
+        return put(calculator, terms, loader.apply(calculator, terms));
+    }
+
+    /**
+     * The cached schedule, or {@code null} without computing it. Together with
+     * {@link #put} this lets a caller compute a missing schedule its own way,
+     * for example row by row with progress reporting.
+     */
+    public S getIfPresent(MortgageScheduleCalculator calculator, CreditTerms terms) {
+        Key key = new Key(calculator, terms);
+        synchronized (this) {
+            S cached = entries.get(key);
+            if (cached != null) {
+                hits.increment();
+                return cached;
+            }
+        }
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * Stores a schedule computed outside the cache.
+     *
+     * @return the cached schedule: {@code schedule}, or the one another thread stored first
+     */
+    public S put(MortgageScheduleCalculator calculator, CreditTerms terms, S schedule) {
+        Key key = new Key(calculator, terms);
+        int scheduleWeight = weigher.applyAsInt(schedule);
+        if (scheduleWeight > maxWeight) {
+            return schedule;
+        }
+        synchronized (this) {
+            S raced = entries.putIfAbsent(key, schedule);
+            if (raced != null) {
+                return raced;
+            }
+            weight += scheduleWeight;
+            evictOverweight();
+        }
+        return schedule;
+    }
+
+    public synchronized void invalidateAll() {
+        entries.clear();
+        weight = 0;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long weight() {
+        return weight;
+    }
+
+    public long getMaxWeight() {
+        return maxWeight;
+    }
+
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    public long missCount() {
+        return misses.sum();
+    }
+
+    public long evictionCount() {
+        return evictions.sum();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ScheduleCache[size=%d, weight=%d/%d, hits=%d, misses=%d, evictions=%d]",
+                size(), weight(), maxWeight, hitCount(), missCount(), evictionCount());
+    }
+
+    private void evictOverweight() {
+        Iterator<Map.Entry<Key, S>> eldest = entries.entrySet().iterator();
+        while (weight > maxWeight && eldest.hasNext()) {
+            weight -= weigher.applyAsInt(eldest.next().getValue());
+            eldest.remove();
+            evictions.increment();
+        }
+    }
+
+    private record Key(MortgageScheduleCalculator calculator, CreditTerms terms) {
+    }
+}
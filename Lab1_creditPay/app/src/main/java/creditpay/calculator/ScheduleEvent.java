@@ -0,0 +1,55 @@
+package creditpay.calculator;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Change to a running loan: a lump-sum prepayment or a new rate.
+ */
+public class ScheduleEvent {
+    public enum Kind {
+        /** Partial early repayment; the debt drops right after the last payment on or before {@link #date}. */
+        PREPAYMENT,
+        /** New annual rate starting with payment number {@link #period}. */
+        RATE_CHANGE
+    }
+
+    public final Kind kind;
+    public final LocalDate date;
+    public final int period;
+    /** Prepayment amount. */
+    public final BigDecimal amount;
+    /** New annual rate. */
+    public final BigDecimal annualRatePercent;
+
+    private ScheduleEvent(Kind kind, LocalDate date, int period, BigDecimal amount, BigDecimal annualRatePercent) {
+        this.kind = kind;
+        this.date = date;
+        this.period = period;
+        this.amount = amount;
+        this.annualRatePercent = annualRatePercent;
+    }
+
+    public static ScheduleEvent prepayment(LocalDate date, BigDecimal amount) {
+        if (date == null) {
+            throw new IllegalArgumentException("date must not be null");
+        }
+        if (amount == null || amount.signum() <= 0) {
+            throw new IllegalArgumentException("prepayment amount must be positive");
+        }
+        return new ScheduleEvent(Kind.PREPAYMENT, date, 0, amount, null);
+    }
+
+    /**
+     * @param period 1-based payment number, as in the schedule table
+     */
+    public static ScheduleEvent rateChange(int period, BigDecimal annualRatePercent) {
+        if (period < 1) {
+            throw new IllegalArgumentException("period must be positive");
+        }
+        if (annualRatePercent == null || annualRatePercent.signum() < 0) {
+            throw new IllegalArgumentException("rate must not be negative");
+        }
+        return new ScheduleEvent(Kind.RATE_CHANGE, null, period, null, annualRatePercent);
+    }
+}
@@ -0,0 +1,116 @@
+package creditpay.calculator;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+
+import creditpay.model.CreditTerms;
+import creditpay.model.Payment;
+
+/**
+ * What-if recalculation of an existing schedule.
+ *
+ * <p>Rows before the first event are reused as they are; only the suffix is
+ * recalculated, through {@link MortgageScheduleCalculator#resumeSchedule}. Evaluating
+ * many scenarios for one loan therefore costs the changed rows only.
+ */
+public final class ScheduleScenario {
+    private ScheduleScenario() {}
+
+    /**
+     * Applies {@code events} to {@code schedule}, which must have been calculated by
+     * {@code calculator} for {@code terms}. Events on the same row are applied in the
+     * given order. A prepayment that clears the debt ends the schedule early.
+     *
+     * @return a new schedule; {@code schedule} is not modified
+     * @throws IllegalArgumentException if an event falls after the last row of {@code schedule}:
+     *         a prepayment dated after the last payment or a rate change for a payment number
+     *         beyond the term
+     */
+    public static List<Payment> apply(MortgageScheduleCalculator calculator, CreditTerms terms,
+                                      List<Payment> schedule, List<ScheduleEvent> events) {
+        List<PlacedEvent> placed = new ArrayList<>(events.size());
+        for (ScheduleEvent event : events) {
+            int index = event.kind == ScheduleEvent.Kind.PREPAYMENT
+                ? rowsPaidBy(schedule, event.date)
+                : event.period - 1;
+            if (index >= schedule.size()) {
+                throw new IllegalArgumentException(event.kind == ScheduleEvent.Kind.PREPAYMENT
+                    ? "Prepayment on " + event.date + " is after the last payment"
+                    : "Rate change for payment " + event.period + " is beyond the " + schedule.size() + "-payment schedule");
+            }
+            placed.add(new PlacedEvent(index, event));
+        }
+        if (placed.isEmpty()) {
+            return new ArrayList<>(schedule);
+        }
+        placed.sort(Comparator.comparingInt(e -> e.index));
+
+        int firstIndex = placed.get(0).index;
+        List<Payment> result = new ArrayList<>(schedule.size());
+        result.addAll(schedule.subList(0, firstIndex));
+
+        BigDecimal annualRatePercent = terms.getAnnualRatePercent();
+        Payment previous = firstIndex == 0 ? null : schedule.get(firstIndex - 1);
+        int next = 0;
+        while (next < placed.size()) {
+            int index = placed.get(next).index;
+            ScheduleState state = ScheduleState.after(terms, previous, index, annualRatePercent);
+            for (; next < placed.size() && placed.get(next).index == index; next++) {
+                state = applyEvent(state, placed.get(next).event);
+            }
+            annualRatePercent = state.annualRatePercent;
+            if (state.remainingDebt.signum() <= 0) {
+                return result;
+            }
+
+            int stopIndex = next < placed.size() ? placed.get(next).index : schedule.size();
+            Iterator<Payment> suffix = calculator.resumeSchedule(terms, state);
+            for (int i = index; i < stopIndex && suffix.hasNext(); i++) {
+                previous = suffix.next();
+                result.add(previous);
+            }
+        }
+        return result;
+    }
+
+    private static ScheduleState applyEvent(ScheduleState state, ScheduleEvent event) {
+        if (event.kind == ScheduleEvent.Kind.RATE_CHANGE) {
+            return state.withAnnualRatePercent(event.annualRatePercent);
+        }
+        if (event.amount.compareTo(state.remainingDebt) > 0) {
+            throw new IllegalArgumentException("Prepayment " + event.amount + " exceeds the outstanding debt " + state.remainingDebt);
+        }
+        return state.withRemainingDebt(state.remainingDebt.subtract(event.amount));
+    }
+
+    /**
+     * Number of rows dated on or before {@code date}; the schedule is sorted by date.
+     */
+    private static int rowsPaidBy(List<Payment> schedule, LocalDate date) {
+        int low = 0;
+        int high = schedule.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (schedule.get(middle).paymentDate.isAfter(date)) {
+                high = middle;
+            } else {
+                low = middle + 1;
+            }
+        }
+        return low;
+    }
+
+    private static class PlacedEvent {
+        final int index;
+        final ScheduleEvent event;
+
+        PlacedEvent(int index, ScheduleEvent event) {
+            this.index = index;
+            this.event = event;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package creditpay.calculator;
+
+import java.math.BigDecimal;
+
+import creditpay.model.CreditTerms;
+import creditpay.model.Payment;
+
+/**
+ * Position inside a schedule from which the remaining rows can be recalculated:
+ * how many rows are already fixed, what is still owed and at which rate.
+ */
+public class ScheduleState {
+    /** Index of the first row to calculate. */
+    public final int index;
+    /** Days of borrowing accumulated up to the row before {@link #index}. */
+    public final int daysOfBorrowing;
+    /** Debt outstanding before row {@link #index}. */
+    public final BigDecimal remainingDebt;
+    /** Annual rate applied from row {@link #index} on. */
+    public final BigDecimal annualRatePercent;
+
+    public ScheduleState(int index, int daysOfBorrowing,
+                         BigDecimal remainingDebt, BigDecimal annualRatePercent) {
+        this.index = index;
+        this.daysOfBorrowing = daysOfBorrowing;
+        this.remainingDebt = remainingDebt;
+        this.annualRatePercent = annualRatePercent;
+    }
+
+    /**
+     * State right after {@code previous}, or the start of the loan when {@code previous} is {@code null}.
+     */
+    public static ScheduleState after(CreditTerms terms, Payment previous, int index, BigDecimal annualRatePercent) {
+        if (previous == null) {
+            return new ScheduleState(0, 0, terms.getPrincipal(), annualRatePercent);
+        }
+        return new ScheduleState(index, previous.daysOfBorrowing, previous.remainingDebt, annualRatePercent);
+    }
+
+    public ScheduleState withRemainingDebt(BigDecimal remainingDebt) {
+        return new ScheduleState(index, daysOfBorrowing, remainingDebt, annualRatePercent);
+    }
+
+    public ScheduleState withAnnualRatePercent(BigDecimal annualRatePercent) {
+        return new ScheduleState(index, daysOfBorrowing, remainingDebt, annualRatePercent);
+    }
+}
@@ -0,0 +1,160 @@
+package creditpay.io;
+
+import creditpay.model.PaymentSchedule;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Чтение графиков, записанных {@link BinaryPaymentWriter}.
+ */
+public final class BinaryPaymentReader {
+    /** Массивы растут по мере чтения, чтобы испорченный размер блока не занял память впустую. */
+    private static final int _initialValues = 4096;
+
+    private BinaryPaymentReader() {}
+
+    public static List<PaymentSchedule> readAll(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return readAll(channel);
+        }
+    }
+
+    public static List<PaymentSchedule> readAll(ReadableByteChannel channel) throws IOException {
+        List<PaymentSchedule> schedules = new ArrayList<>();
+        read(channel, (schedule, loanNumber) -> schedules.add(schedule));
+        return schedules;
+    }
+
+    /**
+     * Передает {@code consumer} графики файла вместе с номерами кредитов
+     * (0 — график записан без номера или файлом версии 1).
+     */
+    public static void read(Path file, ObjIntConsumer<PaymentSchedule> consumer) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            read(channel, consumer);
+        }
+    }
+
+    public static void read(ReadableByteChannel channel, ObjIntConsumer<PaymentSchedule> consumer) throws IOException {
+        ByteBuffer buffer = DirectBufferPool.acquire().order(ByteOrder.LITTLE_ENDIAN);
+        try {
+            buffer.flip();
+            if (!fill(channel, buffer, 2 * Integer.BYTES) || buffer.getInt() != BinaryPaymentWriter.MAGIC) {
+                throw new IOException("Not a payment schedule file");
+            }
+            int version = buffer.getInt();
+            if (version != 1 && version != BinaryPaymentWriter.VERSION) {
+                throw new IOException("Unsupported payment schedule file version " + version);
+            }
+            boolean numbered = version >= 2;
+
+            while (fill(channel, buffer, Integer.BYTES)) {
+                int size = buffer.getInt();
+                if (size < 0) {
+                    throw new IOException("Corrupted payment schedule block");
+                }
+                long needed = (long) size * PaymentSchedule.BYTES_PER_ROW + (numbered ? Integer.BYTES : 0);
+                long available = remainingBytes(channel, buffer);
+                if (needed > available) {
+                    throw new IOException("Corrupted payment schedule block: " + size + " rows need " + needed
+                        + " bytes, but only " + available + " are left");
+                }
+                int loanNumber = 0;
+                if (numbered) {
+                    require(channel, buffer, Integer.BYTES);
+                    loanNumber = buffer.getInt();
+                }
+                int[] epochDays = readInts(channel, buffer, size);
+                int[] days = readInts(channel, buffer, size);
+                long[] totals = readLongs(channel, buffer, size);
+                long[] interests = readLongs(channel, buffer, size);
+                long[] principals = readLongs(channel, buffer, size);
+                long[] remainings = readLongs(channel, buffer, size);
+
+                PaymentSchedule.Builder builder = PaymentSchedule.builder(size);
+                for (int i = 0; i < size; i++) {
+                    builder.add(days[i], epochDays[i], totals[i], interests[i], principals[i], remainings[i]);
+                }
+                consumer.accept(builder.build(), loanNumber);
+            }
+        } finally {
+            DirectBufferPool.release(buffer);
+        }
+    }
+
+    private static int[] readInts(ReadableByteChannel channel, ByteBuffer buffer, int size) throws IOException {
+        int[] values = new int[Math.min(size, _initialValues)];
+        for (int i = 0; i < size; i++) {
+            if (i == values.length) {
+                values = Arrays.copyOf(values, (int) Math.min(size, 2L * i));
+            }
+            require(channel, buffer, Integer.BYTES);
+            values[i] = buffer.getInt();
+        }
+        return values;
+    }
+
+    private static long[] readLongs(ReadableByteChannel channel, ByteBuffer buffer, int size) throws IOException {
+        long[] values = new long[Math.min(size, _initialValues)];
+        for (int i = 0; i < size; i++) {
+            if (i == values.length) {
+                values = Arrays.copyOf(values, (int) Math.min(size, 2L * i));
+            }
+            require(channel, buffer, Long.BYTES);
+            values[i] = buffer.getLong();
+        }
+        return values;
+    }
+
+    /**
+     * Сколько байт еще можно прочитать; у канала без размера (сокет, поток) известен только конец,
+     * поэтому для него ограничения нет.
+     */
+    private static long remainingBytes(ReadableByteChannel channel, ByteBuffer buffer) throws IOException {
+        if (channel instanceof SeekableByteChannel seekable) {
+            return seekable.size() - seekable.position() + buffer.remaining();
+        }
+        return Long.MAX_VALUE;
+    }
+
+    private static void require(ReadableByteChannel channel, ByteBuffer buffer, int bytes) throws IOException {
+        if (!fill(channel, buffer, bytes)) {
+            throw new IOException("Unexpected end of payment schedule file");
+        }
+    }
+
+    /**
+     * Дочитывает буфер, пока в нем не окажется {@code bytes} байт; {@code false} — если файл кончился раньше
+     * и в буфере ничего не осталось.
+     */
+    private static boolean fill(ReadableByteChannel channel, ByteBuffer buffer, int bytes) throws IOException {
+        if (buffer.remaining() >= bytes) {
+            return true;
+        }
+        buffer.compact();
+        while (buffer.position() < bytes) {
+            if (channel.read(buffer) < 0) {
+                break;
+            }
+        }
+        buffer.flip();
+        if (buffer.remaining() >= bytes) {
+            return true;
+        }
+        if (buffer.hasRemaining()) {
+            throw new IOException("Unexpected end of payment schedule file");
+        }
+        return false;
+    }
+}
@@ -0,0 +1,117 @@
+package creditpay.io;
+
+import creditpay.model.PaymentSchedule;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Запись графиков платежей в компактный двоичный колоночный формат.
+ *
+ * <p>Файл: {@code int} сигнатура {@code "PSCH"} и {@code int} версия, затем блоки,
+ * по одному на график: {@code int} число строк, {@code int} номер кредита (0, если
+ * график записан без номера) и столбцы подряд — даты (номер дня от эпохи, {@code int}),
+ * дни пользования ({@code int}), общая сумма, проценты, погашаемый долг и остаток
+ * ({@code long}, коп.). Порядок байт — little-endian. Версия 1 отличается только
+ * отсутствием номера кредита. Читается {@link BinaryPaymentReader}. Не потокобезопасен.
+ */
+public final class BinaryPaymentWriter implements Closeable {
+    static final int MAGIC = 0x50534348; // "PSCH"
+    static final int VERSION = 2;
+
+    private final WritableByteChannel channel;
+    private ByteBuffer buffer;
+    private long bytesWritten;
+
+    public BinaryPaymentWriter(WritableByteChannel channel) {
+        this.channel = channel;
+        this.buffer = DirectBufferPool.acquire().order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC);
+        buffer.putInt(VERSION);
+    }
+
+    public static BinaryPaymentWriter open(Path file) throws IOException {
+        return new BinaryPaymentWriter(FileChannel.open(file,
+            StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE));
+    }
+
+    public void write(PaymentSchedule schedule) throws IOException {
+        write(0, schedule);
+    }
+
+    /**
+     * Записывает график с номером кредита, чтобы графики книги, записанные в один файл
+     * в порядке готовности, можно было сопоставить с кредитами.
+     */
+    public void write(int loanNumber, PaymentSchedule schedule) throws IOException {
+        int size = schedule.size();
+        ensure(2 * Integer.BYTES);
+        buffer.putInt(size);
+        buffer.putInt(loanNumber);
+        for (int i = 0; i < size; i++) {
+            ensure(Integer.BYTES);
+            buffer.putInt((int) schedule.paymentEpochDay(i));
+        }
+        for (int i = 0; i < size; i++) {
+            ensure(Integer.BYTES);
+            buffer.putInt(schedule.daysOfBorrowing(i));
+        }
+        for (int i = 0; i < size; i++) {
+            ensure(Long.BYTES);
+            buffer.putLong(schedule.totalPayment(i));
+        }
+        for (int i = 0; i < size; i++) {
+            ensure(Long.BYTES);
+            buffer.putLong(schedule.interest(i));
+        }
+        for (int i = 0; i < size; i++) {
+            ensure(Long.BYTES);
+            buffer.putLong(schedule.principalRepaid(i));
+        }
+        for (int i = 0; i < size; i++) {
+            ensure(Long.BYTES);
+            buffer.putLong(schedule.remainingDebt(i));
+        }
+    }
+
+    /**
+     * Число байт, переданных в канал и ожидающих в буфере.
+     */
+    public long bytesWritten() {
+        return bytesWritten + (buffer == null ? 0 : buffer.position());
+    }
+
+    public void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            bytesWritten += channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (buffer == null) {
+            return;
+        }
+        try {
+            flush();
+        } finally {
+            DirectBufferPool.release(buffer);
+            buffer = null;
+            channel.close();
+        }
+    }
+
+    private void ensure(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            flush();
+        }
+    }
+}
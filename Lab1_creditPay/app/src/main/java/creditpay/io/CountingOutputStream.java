@@ -0,0 +1,41 @@
+package creditpay.io;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Поток, считающий записанные байты, для метрик записи. Блоки передаются
+ * дальше целиком, а не по байту, как в {@link FilterOutputStream}.
+ */
+final class CountingOutputStream extends FilterOutputStream {
+    private long count;
+
+    CountingOutputStream(OutputStream out) {
+        super(out);
+    }
+
+    long getCount() {
+        return count;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        out.write(b);
+        count++;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        out.write(b, off, len);
+        count += len;
+    }
+
+    /**
+     * Не закрывает исходный поток: его закрывает тот, кто его открыл.
+     */
+    @Override
+    public void close() throws IOException {
+        flush();
+    }
+}
@@ -0,0 +1,214 @@
+package creditpay.io;
+
+import creditpay.model.FixedPointPaymentSink;
+import creditpay.model.PaymentSchedule;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Запись графика платежей в CSV для внешних систем: разделитель — запятая,
+ * даты в формате ISO ({@code 2022-10-26}), суммы в рублях с двумя знаками после точки.
+ *
+ * <p>Строки формируются прямо в прямом буфере из пула, без строк и форматтеров,
+ * и уходят в канал большими блоками. Писатель сам является приемником
+ * целочисленного расчета, так что график можно выгружать, не сохраняя его:
+ * {@code calculator.calculateFixedPointSchedule(terms, writer)}. Несколько графиков
+ * подряд пишутся в один файл; чтобы их различать, писатель со столбцом номера
+ * кредита ({@link #LOAN_HEADER}) начинает каждую строку с номера, заданного
+ * {@link #setLoanNumber}. Не потокобезопасен.
+ */
+public final class CsvPaymentWriter implements FixedPointPaymentSink, Closeable {
+    public static final String HEADER =
+        "number,days_of_borrowing,payment_date,total_payment,interest,principal_repaid,remaining_debt\n";
+    /** Заголовок файла с графиками нескольких кредитов: первый столбец — номер кредита. */
+    public static final String LOAN_HEADER = "loan," + HEADER;
+
+    /** Самая длинная строка: номер кредита, пять чисел по 20 знаков, дата и разделители. */
+    private static final int _maxLineBytes = 6 * 20 + 10 + 8;
+
+    private final WritableByteChannel channel;
+    private final boolean loanColumn;
+    private ByteBuffer buffer;
+    private final byte[] digits = new byte[20];
+    private long bytesWritten;
+    private long loanNumber;
+
+    public CsvPaymentWriter(WritableByteChannel channel) {
+        this(channel, false);
+    }
+
+    /**
+     * @param loanColumn писать первым столбцом номер кредита
+     */
+    public CsvPaymentWriter(WritableByteChannel channel, boolean loanColumn) {
+        this.channel = channel;
+        this.loanColumn = loanColumn;
+        this.buffer = DirectBufferPool.acquire();
+        buffer.put((loanColumn ? LOAN_HEADER : HEADER).getBytes(StandardCharsets.US_ASCII));
+    }
+
+    public static CsvPaymentWriter open(Path file) throws IOException {
+        return open(file, false);
+    }
+
+    public static CsvPaymentWriter open(Path file, boolean loanColumn) throws IOException {
+        return new CsvPaymentWriter(FileChannel.open(file,
+            StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE), loanColumn);
+    }
+
+    /**
+     * Номер кредита для следующих строк.
+     *
+     * @throws IllegalStateException если писатель создан без столбца номера кредита
+     */
+    public void setLoanNumber(long loanNumber) {
+        if (!loanColumn) {
+            throw new IllegalStateException("The writer has no loan column");
+        }
+        this.loanNumber = loanNumber;
+    }
+
+    /**
+     * Записывает строку графика; суммы в копейках, как их выдает целочисленный расчет.
+     */
+    @Override
+    public void accept(int index, int daysOfBorrowing, long paymentEpochDay,
+                       long totalPayment, long interest, long principalRepaid, long remainingDebt) {
+        if (buffer.remaining() < _maxLineBytes) {
+            flushBuffer();
+        }
+        if (loanColumn) {
+            putLong(loanNumber);
+            buffer.put((byte) ',');
+        }
+        putLong(index + 1L);
+        buffer.put((byte) ',');
+        putLong(daysOfBorrowing);
+        buffer.put((byte) ',');
+        putDate(paymentEpochDay);
+        buffer.put((byte) ',');
+        putKopecks(totalPayment);
+        buffer.put((byte) ',');
+        putKopecks(interest);
+        buffer.put((byte) ',');
+        putKopecks(principalRepaid);
+        buffer.put((byte) ',');
+        putKopecks(remainingDebt);
+        buffer.put((byte) '\n');
+    }
+
+    public void write(PaymentSchedule schedule) {
+        for (int i = 0; i < schedule.size(); i++) {
+            accept(i, schedule.daysOfBorrowing(i), schedule.paymentEpochDay(i),
+                schedule.totalPayment(i), schedule.interest(i),
+                schedule.principalRepaid(i), schedule.remainingDebt(i));
+        }
+    }
+
+    /**
+     * Записывает график кредита {@code loanNumber}, см. {@link #setLoanNumber}.
+     */
+    public void write(long loanNumber, PaymentSchedule schedule) {
+        setLoanNumber(loanNumber);
+        write(schedule);
+    }
+
+    /**
+     * Число байт, переданных в канал и ожидающих в буфере.
+     */
+    public long bytesWritten() {
+        return bytesWritten + (buffer == null ? 0 : buffer.position());
+    }
+
+    public void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            bytesWritten += channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (buffer == null) {
+            return;
+        }
+        try {
+            flush();
+        } finally {
+            DirectBufferPool.release(buffer);
+            buffer = null;
+            channel.close();
+        }
+    }
+
+    private void flushBuffer() {
+        try {
+            flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void putKopecks(long kopecks) {
+        if (kopecks < 0) {
+            buffer.put((byte) '-');
+            kopecks = -kopecks;
+        }
+        putLong(kopecks / 100);
+        int cents = (int) (kopecks % 100);
+        buffer.put((byte) '.');
+        buffer.put((byte) ('0' + cents / 10));
+        buffer.put((byte) ('0' + cents % 10));
+    }
+
+    private void putLong(long value) {
+        if (value < 0) {
+            buffer.put((byte) '-');
+            value = -value;
+        }
+        int length = 0;
+        do {
+            digits[length++] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value != 0);
+        while (length > 0) {
+            buffer.put(digits[--length]);
+        }
+    }
+
+    private void putPadded(int value, int width) {
+        for (int divisor = width == 4 ? 1000 : 10; divisor > 0; divisor /= 10) {
+            buffer.put((byte) ('0' + value / divisor % 10));
+        }
+    }
+
+    /**
+     * Дата по номеру дня от эпохи без {@code LocalDate} (алгоритм civil_from_days Г. Хиннанта).
+     */
+    private void putDate(long epochDay) {
+        long z = epochDay + 719468;
+        long era = Math.floorDiv(z, 146097);
+        long dayOfEra = z - era * 146097;
+        long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        long shiftedMonth = (5 * dayOfYear + 2) / 153;
+        int day = (int) (dayOfYear - (153 * shiftedMonth + 2) / 5 + 1);
+        int month = (int) (shiftedMonth < 10 ? shiftedMonth + 3 : shiftedMonth - 9);
+        int year = (int) (yearOfEra + era * 400 + (month <= 2 ? 1 : 0));
+
+        putPadded(year, 4);
+        buffer.put((byte) '-');
+        putPadded(month, 2);
+        buffer.put((byte) '-');
+        putPadded(day, 2);
+    }
+}
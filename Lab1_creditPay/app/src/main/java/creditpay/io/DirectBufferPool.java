@@ -0,0 +1,29 @@
+package creditpay.io;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Пул прямых буферов для записи в каналы. Писатель берет буфер при открытии
+ * и возвращает при закрытии, поэтому пакетная выгрузка не выделяет новых буферов
+ * на каждый файл.
+ */
+final class DirectBufferPool {
+    static final int BUFFER_SIZE = 1 << 20;
+
+    private static final int _maxPooledBuffers = 16;
+    private static final ConcurrentLinkedQueue<ByteBuffer> _pool = new ConcurrentLinkedQueue<>();
+
+    private DirectBufferPool() {}
+
+    static ByteBuffer acquire() {
+        ByteBuffer buffer = _pool.poll();
+        return buffer != null ? buffer.clear() : ByteBuffer.allocateDirect(BUFFER_SIZE);
+    }
+
+    static void release(ByteBuffer buffer) {
+        if (_pool.size() < _maxPooledBuffers) {
+            _pool.offer(buffer.clear());
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package creditpay.io;
 
+import creditpay.metrics.PipelineMetrics;
+import creditpay.metrics.TermsReadEvent;
 import creditpay.model.CreditTerms;
 import creditpay.model.InterestPeriod;
 
@@ -23,24 +25,25 @@ import java.util.List;
  */
 public final class ExcelCreditTermsReader {
     private static int _headerNotFound = -1;
+    private static final DateTimeFormatter _dateFormatter = DateTimeFormatter.ofPattern("dd.MM.yyyy");
 
-    private static final List<String> _principalKeys = List.of(
+    static final List<String> _principalKeys = List.of(
         "сумма кредита, руб",
         "сумма кредита",
         "сумма");
-    private static final List<String> _termMonthsKeys = List.of(
+    static final List<String> _termMonthsKeys = List.of(
         "срок, мес",
         "срок",
         "срок кредита, мес",
         "срок кредита");
-    private static final List<String> _annualRateKeys = List.of(
+    static final List<String> _annualRateKeys = List.of(
         "процентная ставка",
         "ставка");
-    private static final List<String> _paymentDayKeys = List.of(
+    static final List<String> _paymentDayKeys = List.of(
         "платеж, день",
         "дата платежа",
         "платеж");
-    private static final List<String> _startDateKeys = List.of(
+    static final List<String> _startDateKeys = List.of(
         "дата предоставления",
         "дата предоставления кредита",
         "дата выдачи кредита",
@@ -49,23 +52,22 @@ public final class ExcelCreditTermsReader {
     private ExcelCreditTermsReader() {}
 
     public static CreditTerms read(InputStream in) throws Exception {
-        try (Workbook wb = WorkbookFactory.create(in)) {
+        TermsReadEvent event = PipelineMetrics.beginRead();
+        CountingInputStream counted = new CountingInputStream(in);
+        boolean succeeded = false;
+        try (Workbook wb = WorkbookFactory.create(counted)) {
             Sheet sheet = wb.getSheetAt(0);
-            return parseSheet(sheet);
-        } catch (Exception e) {
-            throw e;
+            CreditTerms terms = parseSheet(sheet);
+            succeeded = true;
+            return terms;
+        } finally {
+            PipelineMetrics.endRead(event, counted.getCount(), succeeded);
         }
     }
 
     private static CreditTerms parseSheet(Sheet sheet) throws InvalidFormatException {
         DataFormatter formatter = new DataFormatter();
 
-        BigDecimal principal = null;
-        Integer termMonths = null;
-        BigDecimal annualRate = null;
-        InterestPeriod interestPeriod = null;
-        LocalDate startDate = null;
-        
         Row headerRow = sheet.getRow(0);
         Row valueRow = sheet.getRow(1);
         int colPrincipal = findColumn(headerRow, _principalKeys, formatter);
@@ -80,40 +82,54 @@ public final class ExcelCreditTermsReader {
                 throw new InvalidFormatException("В таблице " + sheet.getSheetName() + " не найдены необходимые столбцы");
         }
 
+        return parseTerms(
+            formatter.formatCellValue(valueRow.getCell(colPrincipal)),
+            formatter.formatCellValue(valueRow.getCell(colTerm)),
+            formatter.formatCellValue(valueRow.getCell(colRate)),
+            formatter.formatCellValue(valueRow.getCell(colStart)),
+            formatter.formatCellValue(valueRow.getCell(colPaymentDay)));
+    }
+
+    /**
+     * Разбирает условия кредита из отформатированных значений ячеек.
+     * Общая часть для чтения через DOM и потокового {@link ExcelLoanBookReader}.
+     */
+    static CreditTerms parseTerms(String principalValue, String termMonthsValue, String annualRateValue,
+                                  String startDateValue, String paymentDayValue) throws InvalidFormatException {
+        BigDecimal principal;
+        int termMonths;
+        BigDecimal annualRate;
+        LocalDate startDate;
+        InterestPeriod interestPeriod;
+
         try {
-            String rawValue = formatter.formatCellValue(valueRow.getCell(colPrincipal)).replace(",", "");
-            principal = new BigDecimal(rawValue);
+            principal = new BigDecimal(principalValue.replace(",", ""));
         } catch (NumberFormatException ex){
             throw new InvalidFormatException("Некорректное значение суммы кредита");
         }
 
         try {
-            String rawValue = formatter.formatCellValue(valueRow.getCell(colTerm));
-            termMonths = Integer.parseInt(rawValue);
+            termMonths = Integer.parseInt(termMonthsValue);
         } catch (NumberFormatException ex){
             throw new InvalidFormatException("Некорректное значение срока кредита");
         }
 
         try {
-            String rawValue = formatter.formatCellValue(valueRow.getCell(colRate));
-            annualRate = new BigDecimal(rawValue);
+            annualRate = new BigDecimal(annualRateValue);
         } catch (NumberFormatException ex){
             throw new InvalidFormatException("Некорректное значение процентной ставки");
         }
 
         try {
-            String rawValue = formatter.formatCellValue(valueRow.getCell(colStart));
-            DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("dd.MM.yyyy");
-            startDate = LocalDate.parse(rawValue, dateFormatter);
+            startDate = LocalDate.parse(startDateValue, _dateFormatter);
         } catch (DateTimeParseException ex){
             throw new InvalidFormatException("Некорректное значение даты предоставления кредита");
         }
 
         try {
-            String rawValue = formatter.formatCellValue(valueRow.getCell(colPaymentDay));
-            int paymentDay = Integer.parseInt(rawValue);
+            int paymentDay = Integer.parseInt(paymentDayValue);
             interestPeriod = new InterestPeriod(paymentDay);
-        } catch (NumberFormatException ex){
+        } catch (IllegalArgumentException ex){
             throw new InvalidFormatException("Некорректное значение числа платежа");
         }
 
@@ -0,0 +1,296 @@
+package creditpay.io;
+
+import creditpay.model.CreditTerms;
+
+import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.usermodel.XSSFComment;
+import org.xml.sax.InputSource;
+import org.xml.sax.XMLReader;
+
+import java.io.InputStream;
+import java.lang.ref.Cleaner;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Потоковое чтение книги кредитов из xlsx: первая строка листа — заголовки
+ * (те же, что понимает {@link ExcelCreditTermsReader}), каждая следующая — один кредит.
+ *
+ * <p>Лист разбирается SAX-парсером POI без построения DOM в отдельном потоке, готовые
+ * условия передаются через ограниченную очередь. Память не зависит от числа строк,
+ * а чтение идет одновременно с расчетом. Поток нужно закрывать (try-with-resources):
+ * закрытие останавливает разбор и освобождает файл. Если поток бросили незакрытым,
+ * разбор остановится, когда сборщик мусора заберет сам поток.
+ *
+ * <p>Ошибка в файле или строке приходит потребителю как {@link RuntimeException},
+ * причина — {@link InvalidFormatException} с номером строки.
+ */
+public final class ExcelLoanBookReader {
+    public static final int DEFAULT_QUEUE_CAPACITY = 1024;
+
+    private static final Object _endOfSheet = new Object();
+    private static final AtomicInteger _readerCount = new AtomicInteger();
+    private static final ThreadFactory _readerThreads = task -> {
+        Thread thread = new Thread(task, "loan-book-reader-" + _readerCount.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    };
+    private static final Cleaner _cleaner = Cleaner.create();
+
+    private ExcelLoanBookReader() {}
+
+    public static Stream<CreditTerms> stream(Path file) throws Exception {
+        return stream(file, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    /**
+     * @param queueCapacity сколько разобранных кредитов может ждать потребителя
+     */
+    public static Stream<CreditTerms> stream(Path file, int queueCapacity) throws Exception {
+        if (queueCapacity < 1) {
+            throw new IllegalArgumentException("queueCapacity must be positive");
+        }
+        return start(OPCPackage.open(file.toFile(), PackageAccess.READ), queueCapacity);
+    }
+
+    /**
+     * Чтение из потока: POI сначала распаковывает его в память целиком,
+     * поэтому для больших файлов лучше {@link #stream(Path)}.
+     */
+    public static Stream<CreditTerms> stream(InputStream in) throws Exception {
+        return start(OPCPackage.open(in), DEFAULT_QUEUE_CAPACITY);
+    }
+
+    private static Stream<CreditTerms> start(OPCPackage pkg, int queueCapacity) {
+        LoanBookParser parser = new LoanBookParser(pkg, queueCapacity);
+        parser.thread = _readerThreads.newThread(parser);
+        parser.thread.start();
+        LoanBookSpliterator rows = new LoanBookSpliterator(parser.queue);
+        // парсер не ссылается на rows, поэтому брошенный поток собирается и останавливает разбор
+        Cleaner.Cleanable cleanable = _cleaner.register(rows, parser::close);
+        return StreamSupport.stream(rows, false).onClose(cleanable::clean);
+    }
+
+    /**
+     * Отдает разобранные строки потребителю как {@link Spliterator}.
+     */
+    private static final class LoanBookSpliterator extends Spliterators.AbstractSpliterator<CreditTerms> {
+        private final BlockingQueue<Object> queue;
+        private boolean finished;
+
+        LoanBookSpliterator(BlockingQueue<Object> queue) {
+            super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.IMMUTABLE);
+            this.queue = queue;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super CreditTerms> action) {
+            if (finished) {
+                return false;
+            }
+            Object item;
+            try {
+                item = queue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while reading the loan book", e);
+            }
+            if (item == _endOfSheet) {
+                finished = true;
+                return false;
+            }
+            if (item instanceof Failure failure) {
+                finished = true;
+                throw new RuntimeException(failure.cause().getMessage(), failure.cause());
+            }
+            action.accept((CreditTerms) item);
+            return true;
+        }
+    }
+
+    /**
+     * Разбирает лист в своем потоке и складывает строки в очередь.
+     */
+    private static final class LoanBookParser implements Runnable, XSSFSheetXMLHandler.SheetContentsHandler {
+        private final OPCPackage pkg;
+        private final BlockingQueue<Object> queue;
+        private volatile boolean closed;
+        private Thread thread;
+        private boolean failed;
+
+        private String sheetName;
+        private final List<String> headers = new ArrayList<>();
+        /** Номера столбцов в порядке аргументов {@link ExcelCreditTermsReader#parseTerms}. */
+        private int[] columns;
+        private final String[] values = new String[5];
+        private boolean rowHasValues;
+        private int nextColumn;
+
+        LoanBookParser(OPCPackage pkg, int queueCapacity) {
+            this.pkg = pkg;
+            this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        }
+
+        @Override
+        public void run() {
+            try {
+                XSSFReader reader = new XSSFReader(pkg);
+                ReadOnlySharedStringsTable strings = new ReadOnlySharedStringsTable(pkg);
+                XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) reader.getSheetsData();
+                if (!sheets.hasNext()) {
+                    throw new InvalidFormatException("В книге нет листов");
+                }
+                try (InputStream sheet = sheets.next()) {
+                    sheetName = sheets.getSheetName();
+                    XMLReader xmlReader = XMLHelper.newXMLReader();
+                    xmlReader.setContentHandler(new XSSFSheetXMLHandler(
+                        reader.getStylesTable(), strings, this, new DataFormatter(), false));
+                    xmlReader.parse(new InputSource(sheet));
+                }
+                if (columns == null) {
+                    throw new InvalidFormatException("В таблице " + sheetName + " нет строки заголовков");
+                }
+                deliver(_endOfSheet);
+            } catch (Exception e) {
+                if (!closed) {
+                    deliverFailure(e);
+                }
+            } finally {
+                pkg.revert();
+            }
+        }
+
+        @Override
+        public void startRow(int rowNum) {
+            Arrays.fill(values, null);
+            rowHasValues = false;
+            nextColumn = 0;
+        }
+
+        @Override
+        public void cell(String cellReference, String formattedValue, XSSFComment comment) {
+            int column = cellReference == null ? nextColumn : new CellReference(cellReference).getCol();
+            nextColumn = column + 1;
+            if (columns == null) {
+                while (headers.size() <= column) {
+                    headers.add(null);
+                }
+                headers.set(column, formattedValue.toLowerCase());
+                return;
+            }
+            for (int i = 0; i < columns.length; i++) {
+                if (columns[i] == column) {
+                    values[i] = formattedValue;
+                    rowHasValues |= !formattedValue.isBlank();
+                }
+            }
+        }
+
+        @Override
+        public void endRow(int rowNum) {
+            if (columns == null) {
+                resolveColumns();
+                return;
+            }
+            if (!rowHasValues) {
+                return;
+            }
+            try {
+                deliver(ExcelCreditTermsReader.parseTerms(
+                    valueOrEmpty(0), valueOrEmpty(1), valueOrEmpty(2), valueOrEmpty(3), valueOrEmpty(4)));
+            } catch (InvalidFormatException e) {
+                deliverFailure(new InvalidFormatException("Строка " + (rowNum + 1) + ": " + e.getMessage()));
+                throw new Stopped();
+            }
+        }
+
+        private void resolveColumns() {
+            int[] resolved = {
+                findColumn(ExcelCreditTermsReader._principalKeys),
+                findColumn(ExcelCreditTermsReader._termMonthsKeys),
+                findColumn(ExcelCreditTermsReader._annualRateKeys),
+                findColumn(ExcelCreditTermsReader._startDateKeys),
+                findColumn(ExcelCreditTermsReader._paymentDayKeys)
+            };
+            for (int column : resolved) {
+                if (column < 0) {
+                    deliverFailure(new InvalidFormatException("В таблице " + sheetName + " не найдены необходимые столбцы"));
+                    throw new Stopped();
+                }
+            }
+            columns = resolved;
+        }
+
+        private int findColumn(List<String> names) {
+            for (int i = 0; i < headers.size(); i++) {
+                if (headers.get(i) != null && names.contains(headers.get(i))) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private String valueOrEmpty(int field) {
+            return values[field] == null ? "" : values[field];
+        }
+
+        private void deliver(Object item) {
+            if (closed) {
+                throw new Stopped();
+            }
+            try {
+                queue.put(item);
+            } catch (InterruptedException e) {
+                throw new Stopped();
+            }
+        }
+
+        private void deliverFailure(Exception cause) {
+            if (failed) {
+                return;
+            }
+            failed = true;
+            try {
+                deliver(new Failure(cause));
+            } catch (Stopped ignored) {
+                // потребитель уже закрыл поток, сообщать некому
+            }
+        }
+
+        void close() {
+            closed = true;
+            thread.interrupt();
+        }
+    }
+
+    private record Failure(Exception cause) {
+    }
+
+    /** Останавливает разбор, когда продолжать незачем. */
+    private static final class Stopped extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        Stopped() {
+            super(null, null, false, false);
+        }
+    }
+}
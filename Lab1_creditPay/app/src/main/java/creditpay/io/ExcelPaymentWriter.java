@@ -1,17 +1,26 @@
 package creditpay.io;
 
+import creditpay.metrics.PipelineMetrics;
+import creditpay.metrics.ScheduleWrittenEvent;
 import creditpay.model.Payment;
+import creditpay.model.PaymentSchedule;
+import org.apache.poi.ss.SpreadsheetVersion;
 import org.apache.poi.ss.usermodel.CellStyle;
 import org.apache.poi.ss.usermodel.CreationHelper;
 import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.usermodel.Workbook;
 import org.apache.poi.ss.util.CellRangeAddress;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 
+import java.io.Closeable;
+import java.io.IOException;
 import java.io.OutputStream;
+import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
-import java.util.List;
+import java.util.Iterator;
 
 /**
  * Утилита для записи графика платежей в Excel-файл.
@@ -28,105 +37,390 @@ public final class ExcelPaymentWriter {
     public static final String HEADER_PRINCIPAL = "Сумма погашаемого долга";
     public static final String HEADER_REMAINING = "Остаток задолженности";
 
+    /** Формат в событиях записи: обычная книга и потоковая {@link SXSSFWorkbook}. */
+    private static final String _format = "xlsx";
+    private static final String _streamingFormat = "xlsx-streaming";
+    private static final String _sheetName = "График платежей";
+    private static final String _loanSheetName = "Кредит";
+    private static final int _headerRows = 2;
+    /** Сколько строк потоковой записи держится в памяти, остальные уже сброшены на диск. */
+    private static final int _streamingRowWindow = 100;
+    private static final int _maxRowsPerSheet = SpreadsheetVersion.EXCEL2007.getMaxRows() - _headerRows;
+    /**
+     * Ширины столбцов потоковой записи в символах: по подзаголовкам и самым длинным значениям
+     * (суммы до 999 999 999,99), вместо {@code autoSizeColumn}, который перебирает все ячейки.
+     */
+    private static final int[] _streamingColumnWidths = {10, 14, 12, 16, 16, 25, 23};
+
     private ExcelPaymentWriter() {}
 
     /**
      * Записывает график платежей в Excel-файл.
      */
-    public static void write(List<Payment> payments, OutputStream out) throws Exception {
-        try (Workbook wb = new XSSFWorkbook()) {
-            Sheet sheet = wb.createSheet("График платежей");
-            CreationHelper helper = wb.getCreationHelper();
+    public static void write(Iterable<Payment> payments, OutputStream out) throws Exception {
+        write(payments.iterator(), out);
+    }
 
-            // Создание стиля для заголовка
-            var headerFont = wb.createFont();
-            headerFont.setBold(true);
-            CellStyle headerStyle = wb.createCellStyle();
-            headerStyle.setFont(headerFont);
+    /**
+     * Записывает график платежей в Excel-файл, забирая строки по одной.
+     * Подходит для ленивых графиков {@code MortgageScheduleCalculator.iterateSchedule}.
+     */
+    public static void write(Iterator<Payment> payments, OutputStream out) throws Exception {
+        measure(_format, out, counted -> {
+            try (Workbook wb = new XSSFWorkbook()) {
+                RowStyles styles = new RowStyles(wb);
+                Sheet sheet = createSheet(wb, styles);
 
-            Row mainHeaderRow = sheet.createRow(0);
-            var cell0 = mainHeaderRow.createCell(0);
-            cell0.setCellValue(HEADER_NUMBER);
-            cell0.setCellStyle(headerStyle);
-            sheet.addMergedRegion(new CellRangeAddress(0, 1, 0, 0));
-
-            var cell1 = mainHeaderRow.createCell(1);
-            cell1.setCellValue(HEADER_DAYS);
-            cell1.setCellStyle(headerStyle);
-            sheet.addMergedRegion(new CellRangeAddress(0, 1, 1, 1));
-
-            var cell2 = mainHeaderRow.createCell(2);
-            cell2.setCellValue(HEADER_DATE);
-            cell2.setCellStyle(headerStyle);
-            sheet.addMergedRegion(new CellRangeAddress(0, 1, 2, 2));
-
-            var cell3 = mainHeaderRow.createCell(3);
-            cell3.setCellValue(HEADER_TOTAL);
-            cell3.setCellStyle(headerStyle);
-            sheet.addMergedRegion(new CellRangeAddress(0, 1, 3, 3));
-
-            var cellMerged = mainHeaderRow.createCell(4);
-            cellMerged.setCellValue(HEADER_GROUP);
-            cellMerged.setCellStyle(headerStyle);
-            sheet.addMergedRegion(new CellRangeAddress(0, 0, 4, 6));
-
-            Row subHeaderRow = sheet.createRow(1);
-            var subCell4 = subHeaderRow.createCell(4);
-            subCell4.setCellValue(HEADER_INTEREST);
-            subCell4.setCellStyle(headerStyle);
-
-            var subCell5 = subHeaderRow.createCell(5);
-            subCell5.setCellValue(HEADER_PRINCIPAL);
-            subCell5.setCellStyle(headerStyle);
-
-            var subCell6 = subHeaderRow.createCell(6);
-            subCell6.setCellValue(HEADER_REMAINING);
-            subCell6.setCellStyle(headerStyle);
-
-            CellStyle dateStyle = wb.createCellStyle();
-            dateStyle.setDataFormat(helper.createDataFormat().getFormat("dd.MM.yyyy"));
+                int rowNum = 2;
+                while (payments.hasNext()) {
+                    Payment payment = payments.next();
+                    writeRow(sheet.createRow(rowNum), styles, rowNum - 1,
+                            payment.daysOfBorrowing,
+                            payment.paymentDate,
+                            payment.totalPayment.doubleValue(),
+                            payment.interest.doubleValue(),
+                            payment.principalRepaid.doubleValue(),
+                            payment.remainingDebt.doubleValue());
+                    rowNum++;
+                }
 
-            CellStyle moneyStyle = wb.createCellStyle();
-            moneyStyle.setDataFormat(helper.createDataFormat().getFormat("#,##0.00"));
+                finish(wb, sheet, counted);
+                return rowNum - 2;
+            }
+        });
+    }
+
+    /**
+     * Записывает колоночный график платежей в Excel-файл без промежуточных объектов {@link Payment}.
+     */
+    public static void write(PaymentSchedule schedule, OutputStream out) throws Exception {
+        measure(_format, out, counted -> {
+            try (Workbook wb = new XSSFWorkbook()) {
+                RowStyles styles = new RowStyles(wb);
+                Sheet sheet = createSheet(wb, styles);
+
+                PaymentSchedule.Row payment = null;
+                for (int i = 0; i < schedule.size(); i++) {
+                    payment = payment == null ? schedule.row(i) : payment.moveTo(i);
+                    writeRow(sheet.createRow(i + 2), styles, i + 1,
+                            payment.daysOfBorrowing(),
+                            LocalDate.ofEpochDay(payment.paymentEpochDay()),
+                            payment.totalPayment() / 100.0,
+                            payment.interest() / 100.0,
+                            payment.principalRepaid() / 100.0,
+                            payment.remainingDebt() / 100.0);
+                }
+
+                finish(wb, sheet, counted);
+                return schedule.size();
+            }
+        });
+    }
+
+    /**
+     * Потоковая запись графика через {@link SXSSFWorkbook}: в памяти только окно из
+     * последних строк, остальные сжимаются во временный файл. Ширины столбцов заданы
+     * заранее, стили общие. Подходит для многомиллионных графиков: после 1 048 574
+     * строк данных начинается следующий лист.
+     */
+    public static void writeStreaming(Iterable<Payment> payments, OutputStream out) throws Exception {
+        writeStreaming(payments.iterator(), out);
+    }
+
+    /**
+     * Потоковая запись ленивого графика, см. {@link #writeStreaming(Iterable, OutputStream)}.
+     */
+    public static void writeStreaming(Iterator<Payment> payments, OutputStream out) throws Exception {
+        writeStreaming(payments, out, _maxRowsPerSheet);
+    }
+
+    static void writeStreaming(Iterator<Payment> payments, OutputStream out, int rowsPerSheet) throws Exception {
+        measure(_streamingFormat, out, counted -> {
+            SXSSFWorkbook wb = new SXSSFWorkbook(_streamingRowWindow);
+            try (wb) {
+                wb.setCompressTempFiles(true);
+                RowStyles styles = new RowStyles(wb);
+                StreamingSheets sheets = new StreamingSheets(wb, styles, _sheetName, rowsPerSheet);
+
+                int number = 1;
+                while (payments.hasNext()) {
+                    Payment payment = payments.next();
+                    writeRow(sheets.nextRow(), styles, number++,
+                            payment.daysOfBorrowing,
+                            payment.paymentDate,
+                            payment.totalPayment.doubleValue(),
+                            payment.interest.doubleValue(),
+                            payment.principalRepaid.doubleValue(),
+                            payment.remainingDebt.doubleValue());
+                }
+
+                wb.write(counted);
+                return number - 1;
+            } finally {
+                wb.dispose();
+            }
+        });
+    }
+
+    /**
+     * Потоковая запись колоночного графика, см. {@link #writeStreaming(Iterable, OutputStream)}.
+     */
+    public static void writeStreaming(PaymentSchedule schedule, OutputStream out) throws Exception {
+        measure(_streamingFormat, out, counted -> {
+            SXSSFWorkbook wb = new SXSSFWorkbook(_streamingRowWindow);
+            try (wb) {
+                wb.setCompressTempFiles(true);
+                RowStyles styles = new RowStyles(wb);
+                writeRows(new StreamingSheets(wb, styles, _sheetName, _maxRowsPerSheet), styles, schedule);
+
+                wb.write(counted);
+                return schedule.size();
+            } finally {
+                wb.dispose();
+            }
+        });
+    }
+
+    /**
+     * Потоковая книга с графиками нескольких кредитов, по листу на кредит
+     * ({@code "Кредит 12"}), в порядке записи. Стили общие для всей книги, строки
+     * листа сбрасываются на диск сразу после графика. Книга пишется в поток при
+     * закрытии; сам поток не закрывается. Не потокобезопасна.
+     */
+    public static final class LoanBook implements Closeable {
+        private final OutputStream out;
+        private final SXSSFWorkbook wb = new SXSSFWorkbook(_streamingRowWindow);
+        private final RowStyles styles;
+        private int rows;
+        private boolean closed;
+
+        public LoanBook(OutputStream out) {
+            this.out = out;
+            wb.setCompressTempFiles(true);
+            styles = new RowStyles(wb);
+        }
+
+        public void write(int loanNumber, PaymentSchedule schedule) throws IOException {
+            StreamingSheets sheets = new StreamingSheets(wb, styles, _loanSheetName + " " + loanNumber, _maxRowsPerSheet);
+            writeRows(sheets, styles, schedule);
+            sheets.flushRows();
+            rows += schedule.size();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                measure(_streamingFormat, out, counted -> {
+                    wb.write(counted);
+                    return rows;
+                });
+            } catch (IOException | RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IOException(e);
+            } finally {
+                wb.dispose();
+                wb.close();
+            }
+        }
+    }
 
-            int rowNum = 2;
-            for (Payment payment : payments) {
-                Row row = sheet.createRow(rowNum);
+    private static void writeRows(StreamingSheets sheets, RowStyles styles, PaymentSchedule schedule) {
+        PaymentSchedule.Row payment = null;
+        for (int i = 0; i < schedule.size(); i++) {
+            payment = payment == null ? schedule.row(i) : payment.moveTo(i);
+            writeRow(sheets.nextRow(), styles, i + 1,
+                    payment.daysOfBorrowing(),
+                    LocalDate.ofEpochDay(payment.paymentEpochDay()),
+                    payment.totalPayment() / 100.0,
+                    payment.interest() / 100.0,
+                    payment.principalRepaid() / 100.0,
+                    payment.remainingDebt() / 100.0);
+        }
+    }
+
+    /**
+     * Пишет книгу через {@code writer} и отмечает запись в {@link PipelineMetrics}:
+     * событие JFR, число строк и байтов.
+     */
+    private static void measure(String format, OutputStream out, WorkbookWriter writer) throws Exception {
+        ScheduleWrittenEvent event = PipelineMetrics.beginWrite();
+        CountingOutputStream counted = new CountingOutputStream(out);
+        int rows = -1;
+        try {
+            rows = writer.write(counted);
+        } finally {
+            PipelineMetrics.endWrite(event, format, Math.max(rows, 0), counted.getCount(), rows >= 0);
+        }
+    }
+
+    /**
+     * Запись книги в поток; возвращает число строк данных.
+     */
+    private interface WorkbookWriter {
+        int write(OutputStream out) throws Exception;
+    }
+
+    private static Sheet createSheet(Workbook wb, RowStyles styles) {
+        return createSheet(wb, _sheetName, styles);
+    }
+
+    private static Sheet createSheet(Workbook wb, String name, RowStyles styles) {
+        Sheet sheet = wb.createSheet(name);
+        CellStyle headerStyle = styles.headerStyle;
+
+        Row mainHeaderRow = sheet.createRow(0);
+        var cell0 = mainHeaderRow.createCell(0);
+        cell0.setCellValue(HEADER_NUMBER);
+        cell0.setCellStyle(headerStyle);
+        sheet.addMergedRegion(new CellRangeAddress(0, 1, 0, 0));
+
+        var cell1 = mainHeaderRow.createCell(1);
+        cell1.setCellValue(HEADER_DAYS);
+        cell1.setCellStyle(headerStyle);
+        sheet.addMergedRegion(new CellRangeAddress(0, 1, 1, 1));
+
+        var cell2 = mainHeaderRow.createCell(2);
+        cell2.setCellValue(HEADER_DATE);
+        cell2.setCellStyle(headerStyle);
+        sheet.addMergedRegion(new CellRangeAddress(0, 1, 2, 2));
+
+        var cell3 = mainHeaderRow.createCell(3);
+        cell3.setCellValue(HEADER_TOTAL);
+        cell3.setCellStyle(headerStyle);
+        sheet.addMergedRegion(new CellRangeAddress(0, 1, 3, 3));
+
+        var cellMerged = mainHeaderRow.createCell(4);
+        cellMerged.setCellValue(HEADER_GROUP);
+        cellMerged.setCellStyle(headerStyle);
+        sheet.addMergedRegion(new CellRangeAddress(0, 0, 4, 6));
+
+        Row subHeaderRow = sheet.createRow(1);
+        var subCell4 = subHeaderRow.createCell(4);
+        subCell4.setCellValue(HEADER_INTEREST);
+        subCell4.setCellStyle(headerStyle);
+
+        var subCell5 = subHeaderRow.createCell(5);
+        subCell5.setCellValue(HEADER_PRINCIPAL);
+        subCell5.setCellStyle(headerStyle);
+
+        var subCell6 = subHeaderRow.createCell(6);
+        subCell6.setCellValue(HEADER_REMAINING);
+        subCell6.setCellStyle(headerStyle);
+
+        return sheet;
+    }
+
+    private static void writeRow(Row row, RowStyles styles, int number, int daysOfBorrowing, LocalDate paymentDate,
+                                 double totalPayment, double interest, double principalRepaid, double remainingDebt) {
+        row.createCell(0).setCellValue(number);
+
+        row.createCell(1).setCellValue(daysOfBorrowing);
 
-                row.createCell(0).setCellValue(rowNum - 1);
+        var dateCell = row.createCell(2);
+        dateCell.setCellValue(paymentDate.format(DATE_FORMATTER));
+        dateCell.setCellStyle(styles.dateStyle);
 
-                row.createCell(1).setCellValue(payment.daysOfBorrowing);
+        var totalCell = row.createCell(3);
+        totalCell.setCellValue(totalPayment);
+        totalCell.setCellStyle(styles.moneyStyle);
 
-                var dateCell = row.createCell(2);
-                dateCell.setCellValue(payment.paymentDate.format(DATE_FORMATTER));
-                dateCell.setCellStyle(dateStyle);
+        var interestCell = row.createCell(4);
+        interestCell.setCellValue(interest);
+        interestCell.setCellStyle(styles.moneyStyle);
 
-                var totalCell = row.createCell(3);
-                totalCell.setCellValue(payment.totalPayment.doubleValue());
-                totalCell.setCellStyle(moneyStyle);
+        var principalCell = row.createCell(5);
+        principalCell.setCellValue(principalRepaid);
+        principalCell.setCellStyle(styles.moneyStyle);
 
-                var interestCell = row.createCell(4);
-                interestCell.setCellValue(payment.interest.doubleValue());
-                interestCell.setCellStyle(moneyStyle);
+        var remainingCell = row.createCell(6);
+        remainingCell.setCellValue(remainingDebt);
+        remainingCell.setCellStyle(styles.moneyStyle);
+    }
 
-                var principalCell = row.createCell(5);
-                principalCell.setCellValue(payment.principalRepaid.doubleValue());
-                principalCell.setCellStyle(moneyStyle);
+    private static void finish(Workbook wb, Sheet sheet, OutputStream out) throws Exception {
+        // Автоматический размер колонок
+        for (int i = 0; i < 7; i++) {
+            sheet.autoSizeColumn(i);
+        }
 
-                var remainingCell = row.createCell(6);
-                remainingCell.setCellValue(payment.remainingDebt.doubleValue());
-                remainingCell.setCellStyle(moneyStyle);
+        // Запись в поток
+        wb.write(out);
+    }
 
-                rowNum++;
+    /**
+     * Листы потоковой записи: выдает строки подряд и начинает новый лист,
+     * когда текущий заполнен.
+     */
+    private static final class StreamingSheets {
+        private final Workbook wb;
+        private final RowStyles styles;
+        private final String name;
+        private final int rowsPerSheet;
+        private Sheet sheet;
+        private int sheetCount;
+        private int rowsInSheet;
+
+        StreamingSheets(Workbook wb, RowStyles styles, String name, int rowsPerSheet) {
+            this.wb = wb;
+            this.styles = styles;
+            this.name = name;
+            this.rowsPerSheet = rowsPerSheet;
+            addSheet();
+        }
+
+        Row nextRow() {
+            if (rowsInSheet == rowsPerSheet) {
+                addSheet();
+            }
+            return sheet.createRow(_headerRows + rowsInSheet++);
+        }
+
+        private void addSheet() {
+            sheetCount++;
+            sheet = createSheet(wb, sheetCount == 1 ? name : name + " (" + sheetCount + ")", styles);
+            for (int i = 0; i < _streamingColumnWidths.length; i++) {
+                sheet.setColumnWidth(i, _streamingColumnWidths[i] * 256);
             }
+            rowsInSheet = 0;
+        }
 
-            // Автоматический размер колонок
-            for (int i = 0; i < 7; i++) {
-                sheet.autoSizeColumn(i);
+        /**
+         * Сбрасывает на диск строки текущего листа, которые еще держит окно потоковой записи.
+         */
+        void flushRows() throws IOException {
+            if (sheet instanceof SXSSFSheet streaming) {
+                streaming.flushRows();
             }
+        }
+    }
+
+    /**
+     * Общие для всей книги стили ячеек: заголовок каждого листа, даты и суммы.
+     * Создаются один раз на книгу, сколько бы листов в ней ни было.
+     */
+    private static final class RowStyles {
+        final CellStyle headerStyle;
+        final CellStyle dateStyle;
+        final CellStyle moneyStyle;
 
-            // Запись в поток
-            wb.write(out);
+        RowStyles(Workbook wb) {
+            CreationHelper helper = wb.getCreationHelper();
+
+            var headerFont = wb.createFont();
+            headerFont.setBold(true);
+            headerStyle = wb.createCellStyle();
+            headerStyle.setFont(headerFont);
+
+            dateStyle = wb.createCellStyle();
+            dateStyle.setDataFormat(helper.createDataFormat().getFormat("dd.MM.yyyy"));
+
+            moneyStyle = wb.createCellStyle();
+            moneyStyle.setDataFormat(helper.createDataFormat().getFormat("#,##0.00"));
         }
     }
 }
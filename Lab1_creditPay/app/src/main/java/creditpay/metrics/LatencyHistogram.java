@@ -0,0 +1,138 @@
+package creditpay.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Потокобезопасная гистограмма задержек в наносекундах с логарифмическими корзинами.
+ *
+ * <p>Каждая степень двойки делится на {@value #SUB_BUCKETS} корзин, поэтому
+ * процентиль определяется с относительной погрешностью не больше 1/16 (около 6%)
+ * при фиксированном объеме памяти. Запись — одна атомарная операция без блокировок.
+ */
+public final class LatencyHistogram {
+    public static final int SUB_BUCKETS = 16;
+
+    private static final int _subBucketBits = 4;
+    private static final int _bucketCount = (64 - _subBucketBits + 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(_bucketCount);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    public void record(long nanos) {
+        long value = Math.max(nanos, 0);
+        counts.incrementAndGet(bucketIndex(value));
+        count.increment();
+        sum.add(value);
+        max.accumulate(value);
+    }
+
+    /**
+     * Записывает время, прошедшее с {@code startNanos} (значение {@link System#nanoTime()}).
+     */
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Добавляет к этой гистограмме все замеры {@code other}.
+     */
+    public void add(LatencyHistogram other) {
+        for (int i = 0; i < _bucketCount; i++) {
+            long n = other.counts.get(i);
+            if (n != 0) {
+                counts.addAndGet(i, n);
+            }
+        }
+        count.add(other.count.sum());
+        sum.add(other.sum.sum());
+        max.accumulate(other.max.get());
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getMaxNanos() {
+        return max.get();
+    }
+
+    public double getMeanNanos() {
+        long n = count.sum();
+        return n == 0 ? 0 : sum.sum() / (double) n;
+    }
+
+    /**
+     * Верхняя граница корзины, в которую попадает процентиль {@code percentile} (0..100).
+     */
+    public long percentileNanos(double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("percentile must be 0..100");
+        }
+        long total = 0;
+        long[] snapshot = new long[_bucketCount];
+        for (int i = 0; i < _bucketCount; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+        long seen = 0;
+        for (int i = 0; i < _bucketCount; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return Math.min(bucketUpperBound(i), getMaxNanos());
+            }
+        }
+        return getMaxNanos();
+    }
+
+    public void reset() {
+        for (int i = 0; i < _bucketCount; i++) {
+            counts.set(i, 0);
+        }
+        count.reset();
+        sum.reset();
+        max.reset();
+    }
+
+    /**
+     * Краткая сводка: число замеров, среднее и p50/p90/p99/max в миллисекундах.
+     */
+    @Override
+    public String toString() {
+        return String.format("n=%d mean=%.3f p50=%.3f p90=%.3f p99=%.3f max=%.3f ms",
+                getCount(), toMillis(getMeanNanos()), toMillis(percentileNanos(50)),
+                toMillis(percentileNanos(90)), toMillis(percentileNanos(99)), toMillis(getMaxNanos()));
+    }
+
+    private static double toMillis(double nanos) {
+        return nanos / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - _subBucketBits;
+        int mantissa = (int) (value >>> shift) & (SUB_BUCKETS - 1);
+        return (shift + 1) * SUB_BUCKETS + mantissa;
+    }
+
+    static long bucketUpperBound(int index) {
+        int shift = index / SUB_BUCKETS - 1;
+        int mantissa = index % SUB_BUCKETS;
+        if (shift < 0) {
+            return mantissa;
+        }
+        long lower = (long) (SUB_BUCKETS + mantissa) << shift;
+        return lower + (1L << shift) - 1;
+    }
+}
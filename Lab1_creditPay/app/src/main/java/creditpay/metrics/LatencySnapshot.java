@@ -0,0 +1,63 @@
+package creditpay.metrics;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.management.ConstructorParameters;
+
+/**
+ * Сводка гистограммы задержек в миллисекундах для JMX: в JConsole и VisualVM
+ * отображается как составной атрибут.
+ */
+public final class LatencySnapshot {
+    private final long count;
+    private final double meanMillis;
+    private final double p50Millis;
+    private final double p90Millis;
+    private final double p99Millis;
+    private final double maxMillis;
+
+    @ConstructorParameters({"count", "meanMillis", "p50Millis", "p90Millis", "p99Millis", "maxMillis"})
+    public LatencySnapshot(long count, double meanMillis, double p50Millis, double p90Millis,
+                           double p99Millis, double maxMillis) {
+        this.count = count;
+        this.meanMillis = meanMillis;
+        this.p50Millis = p50Millis;
+        this.p90Millis = p90Millis;
+        this.p99Millis = p99Millis;
+        this.maxMillis = maxMillis;
+    }
+
+    public static LatencySnapshot of(LatencyHistogram histogram) {
+        return new LatencySnapshot(histogram.getCount(), toMillis(histogram.getMeanNanos()),
+                toMillis(histogram.percentileNanos(50)), toMillis(histogram.percentileNanos(90)),
+                toMillis(histogram.percentileNanos(99)), toMillis(histogram.getMaxNanos()));
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getMeanMillis() {
+        return meanMillis;
+    }
+
+    public double getP50Millis() {
+        return p50Millis;
+    }
+
+    public double getP90Millis() {
+        return p90Millis;
+    }
+
+    public double getP99Millis() {
+        return p99Millis;
+    }
+
+    public double getMaxMillis() {
+        return maxMillis;
+    }
+
+    private static double toMillis(double nanos) {
+        return nanos / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
@@ -0,0 +1,208 @@
+package creditpay.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Метрики конвейера «чтение условий — расчет графика — запись в Excel».
+ *
+ * <p>Каждая операция отмечается событием JFR ({@link TermsReadEvent},
+ * {@link ScheduleCalculatedEvent}, {@link ScheduleWrittenEvent}) и попадает в счетчики
+ * и скользящие гистограммы, доступные по JMX как {@value #OBJECT_NAME}. Пока запись JFR
+ * выключена, событие почти ничего не стоит, а счетчики и гистограммы обходятся без
+ * блокировок, поэтому метрики можно не отключать в рабочем режиме.
+ *
+ * <p>Использование: {@code begin*} перед операцией, {@code end*} в {@code finally}.
+ */
+public final class PipelineMetrics implements PipelineMetricsMXBean {
+    public static final String OBJECT_NAME = "creditpay:type=PipelineMetrics";
+    public static final String BIG_DECIMAL_MODE = "BigDecimal";
+    public static final String FIXED_POINT_MODE = "fixed-point";
+
+    private static final long _windowSeconds = 60;
+    private static final PipelineMetrics _instance = new PipelineMetrics();
+
+    private final StageCounters read = new StageCounters();
+    private final StageCounters calculation = new StageCounters();
+    private final StageCounters write = new StageCounters();
+
+    private PipelineMetrics() {}
+
+    public static PipelineMetrics getInstance() {
+        return _instance;
+    }
+
+    /**
+     * Регистрирует метрики в платформенном MBean-сервере; повторный вызов ничего не делает.
+     */
+    public static void registerMBean() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            server.registerMBean(_instance, new ObjectName(OBJECT_NAME));
+        } catch (InstanceAlreadyExistsException e) {
+            // уже зарегистрировано
+        } catch (JMException e) {
+            throw new RuntimeException("Не удалось зарегистрировать " + OBJECT_NAME, e);
+        }
+    }
+
+    public static TermsReadEvent beginRead() {
+        TermsReadEvent event = new TermsReadEvent();
+        event.startNanos = System.nanoTime();
+        event.begin();
+        return event;
+    }
+
+    public static void endRead(TermsReadEvent event, long bytes, boolean succeeded) {
+        event.bytes = bytes;
+        event.succeeded = succeeded;
+        event.commit();
+        _instance.read.finish(event.startNanos, succeeded, 0, bytes);
+    }
+
+    public static ScheduleCalculatedEvent beginCalculation() {
+        ScheduleCalculatedEvent event = new ScheduleCalculatedEvent();
+        event.startNanos = System.nanoTime();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * @param mode {@link #BIG_DECIMAL_MODE} или {@link #FIXED_POINT_MODE}
+     */
+    public static void endCalculation(ScheduleCalculatedEvent event, String calculator, String mode,
+                                      int rows, boolean succeeded) {
+        event.calculator = calculator;
+        event.mode = mode;
+        event.rows = rows;
+        event.succeeded = succeeded;
+        event.commit();
+        _instance.calculation.finish(event.startNanos, succeeded, rows, 0);
+    }
+
+    public static ScheduleWrittenEvent beginWrite() {
+        ScheduleWrittenEvent event = new ScheduleWrittenEvent();
+        event.startNanos = System.nanoTime();
+        event.begin();
+        return event;
+    }
+
+    public static void endWrite(ScheduleWrittenEvent event, String format, int rows, long bytes, boolean succeeded) {
+        event.format = format;
+        event.rows = rows;
+        event.bytes = bytes;
+        event.succeeded = succeeded;
+        event.commit();
+        _instance.write.finish(event.startNanos, succeeded, rows, bytes);
+    }
+
+    @Override
+    public long getWindowSeconds() {
+        return _windowSeconds;
+    }
+
+    @Override
+    public long getTermsRead() {
+        return read.operations.sum();
+    }
+
+    @Override
+    public long getReadFailures() {
+        return read.failures.sum();
+    }
+
+    @Override
+    public long getBytesRead() {
+        return read.bytes.sum();
+    }
+
+    @Override
+    public LatencySnapshot getReadLatency() {
+        return LatencySnapshot.of(read.latency.snapshot());
+    }
+
+    @Override
+    public long getSchedulesCalculated() {
+        return calculation.operations.sum();
+    }
+
+    @Override
+    public long getCalculationFailures() {
+        return calculation.failures.sum();
+    }
+
+    @Override
+    public long getRowsCalculated() {
+        return calculation.rows.sum();
+    }
+
+    @Override
+    public LatencySnapshot getCalculationLatency() {
+        return LatencySnapshot.of(calculation.latency.snapshot());
+    }
+
+    @Override
+    public long getSchedulesWritten() {
+        return write.operations.sum();
+    }
+
+    @Override
+    public long getWriteFailures() {
+        return write.failures.sum();
+    }
+
+    @Override
+    public long getRowsWritten() {
+        return write.rows.sum();
+    }
+
+    @Override
+    public long getBytesWritten() {
+        return write.bytes.sum();
+    }
+
+    @Override
+    public LatencySnapshot getWriteLatency() {
+        return LatencySnapshot.of(write.latency.snapshot());
+    }
+
+    @Override
+    public void reset() {
+        read.reset();
+        calculation.reset();
+        write.reset();
+    }
+
+    private static final class StageCounters {
+        final LongAdder operations = new LongAdder();
+        final LongAdder failures = new LongAdder();
+        final LongAdder rows = new LongAdder();
+        final LongAdder bytes = new LongAdder();
+        final RollingLatencyHistogram latency = new RollingLatencyHistogram(_windowSeconds, TimeUnit.SECONDS);
+
+        void finish(long startNanos, boolean succeeded, int rowCount, long byteCount) {
+            if (!succeeded) {
+                failures.increment();
+                return;
+            }
+            latency.recordSince(startNanos);
+            operations.increment();
+            rows.add(rowCount);
+            bytes.add(byteCount);
+        }
+
+        void reset() {
+            operations.reset();
+            failures.reset();
+            rows.reset();
+            bytes.reset();
+            latency.reset();
+        }
+    }
+}
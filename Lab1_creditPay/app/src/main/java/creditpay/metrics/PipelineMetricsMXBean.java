@@ -0,0 +1,41 @@
+package creditpay.metrics;
+
+/**
+ * JMX-интерфейс {@link PipelineMetrics}. Счетчики накапливаются с запуска или с
+ * последнего {@link #reset()}, задержки — только за скользящее окно
+ * {@link #getWindowSeconds()} и только по успешным операциям.
+ */
+public interface PipelineMetricsMXBean {
+    long getWindowSeconds();
+
+    long getTermsRead();
+
+    long getReadFailures();
+
+    long getBytesRead();
+
+    LatencySnapshot getReadLatency();
+
+    long getSchedulesCalculated();
+
+    long getCalculationFailures();
+
+    long getRowsCalculated();
+
+    LatencySnapshot getCalculationLatency();
+
+    long getSchedulesWritten();
+
+    long getWriteFailures();
+
+    long getRowsWritten();
+
+    long getBytesWritten();
+
+    LatencySnapshot getWriteLatency();
+
+    /**
+     * Обнуляет счетчики и гистограммы задержек.
+     */
+    void reset();
+}
@@ -0,0 +1,93 @@
+package creditpay.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
+
+/**
+ * Гистограмма задержек за последнее окно времени, а не за все время работы.
+ *
+ * <p>Окно делится на {@value #SLOTS} интервалов, у каждого своя {@link LatencyHistogram}.
+ * Замер попадает в гистограмму текущего интервала; интервал, который пришел на место
+ * устаревшего, сначала ее очищает. Снимок складывает интервалы окна, поэтому покрывает
+ * от {@code (SLOTS - 1) / SLOTS} до полного окна. Запись по-прежнему без блокировок:
+ * замер, совпавший с очисткой интервала, может потеряться, что для мониторинга допустимо.
+ */
+public final class RollingLatencyHistogram {
+    public static final int SLOTS = 6;
+
+    private final LongSupplier clock;
+    private final long origin;
+    private final long slotNanos;
+    private final LatencyHistogram[] slots = new LatencyHistogram[SLOTS];
+    /** Номер интервала (от {@link #origin}), который сейчас хранит каждая гистограмма. */
+    private final AtomicLongArray slotIntervals = new AtomicLongArray(SLOTS);
+
+    public RollingLatencyHistogram(long window, TimeUnit unit) {
+        this(window, unit, System::nanoTime);
+    }
+
+    RollingLatencyHistogram(long window, TimeUnit unit, LongSupplier clock) {
+        long windowNanos = unit.toNanos(window);
+        if (windowNanos < SLOTS) {
+            throw new IllegalArgumentException("window is too short");
+        }
+        this.clock = clock;
+        this.origin = clock.getAsLong();
+        this.slotNanos = windowNanos / SLOTS;
+        for (int i = 0; i < SLOTS; i++) {
+            slots[i] = new LatencyHistogram();
+            // ни один интервал еще не начинался
+            slotIntervals.set(i, -SLOTS);
+        }
+    }
+
+    public long getWindowNanos() {
+        return slotNanos * SLOTS;
+    }
+
+    public void record(long nanos) {
+        long interval = currentInterval();
+        int index = (int) (interval % SLOTS);
+        long stored = slotIntervals.get(index);
+        if (stored < interval && slotIntervals.compareAndSet(index, stored, interval)) {
+            slots[index].reset();
+        }
+        slots[index].record(nanos);
+    }
+
+    /**
+     * Записывает время, прошедшее с {@code startNanos} (значение {@link System#nanoTime()}).
+     */
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Очищает все интервалы окна. Замер, совпавший с очисткой, может потеряться.
+     */
+    public void reset() {
+        for (int i = 0; i < SLOTS; i++) {
+            slotIntervals.set(i, -SLOTS);
+            slots[i].reset();
+        }
+    }
+
+    /**
+     * Новая гистограмма с замерами текущего окна.
+     */
+    public LatencyHistogram snapshot() {
+        LatencyHistogram snapshot = new LatencyHistogram();
+        long interval = currentInterval();
+        for (int i = 0; i < SLOTS; i++) {
+            if (interval - slotIntervals.get(i) < SLOTS) {
+                snapshot.add(slots[i]);
+            }
+        }
+        return snapshot;
+    }
+
+    private long currentInterval() {
+        return (clock.getAsLong() - origin) / slotNanos;
+    }
+}
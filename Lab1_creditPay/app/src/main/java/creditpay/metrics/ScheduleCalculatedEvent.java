@@ -0,0 +1,36 @@
+package creditpay.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Событие JFR: расчет одного графика платежей.
+ * Создается и фиксируется через {@link PipelineMetrics#beginCalculation()}.
+ */
+@Name("creditpay.ScheduleCalculated")
+@Label("Schedule Calculated")
+@Category({"CreditPay", "Pipeline"})
+@Description("Calculating one payment schedule")
+@StackTrace(false)
+public final class ScheduleCalculatedEvent extends jdk.jfr.Event {
+    @Label("Calculator")
+    String calculator;
+
+    @Label("Mode")
+    @Description("BigDecimal or fixed-point")
+    String mode;
+
+    @Label("Rows")
+    int rows;
+
+    @Label("Succeeded")
+    boolean succeeded;
+
+    /** Для гистограмм {@link PipelineMetrics}; transient-поля JFR не записывает. */
+    transient long startNanos;
+
+    ScheduleCalculatedEvent() {}
+}
@@ -0,0 +1,37 @@
+package creditpay.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Событие JFR: запись графика платежей в Excel.
+ * Создается и фиксируется через {@link PipelineMetrics#beginWrite()}.
+ */
+@Name("creditpay.ScheduleWritten")
+@Label("Schedule Written")
+@Category({"CreditPay", "Pipeline"})
+@Description("Writing one payment schedule to an Excel workbook")
+@StackTrace(false)
+public final class ScheduleWrittenEvent extends jdk.jfr.Event {
+    @Label("Format")
+    String format;
+
+    @Label("Rows")
+    int rows;
+
+    @Label("Bytes")
+    @DataAmount
+    long bytes;
+
+    @Label("Succeeded")
+    boolean succeeded;
+
+    /** Для гистограмм {@link PipelineMetrics}; transient-поля JFR не записывает. */
+    transient long startNanos;
+
+    ScheduleWrittenEvent() {}
+}
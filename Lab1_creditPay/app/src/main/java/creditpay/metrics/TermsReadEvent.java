@@ -0,0 +1,31 @@
+package creditpay.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Событие JFR: чтение условий кредита из Excel-файла.
+ * Создается и фиксируется через {@link PipelineMetrics#beginRead()}.
+ */
+@Name("creditpay.TermsRead")
+@Label("Credit Terms Read")
+@Category({"CreditPay", "Pipeline"})
+@Description("Reading the credit terms from an Excel workbook")
+@StackTrace(false)
+public final class TermsReadEvent extends jdk.jfr.Event {
+    @Label("Bytes")
+    @DataAmount
+    long bytes;
+
+    @Label("Succeeded")
+    boolean succeeded;
+
+    /** Для гистограмм {@link PipelineMetrics}; transient-поля JFR не записывает. */
+    transient long startNanos;
+
+    TermsReadEvent() {}
+}
@@ -0,0 +1,137 @@
+package creditpay.model;
+
+import java.time.LocalDate;
+import java.time.Month;
+import java.time.Year;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Заранее рассчитанный календарь начисления процентов: даты платежей (номер дня от эпохи)
+ * и длины периодов в днях.
+ *
+ * <p>Платеж с номером {@code k} (с нуля) приходится на месяц {@code startDate + k + 1}
+ * в день {@link InterestPeriod#getPaymentDay()}, а если в месяце столько дней нет —
+ * в его последний день. Календарь неизменяем; одинаковые календари берутся из общего
+ * потокобезопасного кэша, поэтому в портфельных расчетах они строятся один раз.
+ * Кэш ограничен и вытесняет давно не запрошенные календари.
+ */
+public final class AccrualCalendar {
+    /** Предел размера кэша; сверх него вытесняется календарь, который дольше всех не запрашивали. */
+    private static final int _maxCachedCalendars = 4096;
+    /** Порядок обхода — по последнему обращению; доступ только под блокировкой самого кэша. */
+    private static final LinkedHashMap<Key, AccrualCalendar> _cache = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, AccrualCalendar> eldest) {
+            return size() > _maxCachedCalendars;
+        }
+    };
+
+    private final int startEpochDay;
+    private final int[] paymentEpochDays;
+    private final int[] periodDays;
+
+    private AccrualCalendar(int startEpochDay, int[] paymentEpochDays, int[] periodDays) {
+        this.startEpochDay = startEpochDay;
+        this.paymentEpochDays = paymentEpochDays;
+        this.periodDays = periodDays;
+    }
+
+    /**
+     * Календарь на {@code periods} платежей, взятый из кэша или построенный и сохраненный в нем.
+     */
+    public static AccrualCalendar of(LocalDate startDate, InterestPeriod interestPeriod, int periods) {
+        if (startDate == null || interestPeriod == null) {
+            throw new IllegalArgumentException("startDate and interestPeriod must not be null");
+        }
+        if (periods < 0) {
+            throw new IllegalArgumentException("periods must not be negative");
+        }
+        Key key = new Key(startDate.toEpochDay(), interestPeriod.getPaymentDay(), periods);
+        synchronized (_cache) {
+            AccrualCalendar cached = _cache.get(key);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        // строится вне блокировки; если другой поток успел раньше, берется его календарь
+        AccrualCalendar calendar = build(startDate, key.paymentDay, key.periods);
+        synchronized (_cache) {
+            AccrualCalendar raced = _cache.putIfAbsent(key, calendar);
+            return raced != null ? raced : calendar;
+        }
+    }
+
+    /**
+     * Очищает общий кэш календарей.
+     */
+    public static void clearCache() {
+        synchronized (_cache) {
+            _cache.clear();
+        }
+    }
+
+    static int cachedCount() {
+        synchronized (_cache) {
+            return _cache.size();
+        }
+    }
+
+    static boolean isCached(LocalDate startDate, InterestPeriod interestPeriod, int periods) {
+        synchronized (_cache) {
+            return _cache.containsKey(new Key(startDate.toEpochDay(), interestPeriod.getPaymentDay(), periods));
+        }
+    }
+
+    private static AccrualCalendar build(LocalDate startDate, int paymentDay, int periods) {
+        int[] paymentEpochDays = new int[periods];
+        int[] periodDays = new int[periods];
+        int startEpochDay = Math.toIntExact(startDate.toEpochDay());
+        int year = startDate.getYear();
+        int month = startDate.getMonthValue();
+        int previousEpochDay = startEpochDay;
+        for (int k = 0; k < periods; k++) {
+            if (++month > 12) {
+                month = 1;
+                year++;
+            }
+            int day = Math.min(paymentDay, Month.of(month).length(Year.isLeap(year)));
+            int epochDay = Math.toIntExact(LocalDate.of(year, month, day).toEpochDay());
+            paymentEpochDays[k] = epochDay;
+            periodDays[k] = epochDay - previousEpochDay;
+            previousEpochDay = epochDay;
+        }
+        return new AccrualCalendar(startEpochDay, paymentEpochDays, periodDays);
+    }
+
+    public int size() {
+        return paymentEpochDays.length;
+    }
+
+    public long startEpochDay() {
+        return startEpochDay;
+    }
+
+    /** Дата платежа {@code index} как номер дня от эпохи. */
+    public long paymentEpochDay(int index) {
+        return paymentEpochDays[Objects.checkIndex(index, paymentEpochDays.length)];
+    }
+
+    public LocalDate paymentDate(int index) {
+        return LocalDate.ofEpochDay(paymentEpochDay(index));
+    }
+
+    /** Число дней в периоде, который закрывает платеж {@code index}. */
+    public int periodDays(int index) {
+        return periodDays[Objects.checkIndex(index, periodDays.length)];
+    }
+
+    /** Число дней пользования кредитом от выдачи до платежа {@code index}. */
+    public int daysOfBorrowing(int index) {
+        return paymentEpochDays[Objects.checkIndex(index, paymentEpochDays.length)] - startEpochDay;
+    }
+
+    private record Key(long startEpochDay, int paymentDay, int periods) {
+    }
+}
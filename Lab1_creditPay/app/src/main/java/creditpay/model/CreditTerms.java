@@ -3,16 +3,17 @@ package creditpay.model;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.util.Objects;
 
 /**
  * Класс, представляющий условия кредита.
  */
 public final class CreditTerms {
-    private BigDecimal principal; // сумма кредита в рублях
-    private int termMonths; // срок в месяцах
-    private BigDecimal annualRatePercent; // процентная ставка в % годовых
-    private InterestPeriod interestPeriod; // произвольный период начисления процентов
-    private LocalDate startDate; // дата предоставления кредита
+    private final BigDecimal principal; // сумма кредита в рублях
+    private final int termMonths; // срок в месяцах
+    private final BigDecimal annualRatePercent; // процентная ставка в % годовых
+    private final InterestPeriod interestPeriod; // произвольный период начисления процентов
+    private final LocalDate startDate; // дата предоставления кредита
 
     public CreditTerms(BigDecimal principal, int termMonths, BigDecimal annualRatePercent,
                         InterestPeriod interestPeriod, LocalDate startDate) {
@@ -52,6 +53,31 @@ public final class CreditTerms {
         return startDate;
     }
 
+    /**
+     * Условия равны, если совпадают все параметры; суммы и ставки сравниваются
+     * по значению, без учета масштаба ({@code 7.45} и {@code 7.450} — одна ставка).
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof CreditTerms other)) {
+            return false;
+        }
+        return termMonths == other.termMonths
+                && principal.compareTo(other.principal) == 0
+                && annualRatePercent.compareTo(other.annualRatePercent) == 0
+                && Objects.equals(interestPeriod, other.interestPeriod)
+                && Objects.equals(startDate, other.startDate);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(principal.stripTrailingZeros(), termMonths, annualRatePercent.stripTrailingZeros(),
+                interestPeriod, startDate);
+    }
+
     @Override
     public String toString() {
         DateTimeFormatter df = DateTimeFormatter.ofPattern("dd MMMM yyyy");
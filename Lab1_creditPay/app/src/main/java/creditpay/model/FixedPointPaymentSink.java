@@ -0,0 +1,23 @@
+package creditpay.model;
+
+/**
+ * Приемник строк графика, рассчитанных в целочисленном режиме.
+ *
+ * <p>Все суммы передаются в копейках, дата платежа — номером дня от эпохи
+ * ({@link java.time.LocalDate#toEpochDay()}). Так строка графика не требует
+ * ни одного объекта в куче.
+ */
+@FunctionalInterface
+public interface FixedPointPaymentSink {
+    /**
+     * @param index номер платежа, начиная с 0
+     * @param daysOfBorrowing количество дней пользования заемными средствами
+     * @param paymentEpochDay дата платежа
+     * @param totalPayment общая сумма платежа, коп.
+     * @param interest сумма процентов, коп.
+     * @param principalRepaid сумма погашаемого долга, коп.
+     * @param remainingDebt остаток задолженности, коп.
+     */
+    void accept(int index, int daysOfBorrowing, long paymentEpochDay,
+                long totalPayment, long interest, long principalRepaid, long remainingDebt);
+}
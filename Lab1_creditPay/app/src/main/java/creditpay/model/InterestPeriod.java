@@ -19,11 +19,51 @@ public final class InterestPeriod {
         return paymentDay;
     }
 
+    @Override
+    public boolean equals(Object o) {
+        return this == o || (o instanceof InterestPeriod other && paymentDay == other.paymentDay);
+    }
+
+    @Override
+    public int hashCode() {
+        return Integer.hashCode(paymentDay);
+    }
+
+    @Override
+    public String toString() {
+        return "с " + paymentDay + " числа";
+    }
+
+    /**
+     * Дата окончания следующего периода: день {@link #getPaymentDay()} следующего месяца,
+     * а в коротком месяце — его последний день.
+     */
     public LocalDate nextAccrualDate(LocalDate previousAccrualDate) {
         if (previousAccrualDate == null) {
             throw new IllegalArgumentException("previousAccrualDate must not be null");
         }
-        LocalDate candidate = previousAccrualDate.plusMonths(1);
-        return candidate;
+        return onPaymentDay(previousAccrualDate.plusMonths(1));
+    }
+
+    /**
+     * Дата окончания периода с номером {@code periods}, отсчитанного от {@code startDate}:
+     * то же, что {@code periods} раз вызвать {@link #nextAccrualDate(LocalDate)}, но без перебора.
+     * Для целого графика удобнее {@link AccrualCalendar}.
+     */
+    public LocalDate accrualDate(LocalDate startDate, int periods) {
+        if (startDate == null) {
+            throw new IllegalArgumentException("startDate must not be null");
+        }
+        if (periods < 0) {
+            throw new IllegalArgumentException("periods must not be negative");
+        }
+        if (periods == 0) {
+            return startDate;
+        }
+        return onPaymentDay(startDate.plusMonths(periods));
+    }
+
+    private LocalDate onPaymentDay(LocalDate dateInMonth) {
+        return dateInMonth.withDayOfMonth(Math.min(paymentDay, dateInMonth.lengthOfMonth()));
     }
 }
@@ -0,0 +1,31 @@
+package creditpay.model;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Перевод денежных сумм между рублями и копейками.
+ *
+ * <p>Суммы округляются до копеек по правилу half-up — так же, как их
+ * округляют калькуляторы в режиме {@link java.math.BigDecimal}.
+ */
+public final class Kopecks {
+    private Kopecks() {
+    }
+
+    /**
+     * Округляет сумму в рублях до копеек.
+     *
+     * @throws ArithmeticException если сумма в копейках не помещается в {@code long}
+     */
+    public static long of(BigDecimal rubles) {
+        return rubles.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    /**
+     * Переводит копейки обратно в рубли.
+     */
+    public static BigDecimal toRubles(long kopecks) {
+        return BigDecimal.valueOf(kopecks, 2);
+    }
+}
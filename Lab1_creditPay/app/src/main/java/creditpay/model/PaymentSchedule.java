@@ -0,0 +1,299 @@
+package creditpay.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/**
+ * Компактный колоночный график платежей.
+ *
+ * <p>Вместо списка {@link Payment} (по шесть объектов на строку) столбцы хранятся
+ * в массивах примитивов: дата платежа — номер дня от эпохи, суммы — в копейках.
+ * Для построчного чтения без создания объектов есть курсор {@link Row}.
+ */
+public abstract class PaymentSchedule implements Iterable<Payment> {
+    /** Байт на строку: дата и дни ({@code int}) плюс четыре суммы ({@code long}). */
+    public static final int BYTES_PER_ROW = 2 * Integer.BYTES + 4 * Long.BYTES;
+
+    public abstract int size();
+
+    public abstract long paymentEpochDay(int index);
+
+    public abstract int daysOfBorrowing(int index);
+
+    /** Общая сумма платежа, коп. */
+    public abstract long totalPayment(int index);
+
+    /** Сумма процентов, коп. */
+    public abstract long interest(int index);
+
+    /** Сумма погашаемого долга, коп. */
+    public abstract long principalRepaid(int index);
+
+    /** Остаток задолженности, коп. */
+    public abstract long remainingDebt(int index);
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public LocalDate paymentDate(int index) {
+        return LocalDate.ofEpochDay(paymentEpochDay(index));
+    }
+
+    /**
+     * Курсор, установленный на строку {@code index}. Курсор можно передвигать
+     * через {@link Row#moveTo(int)} и переиспользовать для всех строк.
+     */
+    public Row row(int index) {
+        return new Row(this).moveTo(index);
+    }
+
+    /**
+     * Строка графика в виде отдельного объекта {@link Payment}.
+     */
+    public Payment toPayment(int index) {
+        return new Payment(daysOfBorrowing(index), paymentDate(index),
+                Kopecks.toRubles(totalPayment(index)),
+                Kopecks.toRubles(interest(index)),
+                Kopecks.toRubles(principalRepaid(index)),
+                Kopecks.toRubles(remainingDebt(index)));
+    }
+
+    /**
+     * Перебор строк в виде {@link Payment}; объекты создаются по мере обхода.
+     */
+    @Override
+    public Iterator<Payment> iterator() {
+        return new Iterator<>() {
+            private int index;
+
+            @Override
+            public boolean hasNext() {
+                return index < size();
+            }
+
+            @Override
+            public Payment next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return toPayment(index++);
+            }
+        };
+    }
+
+    /**
+     * Объем данных графика в байтах без учета заголовков объектов.
+     */
+    public long footprintBytes() {
+        return (long) size() * BYTES_PER_ROW;
+    }
+
+    public static Builder builder(int expectedSize) {
+        return new Builder(expectedSize);
+    }
+
+    /**
+     * Переводит обычный график в колоночный, округляя суммы до копеек.
+     */
+    public static PaymentSchedule of(Iterable<Payment> payments) {
+        Builder builder = new Builder(16);
+        for (Payment payment : payments) {
+            builder.add(payment);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Легковесное представление одной строки графика.
+     */
+    public static final class Row {
+        private final PaymentSchedule schedule;
+        private int index;
+
+        private Row(PaymentSchedule schedule) {
+            this.schedule = schedule;
+        }
+
+        public Row moveTo(int index) {
+            Objects.checkIndex(index, schedule.size());
+            this.index = index;
+            return this;
+        }
+
+        public int index() {
+            return index;
+        }
+
+        public long paymentEpochDay() {
+            return schedule.paymentEpochDay(index);
+        }
+
+        public int daysOfBorrowing() {
+            return schedule.daysOfBorrowing(index);
+        }
+
+        public long totalPayment() {
+            return schedule.totalPayment(index);
+        }
+
+        public long interest() {
+            return schedule.interest(index);
+        }
+
+        public long principalRepaid() {
+            return schedule.principalRepaid(index);
+        }
+
+        public long remainingDebt() {
+            return schedule.remainingDebt(index);
+        }
+    }
+
+    /**
+     * Накопитель строк графика. Может служить приемником целочисленного расчета.
+     * Одноразовый: после {@link #build()} строки добавлять нельзя.
+     */
+    public static final class Builder implements FixedPointPaymentSink {
+        private int size;
+        private boolean built;
+        private int[] epochDays;
+        private int[] days;
+        private long[] totals;
+        private long[] interests;
+        private long[] principals;
+        private long[] remainings;
+
+        private Builder(int expectedSize) {
+            int capacity = Math.max(expectedSize, 1);
+            epochDays = new int[capacity];
+            days = new int[capacity];
+            totals = new long[capacity];
+            interests = new long[capacity];
+            principals = new long[capacity];
+            remainings = new long[capacity];
+        }
+
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public void accept(int index, int daysOfBorrowing, long paymentEpochDay,
+                           long totalPayment, long interest, long principalRepaid, long remainingDebt) {
+            add(daysOfBorrowing, paymentEpochDay, totalPayment, interest, principalRepaid, remainingDebt);
+        }
+
+        public Builder add(int daysOfBorrowing, long paymentEpochDay,
+                           long totalPayment, long interest, long principalRepaid, long remainingDebt) {
+            if (built) {
+                throw new IllegalStateException("schedule is already built");
+            }
+            if (size == epochDays.length) {
+                grow();
+            }
+            epochDays[size] = Math.toIntExact(paymentEpochDay);
+            days[size] = daysOfBorrowing;
+            totals[size] = totalPayment;
+            interests[size] = interest;
+            principals[size] = principalRepaid;
+            remainings[size] = remainingDebt;
+            size++;
+            return this;
+        }
+
+        public Builder add(Payment payment) {
+            return add(payment.daysOfBorrowing, payment.paymentDate.toEpochDay(),
+                    Kopecks.of(payment.totalPayment), Kopecks.of(payment.interest),
+                    Kopecks.of(payment.principalRepaid), Kopecks.of(payment.remainingDebt));
+        }
+
+        public PaymentSchedule build() {
+            built = true;
+            if (size == epochDays.length) {
+                // размер был известен заранее, массивы отдаются без копирования
+                return new ArraySchedule(size, epochDays, days, totals, interests, principals, remainings);
+            }
+            return new ArraySchedule(size,
+                    Arrays.copyOf(epochDays, size), Arrays.copyOf(days, size),
+                    Arrays.copyOf(totals, size), Arrays.copyOf(interests, size),
+                    Arrays.copyOf(principals, size), Arrays.copyOf(remainings, size));
+        }
+
+        private void grow() {
+            int capacity = epochDays.length * 2;
+            epochDays = Arrays.copyOf(epochDays, capacity);
+            days = Arrays.copyOf(days, capacity);
+            totals = Arrays.copyOf(totals, capacity);
+            interests = Arrays.copyOf(interests, capacity);
+            principals = Arrays.copyOf(principals, capacity);
+            remainings = Arrays.copyOf(remainings, capacity);
+        }
+    }
+
+    private static final class ArraySchedule extends PaymentSchedule {
+        private final int size;
+        private final int[] epochDays;
+        private final int[] days;
+        private final long[] totals;
+        private final long[] interests;
+        private final long[] principals;
+        private final long[] remainings;
+
+        ArraySchedule(int size, int[] epochDays, int[] days,
+                      long[] totals, long[] interests, long[] principals, long[] remainings) {
+            this.size = size;
+            this.epochDays = epochDays;
+            this.days = days;
+            this.totals = totals;
+            this.interests = interests;
+            this.principals = principals;
+            this.remainings = remainings;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public long paymentEpochDay(int index) {
+            Objects.checkIndex(index, size);
+            return epochDays[index];
+        }
+
+        @Override
+        public int daysOfBorrowing(int index) {
+            Objects.checkIndex(index, size);
+            return days[index];
+        }
+
+        @Override
+        public long totalPayment(int index) {
+            Objects.checkIndex(index, size);
+            return totals[index];
+        }
+
+        @Override
+        public long interest(int index) {
+            Objects.checkIndex(index, size);
+            return interests[index];
+        }
+
+        @Override
+        public long principalRepaid(int index) {
+            Objects.checkIndex(index, size);
+            return principals[index];
+        }
+
+        @Override
+        public long remainingDebt(int index) {
+            Objects.checkIndex(index, size);
+            return remainings[index];
+        }
+    }
+}
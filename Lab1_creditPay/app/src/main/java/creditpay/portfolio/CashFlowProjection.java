@@ -0,0 +1,246 @@
+package creditpay.portfolio;
+
+import java.time.YearMonth;
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import creditpay.calculator.MortgageScheduleCalculator;
+import creditpay.model.CreditTerms;
+import creditpay.model.FixedPointPaymentSink;
+
+/**
+ * Совокупный денежный поток портфеля по календарным месяцам: сколько процентов
+ * и основного долга поступит в каждом месяце от всех кредитов вместе.
+ *
+ * <p>Графики рассчитываются на пуле {@link PortfolioScheduleEngine} в целочисленном
+ * режиме и сразу раскладываются по месяцам, ни один график не сохраняется целиком.
+ * Суммы месяца копятся в {@link LongAdder}: при одновременной записи из многих
+ * потоков они расходятся по разным ячейкам и не мешают друг другу.
+ */
+public class CashFlowProjection {
+    private final PortfolioScheduleEngine engine;
+
+    public CashFlowProjection() {
+        this(new PortfolioScheduleEngine());
+    }
+
+    public CashFlowProjection(PortfolioScheduleEngine engine) {
+        if (engine == null) {
+            throw new IllegalArgumentException("engine must not be null");
+        }
+        this.engine = engine;
+    }
+
+    public CashFlow project(Collection<CreditTerms> loans, MortgageScheduleCalculator calculator) {
+        Accumulator accumulator = new Accumulator();
+        PortfolioRunStats stats = engine.forEachLoan(loans, accumulator.task(calculator));
+        return accumulator.toCashFlow(stats);
+    }
+
+    /**
+     * То же для потока кредитов, например из {@code ExcelLoanBookReader.stream}.
+     */
+    public CashFlow project(Stream<CreditTerms> loans, MortgageScheduleCalculator calculator) {
+        Accumulator accumulator = new Accumulator();
+        PortfolioRunStats stats = engine.forEachLoan(loans, accumulator.task(calculator));
+        return accumulator.toCashFlow(stats);
+    }
+
+    /**
+     * Поступления по месяцам без пропусков, от первого месяца с платежом до последнего.
+     * Суммы в копейках.
+     */
+    public static final class CashFlow {
+        private final YearMonth firstMonth;
+        private final long[] interest;
+        private final long[] principal;
+        private final long[] payments;
+        private final PortfolioRunStats stats;
+
+        CashFlow(YearMonth firstMonth, long[] interest, long[] principal, long[] payments, PortfolioRunStats stats) {
+            this.firstMonth = firstMonth;
+            this.interest = interest;
+            this.principal = principal;
+            this.payments = payments;
+            this.stats = stats;
+        }
+
+        public int months() {
+            return interest.length;
+        }
+
+        /**
+         * Месяц с номером {@code index}; {@code null}, если платежей не было.
+         */
+        public YearMonth month(int index) {
+            return firstMonth == null ? null : firstMonth.plusMonths(index);
+        }
+
+        public long interest(int index) {
+            return interest[index];
+        }
+
+        public long principal(int index) {
+            return principal[index];
+        }
+
+        public long total(int index) {
+            return interest[index] + principal[index];
+        }
+
+        /**
+         * Число платежей, пришедшихся на месяц.
+         */
+        public long payments(int index) {
+            return payments[index];
+        }
+
+        public long totalInterest() {
+            return sum(interest);
+        }
+
+        public long totalPrincipal() {
+            return sum(principal);
+        }
+
+        public PortfolioRunStats getStats() {
+            return stats;
+        }
+
+        private static long sum(long[] values) {
+            long total = 0;
+            for (long value : values) {
+                total += value;
+            }
+            return total;
+        }
+    }
+
+    private static final class MonthBucket {
+        final LongAdder interest = new LongAdder();
+        final LongAdder principal = new LongAdder();
+        final LongAdder payments = new LongAdder();
+    }
+
+    /**
+     * Корзины одного прогона. Ключ — номер месяца от начала нашей эры ({@code год * 12 + месяц - 1}),
+     * он считается из номера дня арифметически, без {@link java.time.LocalDate}. Корзины лежат
+     * в окне месяцев: поиск — чтение volatile-ссылки и ячейки массива, без упаковки ключа
+     * и без выделения памяти на платеж. Новая корзина и расширение окна — под блокировкой,
+     * корзины переносятся в новое окно как есть, так что суммы не теряются.
+     */
+    private static final class Accumulator {
+        private static final int _initialMonths = 512;
+
+        private volatile Window window = new Window(0, new AtomicReferenceArray<>(0));
+
+        Consumer<CreditTerms> task(MortgageScheduleCalculator calculator) {
+            if (calculator == null) {
+                throw new IllegalArgumentException("calculator must not be null");
+            }
+            FixedPointPaymentSink sink = (index, daysOfBorrowing, paymentEpochDay,
+                                          totalPayment, interest, principalRepaid, remainingDebt) -> {
+                MonthBucket bucket = bucket(monthOf(paymentEpochDay));
+                bucket.interest.add(interest);
+                bucket.principal.add(principalRepaid);
+                bucket.payments.increment();
+            };
+            return terms -> calculator.calculateFixedPointSchedule(terms, sink);
+        }
+
+        private MonthBucket bucket(int month) {
+            Window current = window;
+            int index = month - current.first;
+            if (index >= 0 && index < current.buckets.length()) {
+                MonthBucket bucket = current.buckets.get(index);
+                if (bucket != null) {
+                    return bucket;
+                }
+            }
+            return addBucket(month);
+        }
+
+        private synchronized MonthBucket addBucket(int month) {
+            Window current = window;
+            int length = current.buckets.length();
+            if (length == 0) {
+                current = new Window(month, new AtomicReferenceArray<>(_initialMonths));
+                window = current;
+            } else if (month < current.first || month >= current.first + length) {
+                // запас на ту же длину, чтобы окно не копировалось на каждом новом месяце
+                int first = month < current.first ? month - length : current.first;
+                int end = month < current.first ? current.first + length : month + 1 + length;
+                Window grown = new Window(first, new AtomicReferenceArray<>(end - first));
+                for (int i = 0; i < length; i++) {
+                    grown.buckets.set(current.first - first + i, current.buckets.get(i));
+                }
+                window = grown;
+                current = grown;
+            }
+            int index = month - current.first;
+            MonthBucket bucket = current.buckets.get(index);
+            if (bucket == null) {
+                bucket = new MonthBucket();
+                current.buckets.set(index, bucket);
+            }
+            return bucket;
+        }
+
+        /**
+         * Номер месяца по номеру дня от эпохи (алгоритм civil_from_days Г. Хиннанта). Год в нем
+         * начинается с марта; {@code shiftedMonth + 2} переводит месяц от марта в месяц от января.
+         */
+        static int monthOf(long epochDay) {
+            long z = epochDay + 719468;
+            long era = Math.floorDiv(z, 146097);
+            long dayOfEra = z - era * 146097;
+            long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+            long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+            long shiftedMonth = (5 * dayOfYear + 2) / 153;
+            return (int) ((yearOfEra + era * 400) * 12 + shiftedMonth + 2);
+        }
+
+        CashFlow toCashFlow(PortfolioRunStats stats) {
+            AtomicReferenceArray<MonthBucket> buckets = window.buckets;
+            int firstIndex = 0;
+            while (firstIndex < buckets.length() && buckets.get(firstIndex) == null) {
+                firstIndex++;
+            }
+            if (firstIndex == buckets.length()) {
+                return new CashFlow(null, new long[0], new long[0], new long[0], stats);
+            }
+            int lastIndex = buckets.length() - 1;
+            while (buckets.get(lastIndex) == null) {
+                lastIndex--;
+            }
+            int months = lastIndex - firstIndex + 1;
+            long[] interest = new long[months];
+            long[] principal = new long[months];
+            long[] payments = new long[months];
+            long paymentCount = 0;
+            for (int i = 0; i < months; i++) {
+                MonthBucket bucket = buckets.get(firstIndex + i);
+                if (bucket == null) {
+                    continue;
+                }
+                interest[i] = bucket.interest.sum();
+                principal[i] = bucket.principal.sum();
+                payments[i] = bucket.payments.sum();
+                paymentCount += payments[i];
+            }
+            PortfolioRunStats withPayments = new PortfolioRunStats(stats.getLoans(), paymentCount,
+                    stats.getElapsedNanos(), stats.getParallelism());
+            int first = window.first + firstIndex;
+            return new CashFlow(YearMonth.of(first / 12, first % 12 + 1), interest, principal, payments, withPayments);
+        }
+    }
+
+    /**
+     * Окно корзин: корзина месяца {@code m} — в ячейке {@code m - first}.
+     */
+    private record Window(int first, AtomicReferenceArray<MonthBucket> buckets) {
+    }
+}
@@ -0,0 +1,58 @@
+package creditpay.portfolio;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Итоги прогона портфеля: сколько кредитов и платежей рассчитано и за какое время.
+ */
+public final class PortfolioRunStats {
+    private final long loans;
+    private final long payments;
+    private final long elapsedNanos;
+    private final int parallelism;
+
+    public PortfolioRunStats(long loans, long payments, long elapsedNanos, int parallelism) {
+        this.loans = loans;
+        this.payments = payments;
+        this.elapsedNanos = elapsedNanos;
+        this.parallelism = parallelism;
+    }
+
+    public long getLoans() {
+        return loans;
+    }
+
+    public long getPayments() {
+        return payments;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public double getLoansPerSecond() {
+        return perSecond(loans);
+    }
+
+    public double getPaymentsPerSecond() {
+        return perSecond(payments);
+    }
+
+    private double perSecond(long count) {
+        if (elapsedNanos <= 0) {
+            return 0;
+        }
+        return count * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d loans, %d payments in %d ms on %d threads (%.0f loans/sec, %.0f payments/sec)",
+                loans, payments, TimeUnit.NANOSECONDS.toMillis(elapsedNanos), parallelism,
+                getLoansPerSecond(), getPaymentsPerSecond());
+    }
+}
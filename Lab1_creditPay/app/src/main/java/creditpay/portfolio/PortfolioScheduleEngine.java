@@ -0,0 +1,158 @@
+package creditpay.portfolio;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import creditpay.calculator.MortgageScheduleCalculator;
+import creditpay.model.CreditTerms;
+import creditpay.model.Payment;
+
+/**
+ * Расчет графиков платежей для целого портфеля кредитов на fork-join пуле.
+ *
+ * <p>Калькуляторы не хранят состояния между вызовами, поэтому один экземпляр
+ * используется всеми потоками пула. Коллекция кредитов делится пополам до
+ * пачек размера {@code batchSize}, дальше свободные потоки забирают работу
+ * у занятых (work stealing).
+ */
+public class PortfolioScheduleEngine {
+    private static final int _defaultBatchSize = 32;
+
+    private final ForkJoinPool pool;
+    private final int batchSize;
+
+    public PortfolioScheduleEngine() {
+        this(ForkJoinPool.commonPool(), _defaultBatchSize);
+    }
+
+    public PortfolioScheduleEngine(ForkJoinPool pool) {
+        this(pool, _defaultBatchSize);
+    }
+
+    public PortfolioScheduleEngine(ForkJoinPool pool, int batchSize) {
+        if (pool == null) {
+            throw new IllegalArgumentException("pool must not be null");
+        }
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSize must be positive");
+        }
+        this.pool = pool;
+        this.batchSize = batchSize;
+    }
+
+    public int getParallelism() {
+        return pool.getParallelism();
+    }
+
+    /**
+     * Рассчитывает графики всех кредитов, результаты отбрасываются.
+     * Удобно для замеров пропускной способности.
+     */
+    public PortfolioRunStats run(Collection<CreditTerms> loans, MortgageScheduleCalculator calculator) {
+        return run(loans, calculator, (terms, schedule) -> {});
+    }
+
+    /**
+     * Рассчитывает графики всех кредитов и передает каждый в {@code sink}.
+     * {@code sink} вызывается из разных потоков пула и должен быть потокобезопасным.
+     */
+    public PortfolioRunStats run(Collection<CreditTerms> loans, MortgageScheduleCalculator calculator,
+                                 BiConsumer<CreditTerms, List<Payment>> sink) {
+        LongAdder payments = new LongAdder();
+        return forEachLoan(loans, payments, scheduleTask(calculator, sink, payments));
+    }
+
+    /**
+     * То же, что {@link #run(Collection, MortgageScheduleCalculator, BiConsumer)}, но для потока кредитов,
+     * размер которого заранее неизвестен. Поток обрабатывается параллельно внутри пула движка.
+     */
+    public PortfolioRunStats run(Stream<CreditTerms> loans, MortgageScheduleCalculator calculator,
+                                 BiConsumer<CreditTerms, List<Payment>> sink) {
+        LongAdder payments = new LongAdder();
+        return forEachLoan(loans, payments, scheduleTask(calculator, sink, payments));
+    }
+
+    /**
+     * Выполняет произвольную задачу для каждого кредита портфеля.
+     */
+    public PortfolioRunStats forEachLoan(Collection<CreditTerms> loans, Consumer<CreditTerms> task) {
+        return forEachLoan(loans, new LongAdder(), task);
+    }
+
+    /**
+     * Выполняет произвольную задачу для каждого кредита из потока.
+     */
+    public PortfolioRunStats forEachLoan(Stream<CreditTerms> loans, Consumer<CreditTerms> task) {
+        return forEachLoan(loans, new LongAdder(), task);
+    }
+
+    private PortfolioRunStats forEachLoan(Collection<CreditTerms> loans, LongAdder payments, Consumer<CreditTerms> task) {
+        List<CreditTerms> list = loans instanceof List<CreditTerms> l && l instanceof RandomAccess ? l : new ArrayList<>(loans);
+        long start = System.nanoTime();
+        pool.invoke(new LoanRangeTask(list, 0, list.size(), batchSize, task));
+        return new PortfolioRunStats(list.size(), payments.sum(), System.nanoTime() - start, pool.getParallelism());
+    }
+
+    private PortfolioRunStats forEachLoan(Stream<CreditTerms> loans, LongAdder payments, Consumer<CreditTerms> task) {
+        LongAdder count = new LongAdder();
+        long start = System.nanoTime();
+        // параллельный поток, запущенный из задачи пула, выполняется в этом же пуле
+        pool.submit(() -> loans.parallel().unordered().forEach(terms -> {
+            task.accept(terms);
+            count.increment();
+        })).join();
+        return new PortfolioRunStats(count.sum(), payments.sum(), System.nanoTime() - start, pool.getParallelism());
+    }
+
+    private static Consumer<CreditTerms> scheduleTask(MortgageScheduleCalculator calculator,
+                                                      BiConsumer<CreditTerms, List<Payment>> sink,
+                                                      LongAdder payments) {
+        if (calculator == null) {
+            throw new IllegalArgumentException("calculator must not be null");
+        }
+        return terms -> {
+            List<Payment> schedule = calculator.calculateSchedule(terms);
+            payments.add(schedule.size());
+            sink.accept(terms, schedule);
+        };
+    }
+
+    private static class LoanRangeTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final transient List<CreditTerms> loans;
+        private final int from;
+        private final int to;
+        private final int batchSize;
+        private final transient Consumer<CreditTerms> task;
+
+        LoanRangeTask(List<CreditTerms> loans, int from, int to, int batchSize, Consumer<CreditTerms> task) {
+            this.loans = loans;
+            this.from = from;
+            this.to = to;
+            this.batchSize = batchSize;
+            this.task = task;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= batchSize) {
+                for (int i = from; i < to; i++) {
+                    task.accept(loans.get(i));
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new LoanRangeTask(loans, from, middle, batchSize, task),
+                      new LoanRangeTask(loans, middle, to, batchSize, task));
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package creditpay.server;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import creditpay.metrics.LatencyHistogram;
+
+/**
+ * Нагрузочный клиент для {@link ScheduleServer}: {@code concurrency} виртуальных потоков
+ * в цикле запрашивают графики, после разогрева замеряются задержки и пропускная
+ * способность. Условия кредитов различаются суммой, чтобы сервер не получал
+ * одинаковых запросов подряд.
+ */
+public final class LoadTestClient {
+    /** Сколько разных сумм кредита перебирают потоки. */
+    private static final int _distinctLoans = 1000;
+
+    private final URI baseUri;
+    private final String method;
+    private final int termMonths;
+    private final int concurrency;
+    private final Duration warmup;
+    private final Duration duration;
+
+    public LoadTestClient(URI baseUri, String method, int termMonths, int concurrency,
+                          Duration warmup, Duration duration) {
+        if (concurrency < 1 || termMonths < 1) {
+            throw new IllegalArgumentException("concurrency and term must be positive");
+        }
+        this.baseUri = baseUri;
+        this.method = method;
+        this.termMonths = termMonths;
+        this.concurrency = concurrency;
+        this.warmup = warmup;
+        this.duration = duration;
+    }
+
+    /**
+     * Итоги замера: успешные запросы, ошибки, задержки успешных запросов.
+     */
+    public static final class Result {
+        public final long requests;
+        public final long errors;
+        public final long elapsedNanos;
+        public final LatencyHistogram latency;
+        public final String serverStats;
+
+        Result(long requests, long errors, long elapsedNanos, LatencyHistogram latency, String serverStats) {
+            this.requests = requests;
+            this.errors = errors;
+            this.elapsedNanos = elapsedNanos;
+            this.latency = latency;
+            this.serverStats = serverStats;
+        }
+
+        public double getRequestsPerSecond() {
+            return elapsedNanos == 0 ? 0 : requests * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            double millis = TimeUnit.MILLISECONDS.toNanos(1);
+            return String.format(Locale.US, "requests=%d errors=%d rps=%.1f p50=%.3f p90=%.3f p99=%.3f max=%.3f ms%n"
+                    + "server: %s",
+                requests, errors, getRequestsPerSecond(), latency.percentileNanos(50) / millis,
+                latency.percentileNanos(90) / millis, latency.percentileNanos(99) / millis,
+                latency.getMaxNanos() / millis, serverStats);
+        }
+    }
+
+    public Result run() throws Exception {
+        List<HttpRequest> requests = new ArrayList<>(_distinctLoans);
+        for (int i = 0; i < _distinctLoans; i++) {
+            requests.add(HttpRequest.newBuilder(baseUri.resolve(ScheduleServer.SCHEDULE_PATH + "?" + query(i)))
+                .GET().build());
+        }
+        LatencyHistogram latency = new LatencyHistogram();
+        LongAdder errors = new LongAdder();
+        long warmupEnd = System.nanoTime() + warmup.toNanos();
+        long end = warmupEnd + duration.toNanos();
+
+        try (HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build()) {
+            // close() ждет, пока все потоки не выйдут из цикла
+            try (ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (int worker = 0; worker < concurrency; worker++) {
+                    int first = worker;
+                    workers.execute(() -> {
+                        for (int i = first; System.nanoTime() < end; i += concurrency) {
+                            long start = System.nanoTime();
+                            boolean measured = start >= warmupEnd;
+                            boolean succeeded = false;
+                            try {
+                                HttpResponse<byte[]> response = client.send(requests.get(i % requests.size()),
+                                    HttpResponse.BodyHandlers.ofByteArray());
+                                succeeded = response.statusCode() == 200;
+                            } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                                return;
+                            } catch (IOException e) {
+                                // ответа нет: считается ошибкой
+                            }
+                            if (!measured) {
+                                continue;
+                            }
+                            if (succeeded) {
+                                latency.recordSince(start);
+                            } else {
+                                errors.increment();
+                            }
+                        }
+                    });
+                }
+            }
+
+            String serverStats = client.send(HttpRequest.newBuilder(baseUri.resolve(ScheduleServer.STATS_PATH)).build(),
+                HttpResponse.BodyHandlers.ofString()).body();
+            return new Result(latency.getCount(), errors.sum(), duration.toNanos(), latency, serverStats);
+        }
+    }
+
+    private String query(int loan) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("principal=").append(1_000_000 + 1_000L * loan)
+            .append("&termMonths=").append(termMonths)
+            .append("&annualRatePercent=9.5")
+            .append("&paymentDay=").append(1 + loan % 28)
+            .append("&startDate=2024-01-15");
+        if (method != null) {
+            sb.append("&method=").append(URLEncoder.encode(method, StandardCharsets.UTF_8));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * {@code [--url=http://localhost:8080] [--method=<name>] [--term=N] [--concurrency=N]
+     * [--warmup=seconds] [--duration=seconds]}
+     */
+    public static void main(String[] args) throws Exception {
+        URI url = URI.create("http://localhost:8080");
+        String method = null;
+        int termMonths = 240;
+        int concurrency = 64;
+        int warmupSeconds = 3;
+        int durationSeconds = 10;
+        try {
+            for (String arg : args) {
+                int separator = arg.indexOf('=');
+                if (!arg.startsWith("--") || separator < 0) {
+                    throw new IllegalArgumentException("Unexpected argument: " + arg);
+                }
+                String name = arg.substring(2, separator);
+                String value = arg.substring(separator + 1);
+                switch (name) {
+                    case "url" -> url = URI.create(value);
+                    case "method" -> method = value;
+                    case "term" -> termMonths = Integer.parseInt(value);
+                    case "concurrency" -> concurrency = Integer.parseInt(value);
+                    case "warmup" -> warmupSeconds = Integer.parseInt(value);
+                    case "duration" -> durationSeconds = Integer.parseInt(value);
+                    default -> throw new IllegalArgumentException("Unknown option: --" + name);
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println("usage: LoadTestClient [--url=http://localhost:8080] [--method=<name>] [--term=N]"
+                + " [--concurrency=N] [--warmup=seconds] [--duration=seconds]");
+            System.exit(2);
+            return;
+        }
+        LoadTestClient client = new LoadTestClient(url, method, termMonths, concurrency,
+            Duration.ofSeconds(warmupSeconds), Duration.ofSeconds(durationSeconds));
+        System.out.println(client.run());
+    }
+}
@@ -0,0 +1,199 @@
+package creditpay.server;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import creditpay.calculator.MortgageScheduleCalculator;
+import creditpay.model.CreditTerms;
+import creditpay.model.PaymentSchedule;
+import creditpay.portfolio.PortfolioScheduleEngine;
+
+/**
+ * Собирает одновременные запросы графиков в пачки для {@link PortfolioScheduleEngine}.
+ *
+ * <p>Пока запросов в работе не больше {@code directLimit}, график считается сразу в потоке
+ * запроса. Сверх этого запрос встает в очередь, а поток-сборщик забирает из нее до
+ * {@code maxBatch} запросов, ожидая следующий не дольше {@code maxDelayNanos}, и считает
+ * пачку на пуле движка. Одинаковые условия с одним методом в пачке считаются один раз.
+ * Так под нагрузкой число одновременных расчетов ограничено пулом, а не числом запросов.
+ *
+ * <p>Сбой расчета, в том числе {@link Error}, получают только запросы его пачки, сборщик
+ * продолжает работу. Если сборщик все же остановился (закрытие или сбой вне расчета),
+ * ожидающие запросы получают ошибку, а новые в очередь больше не встают.
+ */
+final class ScheduleBatcher implements AutoCloseable {
+    private final PortfolioScheduleEngine engine;
+    private final int maxBatch;
+    private final long maxDelayNanos;
+    private final int directLimit;
+    private final LinkedBlockingQueue<Job> queue = new LinkedBlockingQueue<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LongAdder directRequests = new LongAdder();
+    private final LongAdder batchedRequests = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final Thread collector;
+    /** Почему сборщик остановлен; {@code null}, пока он работает. */
+    private volatile Throwable stopped;
+
+    ScheduleBatcher(PortfolioScheduleEngine engine, int maxBatch, long maxDelayNanos, int directLimit) {
+        if (maxBatch < 1 || maxDelayNanos < 0 || directLimit < 0) {
+            throw new IllegalArgumentException("maxBatch must be positive, delay and direct limit not negative");
+        }
+        this.engine = engine;
+        this.maxBatch = maxBatch;
+        this.maxDelayNanos = maxDelayNanos;
+        this.directLimit = directLimit;
+        this.collector = new Thread(this::collect, "schedule-batcher");
+        collector.setDaemon(true);
+        collector.start();
+    }
+
+    /**
+     * Рассчитывает график; под нагрузкой ждет, пока его посчитают в составе пачки.
+     */
+    PaymentSchedule calculate(MortgageScheduleCalculator calculator, CreditTerms terms) {
+        try {
+            if (inFlight.incrementAndGet() <= directLimit) {
+                directRequests.increment();
+                return calculator.calculatePaymentSchedule(terms);
+            }
+            if (stopped != null) {
+                throw new IllegalStateException("schedule batcher is stopped", stopped);
+            }
+            Job job = new Job(calculator, terms);
+            queue.add(job);
+            if (stopped != null) {
+                // сборщик мог остановиться, не увидев этот запрос
+                failQueued(stopped);
+            }
+            try {
+                return job.result.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof Error error) {
+                    throw error;
+                }
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        } finally {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    long getDirectRequests() {
+        return directRequests.sum();
+    }
+
+    long getBatchedRequests() {
+        return batchedRequests.sum();
+    }
+
+    long getBatches() {
+        return batches.sum();
+    }
+
+    @Override
+    public void close() {
+        stop(new IllegalStateException("server is shutting down"));
+        collector.interrupt();
+    }
+
+    private void collect() {
+        List<Job> batch = new ArrayList<>(maxBatch);
+        try {
+            while (true) {
+                batch.add(queue.take());
+                long deadline = System.nanoTime() + maxDelayNanos;
+                while (batch.size() < maxBatch) {
+                    Job next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                try {
+                    run(batch);
+                } catch (Throwable e) {
+                    fail(batch, e);
+                }
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            fail(batch, new IllegalStateException("server is shutting down"));
+        } catch (Throwable e) {
+            fail(batch, e);
+            stop(e);
+        }
+    }
+
+    /**
+     * Останавливает прием в очередь и отказывает тем, кто в ней ждет.
+     */
+    private void stop(Throwable reason) {
+        if (stopped == null) {
+            stopped = reason;
+        }
+        failQueued(stopped);
+    }
+
+    private void failQueued(Throwable reason) {
+        Job job;
+        while ((job = queue.poll()) != null) {
+            job.result.completeExceptionally(reason);
+        }
+    }
+
+    private static void fail(List<Job> batch, Throwable reason) {
+        for (Job job : batch) {
+            job.result.completeExceptionally(reason);
+        }
+    }
+
+    private void run(List<Job> batch) {
+        batches.increment();
+        batchedRequests.add(batch.size());
+        Map<MortgageScheduleCalculator, Map<CreditTerms, List<Job>>> groups = new LinkedHashMap<>();
+        for (Job job : batch) {
+            groups.computeIfAbsent(job.calculator, key -> new HashMap<>())
+                .computeIfAbsent(job.terms, key -> new ArrayList<>(1))
+                .add(job);
+        }
+        for (var group : groups.entrySet()) {
+            MortgageScheduleCalculator calculator = group.getKey();
+            Map<CreditTerms, List<Job>> jobs = group.getValue();
+            try {
+                engine.forEachLoan(jobs.keySet(), terms -> {
+                    List<Job> waiting = jobs.get(terms);
+                    try {
+                        PaymentSchedule schedule = calculator.calculatePaymentSchedule(terms);
+                        waiting.forEach(job -> job.result.complete(schedule));
+                    } catch (Throwable e) {
+                        waiting.forEach(job -> job.result.completeExceptionally(e));
+                    }
+                });
+            } catch (Throwable e) {
+                // сбой самого пула: отказываем тем, кто еще ждет
+                jobs.values().forEach(waiting -> waiting.forEach(job -> job.result.completeExceptionally(e)));
+            }
+        }
+    }
+
+    private static final class Job {
+        final MortgageScheduleCalculator calculator;
+        final CreditTerms terms;
+        final CompletableFuture<PaymentSchedule> result = new CompletableFuture<>();
+
+        Job(MortgageScheduleCalculator calculator, CreditTerms terms) {
+            this.calculator = calculator;
+            this.terms = terms;
+        }
+    }
+}
@@ -0,0 +1,317 @@
+package creditpay.server;
+
+import java.math.BigDecimal;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import creditpay.model.CreditTerms;
+import creditpay.model.InterestPeriod;
+import creditpay.model.PaymentSchedule;
+
+/**
+ * Разбор запросов и формирование ответов сервиса графиков.
+ *
+ * <p>Запрос — плоский JSON-объект или строка запроса с полями {@code principal},
+ * {@code termMonths}, {@code annualRatePercent}, {@code paymentDay}, {@code startDate}
+ * (ISO, {@code 2024-01-31}) и {@code method}. Суммы в ответе — числа с двумя знаками
+ * после запятой, в рублях.
+ */
+final class ScheduleJson {
+    static final String METHOD = "method";
+    /** Самый длинный срок, который сервис согласен считать, — 100 лет. */
+    static final int MAX_TERM_MONTHS = 1200;
+
+    /** Примерная длина строки графика в ответе, для начальной емкости буфера. */
+    private static final int _bytesPerRow = 128;
+
+    private ScheduleJson() {}
+
+    /**
+     * Поля плоского JSON-объекта; значения-строки без кавычек, числа как записаны.
+     *
+     * @throws IllegalArgumentException если это не плоский JSON-объект
+     */
+    static Map<String, String> parseObject(String json) {
+        Map<String, String> fields = new LinkedHashMap<>();
+        Parser parser = new Parser(json);
+        parser.expect('{');
+        if (!parser.consume('}')) {
+            do {
+                String name = parser.string();
+                parser.expect(':');
+                fields.put(name, parser.value());
+            } while (parser.consume(','));
+            parser.expect('}');
+        }
+        parser.end();
+        return fields;
+    }
+
+    /**
+     * Параметры строки запроса {@code a=1&b=2}.
+     */
+    static Map<String, String> parseQuery(String query) {
+        Map<String, String> fields = new LinkedHashMap<>();
+        if (query == null || query.isEmpty()) {
+            return fields;
+        }
+        for (String pair : query.split("&")) {
+            int separator = pair.indexOf('=');
+            String name = separator < 0 ? pair : pair.substring(0, separator);
+            String value = separator < 0 ? "" : pair.substring(separator + 1);
+            fields.put(URLDecoder.decode(name, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return fields;
+    }
+
+    /**
+     * @throws IllegalArgumentException если поле отсутствует или значение некорректно
+     */
+    static CreditTerms terms(Map<String, String> fields) {
+        BigDecimal principal = decimal(fields, "principal");
+        int termMonths = integer(fields, "termMonths");
+        BigDecimal annualRatePercent = decimal(fields, "annualRatePercent");
+        int paymentDay = integer(fields, "paymentDay");
+        LocalDate startDate;
+        try {
+            startDate = LocalDate.parse(required(fields, "startDate"));
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("startDate must be an ISO date");
+        }
+        if (principal.signum() <= 0) {
+            throw new IllegalArgumentException("principal must be positive");
+        }
+        if (termMonths < 1 || termMonths > MAX_TERM_MONTHS) {
+            throw new IllegalArgumentException("termMonths must be 1.." + MAX_TERM_MONTHS);
+        }
+        if (annualRatePercent.signum() < 0) {
+            throw new IllegalArgumentException("annualRatePercent must not be negative");
+        }
+        return new CreditTerms(principal, termMonths, annualRatePercent, new InterestPeriod(paymentDay), startDate);
+    }
+
+    static String schedule(String method, PaymentSchedule schedule) {
+        StringBuilder sb = new StringBuilder(256 + schedule.size() * _bytesPerRow);
+        long totalPaid = 0;
+        long interest = 0;
+        for (int i = 0; i < schedule.size(); i++) {
+            totalPaid += schedule.totalPayment(i);
+            interest += schedule.interest(i);
+        }
+        sb.append("{\"method\":");
+        quote(sb, method);
+        sb.append(",\"payments\":").append(schedule.size());
+        sb.append(",\"totalPaid\":");
+        amount(sb, totalPaid);
+        sb.append(",\"totalInterest\":");
+        amount(sb, interest);
+        sb.append(",\"schedule\":[");
+        PaymentSchedule.Row row = null;
+        for (int i = 0; i < schedule.size(); i++) {
+            row = row == null ? schedule.row(i) : row.moveTo(i);
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append("{\"number\":").append(i + 1);
+            sb.append(",\"date\":\"").append(LocalDate.ofEpochDay(row.paymentEpochDay())).append('"');
+            sb.append(",\"days\":").append(row.daysOfBorrowing());
+            sb.append(",\"total\":");
+            amount(sb, row.totalPayment());
+            sb.append(",\"interest\":");
+            amount(sb, row.interest());
+            sb.append(",\"principal\":");
+            amount(sb, row.principalRepaid());
+            sb.append(",\"remaining\":");
+            amount(sb, row.remainingDebt());
+            sb.append('}');
+        }
+        return sb.append("]}").toString();
+    }
+
+    static String names(Collection<String> names) {
+        StringBuilder sb = new StringBuilder("[");
+        for (String name : names) {
+            if (sb.length() > 1) {
+                sb.append(',');
+            }
+            quote(sb, name);
+        }
+        return sb.append(']').toString();
+    }
+
+    static String error(String message) {
+        StringBuilder sb = new StringBuilder("{\"error\":");
+        quote(sb, message == null ? "internal error" : message);
+        return sb.append('}').toString();
+    }
+
+    /**
+     * Копейки в виде числа JSON с двумя знаками после запятой, без {@link BigDecimal}.
+     */
+    static void amount(StringBuilder sb, long kopecks) {
+        long rubles = kopecks / 100;
+        int cents = (int) Math.abs(kopecks % 100);
+        if (kopecks < 0 && rubles == 0) {
+            sb.append('-');
+        }
+        sb.append(rubles).append('.');
+        if (cents < 10) {
+            sb.append('0');
+        }
+        sb.append(cents);
+    }
+
+    static void quote(StringBuilder sb, String value) {
+        sb.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case '\t' -> sb.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+                }
+            }
+        }
+        sb.append('"');
+    }
+
+    private static String required(Map<String, String> fields, String name) {
+        String value = fields.get(name);
+        if (value == null || value.isBlank()) {
+            throw new IllegalArgumentException(name + " is required");
+        }
+        return value.trim();
+    }
+
+    private static BigDecimal decimal(Map<String, String> fields, String name) {
+        try {
+            return new BigDecimal(required(fields, name));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(name + " must be a number");
+        }
+    }
+
+    private static int integer(Map<String, String> fields, String name) {
+        try {
+            return Integer.parseInt(required(fields, name));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(name + " must be an integer");
+        }
+    }
+
+    /**
+     * Разбор плоского объекта: строки, числа, {@code true}/{@code false}/{@code null};
+     * вложенные объекты и массивы отклоняются.
+     */
+    private static final class Parser {
+        private final String json;
+        private int position;
+
+        Parser(String json) {
+            this.json = json;
+        }
+
+        void expect(char c) {
+            if (!consume(c)) {
+                throw error("'" + c + "' expected");
+            }
+        }
+
+        boolean consume(char c) {
+            skipWhitespace();
+            if (position < json.length() && json.charAt(position) == c) {
+                position++;
+                return true;
+            }
+            return false;
+        }
+
+        void end() {
+            skipWhitespace();
+            if (position != json.length()) {
+                throw error("unexpected trailing content");
+            }
+        }
+
+        String value() {
+            skipWhitespace();
+            if (position < json.length() && json.charAt(position) == '"') {
+                return string();
+            }
+            int start = position;
+            while (position < json.length() && ",} \t\r\n".indexOf(json.charAt(position)) < 0) {
+                char c = json.charAt(position);
+                if (c == '{' || c == '[' || c == '"') {
+                    throw error("only flat objects are supported");
+                }
+                position++;
+            }
+            if (start == position) {
+                throw error("value expected");
+            }
+            return json.substring(start, position);
+        }
+
+        String string() {
+            expect('"');
+            StringBuilder sb = new StringBuilder();
+            while (position < json.length()) {
+                char c = json.charAt(position++);
+                if (c == '"') {
+                    return sb.toString();
+                }
+                if (c != '\\') {
+                    sb.append(c);
+                    continue;
+                }
+                if (position >= json.length()) {
+                    break;
+                }
+                char escaped = json.charAt(position++);
+                switch (escaped) {
+                    case 'n' -> sb.append('\n');
+                    case 'r' -> sb.append('\r');
+                    case 't' -> sb.append('\t');
+                    case 'b' -> sb.append('\b');
+                    case 'f' -> sb.append('\f');
+                    case 'u' -> {
+                        if (position + 4 > json.length()) {
+                            throw error("bad unicode escape");
+                        }
+                        try {
+                            sb.append((char) Integer.parseInt(json.substring(position, position + 4), 16));
+                        } catch (NumberFormatException e) {
+                            throw error("bad unicode escape");
+                        }
+                        position += 4;
+                    }
+                    default -> sb.append(escaped);
+                }
+            }
+            throw error("unterminated string");
+        }
+
+        private void skipWhitespace() {
+            while (position < json.length() && Character.isWhitespace(json.charAt(position))) {
+                position++;
+            }
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException("Invalid JSON at " + position + ": " + message);
+        }
+    }
+}
@@ -0,0 +1,242 @@
+package creditpay.server;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import creditpay.calculator.CalculatorRegistry;
+import creditpay.calculator.MortgageScheduleCalculator;
+import creditpay.metrics.LatencySnapshot;
+import creditpay.metrics.PipelineMetrics;
+import creditpay.metrics.RollingLatencyHistogram;
+import creditpay.model.CreditTerms;
+import creditpay.model.PaymentSchedule;
+import creditpay.portfolio.PortfolioScheduleEngine;
+
+/**
+ * HTTP-сервис графиков платежей на встроенном {@link HttpServer} JDK.
+ *
+ * <ul>
+ *   <li>{@code GET|POST} {@value #SCHEDULE_PATH} — график по условиям из строки запроса
+ *       или JSON-тела (см. {@link ScheduleJson}); без {@code method} — первым найденным методом;</li>
+ *   <li>{@code GET} {@value #CALCULATORS_PATH} — названия методов;</li>
+ *   <li>{@code GET} {@value #STATS_PATH} — счетчики запросов и пачек, задержки за минуту.</li>
+ * </ul>
+ *
+ * <p>Каждый запрос обрабатывается в своем виртуальном потоке: ожидание сети и очереди
+ * не занимает потоков ОС. Сам расчет под нагрузкой уходит пачками в
+ * {@link PortfolioScheduleEngine} через {@link ScheduleBatcher}.
+ */
+public final class ScheduleServer implements AutoCloseable {
+    public static final String SCHEDULE_PATH = "/api/schedule";
+    public static final String CALCULATORS_PATH = "/api/calculators";
+    public static final String STATS_PATH = "/api/stats";
+
+    private static final int _maxBodyBytes = 16 * 1024;
+    /** Пачка из 64 запросов делится между потоками пула по 4. */
+    private static final int _engineBatchSize = 4;
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final ScheduleBatcher batcher;
+    private final Map<String, MortgageScheduleCalculator> calculators = new LinkedHashMap<>();
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final RollingLatencyHistogram latency = new RollingLatencyHistogram(60, TimeUnit.SECONDS);
+
+    private ScheduleServer(ServerOptions options, List<MortgageScheduleCalculator> calculators) throws IOException {
+        if (calculators.isEmpty()) {
+            throw new IllegalArgumentException("at least one calculator is required");
+        }
+        for (MortgageScheduleCalculator calculator : calculators) {
+            this.calculators.put(calculator.getDisplayName().toLowerCase(Locale.ROOT), calculator);
+        }
+        PortfolioScheduleEngine engine = new PortfolioScheduleEngine(ForkJoinPool.commonPool(), _engineBatchSize);
+        this.batcher = new ScheduleBatcher(engine, options.maxBatch,
+            TimeUnit.MICROSECONDS.toNanos(options.maxDelayMicros), options.directLimit);
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        try {
+            this.server = HttpServer.create(new InetSocketAddress(options.port), 0);
+        } catch (IOException e) {
+            batcher.close();
+            executor.close();
+            throw e;
+        }
+        server.setExecutor(executor);
+        server.createContext(SCHEDULE_PATH, exchange -> respond(exchange, this::schedule));
+        server.createContext(CALCULATORS_PATH, exchange -> respond(exchange, this::calculatorNames));
+        server.createContext(STATS_PATH, exchange -> respond(exchange, this::stats));
+    }
+
+    /**
+     * Запускает сервис; порт 0 — любой свободный, см. {@link #getPort()}.
+     */
+    public static ScheduleServer start(ServerOptions options, List<MortgageScheduleCalculator> calculators)
+            throws IOException {
+        ScheduleServer scheduleServer = new ScheduleServer(options, calculators);
+        scheduleServer.server.start();
+        return scheduleServer;
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Останавливает прием запросов, дает начатым до секунды на завершение.
+     */
+    @Override
+    public void close() {
+        server.stop(1);
+        batcher.close();
+        executor.close();
+    }
+
+    public static void main(String[] args) throws IOException {
+        ServerOptions options;
+        try {
+            options = ServerOptions.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println("usage: ScheduleServer [--port=N] [--batch=N] [--delay-us=N] [--direct=N]");
+            System.exit(2);
+            return;
+        }
+        PipelineMetrics.registerMBean();
+        ScheduleServer scheduleServer = start(options, CalculatorRegistry.discoverCalculators());
+        Runtime.getRuntime().addShutdownHook(new Thread(scheduleServer::close, "schedule-server-shutdown"));
+        System.out.println("Listening on http://localhost:" + scheduleServer.getPort() + SCHEDULE_PATH);
+    }
+
+    private String schedule(HttpExchange exchange) throws IOException {
+        Map<String, String> fields = switch (exchange.getRequestMethod()) {
+            case "GET" -> ScheduleJson.parseQuery(exchange.getRequestURI().getRawQuery());
+            case "POST" -> ScheduleJson.parseObject(readBody(exchange));
+            default -> throw new HttpError(405, "use GET or POST");
+        };
+        MortgageScheduleCalculator calculator = calculator(fields.get(ScheduleJson.METHOD));
+        CreditTerms terms = ScheduleJson.terms(fields);
+        PaymentSchedule schedule = batcher.calculate(calculator, terms);
+        return ScheduleJson.schedule(calculator.getDisplayName(), schedule);
+    }
+
+    private String calculatorNames(HttpExchange exchange) {
+        requireGet(exchange);
+        return ScheduleJson.names(calculators.values().stream().map(MortgageScheduleCalculator::getDisplayName).toList());
+    }
+
+    private String stats(HttpExchange exchange) {
+        requireGet(exchange);
+        LatencySnapshot window = LatencySnapshot.of(latency.snapshot());
+        return String.format(Locale.US, "{\"requests\":%d,\"errors\":%d,\"directRequests\":%d,"
+                + "\"batchedRequests\":%d,\"batches\":%d,\"windowSeconds\":%d,\"windowRequests\":%d,"
+                + "\"p50Millis\":%.3f,\"p99Millis\":%.3f,\"maxMillis\":%.3f}",
+            requests.sum(), errors.sum(), batcher.getDirectRequests(), batcher.getBatchedRequests(),
+            batcher.getBatches(), TimeUnit.NANOSECONDS.toSeconds(latency.getWindowNanos()), window.getCount(),
+            window.getP50Millis(), window.getP99Millis(), window.getMaxMillis());
+    }
+
+    private MortgageScheduleCalculator calculator(String method) {
+        if (method == null || method.isBlank()) {
+            return calculators.values().iterator().next();
+        }
+        MortgageScheduleCalculator calculator = calculators.get(method.trim().toLowerCase(Locale.ROOT));
+        if (calculator == null) {
+            throw new HttpError(404, "Unknown method: " + method + ", available: " + calculators.keySet());
+        }
+        return calculator;
+    }
+
+    private static void requireGet(HttpExchange exchange) {
+        if (!"GET".equals(exchange.getRequestMethod())) {
+            throw new HttpError(405, "use GET");
+        }
+    }
+
+    private static String readBody(HttpExchange exchange) throws IOException {
+        byte[] body = exchange.getRequestBody().readNBytes(_maxBodyBytes + 1);
+        if (body.length > _maxBodyBytes) {
+            throw new HttpError(413, "request body is larger than " + _maxBodyBytes + " bytes");
+        }
+        return new String(body, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Выполняет обработчик и отправляет его JSON; ошибки превращаются в ответ {@code {"error": ...}}.
+     * Сумма, не помещающаяся в копейки ({@link ArithmeticException}), — ошибка запроса, 400.
+     * На {@link Error} клиент тоже получает 500, после чего ошибка пробрасывается дальше.
+     */
+    private void respond(HttpExchange exchange, Endpoint endpoint) throws IOException {
+        long start = System.nanoTime();
+        requests.increment();
+        int status = 200;
+        String body;
+        Error fatal = null;
+        try {
+            body = endpoint.handle(exchange);
+        } catch (HttpError e) {
+            status = e.status;
+            body = ScheduleJson.error(e.getMessage());
+        } catch (IllegalArgumentException | ArithmeticException e) {
+            status = 400;
+            body = ScheduleJson.error(e.getMessage());
+        } catch (Throwable e) {
+            status = 500;
+            body = ScheduleJson.error(e.getMessage());
+            if (e instanceof Error error) {
+                fatal = error;
+            }
+        }
+        if (status != 200) {
+            errors.increment();
+        }
+        try (exchange) {
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+            exchange.sendResponseHeaders(status, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        } catch (IOException | RuntimeException e) {
+            if (fatal == null) {
+                throw e;
+            }
+            fatal.addSuppressed(e);
+        }
+        if (fatal != null) {
+            throw fatal;
+        }
+        if (status == 200) {
+            latency.recordSince(start);
+        }
+    }
+
+    @FunctionalInterface
+    private interface Endpoint {
+        String handle(HttpExchange exchange) throws IOException;
+    }
+
+    private static final class HttpError extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        final int status;
+
+        HttpError(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package creditpay.server;
+
+/**
+ * Параметры сервиса графиков: порт и настройки сборки запросов в пачки
+ * (см. {@link ScheduleBatcher}).
+ */
+public final class ServerOptions {
+    public final int port;
+    /** Наибольшее число запросов в пачке. */
+    public final int maxBatch;
+    /** Сколько сборщик ждет следующий запрос, прежде чем отправить неполную пачку. */
+    public final long maxDelayMicros;
+    /** Сколько запросов одновременно считается сразу, без пачек. */
+    public final int directLimit;
+
+    public ServerOptions(int port, int maxBatch, long maxDelayMicros, int directLimit) {
+        if (port < 0 || port > 65535) {
+            throw new IllegalArgumentException("port must be 0..65535");
+        }
+        if (maxBatch < 1) {
+            throw new IllegalArgumentException("batch size must be positive");
+        }
+        if (maxDelayMicros < 0 || directLimit < 0) {
+            throw new IllegalArgumentException("batch delay and direct limit must not be negative");
+        }
+        this.port = port;
+        this.maxBatch = maxBatch;
+        this.maxDelayMicros = maxDelayMicros;
+        this.directLimit = directLimit;
+    }
+
+    /**
+     * Разбирает аргументы командной строки:
+     * {@code [--port=N] [--batch=N] [--delay-us=N] [--direct=N]}.
+     *
+     * @throws IllegalArgumentException если аргументы некорректны
+     */
+    public static ServerOptions parse(String[] args) {
+        int port = 8080;
+        int maxBatch = 64;
+        long maxDelayMicros = 200;
+        int directLimit = Runtime.getRuntime().availableProcessors();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (!arg.startsWith("--") || separator < 0) {
+                throw new IllegalArgumentException("Unexpected argument: " + arg);
+            }
+            String name = arg.substring(2, separator);
+            String value = arg.substring(separator + 1);
+            switch (name) {
+                case "port" -> port = parseNumber(name, value);
+                case "batch" -> maxBatch = parseNumber(name, value);
+                case "delay-us" -> maxDelayMicros = parseNumber(name, value);
+                case "direct" -> directLimit = parseNumber(name, value);
+                default -> throw new IllegalArgumentException("Unknown option: --" + name);
+            }
+        }
+        return new ServerOptions(port, maxBatch, maxDelayMicros, directLimit);
+    }
+
+    private static int parseNumber(String name, String value) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("--" + name + " must be a number: " + value);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package creditpay.store;
+
+import java.nio.ByteBuffer;
+import java.util.Objects;
+
+import creditpay.model.PaymentSchedule;
+
+/**
+ * График платежей, который читается прямо из отображенного в память файла
+ * {@link ScheduleStore}, без копирования в кучу.
+ *
+ * <p>Строки хранятся подряд записями по {@link PaymentSchedule#BYTES_PER_ROW} байт:
+ * дата ({@code int}, номер дня от эпохи), дни пользования ({@code int}), общая
+ * сумма, проценты, погашаемый долг и остаток ({@code long}, коп.), little-endian.
+ * Подходит везде, где принимается {@link PaymentSchedule}: таблица Swing, экспорт
+ * в Excel, CSV и двоичный формат. Чтение потокобезопасно.
+ */
+public final class MappedPaymentSchedule extends PaymentSchedule {
+    static final int EPOCH_DAY_OFFSET = 0;
+    static final int DAYS_OFFSET = 4;
+    static final int TOTAL_OFFSET = 8;
+    static final int INTEREST_OFFSET = 16;
+    static final int PRINCIPAL_OFFSET = 24;
+    static final int REMAINING_OFFSET = 32;
+
+    private final long loanId;
+    /** Только для чтения, little-endian; используются лишь абсолютные {@code get}. */
+    private final ByteBuffer rows;
+    private final int size;
+
+    MappedPaymentSchedule(long loanId, ByteBuffer rows, int size) {
+        this.loanId = loanId;
+        this.rows = rows;
+        this.size = size;
+    }
+
+    public long getLoanId() {
+        return loanId;
+    }
+
+    /**
+     * Строки с {@code fromIndex} (включительно) по {@code toIndex} (не включительно)
+     * как отдельный график над тем же участком памяти.
+     */
+    public MappedPaymentSchedule slice(int fromIndex, int toIndex) {
+        Objects.checkFromToIndex(fromIndex, toIndex, size);
+        int length = toIndex - fromIndex;
+        ByteBuffer part = rows.slice(fromIndex * BYTES_PER_ROW, length * BYTES_PER_ROW).order(rows.order());
+        return new MappedPaymentSchedule(loanId, part, length);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public long paymentEpochDay(int index) {
+        return rows.getInt(offset(index) + EPOCH_DAY_OFFSET);
+    }
+
+    @Override
+    public int daysOfBorrowing(int index) {
+        return rows.getInt(offset(index) + DAYS_OFFSET);
+    }
+
+    @Override
+    public long totalPayment(int index) {
+        return rows.getLong(offset(index) + TOTAL_OFFSET);
+    }
+
+    @Override
+    public long interest(int index) {
+        return rows.getLong(offset(index) + INTEREST_OFFSET);
+    }
+
+    @Override
+    public long principalRepaid(int index) {
+        return rows.getLong(offset(index) + PRINCIPAL_OFFSET);
+    }
+
+    @Override
+    public long remainingDebt(int index) {
+        return rows.getLong(offset(index) + REMAINING_OFFSET);
+    }
+
+    private int offset(int index) {
+        return Objects.checkIndex(index, size) * BYTES_PER_ROW;
+    }
+}
@@ -0,0 +1,450 @@
+package creditpay.store;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+import creditpay.calculator.MortgageScheduleCalculator;
+import creditpay.model.CreditTerms;
+import creditpay.model.FixedPointPaymentSink;
+import creditpay.model.PaymentSchedule;
+
+/**
+ * Хранилище рассчитанных графиков в файлах, отображенных в память.
+ *
+ * <p>В каталоге два файла. {@value #DATA_FILE} — строки всех графиков записями
+ * фиксированной длины {@link PaymentSchedule#BYTES_PER_ROW} (см. {@link MappedPaymentSchedule});
+ * нулевая запись — заголовок. Файл отображается сегментами по {@code rowsPerSegment}
+ * строк (их число записано в заголовке и проверяется при открытии), график никогда
+ * не пересекает границу сегмента, поэтому читается одним участком памяти. {@value #INDEX_FILE} — заголовок (сигнатура, версия, число записей,
+ * первая свободная строка) и записи по {@value #INDEX_ENTRY_BYTES} байт: номер кредита,
+ * первая строка, число строк. При открытии индекс переносится в хеш-таблицу, так что
+ * поиск по номеру кредита — O(1), а графики отдаются без копирования.
+ *
+ * <p>Хранилище только дописывается: повторный {@code put} того же кредита добавляет
+ * новую версию, старая остается в файле, но больше не находится. Отображенные страницы
+ * система сбрасывает на диск в любом порядке, поэтому счетчики в заголовке индекса
+ * обновляет только {@link #flush()}: сначала сбрасываются строки, затем записи индекса,
+ * и лишь потом пишется и сбрасывается счетчик. После сбоя видны графики, сохраненные
+ * до последнего {@link #flush()} или {@link #close()}, а более поздние {@code put} —
+ * нет, даже если часть их страниц успела попасть на диск.
+ *
+ * <p>Один экземпляр на каталог; методы синхронизированы. Возвращенные графики можно
+ * читать из любых потоков и после закрытия хранилища.
+ */
+public final class ScheduleStore implements Closeable {
+    public static final String DATA_FILE = "schedules.dat";
+    public static final String INDEX_FILE = "schedules.idx";
+
+    static final int DATA_MAGIC = 0x50535354; // "PSST"
+    static final int INDEX_MAGIC = 0x50534958; // "PSIX"
+    static final int VERSION = 2;
+    static final int INDEX_ENTRY_BYTES = 24;
+
+    /** 64 МиБ: около 1,7 млн строк на сегмент. */
+    private static final int _defaultRowsPerSegment = (64 << 20) / PaymentSchedule.BYTES_PER_ROW;
+    private static final int _initialIndexEntries = 1024;
+    private static final int _entryCountOffset = 8;
+    private static final int _nextRowOffset = 16;
+    private static final int _rowsPerSegmentOffset = 8;
+
+    private final FileChannel dataChannel;
+    private final FileChannel indexChannel;
+    private final int rowsPerSegment;
+    private final List<MappedByteBuffer> segments = new ArrayList<>();
+    private final LoanIndex loanIndex = new LoanIndex();
+    private MappedByteBuffer index;
+    private long entryCount;
+    /** Первая свободная строка данных; строка 0 занята заголовком. */
+    private long nextRow;
+    private boolean closed;
+
+    private ScheduleStore(FileChannel dataChannel, FileChannel indexChannel, int rowsPerSegment) {
+        this.dataChannel = dataChannel;
+        this.indexChannel = indexChannel;
+        this.rowsPerSegment = rowsPerSegment;
+    }
+
+    /**
+     * Открывает хранилище в каталоге {@code directory}, создавая его при необходимости.
+     */
+    public static ScheduleStore open(Path directory) throws IOException {
+        return open(directory, _defaultRowsPerSegment);
+    }
+
+    static ScheduleStore open(Path directory, int rowsPerSegment) throws IOException {
+        if (rowsPerSegment < 2) {
+            throw new IllegalArgumentException("rowsPerSegment must be at least 2");
+        }
+        Files.createDirectories(directory);
+        FileChannel data = FileChannel.open(directory.resolve(DATA_FILE),
+            StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        FileChannel index = null;
+        try {
+            index = FileChannel.open(directory.resolve(INDEX_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            ScheduleStore store = new ScheduleStore(data, index, rowsPerSegment);
+            store.load();
+            return store;
+        } catch (IOException | RuntimeException e) {
+            data.close();
+            if (index != null) {
+                index.close();
+            }
+            throw e;
+        }
+    }
+
+    private void load() throws IOException {
+        boolean created = indexChannel.size() == 0;
+        if (created != (dataChannel.size() == 0)) {
+            throw new IOException("Schedule store files do not match");
+        }
+        if (!created) {
+            checkDataHeader();
+        }
+        long existingEntries = created ? 0 : (indexChannel.size() / INDEX_ENTRY_BYTES - 1);
+        mapIndex(Math.max(existingEntries, _initialIndexEntries));
+        MappedByteBuffer header = segment(0);
+
+        if (created) {
+            header.putInt(0, DATA_MAGIC).putInt(4, VERSION).putInt(_rowsPerSegmentOffset, rowsPerSegment);
+            index.putInt(0, INDEX_MAGIC).putInt(4, VERSION);
+            entryCount = 0;
+            nextRow = 1;
+            publishCounters();
+            return;
+        }
+        if (index.getInt(0) != INDEX_MAGIC) {
+            throw new IOException("Not a schedule store");
+        }
+        int version = index.getInt(4);
+        if (version != VERSION) {
+            throw new IOException("Unsupported schedule store version " + version);
+        }
+        entryCount = index.getLong(_entryCountOffset);
+        nextRow = index.getLong(_nextRowOffset);
+        if (entryCount < 0 || entryCount > existingEntries || nextRow < 1) {
+            throw new IOException("Corrupted schedule store index");
+        }
+        for (int entry = 0; entry < entryCount; entry++) {
+            loanIndex.put(index.getLong(entryOffset(entry)), entry);
+        }
+    }
+
+    /**
+     * Проверяет заголовок файла данных до его отображения: сегменты другого размера
+     * легли бы не на свои строки, а отображение дорастило бы файл.
+     */
+    private void checkDataHeader() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(3 * Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        while (header.hasRemaining()) {
+            if (dataChannel.read(header, header.position()) < 0) {
+                break;
+            }
+        }
+        if (header.hasRemaining() || header.getInt(0) != DATA_MAGIC) {
+            throw new IOException("Not a schedule store");
+        }
+        if (header.getInt(4) != VERSION) {
+            throw new IOException("Unsupported schedule store version " + header.getInt(4));
+        }
+        int storedRowsPerSegment = header.getInt(_rowsPerSegmentOffset);
+        if (storedRowsPerSegment != rowsPerSegment) {
+            throw new IOException("Schedule store has " + storedRowsPerSegment + " rows per segment, not "
+                + rowsPerSegment);
+        }
+    }
+
+    /**
+     * Сохраняет график кредита {@code loanId}, заменяя предыдущий.
+     */
+    public synchronized MappedPaymentSchedule put(long loanId, PaymentSchedule schedule) throws IOException {
+        ensureOpen();
+        int rows = schedule.size();
+        long firstRow = allocate(rows);
+        ByteBuffer target = rows(firstRow, rows);
+        PaymentSchedule.Row row = null;
+        for (int i = 0; i < rows; i++) {
+            row = row == null ? schedule.row(i) : row.moveTo(i);
+            putRow(target, i, row.daysOfBorrowing(), row.paymentEpochDay(), row.totalPayment(),
+                row.interest(), row.principalRepaid(), row.remainingDebt());
+        }
+        return commit(loanId, firstRow, rows);
+    }
+
+    /**
+     * Рассчитывает график кредита {@code loanId} в целочисленном режиме прямо в файл,
+     * без промежуточного графика в куче, и сохраняет его, заменяя предыдущий.
+     */
+    public synchronized MappedPaymentSchedule put(long loanId, MortgageScheduleCalculator calculator,
+                                                  CreditTerms terms) throws IOException {
+        ensureOpen();
+        int capacity = terms.getTermMonths();
+        long firstRow = allocate(capacity);
+        RowWriter writer = new RowWriter(rows(firstRow, capacity), capacity);
+        calculator.calculateFixedPointSchedule(terms, writer);
+        return commit(loanId, firstRow, writer.rows);
+    }
+
+    /**
+     * Последний сохраненный график кредита или {@code null}, если его нет.
+     */
+    public synchronized MappedPaymentSchedule get(long loanId) {
+        ensureOpen();
+        int entry = loanIndex.get(loanId);
+        return entry < 0 ? null : view(entry);
+    }
+
+    public synchronized boolean contains(long loanId) {
+        return loanIndex.get(loanId) >= 0;
+    }
+
+    /**
+     * Число кредитов в хранилище.
+     */
+    public synchronized int size() {
+        return loanIndex.size();
+    }
+
+    /**
+     * Передает {@code consumer} последние графики кредитов с номерами от {@code fromLoanId}
+     * (включительно) до {@code toLoanId} (не включительно) в порядке сохранения.
+     * Индекс читается прямо из отображенного файла; хранилище заблокировано до конца обхода.
+     */
+    public synchronized void scan(long fromLoanId, long toLoanId, Consumer<MappedPaymentSchedule> consumer) {
+        ensureOpen();
+        for (int entry = 0; entry < entryCount; entry++) {
+            long loanId = index.getLong(entryOffset(entry));
+            if (loanId >= fromLoanId && loanId < toLoanId && loanIndex.get(loanId) == entry) {
+                consumer.accept(view(entry));
+            }
+        }
+    }
+
+    /**
+     * Сбрасывает на диск строки графиков, затем записи индекса, затем счетчики,
+     * которые делают новые записи видимыми после повторного открытия.
+     */
+    public synchronized void flush() {
+        ensureOpen();
+        for (MappedByteBuffer segment : segments) {
+            segment.force();
+        }
+        index.force();
+        publishCounters();
+        index.force(0, INDEX_ENTRY_BYTES);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        flush();
+        closed = true;
+        try {
+            dataChannel.close();
+        } finally {
+            indexChannel.close();
+        }
+    }
+
+    /**
+     * Первая строка для графика из {@code rows} строк: в текущем сегменте или, если
+     * он не помещается, в начале следующего.
+     */
+    private long allocate(int rows) {
+        if (rows > rowsPerSegment) {
+            throw new IllegalArgumentException("schedule of " + rows + " rows does not fit a store segment of "
+                + rowsPerSegment + " rows");
+        }
+        long offsetInSegment = nextRow % rowsPerSegment;
+        if (offsetInSegment + rows > rowsPerSegment) {
+            return nextRow - offsetInSegment + rowsPerSegment;
+        }
+        return nextRow;
+    }
+
+    private MappedPaymentSchedule commit(long loanId, long firstRow, int rows) throws IOException {
+        if (entryCount + 1 >= index.capacity() / INDEX_ENTRY_BYTES) {
+            mapIndex(entryCount * 2);
+        }
+        int entry = Math.toIntExact(entryCount);
+        int offset = entryOffset(entry);
+        index.putLong(offset, loanId)
+            .putLong(offset + 8, firstRow)
+            .putInt(offset + 16, rows)
+            .putInt(offset + 20, 0);
+        entryCount++;
+        nextRow = firstRow + rows;
+        loanIndex.put(loanId, entry);
+        return view(entry);
+    }
+
+    private void publishCounters() {
+        index.putLong(_nextRowOffset, nextRow);
+        index.putLong(_entryCountOffset, entryCount);
+    }
+
+    private MappedPaymentSchedule view(int entry) {
+        int offset = entryOffset(entry);
+        long loanId = index.getLong(offset);
+        long firstRow = index.getLong(offset + 8);
+        int rows = index.getInt(offset + 16);
+        try {
+            ByteBuffer readOnly = rows(firstRow, rows).asReadOnlyBuffer().order(ByteOrder.LITTLE_ENDIAN);
+            return new MappedPaymentSchedule(loanId, readOnly, rows);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to map schedule of loan " + loanId, e);
+        }
+    }
+
+    /**
+     * Участок данных строк {@code firstRow .. firstRow + rows}; все они в одном сегменте.
+     */
+    private ByteBuffer rows(long firstRow, int rows) throws IOException {
+        MappedByteBuffer segment = segment(Math.toIntExact(firstRow / rowsPerSegment));
+        int offset = (int) (firstRow % rowsPerSegment) * PaymentSchedule.BYTES_PER_ROW;
+        return segment.slice(offset, rows * PaymentSchedule.BYTES_PER_ROW).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private MappedByteBuffer segment(int number) throws IOException {
+        long segmentBytes = (long) rowsPerSegment * PaymentSchedule.BYTES_PER_ROW;
+        while (segments.size() <= number) {
+            // READ_WRITE дорастит файл до конца сегмента; на большинстве ФС — разреженно
+            MappedByteBuffer segment = dataChannel.map(FileChannel.MapMode.READ_WRITE,
+                segments.size() * segmentBytes, segmentBytes);
+            segments.add((MappedByteBuffer) segment.order(ByteOrder.LITTLE_ENDIAN));
+        }
+        return segments.get(number);
+    }
+
+    private void mapIndex(long entries) throws IOException {
+        long bytes = (entries + 1) * INDEX_ENTRY_BYTES;
+        if (bytes > Integer.MAX_VALUE) {
+            throw new IllegalStateException("schedule store index is full");
+        }
+        index = (MappedByteBuffer) indexChannel.map(FileChannel.MapMode.READ_WRITE, 0, bytes)
+            .order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static int entryOffset(int entry) {
+        return (entry + 1) * INDEX_ENTRY_BYTES;
+    }
+
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("schedule store is closed");
+        }
+    }
+
+    private static void putRow(ByteBuffer target, int index, int daysOfBorrowing, long paymentEpochDay,
+                               long totalPayment, long interest, long principalRepaid, long remainingDebt) {
+        int offset = index * PaymentSchedule.BYTES_PER_ROW;
+        target.putInt(offset + MappedPaymentSchedule.EPOCH_DAY_OFFSET, Math.toIntExact(paymentEpochDay))
+            .putInt(offset + MappedPaymentSchedule.DAYS_OFFSET, daysOfBorrowing)
+            .putLong(offset + MappedPaymentSchedule.TOTAL_OFFSET, totalPayment)
+            .putLong(offset + MappedPaymentSchedule.INTEREST_OFFSET, interest)
+            .putLong(offset + MappedPaymentSchedule.PRINCIPAL_OFFSET, principalRepaid)
+            .putLong(offset + MappedPaymentSchedule.REMAINING_OFFSET, remainingDebt);
+    }
+
+    /**
+     * Приемник целочисленного расчета, пишущий строки прямо в отображенный файл.
+     */
+    private static final class RowWriter implements FixedPointPaymentSink {
+        private final ByteBuffer target;
+        private final int capacity;
+        int rows;
+
+        RowWriter(ByteBuffer target, int capacity) {
+            this.target = target;
+            this.capacity = capacity;
+        }
+
+        @Override
+        public void accept(int index, int daysOfBorrowing, long paymentEpochDay,
+                           long totalPayment, long interest, long principalRepaid, long remainingDebt) {
+            if (rows == capacity) {
+                throw new IllegalStateException("calculator produced more than " + capacity + " rows");
+            }
+            putRow(target, rows++, daysOfBorrowing, paymentEpochDay, totalPayment, interest, principalRepaid,
+                remainingDebt);
+        }
+    }
+
+    /**
+     * Номер кредита → номер записи индекса: открытая адресация на примитивных
+     * массивах, без упаковки ключей.
+     */
+    private static final class LoanIndex {
+        private long[] keys = new long[16];
+        private int[] entries = newEntries(16);
+        private int size;
+
+        int size() {
+            return size;
+        }
+
+        int get(long loanId) {
+            int mask = keys.length - 1;
+            for (int slot = hash(loanId) & mask; entries[slot] >= 0; slot = (slot + 1) & mask) {
+                if (keys[slot] == loanId) {
+                    return entries[slot];
+                }
+            }
+            return -1;
+        }
+
+        void put(long loanId, int entry) {
+            if (2 * (size + 1) > keys.length) {
+                grow();
+            }
+            int mask = keys.length - 1;
+            int slot = hash(loanId) & mask;
+            while (entries[slot] >= 0 && keys[slot] != loanId) {
+                slot = (slot + 1) & mask;
+            }
+            if (entries[slot] < 0) {
+                size++;
+            }
+            keys[slot] = loanId;
+            entries[slot] = entry;
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            int[] oldEntries = entries;
+            keys = new long[oldKeys.length * 2];
+            entries = newEntries(keys.length);
+            size = 0;
+            for (int slot = 0; slot < oldKeys.length; slot++) {
+                if (oldEntries[slot] >= 0) {
+                    put(oldKeys[slot], oldEntries[slot]);
+                }
+            }
+        }
+
+        private static int[] newEntries(int capacity) {
+            int[] entries = new int[capacity];
+            Arrays.fill(entries, -1);
+            return entries;
+        }
+
+        private static int hash(long loanId) {
+            long h = loanId * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package creditpay;
+
+import creditpay.calculator.AnnuityCalculator;
+import creditpay.calculator.AtTheLastMomentCalculator;
+import creditpay.model.CreditTerms;
+import creditpay.model.InterestPeriod;
+import creditpay.model.PaymentSchedule;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.image.BufferedImage;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PaymentChartRendererTest {
+
+    @Test
+    public void imageIsReusedUntilScheduleOrSizeChanges() {
+        PaymentChartRenderer renderer = new PaymentChartRenderer();
+        PaymentSchedule schedule = new AnnuityCalculator().calculatePaymentSchedule(CreditTerms.sample());
+
+        BufferedImage first = renderer.image(schedule, 600, 200, 1);
+        assertSame(first, renderer.image(schedule, 600, 200, 1));
+
+        BufferedImage resized = renderer.image(schedule, 800, 200, 1);
+        assertNotSame(first, resized);
+        assertEquals(800, resized.getWidth());
+
+        BufferedImage hiDpi = renderer.image(schedule, 800, 200, 2);
+        assertEquals(1600, hiDpi.getWidth());
+        assertEquals(400, hiDpi.getHeight());
+
+        PaymentSchedule other = new AnnuityCalculator().calculatePaymentSchedule(CreditTerms.sample());
+        assertNotSame(hiDpi, renderer.image(other, 800, 200, 2));
+    }
+
+    @Test
+    public void binnedChartKeepsThePeakPayment() {
+        // nothing is paid until the last month, which repays everything at once
+        CreditTerms terms = new CreditTerms(new BigDecimal("1000000"), 600, new BigDecimal("5"),
+                new InterestPeriod(1), LocalDate.of(2024, 1, 1));
+        PaymentSchedule schedule = new AtTheLastMomentCalculator().calculatePaymentSchedule(terms);
+        int width = 480; // 400 pixel columns for 600 payments
+        int height = 200;
+
+        BufferedImage image = new PaymentChartRenderer().image(schedule, width, height, 1);
+
+        int lastColumn = width - 40 - 1;
+        int bottom = height - 40 - 1;
+        assertNotEquals(0, image.getRGB(lastColumn, bottom) >>> 24, "peak bar is drawn");
+        assertNotEquals(0, image.getRGB(lastColumn, 40 + 1) >>> 24, "peak bar reaches the top");
+        assertEquals(0, image.getRGB(width / 2, bottom - 1) >>> 24, "months without payments stay empty");
+    }
+}
@@ -0,0 +1,86 @@
+package creditpay;
+
+import creditpay.calculator.AnnuityCalculator;
+import creditpay.model.CreditTerms;
+import creditpay.model.InterestPeriod;
+import creditpay.model.PaymentSchedule;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PaymentTableModelTest {
+
+    @Test
+    public void readsRowsFromSchedule() {
+        PaymentSchedule schedule = new AnnuityCalculator().calculatePaymentSchedule(CreditTerms.sample());
+        PaymentTableModel model = new PaymentTableModel();
+
+        model.setSchedule(schedule);
+
+        assertEquals(schedule.size(), model.getRowCount());
+        assertEquals(7, model.getColumnCount());
+        int last = schedule.size() - 1;
+        assertEquals(last + 1, model.getValueAt(last, 0));
+        assertEquals(schedule.daysOfBorrowing(last), model.getValueAt(last, 1));
+        assertEquals(schedule.paymentDate(last), model.getValueAt(last, 2));
+        assertEquals("0.00", model.getValueAt(last, 6));
+
+        model.clear();
+        assertEquals(0, model.getRowCount());
+    }
+
+    @Test
+    public void appendedPartsMatchWholeSchedule() {
+        CreditTerms terms = new CreditTerms(new BigDecimal("12345678.90"), 10_000, new BigDecimal("7.25"),
+                new InterestPeriod(10), LocalDate.of(2024, 3, 1));
+        PaymentSchedule schedule = new AnnuityCalculator().calculatePaymentSchedule(terms);
+        PaymentTableModel whole = new PaymentTableModel();
+        whole.setSchedule(schedule);
+
+        PaymentTableModel appended = new PaymentTableModel();
+        int partSize = 256;
+        for (int from = 0; from < schedule.size(); from += partSize) {
+            PaymentSchedule.Builder part = PaymentSchedule.builder(partSize);
+            for (int i = from; i < Math.min(from + partSize, schedule.size()); i++) {
+                part.add(schedule.daysOfBorrowing(i), schedule.paymentEpochDay(i), schedule.totalPayment(i),
+                        schedule.interest(i), schedule.principalRepaid(i), schedule.remainingDebt(i));
+            }
+            appended.appendRows(part.build());
+        }
+
+        assertEquals(10_000, appended.getRowCount());
+        for (int row = 0; row < schedule.size(); row += 997) {
+            for (int column = 0; column < whole.getColumnCount(); column++) {
+                assertEquals(whole.getValueAt(row, column), appended.getValueAt(row, column), row + ":" + column);
+            }
+        }
+    }
+
+    @Test
+    public void deserializedModelIsEmpty() throws Exception {
+        PaymentSchedule schedule = new AnnuityCalculator().calculatePaymentSchedule(CreditTerms.sample());
+        PaymentTableModel model = new PaymentTableModel();
+        model.setSchedule(schedule);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(model);
+        }
+        PaymentTableModel copy;
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            copy = (PaymentTableModel) in.readObject();
+        }
+
+        assertEquals(0, copy.getRowCount());
+        copy.setSchedule(schedule);
+        assertEquals(schedule.size(), copy.getRowCount());
+    }
+}
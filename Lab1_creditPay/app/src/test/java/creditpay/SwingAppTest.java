@@ -0,0 +1,46 @@
+package creditpay;
+
+import org.junit.jupiter.api.Test;
+
+import javax.swing.SwingUtilities;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SwingAppTest {
+
+    @Test
+    public void loadingTermsEnablesCalculateAndCompare() throws Exception {
+        Path file = Files.createTempFile("credit-terms", ".xlsx");
+        try {
+            try (InputStream in = getClass().getClassLoader().getResourceAsStream("excel/exampleData.xlsx")) {
+                Files.copy(in, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+            SwingApp app = new SwingApp();
+            SwingUtilities.invokeAndWait(() -> {
+                app.createContent();
+                assertFalse(app.isCalculateEnabled());
+                assertFalse(app.isCompareEnabled());
+                app.loadCreditTerms(file.toFile());
+            });
+
+            AtomicBoolean busy = new AtomicBoolean(true);
+            for (int i = 0; i < 300 && busy.get(); i++) {
+                Thread.sleep(100);
+                SwingUtilities.invokeAndWait(() -> busy.set(app.isBusy()));
+            }
+            assertFalse(busy.get(), "loading did not finish");
+
+            SwingUtilities.invokeAndWait(() -> {
+                assertTrue(app.isCalculateEnabled());
+                assertTrue(app.isCompareEnabled());
+            });
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package creditpay.batch;
+
+import creditpay.calculator.CalculatorRegistry;
+import creditpay.calculator.MortgageScheduleCalculator;
+import creditpay.io.BinaryPaymentReader;
+import creditpay.io.CsvPaymentWriter;
+import creditpay.model.CreditTerms;
+import creditpay.model.InterestPeriod;
+import creditpay.model.Payment;
+
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.usermodel.WorkbookFactory;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Test;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BatchPipelineTest {
+
+    @Test
+    public void everyLoanIsWrittenOncePerMethodAndBrokenBooksAreReported() throws Exception {
+        Path input = Files.createTempDirectory("batch-in");
+        Path output = input.resolveSibling(input.getFileName() + "-out");
+        try {
+            copyResource("excel/exampleData.xlsx", input.resolve("example.xlsx"));
+            copyResource("excel/small.xlsx", input.resolve("small.xlsx"));
+            Files.writeString(input.resolve("broken.xlsx"), "not a workbook");
+            Files.writeString(input.resolve("notes.txt"), "ignored");
+
+            List<MortgageScheduleCalculator> calculators = CalculatorRegistry.discoverCalculators();
+            BatchOptions options = new BatchOptions(input, output, BatchOptions.ALL_METHODS, OutputFormat.CSV, 2, 2, 2, 1);
+            BatchReport report = new BatchPipeline(options, calculators).run();
+
+            assertEquals(3, report.getFiles());
+            assertEquals(2, report.getStage(BatchPipeline.READ_STAGE).getItems());
+            assertEquals(1, report.getStage(BatchPipeline.READ_STAGE).getFailures());
+            assertEquals(2L * calculators.size(), report.getStage(BatchPipeline.CALCULATE_STAGE).getItems());
+            assertEquals(2L * calculators.size(), report.getStage(BatchPipeline.WRITE_STAGE).getItems());
+            assertEquals(1, report.getErrors().size());
+            assertTrue(report.getErrors().get(0).contains("broken.xlsx"));
+
+            try (Stream<Path> files = Files.list(output)) {
+                List<String> names = files.map(file -> file.getFileName().toString()).sorted().toList();
+                assertEquals(2 * calculators.size(), names.size());
+                String slug = BatchPipeline.slug(calculators.get(0).getDisplayName());
+                assertTrue(names.contains("example-" + slug + ".csv"), names.toString());
+                assertTrue(names.contains("small-" + slug + ".csv"), names.toString());
+            }
+        } finally {
+            deleteRecursively(input);
+            deleteRecursively(output);
+        }
+    }
+
+    @Test
+    public void everyFormatWritesOneFilePerBookAndMethod() throws Exception {
+        Path input = Files.createTempDirectory("batch-in");
+        Path output = input.resolveSibling(input.getFileName() + "-out");
+        try {
+            List<CreditTerms> loans = new ArrayList<>();
+            for (int i = 0; i < 30; i++) {
+                loans.add(new CreditTerms(BigDecimal.valueOf(100_000 + 10_000L * i), 6 + i, new BigDecimal("9.5"),
+                    new InterestPeriod(1 + i % 28), LocalDate.of(2024, 1 + i % 12, 1 + i % 28)));
+            }
+            writeBook(input.resolve("book.xlsx"), loans);
+            List<MortgageScheduleCalculator> calculators = CalculatorRegistry.discoverCalculators();
+
+            for (OutputFormat format : OutputFormat.values()) {
+                BatchOptions options = new BatchOptions(input, output, BatchOptions.ALL_METHODS, format, 1, 2, 2, 1);
+                BatchReport report = new BatchPipeline(options, calculators).run();
+                assertEquals(List.of(), report.getErrors());
+
+                for (MortgageScheduleCalculator calculator : calculators) {
+                    Path file = output.resolve("book-" + BatchPipeline.slug(calculator.getDisplayName())
+                        + "." + format.getExtension());
+                    Map<Integer, Integer> expected = new HashMap<>();
+                    for (int i = 0; i < loans.size(); i++) {
+                        expected.put(i + 1, calculator.calculatePaymentSchedule(loans.get(i)).size());
+                    }
+                    assertEquals(expected, rowsByLoan(format, file), file.toString());
+                }
+                try (Stream<Path> files = Files.list(output)) {
+                    assertEquals(calculators.size(), files.count());
+                }
+                deleteRecursively(output);
+            }
+        } finally {
+            deleteRecursively(input);
+            deleteRecursively(output);
+        }
+    }
+
+    @Test
+    public void parsesCommandLine() {
+        BatchOptions options = BatchOptions.parse(new String[] {
+            "in", "out", "--format=bin", "--readers=3", "--calculators=4", "--writers=5", "--queue=7"});
+
+        assertEquals(Path.of("in"), options.inputDirectory);
+        assertEquals(Path.of("out"), options.outputDirectory);
+        assertEquals(BatchOptions.ALL_METHODS, options.method);
+        assertEquals(OutputFormat.BINARY, options.format);
+        assertEquals(3, options.readers);
+        assertEquals(4, options.calculators);
+        assertEquals(5, options.writers);
+        assertEquals(7, options.queueCapacity);
+
+        assertThrows(IllegalArgumentException.class, () -> BatchOptions.parse(new String[] {"in"}));
+        assertThrows(IllegalArgumentException.class, () -> BatchOptions.parse(new String[] {"in", "out", "--format=pdf"}));
+        assertThrows(IllegalArgumentException.class, () -> BatchOptions.parse(new String[] {"in", "out", "--writers=0"}));
+    }
+
+    @Test
+    public void selectsCalculatorByNameIgnoringCase() {
+        List<MortgageScheduleCalculator> calculators = CalculatorRegistry.discoverCalculators();
+        MortgageScheduleCalculator first = calculators.get(0);
+
+        assertEquals(calculators, BatchPipeline.selectCalculators(calculators, "ALL"));
+        assertEquals(List.of(first),
+            BatchPipeline.selectCalculators(calculators, first.getDisplayName().toUpperCase()));
+        assertThrows(IllegalArgumentException.class, () -> BatchPipeline.selectCalculators(calculators, "no such method"));
+    }
+
+    @Test
+    public void crashedStageStopsTheRun() throws Exception {
+        Path input = Files.createTempDirectory("batch-in");
+        Path output = input.resolveSibling(input.getFileName() + "-out");
+        try {
+            for (int i = 0; i < 5; i++) {
+                copyResource("excel/small.xlsx", input.resolve("small-" + i + ".xlsx"));
+            }
+            MortgageScheduleCalculator crashing = new MortgageScheduleCalculator() {
+                @Override
+                public String getDisplayName() {
+                    return "Crashing";
+                }
+
+                @Override
+                protected List<Payment> computeSchedule(CreditTerms terms) {
+                    throw new AssertionError("calculator crashed");
+                }
+            };
+            BatchOptions options = new BatchOptions(input, output, BatchOptions.ALL_METHODS, OutputFormat.CSV, 1, 1, 1, 1);
+
+            BatchReport report = assertTimeoutPreemptively(Duration.ofSeconds(30),
+                () -> new BatchPipeline(options, List.of(crashing)).run());
+
+            assertTrue(report.getErrors().stream().anyMatch(error -> error.contains("calculator crashed")),
+                report.getErrors().toString());
+        } finally {
+            deleteRecursively(input);
+            deleteRecursively(output);
+        }
+    }
+
+    private static Map<Integer, Integer> rowsByLoan(OutputFormat format, Path file) throws Exception {
+        Map<Integer, Integer> rows = new HashMap<>();
+        switch (format) {
+            case CSV -> {
+                List<String> lines = Files.readAllLines(file);
+                assertEquals(CsvPaymentWriter.LOAN_HEADER.trim(), lines.get(0));
+                for (String line : lines.subList(1, lines.size())) {
+                    rows.merge(Integer.parseInt(line.substring(0, line.indexOf(','))), 1, Integer::sum);
+                }
+            }
+            case BINARY -> BinaryPaymentReader.read(file, (schedule, loanNumber) -> rows.put(loanNumber, schedule.size()));
+            case XLSX -> {
+                try (Workbook wb = WorkbookFactory.create(file.toFile())) {
+                    for (Sheet sheet : wb) {
+                        rows.put(Integer.parseInt(sheet.getSheetName().substring("Кредит ".length())),
+                            sheet.getLastRowNum() - 1);
+                    }
+                }
+            }
+        }
+        return rows;
+    }
+
+    private static void writeBook(Path file, List<CreditTerms> loans) throws Exception {
+        try (XSSFWorkbook workbook = new XSSFWorkbook(); OutputStream out = Files.newOutputStream(file)) {
+            Sheet sheet = workbook.createSheet("Кредиты");
+            Row header = sheet.createRow(0);
+            String[] headers = {"сумма", "срок", "ставка", "дата выдачи", "платеж"};
+            for (int i = 0; i < headers.length; i++) {
+                header.createCell(i).setCellValue(headers[i]);
+            }
+            for (int r = 0; r < loans.size(); r++) {
+                CreditTerms loan = loans.get(r);
+                String[] values = {loan.getPrincipal().toPlainString(), String.valueOf(loan.getTermMonths()),
+                    loan.getAnnualRatePercent().toPlainString(), loan.getStartDate().format(DateTimeFormatter.ofPattern("dd.MM.yyyy")),
+                    String.valueOf(loan.getInterestPeriod().getPaymentDay())};
+                Row row = sheet.createRow(r + 1);
+                for (int i = 0; i < values.length; i++) {
+                    row.createCell(i).setCellValue(values[i]);
+                }
+            }
+            workbook.write(out);
+        }
+    }
+
+    private void copyResource(String resource, Path target) throws Exception {
+        try (InputStream in = getClass().getClassLoader().getResourceAsStream(resource)) {
+            Files.copy(in, target);
+        }
+    }
+
+    private static void deleteRecursively(Path directory) throws Exception {
+        if (!Files.exists(directory)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package creditpay.calculator;
+
+import creditpay.model.CreditTerms;
+import creditpay.model.InterestPeriod;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AnnuityFactorTableTest {
+    private static final AnnuityFactorTable TABLE = AnnuityFactorTable.build(
+            new BigDecimal("5.00"), new BigDecimal("10.00"), new BigDecimal("0.05"), AnnuityFactorTable.DEFAULT_MAX_TERM);
+
+    @Test
+    public void gridQuotesMatchExactComputation() {
+        AnnuityCalculator exact = new AnnuityCalculator();
+        AnnuityCalculator tabulated = new AnnuityCalculator(TABLE);
+        BigDecimal principal = new BigDecimal("9200000.00");
+        for (String rate : new String[]{"5", "7.45", "8.10", "10.00"}) {
+            for (int term = 1; term <= AnnuityFactorTable.DEFAULT_MAX_TERM; term += 37) {
+                assertNotNull(TABLE.coefficient(new BigDecimal(rate), term));
+                assertEquals(exact.quoteMonthlyPayment(principal, new BigDecimal(rate), term),
+                        tabulated.quoteMonthlyPayment(principal, new BigDecimal(rate), term));
+            }
+        }
+    }
+
+    @Test
+    public void offGridFallsBackToExactComputation() {
+        assertNull(TABLE.coefficient(new BigDecimal("7.47"), 276));
+        assertNull(TABLE.coefficient(new BigDecimal("10.05"), 276));
+        assertNull(TABLE.coefficient(new BigDecimal("7.45"), 601));
+
+        CreditTerms terms = new CreditTerms(new BigDecimal("1000000"), 120, new BigDecimal("12.3"),
+                new InterestPeriod(1), LocalDate.of(2024, 1, 1));
+        assertEquals(new AnnuityCalculator().quoteMonthlyPayment(terms), new AnnuityCalculator(TABLE).quoteMonthlyPayment(terms));
+    }
+
+    @Test
+    public void scheduleUsesTableTransparently() {
+        assertEquals(new AnnuityCalculator().calculateSchedule(CreditTerms.sample()).get(100).totalPayment,
+                new AnnuityCalculator(TABLE).calculateSchedule(CreditTerms.sample()).get(100).totalPayment);
+    }
+
+    @Test
+    public void savesAndLoads() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        TABLE.save(out);
+
+        AnnuityFactorTable loaded = AnnuityFactorTable.load(new ByteArrayInputStream(out.toByteArray()));
+
+        assertEquals(TABLE.getRateCount(), loaded.getRateCount());
+        assertEquals(TABLE.coefficient(new BigDecimal("7.45"), 276), loaded.coefficient(new BigDecimal("7.45"), 276));
+    }
+}
@@ -0,0 +1,75 @@
+package creditpay.calculator;
+
+import creditpay.model.CreditTerms;
+import creditpay.model.Payment;
+import creditpay.model.PaymentSchedule;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CalculatorComparisonTest {
+
+    @Test
+    public void summariesMatchTheSchedules() {
+        CreditTerms terms = CreditTerms.sample();
+        List<MortgageScheduleCalculator> calculators = CalculatorRegistry.discoverCalculators();
+
+        CalculatorComparison.Result result = CalculatorComparison.compare(terms, calculators);
+
+        assertEquals(calculators.size(), result.summaries.size());
+        long principal = FixedPoint.toKopecks(terms.getPrincipal());
+        for (int m = 0; m < calculators.size(); m++) {
+            PaymentSchedule schedule = calculators.get(m).calculatePaymentSchedule(terms);
+            CalculatorComparison.Summary summary = result.summaries.get(m);
+            long total = 0;
+            long peak = 0;
+            for (int i = 0; i < schedule.size(); i++) {
+                total += schedule.totalPayment(i);
+                peak = Math.max(peak, schedule.totalPayment(i));
+                assertEquals(schedule.totalPayment(i), result.payment(i, m));
+            }
+            assertSame(calculators.get(m), summary.calculator);
+            assertEquals(schedule.size(), summary.payments);
+            assertEquals(total, summary.totalPaid);
+            assertEquals(total - principal, summary.overpayment);
+            assertEquals(peak, summary.peakPayment);
+            assertEquals(peak, schedule.totalPayment(summary.peakIndex));
+            assertEquals(schedule.paymentDate(schedule.size() - 1), summary.payoffDate);
+        }
+        for (int p = 0; p < result.periods; p++) {
+            assertEquals(0, result.difference(p, 0));
+        }
+        assertTrue(result.formatSummary().contains(calculators.get(0).getDisplayName()));
+        assertEquals(result.periods + 1, result.formatDifferences().lines().count());
+    }
+
+    @Test
+    public void shorterSchedulesAreAlignedByPeriod() {
+        CreditTerms terms = CreditTerms.sample();
+        MortgageScheduleCalculator annuity = new AnnuityCalculator();
+        MortgageScheduleCalculator firstHalf = new MortgageScheduleCalculator() {
+            @Override
+            public String getDisplayName() {
+                return "First half";
+            }
+
+            @Override
+            protected List<Payment> computeSchedule(CreditTerms terms) {
+                List<Payment> payments = annuity.calculateSchedule(terms);
+                return payments.subList(0, payments.size() / 2);
+            }
+        };
+
+        CalculatorComparison.Result result = CalculatorComparison.compare(terms, List.of(annuity, firstHalf));
+
+        int last = result.periods - 1;
+        assertEquals(terms.getTermMonths(), result.periods);
+        assertEquals(CalculatorComparison.NO_PAYMENT, result.payment(last, 1));
+        assertEquals(-result.payment(last, 0), result.difference(last, 1));
+        assertEquals(0, result.difference(0, 1));
+        assertEquals(result.summaries.get(0).payoffDate, result.paymentDate(last));
+    }
+}
@@ -0,0 +1,71 @@
+package creditpay.calculator;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CalculatorRegistryTest {
+
+    @Test
+    public void builtInCalculatorsAreListedInServiceFileOrder() {
+        List<MortgageScheduleCalculator> calculators = CalculatorRegistry.discoverCalculators();
+
+        assertEquals(3, calculators.size());
+        assertInstanceOf(AnnuityCalculator.class, calculators.get(0));
+        assertInstanceOf(DifferentiatedCalculator.class, calculators.get(1));
+        assertInstanceOf(AtTheLastMomentCalculator.class, calculators.get(2));
+    }
+
+    @Test
+    public void missingPluginDirectoryMeansNoPlugins() {
+        List<MortgageScheduleCalculator> calculators =
+            CalculatorRegistry.discoverCalculators(Path.of("no-such-plugin-directory"));
+
+        assertEquals(3, calculators.size());
+    }
+
+    @Test
+    public void brokenServiceEntryIsSkippedAndCalculatorsAreCreatedOnFirstUse() throws IOException {
+        Path directory = Files.createTempDirectory("calculator-plugins");
+        Path services = directory.resolve("META-INF/services/" + MortgageScheduleCalculator.class.getName());
+        Files.createDirectories(services.getParent());
+        Files.writeString(services, "creditpay.calculator.NoSuchCalculator\n" + CountingCalculator.class.getName() + "\n");
+        CountingCalculator.created.set(0);
+
+        try (URLClassLoader loader = new URLClassLoader(new URL[] {directory.toUri().toURL()}, getClass().getClassLoader())) {
+            CalculatorRegistry registry = CalculatorRegistry.load(loader);
+            assertEquals(4, registry.providerCount());
+            assertEquals(0, CountingCalculator.created.get());
+
+            assertInstanceOf(DifferentiatedCalculator.class, registry.find("differentiated").orElseThrow());
+            assertEquals(0, CountingCalculator.created.get());
+
+            List<MortgageScheduleCalculator> calculators = registry.calculators();
+            assertEquals(4, calculators.size());
+            assertInstanceOf(CountingCalculator.class, calculators.get(3));
+            assertSame(calculators.get(3), registry.find("Counting").orElseThrow());
+            assertEquals(1, CountingCalculator.created.get());
+        }
+    }
+
+    public static class CountingCalculator extends AnnuityCalculator {
+        static final AtomicInteger created = new AtomicInteger();
+
+        public CountingCalculator() {
+            created.incrementAndGet();
+        }
+
+        @Override
+        public String getDisplayName() {
+            return "Counting";
+        }
+    }
+}
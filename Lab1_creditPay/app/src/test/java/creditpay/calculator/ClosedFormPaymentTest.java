@@ -0,0 +1,82 @@
+package creditpay.calculator;
+
+import creditpay.model.CreditTerms;
+import creditpay.model.InterestPeriod;
+import creditpay.model.Payment;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ClosedFormPaymentTest {
+    private static final BigDecimal EPSILON = new BigDecimal("1E-18");
+
+    @Test
+    public void annuityPaymentMatchesSchedule() {
+        assertMatchesSchedule(new AnnuityCalculator());
+    }
+
+    @Test
+    public void differentiatedPaymentMatchesSchedule() {
+        assertMatchesSchedule(new DifferentiatedCalculator());
+    }
+
+    @Test
+    public void atTheLastMomentPaymentMatchesSchedule() {
+        assertMatchesSchedule(new AtTheLastMomentCalculator());
+    }
+
+    @Test
+    public void rangeSkipsPrefix() {
+        MortgageScheduleCalculator calculator = new AnnuityCalculator();
+        CreditTerms terms = CreditTerms.sample();
+        List<Payment> range = calculator.calculatePayments(terms, 239, 276);
+        assertEquals(37, range.size());
+        assertEquals(0, range.get(range.size() - 1).remainingDebt.signum());
+        assertThrows(IndexOutOfBoundsException.class, () -> calculator.calculatePayment(terms, 276));
+    }
+
+    @Test
+    public void zeroRateAnnuityRepaysEqualParts() {
+        AnnuityCalculator calculator = new AnnuityCalculator();
+        CreditTerms terms = new CreditTerms(new BigDecimal("1200000"), 36, BigDecimal.ZERO,
+            new InterestPeriod(15), LocalDate.of(2024, 1, 10));
+
+        assertEquals(0, new BigDecimal("33333.33").compareTo(calculator.quoteMonthlyPayment(terms)));
+        List<Payment> schedule = calculator.calculateSchedule(terms);
+        assertEquals(36, schedule.size());
+        for (Payment payment : schedule) {
+            assertEquals(0, payment.interest.signum());
+        }
+        assertEquals(0, schedule.get(35).remainingDebt.signum());
+        assertEquals(0, schedule.get(35).remainingDebt.compareTo(calculator.calculatePayment(terms, 35).remainingDebt));
+        assertEquals(36, calculator.calculatePaymentSchedule(terms).size());
+    }
+
+    private static void assertMatchesSchedule(MortgageScheduleCalculator calculator) {
+        List<CreditTerms> allTerms = List.of(
+            CreditTerms.sample(),
+            new CreditTerms(new BigDecimal("123456.78"), 30, new BigDecimal("19.9"), new InterestPeriod(31), LocalDate.of(2024, 1, 31)));
+        for (CreditTerms terms : allTerms) {
+            List<Payment> schedule = calculator.calculateSchedule(terms);
+            for (int i = 0; i < schedule.size(); i++) {
+                Payment expected = schedule.get(i);
+                Payment actual = calculator.calculatePayment(terms, i);
+                assertEquals(expected.daysOfBorrowing, actual.daysOfBorrowing);
+                assertEquals(expected.paymentDate, actual.paymentDate);
+                assertClose(expected.totalPayment, actual.totalPayment);
+                assertClose(expected.interest, actual.interest);
+                assertClose(expected.principalRepaid, actual.principalRepaid);
+                assertClose(expected.remainingDebt, actual.remainingDebt);
+            }
+        }
+    }
+
+    private static void assertClose(BigDecimal expected, BigDecimal actual) {
+        assertTrue(expected.subtract(actual).abs().compareTo(EPSILON) <= 0, expected + " != " + actual);
+    }
+}
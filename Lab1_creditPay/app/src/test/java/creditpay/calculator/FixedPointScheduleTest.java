@@ -0,0 +1,57 @@
+package creditpay.calculator;
+
+import creditpay.model.CreditTerms;
+import creditpay.model.InterestPeriod;
+import creditpay.model.Payment;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FixedPointScheduleTest {
+    private static final List<CreditTerms> TERMS = List.of(
+        CreditTerms.sample(),
+        new CreditTerms(new BigDecimal("123456.78"), 12, new BigDecimal("19.9"), new InterestPeriod(31), LocalDate.of(2024, 1, 31)),
+        new CreditTerms(new BigDecimal("50000000"), 600, new BigDecimal("12.5"), new InterestPeriod(5), LocalDate.of(2020, 3, 5)));
+
+    @Test
+    public void annuityMatchesBigDecimalWithinOneKopeck() {
+        assertWithinOneKopeck(new AnnuityCalculator());
+    }
+
+    @Test
+    public void differentiatedMatchesBigDecimalWithinOneKopeck() {
+        assertWithinOneKopeck(new DifferentiatedCalculator());
+    }
+
+    @Test
+    public void atTheLastMomentMatchesBigDecimalWithinOneKopeck() {
+        assertWithinOneKopeck(new AtTheLastMomentCalculator());
+    }
+
+    private static void assertWithinOneKopeck(MortgageScheduleCalculator calculator) {
+        for (CreditTerms terms : TERMS) {
+            List<Payment> expected = calculator.calculateSchedule(terms);
+            int[] rows = {0};
+            calculator.calculateFixedPointSchedule(terms, (index, days, epochDay, total, interest, principal, remaining) -> {
+                Payment payment = expected.get(index);
+                assertEquals(payment.daysOfBorrowing, days);
+                assertEquals(payment.paymentDate.toEpochDay(), epochDay);
+                assertKopecks(FixedPoint.toKopecks(payment.totalPayment), total);
+                assertKopecks(FixedPoint.toKopecks(payment.interest), interest);
+                assertKopecks(FixedPoint.toKopecks(payment.principalRepaid), principal);
+                assertKopecks(FixedPoint.toKopecks(payment.remainingDebt), remaining);
+                rows[0]++;
+            });
+            assertEquals(expected.size(), rows[0]);
+        }
+    }
+
+    private static void assertKopecks(long expected, long actual) {
+        assertTrue(Math.abs(expected - actual) <= 1, () -> "expected " + expected + " ± 1 kopeck but was " + actual);
+    }
+}
@@ -0,0 +1,102 @@
+package creditpay.calculator;
+
+import creditpay.calculator.GoalSeekSolver.Method;
+import creditpay.calculator.GoalSeekSolver.Target;
+import creditpay.model.CreditTerms;
+import creditpay.model.InterestPeriod;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GoalSeekSolverTest {
+    private static final double PRINCIPAL = 9_200_000;
+    private static final double[] RATES = {0, 0.5, 3.5, 7.45, 16, 48};
+    private static final int[] TERMS = {1, 12, 60, 276, 600};
+
+    @Test
+    public void invertsTheSweepFormulas() {
+        for (Method method : Method.values()) {
+            RateSensitivitySweep.Result sweep = method == Method.ANNUITY
+                ? RateSensitivitySweep.annuityScalar(PRINCIPAL, RATES, TERMS)
+                : RateSensitivitySweep.differentiatedScalar(PRINCIPAL, RATES, TERMS);
+            for (int t = 0; t < TERMS.length; t++) {
+                for (int r = 0; r < RATES.length; r++) {
+                    double payment = sweep.monthlyPayment(t, r);
+                    double overpayment = sweep.totalOverpayment(t, r);
+                    String cell = method + " " + TERMS[t] + " months at " + RATES[r] + "%";
+
+                    assertEquals(RATES[r], GoalSeekSolver.solveRate(method, Target.MONTHLY_PAYMENT, payment, PRINCIPAL, TERMS[t]), 1e-9, cell);
+                    assertEquals(PRINCIPAL, GoalSeekSolver.solvePrincipal(method, Target.MONTHLY_PAYMENT, payment, RATES[r], TERMS[t]), 1e-3, cell);
+                    assertEquals(TERMS[t], GoalSeekSolver.solveTerm(method, Target.MONTHLY_PAYMENT, payment, PRINCIPAL, RATES[r]), cell);
+                    if (RATES[r] > 0) {
+                        assertEquals(RATES[r], GoalSeekSolver.solveRate(method, Target.TOTAL_OVERPAYMENT, overpayment, PRINCIPAL, TERMS[t]), 1e-9, cell);
+                        assertEquals(PRINCIPAL, GoalSeekSolver.solvePrincipal(method, Target.TOTAL_OVERPAYMENT, overpayment, RATES[r], TERMS[t]), 0.01, cell);
+                        assertEquals(TERMS[t], GoalSeekSolver.solveTerm(method, Target.TOTAL_OVERPAYMENT, overpayment, PRINCIPAL, RATES[r]), cell);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void termIsRoundedToTheSafeSide() {
+        double payment = 60_000;
+        int shortest = GoalSeekSolver.solveTerm(Method.ANNUITY, Target.MONTHLY_PAYMENT, payment, PRINCIPAL, 7.45);
+        double[] rates = {7.45};
+        assertTrue(RateSensitivitySweep.annuityScalar(PRINCIPAL, rates, new int[] {shortest}).monthlyPayment(0, 0) <= payment);
+        assertTrue(RateSensitivitySweep.annuityScalar(PRINCIPAL, rates, new int[] {shortest - 1}).monthlyPayment(0, 0) > payment);
+
+        double overpayment = 5_000_000;
+        int longest = GoalSeekSolver.solveTerm(Method.ANNUITY, Target.TOTAL_OVERPAYMENT, overpayment, PRINCIPAL, 7.45);
+        assertTrue(RateSensitivitySweep.annuityScalar(PRINCIPAL, rates, new int[] {longest}).totalOverpayment(0, 0) <= overpayment);
+        assertTrue(RateSensitivitySweep.annuityScalar(PRINCIPAL, rates, new int[] {longest + 1}).totalOverpayment(0, 0) > overpayment);
+    }
+
+    @Test
+    public void solvedRateReproducesTheQuotedPayment() {
+        AnnuityCalculator calculator = new AnnuityCalculator();
+        CreditTerms sample = CreditTerms.sample();
+        BigDecimal quote = calculator.quoteMonthlyPayment(sample);
+
+        double rate = GoalSeekSolver.solveRate(Method.ANNUITY, Target.MONTHLY_PAYMENT, quote.doubleValue(),
+            sample.getPrincipal().doubleValue(), sample.getTermMonths());
+
+        CreditTerms solved = new CreditTerms(sample.getPrincipal(), sample.getTermMonths(), BigDecimal.valueOf(rate),
+            new InterestPeriod(26), LocalDate.of(2022, 9, 22));
+        assertEquals(0, quote.compareTo(calculator.quoteMonthlyPayment(solved)));
+    }
+
+    @Test
+    public void highRatesDoNotOverflow() {
+        // at 200% a month over 100 years q^n overflows a double, while a(r) is just r
+        assertEquals(2400.0, GoalSeekSolver.solveRate(Method.ANNUITY, Target.MONTHLY_PAYMENT, 2_000_000, 1_000_000, 1200), 1e-9);
+        assertEquals(1_000_000, GoalSeekSolver.solvePrincipal(Method.ANNUITY, Target.MONTHLY_PAYMENT, 2_000_000, 2400, 1200), 1e-6);
+        assertEquals(600, GoalSeekSolver.solveTerm(Method.ANNUITY, Target.TOTAL_OVERPAYMENT, 1_199_000_000.0, 1_000_000, 2400));
+    }
+
+    @Test
+    public void unreachableGoals() {
+        // the interest alone is 9.2M * 7.45% / 12 = 57 116.67
+        assertThrows(IllegalArgumentException.class,
+            () -> GoalSeekSolver.solveTerm(Method.ANNUITY, Target.MONTHLY_PAYMENT, 57_000, PRINCIPAL, 7.45));
+        assertThrows(IllegalArgumentException.class,
+            () -> GoalSeekSolver.solveRate(Method.ANNUITY, Target.MONTHLY_PAYMENT, PRINCIPAL / 277, PRINCIPAL, 276));
+        assertThrows(IllegalArgumentException.class,
+            () -> GoalSeekSolver.solvePrincipal(Method.DIFFERENTIATED, Target.TOTAL_OVERPAYMENT, 1_000, 0, 276));
+        assertEquals(GoalSeekSolver.MAX_TERM_MONTHS,
+            GoalSeekSolver.solveTerm(Method.ANNUITY, Target.TOTAL_OVERPAYMENT, 1_000, PRINCIPAL, 0));
+
+        GoalSeekSolver.Grid grid = GoalSeekSolver.termGrid(Method.ANNUITY, Target.MONTHLY_PAYMENT, 60_000,
+            new double[] {5_000_000, PRINCIPAL}, new double[] {7.45, 9});
+        assertEquals(2, grid.rows);
+        assertTrue(grid.isSolved(0, 0));
+        assertTrue(grid.isSolved(0, 1));
+        assertFalse(grid.isSolved(1, 1));
+        double term = GoalSeekSolver.solveTerm(Method.ANNUITY, Target.MONTHLY_PAYMENT, 60_000, 5_000_000, 9);
+        assertEquals(term, grid.value(1, 0));
+    }
+}
@@ -0,0 +1,68 @@
+package creditpay.calculator;
+
+import creditpay.model.CreditTerms;
+import creditpay.model.Payment;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RateSensitivitySweepTest {
+    private static final double PRINCIPAL = 9_200_000;
+    private static final int[] TERMS = {12, 60, 120, 276, 600};
+
+    @Test
+    public void vectorMatchesScalarLoop() {
+        double[] rates = new double[203];
+        for (int i = 0; i < rates.length; i++) {
+            rates[i] = i * 0.125;
+        }
+
+        RateSensitivitySweep.Result annuity = RateSensitivitySweep.annuity(PRINCIPAL, rates, TERMS);
+        RateSensitivitySweep.Result annuityScalar = RateSensitivitySweep.annuityScalar(PRINCIPAL, rates, TERMS);
+        RateSensitivitySweep.Result differentiated = RateSensitivitySweep.differentiated(PRINCIPAL, rates, TERMS);
+        RateSensitivitySweep.Result differentiatedScalar = RateSensitivitySweep.differentiatedScalar(PRINCIPAL, rates, TERMS);
+
+        assertArrayEquals(annuityScalar.monthlyPayment, annuity.monthlyPayment, 1e-6);
+        assertArrayEquals(annuityScalar.totalOverpayment, annuity.totalOverpayment, 1e-4);
+        assertArrayEquals(differentiatedScalar.monthlyPayment, differentiated.monthlyPayment, 1e-6);
+        assertArrayEquals(differentiatedScalar.totalOverpayment, differentiated.totalOverpayment, 1e-4);
+        assertEquals(PRINCIPAL / 12, annuity.monthlyPayment(0, 0), 1e-9);
+    }
+
+    @Test
+    public void highRatesDoNotOverflow() {
+        double[] rates = new double[19];
+        Arrays.fill(rates, 2400.0);
+        int[] months = {1200};
+
+        for (RateSensitivitySweep.Result result : List.of(
+                RateSensitivitySweep.annuity(PRINCIPAL, rates, months),
+                RateSensitivitySweep.annuityScalar(PRINCIPAL, rates, months))) {
+            for (int i = 0; i < rates.length; i++) {
+                assertEquals(2 * PRINCIPAL, result.monthlyPayment(0, i), 1e-6);
+                assertEquals(2 * PRINCIPAL * 1200 - PRINCIPAL, result.totalOverpayment(0, i), 1e-3);
+            }
+        }
+    }
+
+    @Test
+    public void agreesWithScheduleCalculators() {
+        CreditTerms terms = CreditTerms.sample();
+        double[] rates = {terms.getAnnualRatePercent().doubleValue()};
+        int[] months = {terms.getTermMonths()};
+
+        List<Payment> annuity = new AnnuityCalculator().calculateSchedule(terms);
+        List<Payment> differentiated = new DifferentiatedCalculator().calculateSchedule(terms);
+
+        assertEquals(annuity.get(0).totalPayment.doubleValue(),
+                RateSensitivitySweep.annuity(PRINCIPAL, rates, months).monthlyPayment(0, 0), 0.01);
+        assertEquals(differentiated.get(0).totalPayment.doubleValue(),
+                RateSensitivitySweep.differentiated(PRINCIPAL, rates, months).monthlyPayment(0, 0), 0.01);
+        double overpayment = differentiated.stream().mapToDouble(p -> p.interest.doubleValue()).sum();
+        assertEquals(overpayment, RateSensitivitySweep.differentiated(PRINCIPAL, rates, months).totalOverpayment(0, 0), 1.0);
+    }
+}
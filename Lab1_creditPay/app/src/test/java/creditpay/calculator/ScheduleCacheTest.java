@@ -0,0 +1,78 @@
+package creditpay.calculator;
+
+import creditpay.model.CreditTerms;
+import creditpay.model.InterestPeriod;
+import creditpay.model.Payment;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ScheduleCacheTest {
+
+    @Test
+    public void creditTermsHaveValueEquality() {
+        CreditTerms a = new CreditTerms(new BigDecimal("9200000.00"), 276, new BigDecimal("7.45"),
+                new InterestPeriod(26), LocalDate.of(2022, 9, 22));
+        CreditTerms b = new CreditTerms(new BigDecimal("9200000"), 276, new BigDecimal("7.450"),
+                new InterestPeriod(26), LocalDate.of(2022, 9, 22));
+
+        assertEquals(a, b);
+        assertEquals(a.hashCode(), b.hashCode());
+        assertEquals(CreditTerms.sample(), a);
+        assertNotEquals(a, new CreditTerms(new BigDecimal("9200000"), 276, new BigDecimal("7.45"),
+                new InterestPeriod(25), LocalDate.of(2022, 9, 22)));
+    }
+
+    @Test
+    public void repeatedRequestsHitTheCache() {
+        ScheduleCache<List<Payment>> cache = ScheduleCache.forPayments(1_000);
+        MortgageScheduleCalculator annuity = new AnnuityCalculator();
+        MortgageScheduleCalculator differentiated = new DifferentiatedCalculator();
+
+        List<Payment> first = cache.get(annuity, CreditTerms.sample());
+        List<Payment> second = cache.get(annuity, CreditTerms.sample());
+        List<Payment> other = cache.get(differentiated, CreditTerms.sample());
+
+        assertSame(first, second);
+        assertNotSame(first, other);
+        assertEquals(1, cache.hitCount());
+        assertEquals(2, cache.missCount());
+        assertEquals(2 * 276, cache.weight());
+    }
+
+    @Test
+    public void differentlyConfiguredInstancesDoNotShareEntries() {
+        ScheduleCache<List<Payment>> cache = ScheduleCache.forPayments(1_000);
+
+        List<Payment> plain = cache.get(new AnnuityCalculator(), CreditTerms.sample());
+        List<Payment> tabled = cache.get(new AnnuityCalculator(
+                AnnuityFactorTable.build(new BigDecimal("7"), new BigDecimal("8"), new BigDecimal("0.05"), 300)), CreditTerms.sample());
+
+        assertNotSame(plain, tabled);
+        assertEquals(0, cache.hitCount());
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsedByWeight() {
+        ScheduleCache<List<Payment>> cache = ScheduleCache.forPayments(600);
+        MortgageScheduleCalculator annuity = new AnnuityCalculator();
+        MortgageScheduleCalculator differentiated = new DifferentiatedCalculator();
+        MortgageScheduleCalculator lastMoment = new AtTheLastMomentCalculator();
+
+        cache.get(annuity, CreditTerms.sample());
+        cache.get(differentiated, CreditTerms.sample());
+        cache.get(annuity, CreditTerms.sample());
+        cache.get(lastMoment, CreditTerms.sample());
+
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.evictionCount());
+        cache.get(annuity, CreditTerms.sample());
+        assertEquals(2, cache.hitCount());
+    }
+}
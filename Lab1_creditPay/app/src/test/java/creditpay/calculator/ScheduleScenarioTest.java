@@ -0,0 +1,127 @@
+package creditpay.calculator;
+
+import creditpay.model.CreditTerms;
+import creditpay.model.Payment;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ScheduleScenarioTest {
+    private static final BigDecimal EPSILON = new BigDecimal("1E-6");
+
+    @Test
+    public void noEventsKeepsSchedule() {
+        MortgageScheduleCalculator calculator = new AnnuityCalculator();
+        List<Payment> schedule = calculator.calculateSchedule(CreditTerms.sample());
+
+        assertEquals(schedule, ScheduleScenario.apply(calculator, CreditTerms.sample(), schedule, List.of()));
+    }
+
+    @Test
+    public void rateChangeToSameRateReproducesSuffix() {
+        MortgageScheduleCalculator calculator = new DifferentiatedCalculator();
+        CreditTerms terms = CreditTerms.sample();
+        List<Payment> schedule = calculator.calculateSchedule(terms);
+
+        List<Payment> result = ScheduleScenario.apply(calculator, terms, schedule,
+                List.of(ScheduleEvent.rateChange(100, terms.getAnnualRatePercent())));
+
+        assertEquals(schedule.size(), result.size());
+        assertSame(schedule.get(98), result.get(98));
+        for (int i = 99; i < schedule.size(); i++) {
+            assertEquals(schedule.get(i).paymentDate, result.get(i).paymentDate);
+            assertEquals(schedule.get(i).daysOfBorrowing, result.get(i).daysOfBorrowing);
+            assertTrue(schedule.get(i).totalPayment.subtract(result.get(i).totalPayment).abs().compareTo(EPSILON) < 0);
+        }
+    }
+
+    @Test
+    public void prepaymentLowersAnnuityPayment() {
+        MortgageScheduleCalculator calculator = new AnnuityCalculator();
+        CreditTerms terms = CreditTerms.sample();
+        List<Payment> schedule = calculator.calculateSchedule(terms);
+        Payment paid = schedule.get(11);
+
+        List<Payment> result = ScheduleScenario.apply(calculator, terms, schedule,
+                List.of(ScheduleEvent.prepayment(paid.paymentDate.plusDays(3), new BigDecimal("1000000"))));
+
+        assertEquals(schedule.size(), result.size());
+        assertSame(paid, result.get(11));
+        assertTrue(result.get(12).totalPayment.compareTo(schedule.get(12).totalPayment) < 0);
+        assertEquals(0, result.get(result.size() - 1).remainingDebt.signum());
+        BigDecimal expectedDebt = paid.remainingDebt.subtract(new BigDecimal("1000000")).subtract(result.get(12).principalRepaid);
+        assertEquals(0, expectedDebt.compareTo(result.get(12).remainingDebt));
+    }
+
+    @Test
+    public void fullPrepaymentEndsSchedule() {
+        MortgageScheduleCalculator calculator = new AnnuityCalculator();
+        CreditTerms terms = CreditTerms.sample();
+        List<Payment> schedule = calculator.calculateSchedule(terms);
+        Payment paid = schedule.get(49);
+
+        List<Payment> result = ScheduleScenario.apply(calculator, terms, schedule,
+                List.of(ScheduleEvent.prepayment(paid.paymentDate, paid.remainingDebt)));
+
+        assertEquals(50, result.size());
+    }
+
+    @Test
+    public void eventsOutsideTheScheduleAreRejected() {
+        MortgageScheduleCalculator calculator = new AnnuityCalculator();
+        CreditTerms terms = CreditTerms.sample();
+        List<Payment> schedule = calculator.calculateSchedule(terms);
+        Payment last = schedule.get(schedule.size() - 1);
+
+        assertThrows(IllegalArgumentException.class, () -> ScheduleScenario.apply(calculator, terms, schedule,
+                List.of(ScheduleEvent.rateChange(schedule.size() + 1, new BigDecimal("5")))));
+        assertThrows(IllegalArgumentException.class, () -> ScheduleScenario.apply(calculator, terms, schedule,
+                List.of(ScheduleEvent.prepayment(last.paymentDate, BigDecimal.ONE))));
+        assertEquals(schedule.size(), ScheduleScenario.apply(calculator, terms, schedule,
+                List.of(ScheduleEvent.rateChange(schedule.size(), new BigDecimal("5")))).size());
+    }
+
+    @Test
+    public void atTheLastMomentRateChangeToSameRateReproducesSchedule() {
+        MortgageScheduleCalculator calculator = new AtTheLastMomentCalculator();
+        CreditTerms terms = CreditTerms.sample();
+        List<Payment> schedule = calculator.calculateSchedule(terms);
+
+        List<Payment> result = ScheduleScenario.apply(calculator, terms, schedule,
+                List.of(ScheduleEvent.rateChange(100, terms.getAnnualRatePercent())));
+
+        assertEquals(schedule.size(), result.size());
+        for (int i = 99; i < schedule.size(); i++) {
+            assertEquals(schedule.get(i).paymentDate, result.get(i).paymentDate);
+            assertEquals(schedule.get(i).daysOfBorrowing, result.get(i).daysOfBorrowing);
+            assertEquals(0, schedule.get(i).remainingDebt.compareTo(result.get(i).remainingDebt));
+            assertEquals(0, schedule.get(i).totalPayment.compareTo(result.get(i).totalPayment));
+            assertEquals(0, schedule.get(i).interest.compareTo(result.get(i).interest));
+        }
+    }
+
+    @Test
+    public void prepaymentLowersAtTheLastMomentInterest() {
+        MortgageScheduleCalculator calculator = new AtTheLastMomentCalculator();
+        CreditTerms terms = CreditTerms.sample();
+        List<Payment> schedule = calculator.calculateSchedule(terms);
+        Payment paid = schedule.get(11);
+        BigDecimal prepayment = new BigDecimal("100000");
+
+        List<Payment> result = ScheduleScenario.apply(calculator, terms, schedule,
+                List.of(ScheduleEvent.prepayment(paid.paymentDate, prepayment)));
+
+        assertEquals(schedule.size(), result.size());
+        Payment last = result.get(result.size() - 1);
+        Payment original = schedule.get(schedule.size() - 1);
+        assertTrue(last.totalPayment.compareTo(original.totalPayment) < 0);
+        // the prepayment is smaller than the interest accrued so far, so the principal is untouched
+        assertEquals(0, terms.getPrincipal().compareTo(last.principalRepaid));
+        assertEquals(0, last.totalPayment.subtract(last.principalRepaid).compareTo(last.interest));
+        assertEquals(0, last.remainingDebt.signum());
+    }
+}
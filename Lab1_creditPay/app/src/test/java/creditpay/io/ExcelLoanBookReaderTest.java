@@ -0,0 +1,130 @@
+package creditpay.io;
+
+import creditpay.model.CreditTerms;
+import creditpay.model.InterestPeriod;
+
+import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Test;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ExcelLoanBookReaderTest {
+
+    @Test
+    public void streamingReaderMatchesWorkbookReader() throws Exception {
+        for (String file : List.of("excel/exampleData.xlsx", "excel/small.xlsx", "excel/large.xlsx")) {
+            CreditTerms expected;
+            try (InputStream in = getClass().getClassLoader().getResourceAsStream(file)) {
+                expected = ExcelCreditTermsReader.read(in);
+            }
+            try (InputStream in = getClass().getClassLoader().getResourceAsStream(file);
+                 Stream<CreditTerms> loans = ExcelLoanBookReader.stream(in)) {
+                assertEquals(List.of(expected), loans.toList(), file);
+            }
+        }
+    }
+
+    @Test
+    public void readsEveryRowOfABook() throws Exception {
+        String[][] rows = new String[50][];
+        List<CreditTerms> expected = new ArrayList<>();
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = new String[] {String.valueOf(100_000 + 1_000 * i), String.valueOf(12 + i), "8." + i % 10,
+                String.format("%02d.%02d.2024", 1 + i % 28, 1 + i % 12), String.valueOf(1 + i % 31)};
+            expected.add(new CreditTerms(new BigDecimal(rows[i][0]), 12 + i, new BigDecimal(rows[i][2]),
+                new InterestPeriod(1 + i % 31), LocalDate.of(2024, 1 + i % 12, 1 + i % 28)));
+        }
+        Path file = writeBook(rows);
+        try (Stream<CreditTerms> loans = ExcelLoanBookReader.stream(file, 4)) {
+            assertEquals(expected, loans.toList());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void malformedRowFailsWithItsNumber() throws Exception {
+        String[] good = {"1000000", "12", "10", "01.01.2024", "15"};
+        for (String[] bad : List.of(
+                new String[] {"много", "12", "10", "01.01.2024", "15"},
+                new String[] {"1000000", "12", "10", "01.01.2024", "40"})) {
+            Path file = writeBook(new String[][] {good, good, bad, good});
+            try (Stream<CreditTerms> loans = ExcelLoanBookReader.stream(file, 4)) {
+                RuntimeException error = assertThrows(RuntimeException.class, loans::toList);
+                InvalidFormatException cause = assertInstanceOf(InvalidFormatException.class, error.getCause());
+                assertTrue(cause.getMessage().startsWith("Строка 4: "), cause.getMessage());
+            } finally {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    @Test
+    public void abandonedStreamStopsItsReader() throws Exception {
+        String[][] rows = new String[10][];
+        Arrays.fill(rows, new String[] {"1000000", "12", "10", "01.01.2024", "15"});
+        Path file = writeBook(rows);
+        try {
+
+            Set<Thread> before = readerThreads();
+            Iterator<CreditTerms> loans = ExcelLoanBookReader.stream(file, 1).iterator();
+            assertNotNull(loans.next());
+            Set<Thread> started = readerThreads();
+            started.removeAll(before);
+            assertEquals(1, started.size());
+            Thread reader = started.iterator().next();
+            loans = null;
+
+            for (int i = 0; i < 100 && reader.isAlive(); i++) {
+                System.gc();
+                reader.join(100);
+            }
+            assertFalse(reader.isAlive());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static Path writeBook(String[][] rows) throws Exception {
+        Path file = Files.createTempFile("loan-book", ".xlsx");
+        try (XSSFWorkbook workbook = new XSSFWorkbook(); OutputStream out = Files.newOutputStream(file)) {
+            Sheet sheet = workbook.createSheet("Кредиты");
+            Row header = sheet.createRow(0);
+            String[] headers = {"сумма", "срок", "ставка", "дата выдачи", "платеж"};
+            for (int i = 0; i < headers.length; i++) {
+                header.createCell(i).setCellValue(headers[i]);
+            }
+            for (int r = 0; r < rows.length; r++) {
+                Row row = sheet.createRow(r + 1);
+                for (int i = 0; i < rows[r].length; i++) {
+                    row.createCell(i).setCellValue(rows[r][i]);
+                }
+            }
+            workbook.write(out);
+        }
+        return file;
+    }
+
+    private static Set<Thread> readerThreads() {
+        return Thread.getAllStackTraces().keySet().stream()
+            .filter(thread -> thread.getName().startsWith("loan-book-reader-"))
+            .collect(Collectors.toSet());
+    }
+}
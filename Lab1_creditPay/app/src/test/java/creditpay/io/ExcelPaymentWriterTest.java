@@ -0,0 +1,40 @@
+package creditpay.io;
+
+import creditpay.calculator.AnnuityCalculator;
+import creditpay.model.CreditTerms;
+import creditpay.model.Payment;
+
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.usermodel.WorkbookFactory;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ExcelPaymentWriterTest {
+
+    @Test
+    public void streamingWriterRollsOverToNewSheets() throws Exception {
+        List<Payment> payments = new AnnuityCalculator().calculateSchedule(CreditTerms.sample());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        ExcelPaymentWriter.writeStreaming(payments.iterator(), out, 100);
+
+        try (Workbook wb = WorkbookFactory.create(new ByteArrayInputStream(out.toByteArray()))) {
+            assertEquals(3, wb.getNumberOfSheets());
+            Sheet last = wb.getSheetAt(2);
+            assertEquals(ExcelPaymentWriter.HEADER_NUMBER, last.getRow(0).getCell(0).getStringCellValue());
+            assertEquals(201, (int) last.getRow(2).getCell(0).getNumericCellValue());
+            assertEquals(payments.size(), (int) last.getRow(last.getLastRowNum()).getCell(0).getNumericCellValue());
+            assertEquals(payments.get(payments.size() - 1).remainingDebt.doubleValue(),
+                    last.getRow(last.getLastRowNum()).getCell(6).getNumericCellValue(), 0.005);
+            assertEquals(wb.getSheetAt(0).getRow(0).getCell(0).getCellStyle().getIndex(),
+                    last.getRow(0).getCell(0).getCellStyle().getIndex());
+            assertEquals(4, wb.getNumCellStyles());
+        }
+    }
+}
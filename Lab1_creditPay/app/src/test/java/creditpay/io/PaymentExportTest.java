@@ -0,0 +1,127 @@
+package creditpay.io;
+
+import creditpay.calculator.AtTheLastMomentCalculator;
+import creditpay.calculator.DifferentiatedCalculator;
+import creditpay.model.CreditTerms;
+import creditpay.model.PaymentSchedule;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PaymentExportTest {
+
+    @Test
+    public void csvRowsMatchSchedule() throws Exception {
+        CreditTerms terms = CreditTerms.sample();
+        PaymentSchedule schedule = new DifferentiatedCalculator().calculatePaymentSchedule(terms);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        try (CsvPaymentWriter writer = new CsvPaymentWriter(Channels.newChannel(out))) {
+            new DifferentiatedCalculator().calculateFixedPointSchedule(terms, writer);
+        }
+
+        String[] lines = out.toString(StandardCharsets.US_ASCII).split("\n");
+        assertEquals(CsvPaymentWriter.HEADER.trim(), lines[0]);
+        assertEquals(schedule.size() + 1, lines.length);
+        for (int i = 0; i < schedule.size(); i++) {
+            String expected = (i + 1) + "," + schedule.daysOfBorrowing(i) + "," + schedule.paymentDate(i)
+                + "," + BigDecimal.valueOf(schedule.totalPayment(i), 2)
+                + "," + BigDecimal.valueOf(schedule.interest(i), 2)
+                + "," + BigDecimal.valueOf(schedule.principalRepaid(i), 2)
+                + "," + BigDecimal.valueOf(schedule.remainingDebt(i), 2);
+            assertEquals(expected, lines[i + 1]);
+        }
+    }
+
+    @Test
+    public void csvLoanColumnPrefixesEveryRow() throws Exception {
+        PaymentSchedule schedule = new DifferentiatedCalculator().calculatePaymentSchedule(CreditTerms.sample());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        try (CsvPaymentWriter writer = new CsvPaymentWriter(Channels.newChannel(out), true)) {
+            writer.write(12, schedule);
+            writer.write(3, schedule);
+        }
+
+        String[] lines = out.toString(StandardCharsets.US_ASCII).split("\n");
+        assertEquals(CsvPaymentWriter.LOAN_HEADER.trim(), lines[0]);
+        assertEquals(2 * schedule.size() + 1, lines.length);
+        assertTrue(lines[1].startsWith("12,1,"), lines[1]);
+        assertTrue(lines[schedule.size() + 1].startsWith("3,1,"), lines[schedule.size() + 1]);
+        try (CsvPaymentWriter plain = new CsvPaymentWriter(Channels.newChannel(new ByteArrayOutputStream()))) {
+            assertThrows(IllegalStateException.class, () -> plain.setLoanNumber(1));
+        }
+    }
+
+    @Test
+    public void binaryFormatRoundTrips() throws Exception {
+        CreditTerms terms = CreditTerms.sample();
+        PaymentSchedule first = new DifferentiatedCalculator().calculatePaymentSchedule(terms);
+        PaymentSchedule second = new AtTheLastMomentCalculator().calculatePaymentSchedule(terms);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        try (BinaryPaymentWriter writer = new BinaryPaymentWriter(Channels.newChannel(out))) {
+            writer.write(first);
+            writer.write(5, second);
+        }
+        List<PaymentSchedule> read = BinaryPaymentReader.readAll(
+            Channels.newChannel(new ByteArrayInputStream(out.toByteArray())));
+        List<Integer> loanNumbers = new ArrayList<>();
+        BinaryPaymentReader.read(Channels.newChannel(new ByteArrayInputStream(out.toByteArray())),
+            (schedule, loanNumber) -> loanNumbers.add(loanNumber));
+
+        assertEquals(2, read.size());
+        assertEquals(List.of(0, 5), loanNumbers);
+        assertEquals(2 * Integer.BYTES + 2 * (2 * Integer.BYTES + first.size() * (long) PaymentSchedule.BYTES_PER_ROW),
+            out.size());
+        for (int s = 0; s < 2; s++) {
+            PaymentSchedule expected = s == 0 ? first : second;
+            PaymentSchedule actual = read.get(s);
+            assertEquals(expected.size(), actual.size());
+            for (int i = 0; i < expected.size(); i++) {
+                assertEquals(expected.paymentEpochDay(i), actual.paymentEpochDay(i));
+                assertEquals(expected.daysOfBorrowing(i), actual.daysOfBorrowing(i));
+                assertEquals(expected.totalPayment(i), actual.totalPayment(i));
+                assertEquals(expected.interest(i), actual.interest(i));
+                assertEquals(expected.principalRepaid(i), actual.principalRepaid(i));
+                assertEquals(expected.remainingDebt(i), actual.remainingDebt(i));
+            }
+        }
+    }
+
+    @Test
+    public void corruptedBlockSizeIsRejected() throws Exception {
+        PaymentSchedule schedule = new DifferentiatedCalculator().calculatePaymentSchedule(CreditTerms.sample());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (BinaryPaymentWriter writer = new BinaryPaymentWriter(Channels.newChannel(out))) {
+            writer.write(schedule);
+        }
+        byte[] bytes = out.toByteArray();
+        ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).putInt(2 * Integer.BYTES, Integer.MAX_VALUE);
+
+        Path file = Files.createTempFile("schedules", ".bin");
+        try {
+            Files.write(file, bytes);
+            IOException error = assertThrows(IOException.class, () -> BinaryPaymentReader.readAll(file));
+            assertTrue(error.getMessage().contains(Integer.MAX_VALUE + " rows"), error.getMessage());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+        assertThrows(IOException.class,
+            () -> BinaryPaymentReader.readAll(Channels.newChannel(new ByteArrayInputStream(bytes))));
+    }
+}
@@ -0,0 +1,48 @@
+package creditpay.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void percentilesAreWithinOneSubBucket() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long nanos = 1; nanos <= 1_000_000; nanos++) {
+            histogram.record(nanos * 1000);
+        }
+
+        assertEquals(1_000_000, histogram.getCount());
+        assertEquals(1_000_000_000L, histogram.getMaxNanos());
+        assertEquals(500_000_500.0, histogram.getMeanNanos(), 1e-3);
+        for (double percentile : new double[] {50, 90, 99}) {
+            double exact = percentile / 100 * 1_000_000_000L;
+            long estimate = histogram.percentileNanos(percentile);
+            assertTrue(estimate >= exact && estimate <= exact * (1 + 1.0 / LatencyHistogram.SUB_BUCKETS),
+                percentile + ": " + estimate);
+        }
+    }
+
+    @Test
+    public void bucketBoundsCoverEveryValue() {
+        for (long value : new long[] {0, 1, 15, 16, 17, 31, 32, 1000, 123_456_789, Long.MAX_VALUE}) {
+            int index = LatencyHistogram.bucketIndex(value);
+            assertTrue(LatencyHistogram.bucketUpperBound(index) >= value, Long.toString(value));
+            if (index > 0) {
+                assertTrue(LatencyHistogram.bucketUpperBound(index - 1) < value, Long.toString(value));
+            }
+        }
+    }
+
+    @Test
+    public void resetClearsEverything() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(42);
+        histogram.reset();
+
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMaxNanos());
+        assertEquals(0, histogram.percentileNanos(99));
+    }
+}
@@ -0,0 +1,144 @@
+package creditpay.metrics;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Iterator;
+import java.util.List;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+
+import creditpay.calculator.AnnuityCalculator;
+import creditpay.calculator.DifferentiatedCalculator;
+import creditpay.calculator.MortgageScheduleCalculator;
+import creditpay.model.CreditTerms;
+import creditpay.model.InterestPeriod;
+import creditpay.model.Payment;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PipelineMetricsTest {
+    private static final CreditTerms _terms = new CreditTerms(new BigDecimal("1000000"), 24,
+        new BigDecimal("12"), new InterestPeriod(15), LocalDate.of(2024, 1, 10));
+
+    @Test
+    public void calculationsAreCountedPerMode() {
+        PipelineMetrics metrics = PipelineMetrics.getInstance();
+        long schedules = metrics.getSchedulesCalculated();
+        long rows = metrics.getRowsCalculated();
+
+        new AnnuityCalculator().calculateSchedule(_terms);
+        new DifferentiatedCalculator().calculatePaymentSchedule(_terms);
+
+        // другие тесты могут считать параллельно, поэтому не меньше, а не равно
+        assertTrue(metrics.getSchedulesCalculated() - schedules >= 2);
+        assertTrue(metrics.getRowsCalculated() - rows >= 48);
+        LatencySnapshot latency = metrics.getCalculationLatency();
+        assertTrue(latency.getCount() >= 2);
+        assertTrue(latency.getMaxMillis() >= latency.getP50Millis());
+    }
+
+    @Test
+    public void calculationsAreRecordedByFlightRecorder() throws Exception {
+        Path file = Files.createTempFile("pipeline", ".jfr");
+        try {
+            try (Recording recording = new Recording()) {
+                recording.enable("creditpay.ScheduleCalculated");
+                recording.start();
+                new AnnuityCalculator().calculateSchedule(_terms);
+                new AnnuityCalculator().calculatePaymentSchedule(_terms);
+                recording.stop();
+                recording.dump(file);
+            }
+
+            List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+            assertTrue(events.stream().anyMatch(e -> "Annuity".equals(e.getString("calculator"))
+                && PipelineMetrics.BIG_DECIMAL_MODE.equals(e.getString("mode")) && e.getInt("rows") == 24));
+            assertTrue(events.stream().anyMatch(e -> PipelineMetrics.FIXED_POINT_MODE.equals(e.getString("mode"))
+                && e.getBoolean("succeeded")));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void everyFixedPointPathIsRecordedOnce() throws Exception {
+        MortgageScheduleCalculator plugin = new MortgageScheduleCalculator() {
+            @Override
+            public String getDisplayName() {
+                return "Plugin";
+            }
+
+            @Override
+            protected List<Payment> computeSchedule(CreditTerms terms) {
+                return collectSchedule(terms);
+            }
+
+            @Override
+            public Iterator<Payment> iterateSchedule(CreditTerms terms) {
+                return new DifferentiatedCalculator().iterateSchedule(terms);
+            }
+        };
+        Path file = Files.createTempFile("pipeline", ".jfr");
+        try {
+            try (Recording recording = new Recording()) {
+                recording.enable("creditpay.ScheduleCalculated");
+                recording.start();
+                new DifferentiatedCalculator().calculateFixedPointSchedule(_terms,
+                    (index, days, epochDay, total, interest, principal, remaining) -> { });
+                plugin.calculatePaymentSchedule(_terms);
+                recording.stop();
+                recording.dump(file);
+            }
+
+            List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+            assertEquals(1, events.stream().filter(e -> "Differentiated".equals(e.getString("calculator"))
+                && PipelineMetrics.FIXED_POINT_MODE.equals(e.getString("mode")) && e.getInt("rows") == 24).count());
+            List<RecordedEvent> pluginEvents = events.stream()
+                .filter(e -> "Plugin".equals(e.getString("calculator"))).toList();
+            assertEquals(1, pluginEvents.size());
+            assertEquals(PipelineMetrics.FIXED_POINT_MODE, pluginEvents.get(0).getString("mode"));
+            assertEquals(24, pluginEvents.get(0).getInt("rows"));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void bigDecimalScheduleIsRecordedForCalculatorsWithoutIterator() throws Exception {
+        // плагин строит список сам и не вызывает collectSchedule
+        MortgageScheduleCalculator plugin = new MortgageScheduleCalculator() {
+            @Override
+            public String getDisplayName() {
+                return "Plugin";
+            }
+
+            @Override
+            protected List<Payment> computeSchedule(CreditTerms terms) {
+                return List.copyOf(new AnnuityCalculator().calculateSchedule(terms));
+            }
+        };
+        Path file = Files.createTempFile("pipeline", ".jfr");
+        try {
+            try (Recording recording = new Recording()) {
+                recording.enable("creditpay.ScheduleCalculated");
+                recording.start();
+                plugin.calculateSchedule(_terms);
+                recording.stop();
+                recording.dump(file);
+            }
+
+            List<RecordedEvent> pluginEvents = RecordingFile.readAllEvents(file).stream()
+                .filter(e -> "Plugin".equals(e.getString("calculator"))).toList();
+            assertEquals(1, pluginEvents.size());
+            assertEquals(PipelineMetrics.BIG_DECIMAL_MODE, pluginEvents.get(0).getString("mode"));
+            assertEquals(24, pluginEvents.get(0).getInt("rows"));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
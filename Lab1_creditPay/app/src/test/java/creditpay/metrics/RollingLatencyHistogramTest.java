@@ -0,0 +1,71 @@
+package creditpay.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RollingLatencyHistogramTest {
+
+    @Test
+    public void oldSamplesLeaveTheWindow() {
+        AtomicLong clock = new AtomicLong(1_000);
+        RollingLatencyHistogram histogram = new RollingLatencyHistogram(60, TimeUnit.SECONDS, clock::get);
+        long slot = TimeUnit.SECONDS.toNanos(10);
+
+        histogram.record(5_000_000);
+        clock.addAndGet(slot);
+        histogram.record(1_000_000);
+        histogram.record(3_000_000);
+        assertEquals(3, histogram.snapshot().getCount());
+        assertEquals(5_000_000, histogram.snapshot().getMaxNanos());
+
+        // первый интервал выходит из окна, второй еще в нем
+        clock.addAndGet(5 * slot);
+        assertEquals(2, histogram.snapshot().getCount());
+        assertEquals(3_000_000, histogram.snapshot().getMaxNanos());
+
+        // запись в тот же слот после полного оборота очищает его
+        histogram.record(2_000_000);
+        clock.addAndGet(slot);
+        assertEquals(1, histogram.snapshot().getCount());
+        assertEquals(2_000_000, histogram.snapshot().getMaxNanos());
+
+        clock.addAndGet(6 * slot);
+        assertEquals(0, histogram.snapshot().getCount());
+    }
+
+    @Test
+    public void resetClearsTheWindow() {
+        AtomicLong clock = new AtomicLong(1_000);
+        RollingLatencyHistogram histogram = new RollingLatencyHistogram(60, TimeUnit.SECONDS, clock::get);
+        histogram.record(5_000_000);
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        histogram.record(1_000_000);
+
+        histogram.reset();
+        assertEquals(0, histogram.snapshot().getCount());
+
+        histogram.record(2_000_000);
+        assertEquals(1, histogram.snapshot().getCount());
+        assertEquals(2_000_000, histogram.snapshot().getMaxNanos());
+    }
+
+    @Test
+    public void addMergesHistograms() {
+        LatencyHistogram a = new LatencyHistogram();
+        LatencyHistogram b = new LatencyHistogram();
+        a.record(100);
+        b.record(300);
+        b.record(200);
+
+        a.add(b);
+
+        assertEquals(3, a.getCount());
+        assertEquals(300, a.getMaxNanos());
+        assertEquals(200.0, a.getMeanNanos(), 1e-9);
+        assertEquals(b.percentileNanos(50), a.percentileNanos(50));
+    }
+}
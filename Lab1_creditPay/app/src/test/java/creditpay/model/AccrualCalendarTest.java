@@ -0,0 +1,71 @@
+package creditpay.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AccrualCalendarTest {
+
+    @Test
+    public void paymentDayIsKeptAfterShortMonths() {
+        InterestPeriod period = new InterestPeriod(31);
+        AccrualCalendar calendar = AccrualCalendar.of(LocalDate.of(2024, 1, 15), period, 4);
+
+        assertEquals(LocalDate.of(2024, 2, 29), calendar.paymentDate(0));
+        assertEquals(LocalDate.of(2024, 3, 31), calendar.paymentDate(1));
+        assertEquals(LocalDate.of(2024, 4, 30), calendar.paymentDate(2));
+        assertEquals(LocalDate.of(2024, 5, 31), calendar.paymentDate(3));
+        assertEquals(45, calendar.periodDays(0));
+        assertEquals(31, calendar.periodDays(1));
+        assertEquals(45 + 31 + 30 + 31, calendar.daysOfBorrowing(3));
+    }
+
+    @Test
+    public void calendarMatchesInterestPeriod() {
+        InterestPeriod period = new InterestPeriod(26);
+        LocalDate start = LocalDate.of(2022, 9, 22);
+        AccrualCalendar calendar = AccrualCalendar.of(start, period, 276);
+
+        LocalDate previous = start;
+        for (int i = 0; i < calendar.size(); i++) {
+            LocalDate next = period.nextAccrualDate(previous);
+            assertEquals(next, calendar.paymentDate(i));
+            assertEquals(period.accrualDate(start, i + 1), calendar.paymentDate(i));
+            assertEquals(next.toEpochDay() - previous.toEpochDay(), calendar.periodDays(i));
+            previous = next;
+        }
+    }
+
+    @Test
+    public void equalCalendarsAreShared() {
+        LocalDate start = LocalDate.of(2024, 1, 31);
+        AccrualCalendar calendar = AccrualCalendar.of(start, new InterestPeriod(5), 120);
+
+        assertSame(calendar, AccrualCalendar.of(LocalDate.of(2024, 1, 31), new InterestPeriod(5), 120));
+        assertNotSame(calendar, AccrualCalendar.of(start, new InterestPeriod(5), 60));
+        assertNotSame(calendar, AccrualCalendar.of(start, new InterestPeriod(6), 120));
+    }
+
+    @Test
+    public void overflowEvictsLeastRecentlyUsed() {
+        LocalDate start = LocalDate.of(2024, 1, 31);
+        InterestPeriod period = new InterestPeriod(5);
+        AccrualCalendar.clearCache();
+        AccrualCalendar kept = AccrualCalendar.of(start, period, 1);
+        for (int i = 1; i < 4096; i++) {
+            AccrualCalendar.of(start.plusDays(i), period, 1);
+        }
+        assertEquals(4096, AccrualCalendar.cachedCount());
+
+        assertSame(kept, AccrualCalendar.of(start, period, 1));
+        AccrualCalendar.of(start.plusDays(4096), period, 1);
+
+        assertEquals(4096, AccrualCalendar.cachedCount());
+        assertTrue(AccrualCalendar.isCached(start, period, 1));
+        assertFalse(AccrualCalendar.isCached(start.plusDays(1), period, 1));
+        assertSame(kept, AccrualCalendar.of(start, period, 1));
+        AccrualCalendar.clearCache();
+    }
+}
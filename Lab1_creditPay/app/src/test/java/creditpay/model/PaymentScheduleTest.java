@@ -0,0 +1,54 @@
+package creditpay.model;
+
+import creditpay.calculator.AnnuityCalculator;
+import creditpay.calculator.MortgageScheduleCalculator;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PaymentScheduleTest {
+
+    @Test
+    public void columnarScheduleFollowsCalculator() {
+        MortgageScheduleCalculator calculator = new AnnuityCalculator();
+        CreditTerms terms = CreditTerms.sample();
+        List<Payment> expected = calculator.calculateSchedule(terms);
+
+        PaymentSchedule schedule = calculator.calculatePaymentSchedule(terms);
+
+        assertEquals(expected.size(), schedule.size());
+        assertEquals(expected.size() * (long) PaymentSchedule.BYTES_PER_ROW, schedule.footprintBytes());
+        PaymentSchedule.Row row = schedule.row(0);
+        for (int i = 0; i < schedule.size(); i++) {
+            row.moveTo(i);
+            Payment payment = expected.get(i);
+            assertEquals(payment.paymentDate, schedule.paymentDate(i));
+            assertEquals(payment.daysOfBorrowing, row.daysOfBorrowing());
+            long expectedInterest = Kopecks.of(payment.interest);
+            assertTrue(Math.abs(expectedInterest - row.interest()) <= 1,
+                "row " + i + ": expected " + expectedInterest + " ± 1 kopeck but was " + row.interest());
+        }
+    }
+
+    @Test
+    public void convertsPaymentsToKopecks() {
+        Payment payment = new Payment(30, LocalDate.of(2024, 2, 1),
+                new BigDecimal("100.005"), new BigDecimal("10"), new BigDecimal("90.005"), new BigDecimal("0.004"));
+
+        PaymentSchedule schedule = PaymentSchedule.of(List.of(payment, payment));
+
+        assertEquals(2, schedule.size());
+        assertEquals(10001, schedule.totalPayment(1));
+        assertEquals(1000, schedule.interest(1));
+        assertEquals(9001, schedule.principalRepaid(1));
+        assertEquals(0, schedule.remainingDebt(1));
+        assertEquals(LocalDate.of(2024, 2, 1).toEpochDay(), schedule.paymentEpochDay(0));
+        assertEquals(0, new BigDecimal("100.01").compareTo(schedule.toPayment(0).totalPayment));
+        assertThrows(IndexOutOfBoundsException.class, () -> schedule.row(2));
+    }
+}
@@ -0,0 +1,98 @@
+package creditpay.portfolio;
+
+import creditpay.calculator.AnnuityCalculator;
+import creditpay.calculator.DifferentiatedCalculator;
+import creditpay.calculator.MortgageScheduleCalculator;
+import creditpay.model.CreditTerms;
+import creditpay.model.InterestPeriod;
+import creditpay.model.PaymentSchedule;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CashFlowProjectionTest {
+
+    @Test
+    public void monthlyTotalsMatchTheSchedules() {
+        List<CreditTerms> loans = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            loans.add(new CreditTerms(BigDecimal.valueOf(100_000 + 1_000L * i), 12 + i % 120,
+                    new BigDecimal("8.5"), new InterestPeriod(1 + i % 28), LocalDate.of(2024, 1 + i % 12, 1 + i % 28)));
+        }
+        assertMatchesSchedules(loans, new DifferentiatedCalculator());
+    }
+
+    @Test
+    public void loansSpreadOverDecadesGrowTheMonthWindow() {
+        List<CreditTerms> loans = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            loans.add(new CreditTerms(BigDecimal.valueOf(100_000 + 1_000L * i), 12 + i % 120,
+                    new BigDecimal("8.5"), new InterestPeriod(1 + i % 28), LocalDate.of(1950 + i * 37 % 150, 1 + i % 12, 1 + i % 28)));
+        }
+        assertMatchesSchedules(loans, new AnnuityCalculator());
+    }
+
+    @Test
+    public void streamAndCollectionGiveTheSameProjection() {
+        List<CreditTerms> loans = List.of(CreditTerms.sample(), CreditTerms.sample(),
+                new CreditTerms(new BigDecimal("250000"), 24, new BigDecimal("12"), new InterestPeriod(5), LocalDate.of(2025, 6, 1)));
+        CashFlowProjection projection = new CashFlowProjection();
+
+        CashFlowProjection.CashFlow fromList = projection.project(loans, new AnnuityCalculator());
+        CashFlowProjection.CashFlow fromStream = projection.project(loans.stream(), new AnnuityCalculator());
+
+        assertEquals(fromList.months(), fromStream.months());
+        assertEquals(fromList.month(0), fromStream.month(0));
+        for (int i = 0; i < fromList.months(); i++) {
+            assertEquals(fromList.total(i), fromStream.total(i));
+            assertEquals(fromList.payments(i), fromStream.payments(i));
+        }
+        assertEquals(0, new CashFlowProjection().project(List.of(), new AnnuityCalculator()).months());
+    }
+
+    private static void assertMatchesSchedules(List<CreditTerms> loans, MortgageScheduleCalculator calculator) {
+        Map<YearMonth, long[]> expected = new HashMap<>();
+        long expectedPayments = 0;
+        for (CreditTerms terms : loans) {
+            PaymentSchedule schedule = calculator.calculatePaymentSchedule(terms);
+            expectedPayments += schedule.size();
+            for (int i = 0; i < schedule.size(); i++) {
+                long[] sums = expected.computeIfAbsent(YearMonth.from(schedule.paymentDate(i)), month -> new long[2]);
+                sums[0] += schedule.interest(i);
+                sums[1] += schedule.principalRepaid(i);
+            }
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            CashFlowProjection.CashFlow cashFlow =
+                new CashFlowProjection(new PortfolioScheduleEngine(pool, 8)).project(loans, calculator);
+
+            assertEquals(loans.size(), cashFlow.getStats().getLoans());
+            assertEquals(expectedPayments, cashFlow.getStats().getPayments());
+            assertEquals(Collections.min(expected.keySet()), cashFlow.month(0));
+            assertEquals(Collections.max(expected.keySet()), cashFlow.month(cashFlow.months() - 1));
+            long principal = 0;
+            for (int i = 0; i < cashFlow.months(); i++) {
+                long[] sums = expected.getOrDefault(cashFlow.month(i), new long[2]);
+                assertEquals(sums[0], cashFlow.interest(i), cashFlow.month(i).toString());
+                assertEquals(sums[1], cashFlow.principal(i), cashFlow.month(i).toString());
+                principal += cashFlow.principal(i);
+            }
+            assertEquals(principal, cashFlow.totalPrincipal());
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
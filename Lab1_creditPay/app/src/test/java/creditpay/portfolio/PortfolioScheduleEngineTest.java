@@ -0,0 +1,94 @@
+package creditpay.portfolio;
+
+import creditpay.calculator.AnnuityCalculator;
+import creditpay.calculator.MortgageScheduleCalculator;
+import creditpay.model.CreditTerms;
+import creditpay.model.InterestPeriod;
+import creditpay.model.Payment;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PortfolioScheduleEngineTest {
+    private static List<CreditTerms> loans() {
+        List<CreditTerms> loans = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            loans.add(new CreditTerms(BigDecimal.valueOf(200_000 + 1_000L * i), 6 + i % 60,
+                new BigDecimal("9.5"), new InterestPeriod(1 + i % 28), LocalDate.of(2024, 1 + i % 12, 1 + i % 28)));
+        }
+        return loans;
+    }
+
+    @Test
+    public void collectionAndStreamRunsDeliverEveryScheduleOnce() {
+        List<CreditTerms> loans = loans();
+        MortgageScheduleCalculator calculator = new AnnuityCalculator();
+        long expectedPayments = 0;
+        for (CreditTerms terms : loans) {
+            expectedPayments += calculator.calculateSchedule(terms).size();
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            PortfolioScheduleEngine engine = new PortfolioScheduleEngine(pool, 8);
+            for (boolean stream : new boolean[] {false, true}) {
+                Map<CreditTerms, List<List<Payment>>> delivered = new ConcurrentHashMap<>();
+                PortfolioRunStats stats = stream
+                    ? engine.run(loans.stream(), calculator, (terms, schedule) -> add(delivered, terms, schedule))
+                    : engine.run(loans, calculator, (terms, schedule) -> add(delivered, terms, schedule));
+
+                assertEquals(loans.size(), delivered.size());
+                for (CreditTerms terms : loans) {
+                    List<List<Payment>> schedules = delivered.get(terms);
+                    assertEquals(1, schedules.size(), terms.toString());
+                    List<Payment> expected = calculator.calculateSchedule(terms);
+                    List<Payment> actual = schedules.get(0);
+                    assertEquals(expected.size(), actual.size());
+                    for (int i = 0; i < expected.size(); i++) {
+                        assertEquals(0, expected.get(i).totalPayment.compareTo(actual.get(i).totalPayment));
+                        assertEquals(0, expected.get(i).remainingDebt.compareTo(actual.get(i).remainingDebt));
+                    }
+                }
+                assertEquals(loans.size(), stats.getLoans());
+                assertEquals(expectedPayments, stats.getPayments());
+                assertEquals(4, stats.getParallelism());
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void sinkExceptionsPropagate() {
+        List<CreditTerms> loans = loans();
+        CreditTerms failing = loans.get(137);
+        PortfolioScheduleEngine engine = new PortfolioScheduleEngine(new ForkJoinPool(2), 4);
+
+        IllegalStateException error = assertThrows(IllegalStateException.class,
+            () -> engine.run(loans, new AnnuityCalculator(), (terms, schedule) -> {
+                if (terms.equals(failing)) {
+                    throw new IllegalStateException("sink failed");
+                }
+            }));
+        assertTrue(error.getMessage().contains("sink failed"));
+        assertThrows(IllegalStateException.class,
+            () -> engine.run(loans.stream(), new AnnuityCalculator(), (terms, schedule) -> {
+                if (terms.equals(failing)) {
+                    throw new IllegalStateException("sink failed");
+                }
+            }));
+    }
+
+    private static void add(Map<CreditTerms, List<List<Payment>>> delivered, CreditTerms terms, List<Payment> schedule) {
+        delivered.computeIfAbsent(terms, key -> new ArrayList<>()).add(schedule);
+    }
+}
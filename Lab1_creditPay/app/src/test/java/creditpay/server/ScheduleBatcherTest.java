@@ -0,0 +1,103 @@
+package creditpay.server;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import creditpay.calculator.AnnuityCalculator;
+import creditpay.calculator.MortgageScheduleCalculator;
+import creditpay.model.CreditTerms;
+import creditpay.model.InterestPeriod;
+import creditpay.model.Payment;
+import creditpay.model.PaymentSchedule;
+import creditpay.portfolio.PortfolioScheduleEngine;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ScheduleBatcherTest {
+
+    @Test
+    public void queuedRequestsGetTheSameSchedulesAsDirectOnes() throws Exception {
+        AnnuityCalculator calculator = new AnnuityCalculator();
+        List<CreditTerms> loans = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            // каждый кредит дважды: повторы в пачке считаются один раз
+            loans.add(new CreditTerms(BigDecimal.valueOf(500_000 + 1_000 * (i / 2)), 60, new BigDecimal("8.9"),
+                new InterestPeriod(5), LocalDate.of(2024, 6, 5)));
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(2);
+        // без прямых расчетов: все запросы проходят через пачки
+        try (ScheduleBatcher batcher = new ScheduleBatcher(new PortfolioScheduleEngine(pool, 4), 16,
+                TimeUnit.MILLISECONDS.toNanos(20), 0)) {
+            ExecutorService clients = Executors.newFixedThreadPool(loans.size());
+            try {
+                CountDownLatch ready = new CountDownLatch(loans.size());
+                List<Future<PaymentSchedule>> results = new ArrayList<>();
+                for (CreditTerms terms : loans) {
+                    results.add(clients.submit(() -> {
+                        ready.countDown();
+                        ready.await();
+                        return batcher.calculate(calculator, terms);
+                    }));
+                }
+                for (int i = 0; i < loans.size(); i++) {
+                    PaymentSchedule expected = calculator.calculatePaymentSchedule(loans.get(i));
+                    PaymentSchedule actual = results.get(i).get(30, TimeUnit.SECONDS);
+                    assertEquals(expected.size(), actual.size());
+                    assertEquals(expected.totalPayment(0), actual.totalPayment(0));
+                    assertEquals(expected.remainingDebt(expected.size() - 1), actual.remainingDebt(actual.size() - 1));
+                }
+            } finally {
+                clients.shutdownNow();
+            }
+            assertEquals(0, batcher.getDirectRequests());
+            assertEquals(loans.size(), batcher.getBatchedRequests());
+            assertTrue(batcher.getBatches() < loans.size(), "batches: " + batcher.getBatches());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void crashedCalculationFailsItsRequestsAndTheCollectorKeepsWorking() throws Exception {
+        MortgageScheduleCalculator crashing = new MortgageScheduleCalculator() {
+            @Override
+            public String getDisplayName() {
+                return "Crashing";
+            }
+
+            @Override
+            protected List<Payment> computeSchedule(CreditTerms terms) {
+                throw new AssertionError("calculator crashed");
+            }
+        };
+        AnnuityCalculator calculator = new AnnuityCalculator();
+        CreditTerms terms = new CreditTerms(new BigDecimal("500000"), 60, new BigDecimal("8.9"),
+            new InterestPeriod(5), LocalDate.of(2024, 6, 5));
+
+        ForkJoinPool pool = new ForkJoinPool(2);
+        ExecutorService clients = Executors.newSingleThreadExecutor();
+        try (ScheduleBatcher batcher = new ScheduleBatcher(new PortfolioScheduleEngine(pool, 4), 16, 0, 0)) {
+            Future<PaymentSchedule> failed = clients.submit(() -> batcher.calculate(crashing, terms));
+            ExecutionException error = assertThrows(ExecutionException.class, () -> failed.get(30, TimeUnit.SECONDS));
+            assertInstanceOf(AssertionError.class, error.getCause());
+
+            Future<PaymentSchedule> next = clients.submit(() -> batcher.calculate(calculator, terms));
+            assertEquals(60, next.get(30, TimeUnit.SECONDS).size());
+        } finally {
+            clients.shutdownNow();
+            pool.shutdown();
+        }
+    }
+}
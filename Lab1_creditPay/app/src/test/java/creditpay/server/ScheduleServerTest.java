@@ -0,0 +1,116 @@
+package creditpay.server;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import creditpay.calculator.AnnuityCalculator;
+import creditpay.calculator.DifferentiatedCalculator;
+import creditpay.calculator.MortgageScheduleCalculator;
+import creditpay.model.CreditTerms;
+import creditpay.model.InterestPeriod;
+import creditpay.model.Payment;
+import creditpay.model.PaymentSchedule;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ScheduleServerTest {
+    private static final List<MortgageScheduleCalculator> _calculators =
+        List.of(new AnnuityCalculator(), new DifferentiatedCalculator());
+
+    private static HttpResponse<String> send(HttpClient client, HttpRequest request) throws Exception {
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    @Test
+    public void servesSchedulesAsJson() throws Exception {
+        CreditTerms terms = new CreditTerms(new BigDecimal("1200000"), 36, new BigDecimal("10.5"),
+            new InterestPeriod(15), LocalDate.of(2024, 1, 10));
+        PaymentSchedule expected = new DifferentiatedCalculator().calculatePaymentSchedule(terms);
+
+        try (ScheduleServer server = ScheduleServer.start(new ServerOptions(0, 8, 100, 1), _calculators)) {
+            URI base = URI.create("http://localhost:" + server.getPort());
+            HttpClient client = HttpClient.newHttpClient();
+
+            HttpResponse<String> get = send(client, HttpRequest.newBuilder(base.resolve(ScheduleServer.SCHEDULE_PATH
+                + "?principal=1200000&termMonths=36&annualRatePercent=10.5&paymentDay=15&startDate=2024-01-10"
+                + "&method=differentiated")).build());
+            assertEquals(200, get.statusCode());
+            assertTrue(get.body().startsWith("{\"method\":\"Differentiated\",\"payments\":36,"));
+            StringBuilder lastRemaining = new StringBuilder("\"remaining\":");
+            ScheduleJson.amount(lastRemaining, expected.remainingDebt(35));
+            assertTrue(get.body().endsWith(lastRemaining + "}]}"));
+
+            HttpResponse<String> post = send(client, HttpRequest.newBuilder(base.resolve(ScheduleServer.SCHEDULE_PATH))
+                .POST(HttpRequest.BodyPublishers.ofString("{\"principal\": 1200000, \"termMonths\": 36,"
+                    + " \"annualRatePercent\": \"10.5\", \"paymentDay\": 15, \"startDate\": \"2024-01-10\","
+                    + " \"method\": \"Differentiated\"}"))
+                .build());
+            assertEquals(get.body(), post.body());
+
+            HttpResponse<String> bad = send(client, HttpRequest.newBuilder(base.resolve(ScheduleServer.SCHEDULE_PATH
+                + "?principal=-1&termMonths=36&annualRatePercent=10.5&paymentDay=15&startDate=2024-01-10")).build());
+            assertEquals(400, bad.statusCode());
+            assertEquals("{\"error\":\"principal must be positive\"}", bad.body());
+
+            HttpResponse<String> interestFree = send(client, HttpRequest.newBuilder(base.resolve(
+                ScheduleServer.SCHEDULE_PATH + "?principal=1200000&termMonths=36&annualRatePercent=0&paymentDay=15"
+                + "&startDate=2024-01-10&method=annuity")).build());
+            assertEquals(200, interestFree.statusCode());
+            assertTrue(interestFree.body().startsWith("{\"method\":\"Annuity\",\"payments\":36,"));
+
+            HttpResponse<String> names = send(client,
+                HttpRequest.newBuilder(base.resolve(ScheduleServer.CALCULATORS_PATH)).build());
+            assertEquals("[\"Annuity\",\"Differentiated\"]", names.body());
+        }
+    }
+
+    @Test
+    public void parsesFlatJsonOnly() {
+        Map<String, String> fields = ScheduleJson.parseObject(" {\"a\": \"x\\\"y\", \"b\" : 12.5, \"c\":true} ");
+        assertEquals(Map.of("a", "x\"y", "b", "12.5", "c", "true"), fields);
+        assertThrows(IllegalArgumentException.class, () -> ScheduleJson.parseObject("{\"a\": {\"b\": 1}}"));
+        assertThrows(IllegalArgumentException.class, () -> ScheduleJson.parseObject("{\"a\": 1"));
+    }
+
+    @Test
+    public void failuresAlwaysGetAResponse() throws Exception {
+        MortgageScheduleCalculator broken = new MortgageScheduleCalculator() {
+            @Override
+            public String getDisplayName() {
+                return "Broken";
+            }
+
+            @Override
+            protected List<Payment> computeSchedule(CreditTerms terms) {
+                throw new AssertionError("broken calculator");
+            }
+        };
+        List<MortgageScheduleCalculator> calculators = List.of(new AnnuityCalculator(), broken);
+        try (ScheduleServer server = ScheduleServer.start(new ServerOptions(0, 8, 100, 1), calculators)) {
+            URI base = URI.create("http://localhost:" + server.getPort());
+            HttpClient client = HttpClient.newHttpClient();
+            String query = "&termMonths=36&annualRatePercent=10.5&paymentDay=15&startDate=2024-01-10";
+
+            HttpResponse<String> tooLarge = send(client, HttpRequest.newBuilder(base.resolve(
+                ScheduleServer.SCHEDULE_PATH + "?principal=1e30" + query)).build());
+            assertEquals(400, tooLarge.statusCode());
+
+            HttpResponse<String> error = send(client, HttpRequest.newBuilder(base.resolve(
+                ScheduleServer.SCHEDULE_PATH + "?principal=1200000&method=broken" + query)).build());
+            assertEquals(500, error.statusCode());
+            assertEquals("{\"error\":\"broken calculator\"}", error.body());
+
+            HttpResponse<String> stats = send(client,
+                HttpRequest.newBuilder(base.resolve(ScheduleServer.STATS_PATH)).build());
+            assertTrue(stats.body().contains("\"errors\":2,"), stats.body());
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package creditpay.store;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import creditpay.calculator.AnnuityCalculator;
+import creditpay.calculator.DifferentiatedCalculator;
+import creditpay.model.CreditTerms;
+import creditpay.model.InterestPeriod;
+import creditpay.model.PaymentSchedule;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ScheduleStoreTest {
+    private static CreditTerms terms(int months) {
+        return new CreditTerms(new BigDecimal("2500000"), months, new BigDecimal("11.5"),
+            new InterestPeriod(20), LocalDate.of(2024, 3, 5));
+    }
+
+    private static void delete(Path directory) throws Exception {
+        Files.deleteIfExists(directory.resolve(ScheduleStore.DATA_FILE));
+        Files.deleteIfExists(directory.resolve(ScheduleStore.INDEX_FILE));
+        Files.deleteIfExists(directory);
+    }
+
+    private static void assertSameRows(PaymentSchedule expected, PaymentSchedule actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.paymentEpochDay(i), actual.paymentEpochDay(i));
+            assertEquals(expected.daysOfBorrowing(i), actual.daysOfBorrowing(i));
+            assertEquals(expected.totalPayment(i), actual.totalPayment(i));
+            assertEquals(expected.interest(i), actual.interest(i));
+            assertEquals(expected.principalRepaid(i), actual.principalRepaid(i));
+            assertEquals(expected.remainingDebt(i), actual.remainingDebt(i));
+        }
+    }
+
+    @Test
+    public void schedulesSurviveReopening() throws Exception {
+        Path directory = Files.createTempDirectory("schedule-store");
+        try {
+            AnnuityCalculator annuity = new AnnuityCalculator();
+            DifferentiatedCalculator differentiated = new DifferentiatedCalculator();
+            try (ScheduleStore store = ScheduleStore.open(directory)) {
+                store.put(1, annuity, terms(120));
+                store.put(2, differentiated.calculatePaymentSchedule(terms(36)));
+            }
+            assertTrue(Files.exists(directory.resolve(ScheduleStore.INDEX_FILE)));
+
+            try (ScheduleStore store = ScheduleStore.open(directory)) {
+                assertEquals(2, store.size());
+                assertSameRows(annuity.calculatePaymentSchedule(terms(120)), store.get(1));
+                assertSameRows(differentiated.calculatePaymentSchedule(terms(36)), store.get(2));
+                assertNull(store.get(3));
+
+                MappedPaymentSchedule slice = store.get(1).slice(10, 20);
+                assertEquals(10, slice.size());
+                assertEquals(store.get(1).totalPayment(10), slice.totalPayment(0));
+            }
+        } finally {
+            delete(directory);
+        }
+    }
+
+    @Test
+    public void putReplacesTheScheduleAndScanSeesLatestVersions() throws Exception {
+        Path directory = Files.createTempDirectory("schedule-store");
+        try {
+            AnnuityCalculator annuity = new AnnuityCalculator();
+            // 50 строк в сегменте: графики по 24 строки не помещаются по три
+            try (ScheduleStore store = ScheduleStore.open(directory, 50)) {
+                for (long loanId = 1; loanId <= 10; loanId++) {
+                    store.put(loanId, annuity, terms(24));
+                }
+                store.put(3, annuity, terms(12));
+
+                List<Long> scanned = new ArrayList<>();
+                store.scan(2, 6, schedule -> scanned.add(schedule.getLoanId()));
+                assertEquals(List.of(2L, 4L, 5L, 3L), scanned);
+                assertEquals(12, store.get(3).size());
+                assertThrows(IllegalArgumentException.class, () -> store.put(11, annuity, terms(60)));
+            }
+
+            try (ScheduleStore store = ScheduleStore.open(directory, 50)) {
+                assertEquals(10, store.size());
+                assertSameRows(annuity.calculatePaymentSchedule(terms(12)), store.get(3));
+                assertSameRows(annuity.calculatePaymentSchedule(terms(24)), store.get(10));
+            }
+        } finally {
+            delete(directory);
+        }
+    }
+
+    @Test
+    public void onlyFlushedSchedulesAreVisibleAfterACrash() throws Exception {
+        Path directory = Files.createTempDirectory("schedule-store");
+        Path snapshot = Files.createTempDirectory("schedule-store-crash");
+        try {
+            AnnuityCalculator annuity = new AnnuityCalculator();
+            try (ScheduleStore store = ScheduleStore.open(directory, 50)) {
+                store.put(1, annuity, terms(24));
+                store.flush();
+                store.put(2, annuity, terms(24));
+                // копия файлов в этот момент — то, что найдется на диске после сбоя
+                for (String file : List.of(ScheduleStore.DATA_FILE, ScheduleStore.INDEX_FILE)) {
+                    Files.copy(directory.resolve(file), snapshot.resolve(file), StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+
+            try (ScheduleStore store = ScheduleStore.open(snapshot, 50)) {
+                assertEquals(1, store.size());
+                assertSameRows(annuity.calculatePaymentSchedule(terms(24)), store.get(1));
+                assertNull(store.get(2));
+            }
+            try (ScheduleStore store = ScheduleStore.open(directory, 50)) {
+                assertEquals(2, store.size());
+            }
+        } finally {
+            delete(directory);
+            delete(snapshot);
+        }
+    }
+
+    @Test
+    public void segmentSizeMustMatchTheStore() throws Exception {
+        Path directory = Files.createTempDirectory("schedule-store");
+        try {
+            try (ScheduleStore store = ScheduleStore.open(directory, 50)) {
+                store.put(1, new AnnuityCalculator(), terms(24));
+            }
+            long dataBytes = Files.size(directory.resolve(ScheduleStore.DATA_FILE));
+
+            IOException error = assertThrows(IOException.class, () -> ScheduleStore.open(directory, 60));
+            assertTrue(error.getMessage().contains("50 rows per segment"), error.getMessage());
+            assertEquals(dataBytes, Files.size(directory.resolve(ScheduleStore.DATA_FILE)));
+
+            try (ScheduleStore store = ScheduleStore.open(directory, 50)) {
+                assertEquals(1, store.size());
+            }
+        } finally {
+            delete(directory);
+        }
+    }
+}